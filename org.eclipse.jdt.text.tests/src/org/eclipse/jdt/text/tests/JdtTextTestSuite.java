@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -68,6 +68,8 @@ public class JdtTextTestSuite {
 		suite.addTest(IndentActionTest.suite());
 		suite.addTest(TemplatesTestSuite.suite());
 		suite.addTest(JavaElementPrefixPatternMatcherTest.suite());
+		suite.addTest(SortedPositionListTest.suite());
+		suite.addTest(PostReconcileSchedulerTest.suite());
 		//$JUnit-END$
 
 		return suite;
@@ -0,0 +1,181 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.text.tests;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.jobs.Job;
+
+import org.eclipse.text.tests.Accessor;
+
+import org.eclipse.jface.text.IDocument;
+
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+import org.eclipse.jdt.internal.ui.text.java.IJavaReconcilingListener;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Tests how the deferred reconciling listeners of the Java editor are notified.
+ *
+ * @since 3.13
+ */
+public class PostReconcileSchedulerTest extends TestCase {
+
+	private static final String SCHEDULER_CLASS= "org.eclipse.jdt.internal.ui.javaeditor.PostReconcileScheduler";
+	private static final long TIMEOUT= 10000;
+
+	/**
+	 * Blocks in its first notification until released, and records the ASTs it is notified of.
+	 */
+	private static class BlockingListener implements IJavaReconcilingListener {
+		final CountDownLatch fEntered= new CountDownLatch(1);
+		final CountDownLatch fRelease= new CountDownLatch(1);
+		final List<CompilationUnit> fASTs= Collections.synchronizedList(new ArrayList<CompilationUnit>());
+		volatile boolean fFirstCanceled;
+
+		@Override
+		public void aboutToBeReconciled() {
+		}
+
+		@Override
+		public void reconciled(CompilationUnit ast, boolean forced, IProgressMonitor progressMonitor) {
+			fASTs.add(ast);
+			if (fEntered.getCount() == 0)
+				return;
+			fEntered.countDown();
+			try {
+				fRelease.await(TIMEOUT, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			fFirstCanceled= progressMonitor.isCanceled();
+		}
+	}
+
+	private Accessor fScheduler;
+
+	public static Test suite() {
+		return new TestSuite(PostReconcileSchedulerTest.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		fScheduler= new Accessor(SCHEDULER_CLASS, getClass().getClassLoader(), new Class[0], new Object[0]);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		fScheduler.invoke("dispose", new Object[0]);
+		waitForJob();
+	}
+
+	private void addListener(IJavaReconcilingListener listener) {
+		fScheduler.invoke("addListener", new Class[] { IJavaReconcilingListener.class }, new Object[] { listener });
+	}
+
+	private void removeListener(IJavaReconcilingListener listener) {
+		fScheduler.invoke("removeListener", new Class[] { IJavaReconcilingListener.class }, new Object[] { listener });
+	}
+
+	private void reconciled(CompilationUnit ast) {
+		fScheduler.invoke("reconciled", new Class[] { CompilationUnit.class, boolean.class, IDocument.class, IProgressMonitor.class },
+				new Object[] { ast, Boolean.FALSE, null, new NullProgressMonitor() });
+	}
+
+	private void waitForJob() throws InterruptedException {
+		Job job= (Job) fScheduler.get("fJob");
+		long deadline= System.currentTimeMillis() + TIMEOUT;
+		while (job.getState() != Job.NONE) {
+			assertTrue(System.currentTimeMillis() < deadline);
+			Thread.sleep(20);
+		}
+	}
+
+	private static void waitForNotifications(BlockingListener listener, int count) throws InterruptedException {
+		long deadline= System.currentTimeMillis() + TIMEOUT;
+		while (listener.fASTs.size() < count) {
+			assertTrue(System.currentTimeMillis() < deadline);
+			Thread.sleep(20);
+		}
+	}
+
+	private static CompilationUnit createAST() {
+		return AST.newAST(AST.JLS8).newCompilationUnit();
+	}
+
+	public void testOnlyLastReconcileNotified() throws Exception {
+		BlockingListener listener= new BlockingListener();
+		addListener(listener);
+		CompilationUnit ast1= createAST();
+		CompilationUnit ast2= createAST();
+		CompilationUnit ast3= createAST();
+
+		reconciled(ast1);
+		assertTrue(listener.fEntered.await(TIMEOUT, TimeUnit.MILLISECONDS));
+		reconciled(ast2);
+		reconciled(ast3);
+		listener.fRelease.countDown();
+
+		waitForNotifications(listener, 2);
+		waitForJob();
+		assertTrue(listener.fFirstCanceled);
+		assertEquals(Arrays.asList(ast1, ast3), listener.fASTs);
+	}
+
+	public void testRemovedListenerCanceled() throws Exception {
+		BlockingListener listener= new BlockingListener();
+		BlockingListener other= new BlockingListener();
+		other.fEntered.countDown(); // never blocks
+		addListener(listener);
+		addListener(other);
+
+		reconciled(createAST());
+		assertTrue(listener.fEntered.await(TIMEOUT, TimeUnit.MILLISECONDS));
+		// returns while the listener is still being notified
+		removeListener(listener);
+		listener.fRelease.countDown();
+
+		waitForNotifications(other, 1);
+		waitForJob();
+		assertTrue(listener.fFirstCanceled);
+
+		reconciled(createAST());
+		waitForNotifications(other, 2);
+		waitForJob();
+		assertEquals(1, listener.fASTs.size());
+	}
+
+	public void testRemovingOtherListenerDoesNotCancel() throws Exception {
+		BlockingListener listener= new BlockingListener();
+		addListener(listener);
+
+		reconciled(createAST());
+		assertTrue(listener.fEntered.await(TIMEOUT, TimeUnit.MILLISECONDS));
+		removeListener(new BlockingListener());
+		listener.fRelease.countDown();
+
+		waitForJob();
+		assertFalse(listener.fFirstCanceled);
+		assertEquals(1, listener.fASTs.size());
+	}
+}
@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.text.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.jface.text.Position;
+
+import org.eclipse.jdt.internal.ui.javaeditor.SortedPositionList;
+
+/**
+ * Tests for {@link SortedPositionList}.
+ *
+ * @since 3.13
+ */
+public class SortedPositionListTest extends TestCase {
+
+	/** More than the maximal block size of the list, so that blocks are split. */
+	private static final int MANY= 5000;
+
+	public static Test suite() {
+		return new TestSuite(SortedPositionListTest.class);
+	}
+
+	private static List<Position> getAll(SortedPositionList list) {
+		List<Position> result= new ArrayList<>();
+		list.addAllTo(result);
+		return result;
+	}
+
+	private static void assertSorted(SortedPositionList list) {
+		List<Position> positions= getAll(list);
+		assertEquals(list.size(), positions.size());
+		for (int i= 1; i < positions.size(); i++)
+			assertTrue(positions.get(i - 1).getOffset() <= positions.get(i).getOffset());
+	}
+
+	public void testInsertInOrder() throws Exception {
+		SortedPositionList list= new SortedPositionList();
+		for (int i= 0; i < MANY; i++)
+			list.add(new Position(i * 2, 1));
+
+		assertEquals(MANY, list.size());
+		assertSorted(list);
+	}
+
+	public void testInsertInReverseOrder() throws Exception {
+		SortedPositionList list= new SortedPositionList();
+		for (int i= MANY - 1; i >= 0; i--)
+			list.add(new Position(i * 2, 1));
+
+		assertEquals(MANY, list.size());
+		assertSorted(list);
+	}
+
+	public void testInsertEqualOffsets() throws Exception {
+		SortedPositionList list= new SortedPositionList();
+		Position first= new Position(10, 1);
+		Position second= new Position(10, 2);
+		list.add(first);
+		list.add(new Position(5, 1));
+		list.add(second);
+
+		List<Position> positions= getAll(list);
+		assertEquals(3, positions.size());
+		assertSame(first, positions.get(1));
+		assertSame(second, positions.get(2));
+	}
+
+	public void testRemove() throws Exception {
+		SortedPositionList list= new SortedPositionList();
+		List<Position> added= new ArrayList<>();
+		for (int i= 0; i < MANY; i++) {
+			Position position= new Position(i / 3, 1);
+			added.add(position);
+			list.add(position);
+		}
+
+		for (int i= 0; i < MANY; i+= 2)
+			assertTrue(list.remove(added.get(i)));
+
+		assertEquals(MANY / 2, list.size());
+		assertSorted(list);
+		List<Position> positions= getAll(list);
+		for (int i= 0; i < MANY; i++)
+			assertEquals(i % 2 != 0, containsIdentical(positions, added.get(i)));
+	}
+
+	private static boolean containsIdentical(List<Position> positions, Position position) {
+		for (Position each : positions) {
+			if (each == position)
+				return true;
+		}
+		return false;
+	}
+
+	public void testRemoveByIdentity() throws Exception {
+		SortedPositionList list= new SortedPositionList();
+		Position position= new Position(3, 4);
+		list.add(position);
+
+		assertFalse(list.remove(new Position(3, 4)));
+		assertEquals(1, list.size());
+		assertTrue(list.remove(position));
+		assertFalse(list.remove(position));
+		assertEquals(0, list.size());
+	}
+
+	public void testRemoveDeleted() throws Exception {
+		SortedPositionList list= new SortedPositionList();
+		List<Position> expectedDeleted= new ArrayList<>();
+		for (int i= 0; i < MANY; i++) {
+			Position position= new Position(i, 1);
+			list.add(position);
+			if (i % 7 == 0) {
+				position.delete();
+				expectedDeleted.add(position);
+			}
+		}
+
+		List<Position> deleted= new ArrayList<>();
+		list.removeDeleted(deleted);
+
+		assertEquals(expectedDeleted, deleted);
+		assertEquals(MANY - deleted.size(), list.size());
+		assertSorted(list);
+		for (Position position : getAll(list))
+			assertFalse(position.isDeleted());
+	}
+
+	public void testCollect() throws Exception {
+		SortedPositionList list= new SortedPositionList();
+		for (int i= 0; i < MANY; i++)
+			list.add(new Position(i * 10, 5));
+
+		List<Position> result= new ArrayList<>();
+		list.collect(95, 1000, result);
+
+		assertEquals(90, result.size());
+		assertEquals(100, result.get(0).getOffset());
+		assertEquals(990, result.get(result.size() - 1).getOffset());
+	}
+
+	public void testCollectIncludesStartExcludesEnd() throws Exception {
+		SortedPositionList list= new SortedPositionList();
+		for (int i= 0; i < 10; i++)
+			list.add(new Position(i * 10, 5));
+
+		List<Position> result= new ArrayList<>();
+		list.collect(20, 40, result);
+
+		assertEquals(2, result.size());
+		assertEquals(20, result.get(0).getOffset());
+		assertEquals(30, result.get(1).getOffset());
+	}
+
+	public void testCollectEmpty() throws Exception {
+		SortedPositionList list= new SortedPositionList();
+		List<Position> result= new ArrayList<>();
+		list.collect(0, 100, result);
+		assertTrue(result.isEmpty());
+
+		list.add(new Position(200, 1));
+		list.collect(0, 100, result);
+		assertTrue(result.isEmpty());
+	}
+
+	public void testClear() throws Exception {
+		SortedPositionList list= new SortedPositionList();
+		for (int i= 0; i < MANY; i++)
+			list.add(new Position(i, 1));
+
+		list.clear();
+
+		assertEquals(0, list.size());
+		assertTrue(getAll(list).isEmpty());
+	}
+}
@@ -0,0 +1,46 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.text.tests.contentassist;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Runs the Javadoc completion tests with concurrent content assist computation, where the HTML tag
+ * computer runs on the executor of the content assist processor.
+ *
+ * @since 3.13
+ */
+public class ConcurrentJavadocCompletionTest extends JavadocCompletionTest {
+
+	private static final Class<ConcurrentJavadocCompletionTest> THIS= ConcurrentJavadocCompletionTest.class;
+
+	private static final String CONCURRENT_PROPERTY= "org.eclipse.jdt.ui.codeAssistConcurrent";
+
+	public static Test suite() {
+		return setUpTest(new TestSuite(THIS, suiteName(THIS)));
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		System.setProperty(CONCURRENT_PROPERTY, "true");
+		super.setUp();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		try {
+			super.tearDown();
+		} finally {
+			System.clearProperty(CONCURRENT_PROPERTY);
+		}
+	}
+}
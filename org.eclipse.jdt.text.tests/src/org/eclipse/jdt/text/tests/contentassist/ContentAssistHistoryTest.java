@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2015 IBM Corporation and others.
+ * Copyright (c) 2005, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,6 +10,7 @@
  *******************************************************************************/
 package org.eclipse.jdt.text.tests.contentassist;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -240,6 +241,35 @@ public class ContentAssistHistoryTest extends TestCase {
 		assertEqualMap(map(LIST, list(ARRAY_LIST), COLLECTION, list(ARRAY_LIST), ITERABLE, list(ARRAY_LIST), CHAR_SEQUENCE, list(STRING)), loaded.getEntireHistory());
 	}
 
+	public void testLoadStoreFile() throws Exception {
+		ContentAssistHistory history= new ContentAssistHistory();
+
+		history.remember(fgListT, fgArrayListT);
+		history.remember(fgCollectionT, fgLinkedListT);
+		history.remember(fgCharSequenceT, fgStringT);
+
+		File file= File.createTempFile("history", ".dat");
+		try {
+			ContentAssistHistory.store(history, file);
+			ContentAssistHistory loaded= ContentAssistHistory.load(file);
+
+			assertEqualMap(map(LIST, list(ARRAY_LIST), COLLECTION, list(ARRAY_LIST, LINKED_LIST), ITERABLE, list(ARRAY_LIST, LINKED_LIST), CHAR_SEQUENCE, list(STRING)), loaded.getEntireHistory());
+		} finally {
+			file.delete();
+		}
+	}
+
+	public void testFlushRemembersPendingSelections() throws Exception {
+		ContentAssistHistory history= new ContentAssistHistory();
+
+		history.rememberInBackground(fgListT, fgArrayListT);
+		history.rememberInBackground(fgCharSequenceT, fgStringT);
+		history.flush();
+
+		assertEqualMap(map(LIST, list(ARRAY_LIST), COLLECTION, list(ARRAY_LIST), ITERABLE, list(ARRAY_LIST), CHAR_SEQUENCE, list(STRING)), history.getEntireHistory());
+		history.dispose();
+	}
+
 	private static void assertEqualMap(Map<String, List<String>> expected, Map<String, RHSHistory> actual) {
 		assertEqualMap("", expected, actual);
 	}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -48,4 +48,13 @@ public class OpenJavaContentAssistTest extends OpenQuickControlTest {
 		PerformanceMeter warmMeter= createPerformanceMeter("-warm");
 		measureOpenQuickControl(coldMeter, warmMeter);
 	}
+
+	/**
+	 * Measures filtering the proposals of an open content assist popup while typing.
+	 *
+	 * @throws Exception if something goes wrong
+	 */
+	public void testTypingInOpenPopup() throws Exception {
+		measureTypingInQuickControl(createPerformanceMeter("-typing"), "getClie");
+	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,6 +14,8 @@ package org.eclipse.jdt.text.tests.performance;
 import junit.framework.Test;
 import junit.framework.TestSuite;
 
+import org.eclipse.swt.widgets.Display;
+
 import org.eclipse.test.performance.PerformanceMeter;
 
 import org.eclipse.jface.action.IAction;
@@ -95,6 +97,42 @@ public abstract class OpenQuickControlTest extends TextPerformanceTestCase {
 		tearDownMeasurement(editor);
 	}
 
+	/**
+	 * Measures typing the given characters while the quick control is open.
+	 *
+	 * @param meter the performance meter
+	 * @param typed the characters to type
+	 * @throws Exception if something goes wrong
+	 */
+	protected final void measureTypingInQuickControl(PerformanceMeter meter, String typed) throws Exception {
+		measureTypingInQuickControl(getNullPerformanceMeter(), typed, 0, getWarmUpRuns());
+		measureTypingInQuickControl(meter, typed, getWarmUpRuns(), getMeasuredRuns());
+		commitAllMeasurements();
+		assertAllPerformance();
+	}
+
+	private void measureTypingInQuickControl(PerformanceMeter meter, String typed, int index, int runs) throws Exception {
+		for (int i= 0; i < runs; i++) {
+			String name= ORIG_NAME + (index + i);
+			String file= PATH + name + ".java";
+			AbstractTextEditor editor= (AbstractTextEditor) EditorTestHelper.openInEditor(ResourceTestHelper.findFile(file), true);
+			EditorTestHelper.joinReconciler(EditorTestHelper.getSourceViewer(editor), 100, 10000, 100);
+
+			runAction(setUpMeasurement(editor));
+			Display display= EditorTestHelper.getActiveDisplay();
+			meter.start();
+			for (int j= 0; j < typed.length(); j++) {
+				SWTEventHelper.pressKeyChar(display, typed.charAt(j), false);
+				EditorTestHelper.runEventQueue();
+			}
+			meter.stop();
+			tearDownMeasurement(editor);
+
+			EditorTestHelper.revertEditor(editor, true);
+			EditorTestHelper.closeAllEditors();
+		}
+	}
+
 	private void runAction(IAction action) {
 		action.run();
 		EditorTestHelper.runEventQueue();
@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.performance.views;
+
+import java.io.File;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+import org.eclipse.jdt.testplugin.JavaTestPlugin;
+import org.eclipse.test.OrderedTestSuite;
+import org.eclipse.test.performance.Dimension;
+
+import org.eclipse.swt.widgets.Display;
+
+import org.eclipse.search.ui.NewSearchUI;
+
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.search.IJavaSearchConstants;
+
+import org.eclipse.jdt.ui.search.ElementQuerySpecification;
+import org.eclipse.jdt.ui.tests.performance.JdtPerformanceTestCase;
+
+import org.eclipse.jdt.internal.ui.search.JavaSearchQuery;
+import org.eclipse.jdt.internal.ui.search.JavaSearchResult;
+import org.eclipse.jdt.internal.ui.search.JavaSearchScopeFactory;
+
+/**
+ * Measures a search with many matches end to end, from the search engine to the search view.
+ */
+public class SearchPerfTest extends JdtPerformanceTestCase {
+
+	private static class MyTestSetup extends TestSetup {
+		public static final String SRC_CONTAINER= "src";
+
+		public static IJavaProject fJProject1;
+
+		public MyTestSetup(Test test) {
+			super(test);
+		}
+
+		@Override
+		protected void setUp() throws Exception {
+			fJProject1= JavaProjectHelper.createJavaProject("TestProject1", "bin");
+			assertTrue("rt not found", JavaProjectHelper.addRTJar13(fJProject1) != null);
+			File junitSrcArchive= JavaTestPlugin.getDefault().getFileInPlugin(JavaProjectHelper.JUNIT_SRC_381);
+			JavaProjectHelper.addSourceContainerWithImport(fJProject1, SRC_CONTAINER, junitSrcArchive, JavaProjectHelper.JUNIT_SRC_ENCODING);
+		}
+
+		@Override
+		protected void tearDown() throws Exception {
+			if (fJProject1 != null && fJProject1.exists())
+				JavaProjectHelper.delete(fJProject1);
+		}
+	}
+
+	public static Test suite() {
+		OrderedTestSuite testSuite= new OrderedTestSuite(
+				SearchPerfTest.class,
+				new String[] {
+					"testSearchStringReferences",
+				});
+		return new MyTestSetup(testSuite);
+	}
+
+	public static Test setUpTest(Test someTest) {
+		return new MyTestSetup(someTest);
+	}
+
+	public SearchPerfTest(String name) {
+		super(name);
+	}
+
+	public void testSearchStringReferences() throws Exception {
+		tagAsSummary("Search references to String", Dimension.ELAPSED_PROCESS);
+
+		IJavaElement element= MyTestSetup.fJProject1.findType("java.lang.String");
+		NewSearchUI.activateSearchResultView();
+
+		// warm up the search index and the search view, and count the matches
+		int expectedMatches= measureSearch(element);
+		assertTrue(expectedMatches > 0);
+		for (int i= 0; i < 10; i++) {
+			joinBackgroudActivities();
+			startMeasuring();
+			int matches= measureSearch(element);
+			stopMeasuring();
+			assertEquals(expectedMatches, matches);
+		}
+
+		commitMeasurements();
+		assertPerformanceInRelativeBand(Dimension.ELAPSED_PROCESS, -100, +10);
+	}
+
+	private int measureSearch(IJavaElement element) {
+		JavaSearchQuery query= new JavaSearchQuery(new ElementQuerySpecification(element, IJavaSearchConstants.REFERENCES, JavaSearchScopeFactory.getInstance().createWorkspaceScope(true), "workspace scope"));
+		NewSearchUI.runQueryInForeground(null, query);
+		// let the search view process the pending updates
+		Display display= Display.getCurrent();
+		while (display.readAndDispatch()) {
+			// continue
+		}
+		return ((JavaSearchResult) query.getSearchResult()).getMatchCount();
+	}
+}
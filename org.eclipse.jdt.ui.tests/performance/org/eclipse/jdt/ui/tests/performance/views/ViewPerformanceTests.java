@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -24,6 +24,7 @@ public class ViewPerformanceTests extends TestCase {
 		suite.addTest(PackageExplorerWorkspacePerfTest.suite());
 		suite.addTest(PackageExplorerWorkspaceWarmPerfTest.suite());
 		suite.addTest(TypeHierarchyPerfTest.suite());
+		suite.addTest(SearchPerfTest.suite());
 		return suite;
 	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2011 IBM Corporation and others.
+ * Copyright (c) 2007, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -38,6 +38,9 @@ import org.eclipse.jdt.core.refactoring.CompilationUnitChange;
 import org.eclipse.jdt.ui.JavaUI;
 import org.eclipse.jdt.ui.SharedASTProvider;
 
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+import org.eclipse.jdt.internal.ui.javaeditor.ASTProvider;
+
 
 /**
  * Tests the AST provider.
@@ -144,6 +147,63 @@ public class ASTProviderTest extends CoreTests {
 		cu.getBuffer().save(null, true);
 	}
 
+	private static ICompilationUnit createClass(IPackageFragment pack, String name, String body) throws Exception {
+		StringBuffer buf= new StringBuffer();
+		buf.append("package test1;\n");
+		buf.append("public class " + name + " {\n");
+		buf.append(body);
+		buf.append("}\n");
+		return pack.createCompilationUnit(name + ".java", buf.toString(), true, null);
+	}
+
+	public void testSnapshotKeptForInactiveInput() throws Exception {
+		IPackageFragment pack1= fSourceFolder.createPackageFragment("test1", false, null);
+		ICompilationUnit cu= createClass(pack1, "E2", "");
+
+		CompilationUnit ast= SharedASTProvider.getAST(cu, SharedASTProvider.WAIT_YES, null);
+		assertNotNull(ast);
+		ASTProvider provider= JavaPlugin.getDefault().getASTProvider();
+		int hits= provider.getSnapshotHitCount();
+		assertSame(ast, SharedASTProvider.getAST(cu, SharedASTProvider.WAIT_YES, null));
+		assertSame(ast, SharedASTProvider.getAST(cu, SharedASTProvider.WAIT_NO, null));
+		assertEquals(hits + 2, provider.getSnapshotHitCount());
+	}
+
+	public void testSnapshotRemovedOnContentChange() throws Exception {
+		IPackageFragment pack1= fSourceFolder.createPackageFragment("test1", false, null);
+		ICompilationUnit cu= createClass(pack1, "E3", "");
+		ICompilationUnit other= createClass(pack1, "E4", "    E3 fE3;\n");
+
+		CompilationUnit ast= SharedASTProvider.getAST(cu, SharedASTProvider.WAIT_YES, null);
+		CompilationUnit otherAST= SharedASTProvider.getAST(other, SharedASTProvider.WAIT_YES, null);
+		assertNotNull(ast);
+		assertNotNull(otherAST);
+
+		// changes the members of E3, so the bindings in the AST of E4 are outdated
+		createClass(pack1, "E3", "    int fField;\n");
+
+		assertNull(SharedASTProvider.getAST(cu, SharedASTProvider.WAIT_NO, null));
+		CompilationUnit newAST= SharedASTProvider.getAST(cu, SharedASTProvider.WAIT_YES, null);
+		assertNotSame(ast, newAST);
+		assertTrue(newAST.toString().indexOf("fField") != -1);
+		assertNull(SharedASTProvider.getAST(other, SharedASTProvider.WAIT_NO, null));
+		assertNotSame(otherAST, SharedASTProvider.getAST(other, SharedASTProvider.WAIT_YES, null));
+	}
+
+	public void testSnapshotsClearedOnStructuralChange() throws Exception {
+		IPackageFragment pack1= fSourceFolder.createPackageFragment("test1", false, null);
+		ICompilationUnit cu= createClass(pack1, "E5", "");
+
+		CompilationUnit ast= SharedASTProvider.getAST(cu, SharedASTProvider.WAIT_YES, null);
+		assertNotNull(ast);
+
+		// a new type may change the bindings of all ASTs
+		createClass(pack1, "E6", "");
+
+		assertNull(SharedASTProvider.getAST(cu, SharedASTProvider.WAIT_NO, null));
+		assertNotSame(ast, SharedASTProvider.getAST(cu, SharedASTProvider.WAIT_YES, null));
+	}
+
 	private static String getNormalizeNumber(int number) {
 		if (number < 10) {
 			return "000" + number;
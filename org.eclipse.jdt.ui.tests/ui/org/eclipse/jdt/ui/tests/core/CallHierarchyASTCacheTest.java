@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.ITypeRoot;
+
+import org.eclipse.jdt.internal.corext.callhierarchy.CallHierarchyASTCache;
+import org.eclipse.jdt.internal.corext.callhierarchy.CallHierarchyASTCache.CachedAST;
+
+/**
+ * Tests for {@link CallHierarchyASTCache}.
+ *
+ * @since 3.13
+ */
+public class CallHierarchyASTCacheTest extends TestCase {
+
+	private static final Class<CallHierarchyASTCacheTest> THIS= CallHierarchyASTCacheTest.class;
+
+	private IJavaProject fJProject1;
+	private ICompilationUnit fA;
+	private ICompilationUnit fB;
+	private ICompilationUnit fC;
+
+	public CallHierarchyASTCacheTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return setUpTest(new TestSuite(THIS));
+	}
+
+	public static Test setUpTest(Test test) {
+		return new ProjectTestSetup(test);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		fJProject1= JavaProjectHelper.createJavaProject("TestProject1", "bin");
+		assertNotNull("jre is null", JavaProjectHelper.addRTJar(fJProject1));
+		IPackageFragmentRoot root= JavaProjectHelper.addSourceContainer(fJProject1, "src");
+		IPackageFragment pack= root.createPackageFragment("pack", true, null);
+		fA= pack.createCompilationUnit("A.java", "package pack;\npublic class A {\n public void a() { new B().b(); }\n}\n", true, null);
+		fB= pack.createCompilationUnit("B.java", "package pack;\npublic class B {\n public void b() { new C().c(); }\n}\n", true, null);
+		fC= pack.createCompilationUnit("C.java", "package pack;\npublic class C {\n public void c() { }\n}\n", true, null);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		JavaProjectHelper.delete(fJProject1);
+	}
+
+	private static CachedAST getAST(CallHierarchyASTCache cache, ITypeRoot typeRoot, ITypeRoot... siblings) {
+		Collection<ITypeRoot> list= new ArrayList<>();
+		Collections.addAll(list, siblings);
+		CachedAST ast= cache.getAST(typeRoot, list, new NullProgressMonitor());
+		assertNotNull(ast);
+		assertNotNull(ast.getAST().getTypeRoot());
+		assertEquals(typeRoot, ast.getAST().getTypeRoot());
+		return ast;
+	}
+
+	public void testHit() throws Exception {
+		CallHierarchyASTCache cache= new CallHierarchyASTCache();
+		CachedAST first= getAST(cache, fA);
+		CachedAST second= getAST(cache, fA);
+
+		assertSame(first.getAST(), second.getAST());
+		assertEquals(1, cache.size());
+	}
+
+	public void testSingleNodeParsesOnlyItsUnit() throws Exception {
+		CallHierarchyASTCache cache= new CallHierarchyASTCache();
+		CachedAST a= getAST(cache, fA, fB, fC);
+
+		assertEquals(1, cache.size());
+		CachedAST b= getAST(cache, fB);
+		assertNotSame(a.getLock(), b.getLock());
+	}
+
+	public void testSiblingsParsedInOneBatch() throws Exception {
+		CallHierarchyASTCache cache= new CallHierarchyASTCache();
+		getAST(cache, fA);
+
+		// A is cached, so its uncached siblings are parsed together with B
+		CachedAST b= getAST(cache, fB, fA, fC);
+		assertEquals(3, cache.size());
+		CachedAST c= getAST(cache, fC, fA, fB);
+		assertSame(b.getLock(), c.getLock());
+	}
+
+	public void testEviction() throws Exception {
+		// only the most recently parsed batch fits
+		CallHierarchyASTCache cache= new CallHierarchyASTCache(1);
+		CachedAST first= getAST(cache, fA);
+		getAST(cache, fB);
+
+		assertEquals(1, cache.size());
+		CachedAST second= getAST(cache, fA);
+		assertNotSame(first.getAST(), second.getAST());
+	}
+
+	public void testClear() throws Exception {
+		CallHierarchyASTCache cache= new CallHierarchyASTCache();
+		CachedAST first= getAST(cache, fA);
+
+		cache.clear();
+		assertEquals(0, cache.size());
+
+		CachedAST second= getAST(cache, fA);
+		assertNotSame(first.getAST(), second.getAST());
+	}
+}
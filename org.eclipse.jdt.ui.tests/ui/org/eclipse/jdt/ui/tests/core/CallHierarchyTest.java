@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -92,6 +92,29 @@ public class CallHierarchyTest extends TestCase {
         helper.assertCalls(expectedSecondLevelMethods, wrapper2.getCalls(new NullProgressMonitor()));
     }
 
+    public void testCallersSharedAcrossRoots() throws Exception {
+        helper.createSimpleClasses();
+
+        IMethod method= helper.getMethod1();
+        IMethod secondLevelMethod= helper.getMethod3();
+
+        Collection<IMember> expectedMethods= new ArrayList<>();
+        expectedMethods.add(helper.getMethod2());
+        expectedMethods.add(secondLevelMethod);
+
+        MethodWrapper[] calls= getSingleCallerRoot(method).getCalls(new NullProgressMonitor());
+        helper.assertCalls(expectedMethods, calls);
+
+        MethodWrapper[] sharedCalls= getSingleCallerRoot(method).getCalls(new NullProgressMonitor());
+        helper.assertCalls(expectedMethods, sharedCalls);
+        assertSame(helper.findMethodWrapper(secondLevelMethod, calls).getMethodCall(), helper.findMethodWrapper(secondLevelMethod, sharedCalls).getMethodCall());
+
+        // changing the code invalidates the shared calls
+        secondLevelMethod.delete(true, null);
+        expectedMethods.remove(secondLevelMethod);
+        helper.assertCalls(expectedMethods, getSingleCallerRoot(method).getCalls(new NullProgressMonitor()));
+    }
+
     public void testCallersNoResults() throws Exception {
         helper.createSimpleClasses();
 
@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.core;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+
+import org.eclipse.core.runtime.jobs.Job;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IType;
+
+import org.eclipse.jdt.ui.JavaElementLabels;
+
+import org.eclipse.jdt.internal.ui.viewsupport.JavaElementLabelCache;
+import org.eclipse.jdt.internal.ui.viewsupport.JavaUILabelProvider;
+
+/**
+ * Tests for {@link JavaElementLabelCache}.
+ *
+ * @since 3.13
+ */
+public class JavaElementLabelCacheTest extends TestCase {
+
+	private static final Class<JavaElementLabelCacheTest> THIS= JavaElementLabelCacheTest.class;
+
+	private IJavaProject fJProject1;
+	private IPackageFragment fPack;
+
+	public JavaElementLabelCacheTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return setUpTest(new TestSuite(THIS));
+	}
+
+	public static Test setUpTest(Test test) {
+		return new ProjectTestSetup(test);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		fJProject1= JavaProjectHelper.createJavaProject("TestProject1", "bin");
+		assertNotNull("jre is null", JavaProjectHelper.addRTJar(fJProject1));
+		IPackageFragmentRoot root= JavaProjectHelper.addSourceContainer(fJProject1, "src");
+		fPack= root.createPackageFragment("pack", true, null);
+		JavaElementLabelCache.getDefault().clear();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		JavaProjectHelper.delete(fJProject1);
+	}
+
+	public void testPrefetchedLabelIsHit() throws Exception {
+		ICompilationUnit cu= fPack.createCompilationUnit("A.java", "package pack;\npublic class A {\n public void foo() { }\n}\n", true, null);
+		IType type= cu.getType("A");
+
+		JavaUILabelProvider labelProvider= new JavaUILabelProvider();
+		try {
+			labelProvider.prefetchLabels(new Object[] { type, type.getMethod("foo", new String[0]) });
+			Job.getJobManager().join(JavaElementLabelCache.class, null);
+
+			JavaElementLabelCache cache= JavaElementLabelCache.getDefault();
+			long hits= cache.getHitCount();
+			long misses= cache.getMissCount();
+			assertEquals("A", labelProvider.getStyledText(type).getString());
+			assertEquals(hits + 1, cache.getHitCount());
+			assertEquals(misses, cache.getMissCount());
+		} finally {
+			labelProvider.dispose();
+		}
+	}
+
+	public void testLabelRemovedOnChange() throws Exception {
+		ICompilationUnit cu= fPack.createCompilationUnit("A.java", "package pack;\npublic class A {\n public void foo() { }\n}\n", true, null);
+		long flags= JavaElementLabels.M_APP_RETURNTYPE;
+		assertEquals("foo() : void", JavaElementLabels.getElementLabel(cu.getType("A").getMethod("foo", new String[0]), flags));
+
+		// same handle, different label
+		cu= fPack.createCompilationUnit("A.java", "package pack;\npublic class A {\n public int foo() { return 0; }\n}\n", true, null);
+		assertEquals("foo() : int", JavaElementLabels.getElementLabel(cu.getType("A").getMethod("foo", new String[0]), flags));
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -99,6 +99,32 @@ public class JavaElementLabelsTest extends CoreTests {
 		assertEqualString(lab, "TestSetupProject/src - org.test.Outer");
 	}
 
+	public void testTypeLabelAfterChange() throws Exception {
+
+		IPackageFragmentRoot sourceFolder= JavaProjectHelper.addSourceContainer(fJProject1, "src");
+
+		IPackageFragment pack1= sourceFolder.createPackageFragment("org.test", false, null);
+		StringBuffer buf= new StringBuffer();
+		buf.append("package org.test;\n");
+		buf.append("public class Outer<T> {\n");
+		buf.append("}\n");
+		String content= buf.toString();
+		ICompilationUnit cu= pack1.createCompilationUnit("Outer.java", content, false, null);
+
+		IJavaElement elem= cu.getElementAt(content.indexOf("Outer"));
+		assertExpectedLabel(elem, "org.test.Outer<T>", JavaElementLabels.T_FULLY_QUALIFIED | JavaElementLabels.T_TYPE_PARAMETERS);
+		// cached label
+		assertExpectedLabel(elem, "org.test.Outer<T>", JavaElementLabels.T_FULLY_QUALIFIED | JavaElementLabels.T_TYPE_PARAMETERS);
+
+		buf= new StringBuffer();
+		buf.append("package org.test;\n");
+		buf.append("public class Outer<T, S> {\n");
+		buf.append("}\n");
+		pack1.createCompilationUnit("Outer.java", buf.toString(), true, null);
+
+		assertExpectedLabel(elem, "org.test.Outer<T, S>", JavaElementLabels.T_FULLY_QUALIFIED | JavaElementLabels.T_TYPE_PARAMETERS);
+	}
+
 	public void testTypeLabelInner() throws Exception {
 
 		IPackageFragmentRoot sourceFolder= JavaProjectHelper.addSourceContainer(fJProject1, "src");
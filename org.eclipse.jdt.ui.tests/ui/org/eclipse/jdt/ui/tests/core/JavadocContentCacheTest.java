@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.core;
+
+import java.util.Collections;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.jobs.Job;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IType;
+
+import org.eclipse.jdt.internal.ui.text.javadoc.JavadocContentCache;
+
+/**
+ * Tests for {@link JavadocContentCache}.
+ *
+ * @since 3.13
+ */
+public class JavadocContentCacheTest extends TestCase {
+
+	private static final Class<JavadocContentCacheTest> THIS= JavadocContentCacheTest.class;
+
+	private IJavaProject fJProject1;
+	private IPackageFragment fPack;
+
+	public JavadocContentCacheTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return setUpTest(new TestSuite(THIS));
+	}
+
+	public static Test setUpTest(Test test) {
+		return new ProjectTestSetup(test);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		fJProject1= JavaProjectHelper.createJavaProject("TestProject1", "bin");
+		assertNotNull("jre is null", JavaProjectHelper.addRTJar(fJProject1));
+		IPackageFragmentRoot root= JavaProjectHelper.addSourceContainer(fJProject1, "src");
+		fPack= root.createPackageFragment("pack", true, null);
+		JavadocContentCache.getDefault().clear();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		JavaProjectHelper.delete(fJProject1);
+	}
+
+	private IMethod createMethod(String comment) throws Exception {
+		ICompilationUnit cu= fPack.createCompilationUnit("A.java", "package pack;\npublic class A {\n /** " + comment + " */\n public void foo() { }\n}\n", true, null);
+		return cu.getType("A").getMethod("foo", new String[0]);
+	}
+
+	public void testHit() throws Exception {
+		IMethod method= createMethod("Hello");
+		String first= JavadocContentCache.getDefault().getHTMLContent(method);
+		assertNotNull(first);
+		assertTrue(first, first.indexOf("Hello") != -1);
+
+		assertSame(first, JavadocContentCache.getDefault().getHTMLContent(method));
+	}
+
+	public void testInvalidation() throws Exception {
+		IMethod method= createMethod("Hello");
+		String first= JavadocContentCache.getDefault().getHTMLContent(method);
+		assertTrue(first, first.indexOf("Hello") != -1);
+
+		method= createMethod("World");
+		String second= JavadocContentCache.getDefault().getHTMLContent(method);
+		assertTrue(second, second.indexOf("World") != -1);
+	}
+
+	public void testPrefetch() throws Exception {
+		IMethod method= createMethod("Hello");
+		JavadocContentCache.getDefault().prefetch(Collections.<IJavaElement> singletonList(method), new NullProgressMonitor());
+
+		String first= JavadocContentCache.getDefault().getHTMLContent(method);
+		assertTrue(first, first.indexOf("Hello") != -1);
+		assertSame(first, JavadocContentCache.getDefault().getHTMLContent(method));
+	}
+
+	public void testStore() throws Exception {
+		IType type= fJProject1.findType("java.lang.Object");
+		assertNotNull(type);
+		assertTrue(type.isBinary());
+		String first= JavadocContentCache.getDefault().getHTMLContent(type);
+
+		// written by the store job, read again from the store
+		Job.getJobManager().join(JavadocContentCache.class, null);
+		JavadocContentCache.getDefault().clear();
+		assertEquals(first, JavadocContentCache.getDefault().getHTMLContent(type));
+	}
+}
@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.core;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.testplugin.util.DisplayHelper;
+
+import org.eclipse.swt.widgets.Display;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.jdt.internal.ui.viewsupport.IProblemChangedListener;
+import org.eclipse.jdt.internal.ui.viewsupport.ProblemMarkerManager;
+
+/**
+ * Tests for the severities kept by {@link ProblemMarkerManager}.
+ *
+ * @since 3.13
+ */
+public class ProblemMarkerManagerTest extends TestCase {
+
+	private static final Class<ProblemMarkerManagerTest> THIS= ProblemMarkerManagerTest.class;
+
+	private IProject fProject;
+	private IFolder fFolder;
+	private IFile fFile1;
+	private IFile fFile2;
+	private ProblemMarkerManager fManager;
+	private final Set<IResource> fChangedResources= new HashSet<>();
+	private final IProblemChangedListener fListener= new IProblemChangedListener() {
+		@Override
+		public void problemsChanged(IResource[] changedResources, boolean isMarkerChange) {
+			if (isMarkerChange)
+				fChangedResources.addAll(Arrays.asList(changedResources));
+		}
+	};
+
+	public ProblemMarkerManagerTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(THIS);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		fProject= ResourcesPlugin.getWorkspace().getRoot().getProject("ProblemMarkerManagerTest");
+		fProject.create(null);
+		fProject.open(null);
+		fFolder= fProject.getFolder("folder");
+		fFolder.create(true, true, null);
+		fFile1= fFolder.getFile("file1.txt");
+		fFile1.create(new ByteArrayInputStream(new byte[0]), true, null);
+		fFile2= fFolder.getFile("file2.txt");
+		fFile2.create(new ByteArrayInputStream(new byte[0]), true, null);
+
+		fManager= new ProblemMarkerManager();
+		fManager.addListener(fListener);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		fManager.removeListener(fListener);
+		fProject.delete(true, true, null);
+	}
+
+	private static IMarker createMarker(IResource resource, int severity) throws Exception {
+		IMarker marker= resource.createMarker(IMarker.PROBLEM);
+		marker.setAttribute(IMarker.SEVERITY, severity);
+		return marker;
+	}
+
+	private void assertSeverity(int expected, IResource resource) throws Exception {
+		assertEquals(expected, resource.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE));
+		assertEquals(resource.getFullPath().toString(), expected, fManager.findMaxProblemSeverity(resource));
+	}
+
+	private void waitForNotification(final IResource... resources) {
+		boolean notified= new DisplayHelper() {
+			@Override
+			protected boolean condition() {
+				return fChangedResources.containsAll(Arrays.asList(resources));
+			}
+		}.waitForCondition(Display.getDefault(), 5000);
+		assertTrue("listener not notified", notified);
+		fChangedResources.clear();
+	}
+
+	public void testSeverities() throws Exception {
+		// reads the severities of the workspace
+		IMarker error= createMarker(fFile1, IMarker.SEVERITY_ERROR);
+		waitForNotification(fFile1, fFolder, fProject);
+		assertSeverity(IMarker.SEVERITY_ERROR, fFile1);
+		assertSeverity(-1, fFile2);
+		assertSeverity(IMarker.SEVERITY_ERROR, fFolder);
+		assertSeverity(IMarker.SEVERITY_ERROR, fProject);
+
+		// added
+		IMarker warning= createMarker(fFile2, IMarker.SEVERITY_WARNING);
+		waitForNotification(fFile2);
+		assertSeverity(IMarker.SEVERITY_WARNING, fFile2);
+		assertSeverity(IMarker.SEVERITY_ERROR, fFolder);
+
+		// changed
+		error.setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_INFO);
+		waitForNotification(fFile1, fFolder, fProject);
+		assertSeverity(IMarker.SEVERITY_INFO, fFile1);
+		assertSeverity(IMarker.SEVERITY_WARNING, fFolder);
+		assertSeverity(IMarker.SEVERITY_WARNING, fProject);
+
+		// deleted
+		warning.delete();
+		waitForNotification(fFile2, fFolder, fProject);
+		assertSeverity(-1, fFile2);
+		assertSeverity(IMarker.SEVERITY_INFO, fFolder);
+		assertSeverity(IMarker.SEVERITY_INFO, fProject);
+
+		error.delete();
+		waitForNotification(fFile1, fFolder, fProject);
+		assertSeverity(-1, fFile1);
+		assertSeverity(-1, fFolder);
+		assertSeverity(-1, fProject);
+	}
+
+	public void testRemovedResource() throws Exception {
+		createMarker(fFile1, IMarker.SEVERITY_ERROR);
+		createMarker(fFile2, IMarker.SEVERITY_WARNING);
+		waitForNotification(fFile1, fFile2, fFolder, fProject);
+
+		fFile1.delete(true, null);
+		waitForNotification(fFolder, fProject);
+		assertSeverity(IMarker.SEVERITY_WARNING, fFolder);
+		assertSeverity(IMarker.SEVERITY_WARNING, fProject);
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,14 +10,22 @@
  *******************************************************************************/
 package org.eclipse.jdt.ui.tests.core;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
 import java.text.Collator;
 import java.util.Arrays;
 import java.util.Comparator;
 
 import org.w3c.dom.Element;
 
+import org.eclipse.core.runtime.jobs.Job;
+
 import org.eclipse.jdt.internal.corext.util.History;
 
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+
 import junit.framework.Test;
 import junit.framework.TestCase;
 import junit.framework.TestSuite;
@@ -128,6 +136,28 @@ public class SelectionHistoryTest extends TestCase {
 		protected String createFromElement(Element type) {return null;}
 		@Override
 		protected String getKey(String object) {return object;}
+		@Override
+		protected String readObject(DataInputStream in) throws IOException {return in.readUTF();}
+		@Override
+		protected void writeObject(String object, DataOutputStream out) throws IOException {out.writeUTF(object);}
+
+	}
+
+	private static final class LoggedTestHistory extends History<String, String> {
+
+		public LoggedTestHistory(String logFileName) {
+			super("SelectionHistoryTest.xml", "root", "info", logFileName);
+		}
+		@Override
+		protected void setAttributes(Object object, Element element) {}
+		@Override
+		protected String createFromElement(Element type) {return null;}
+		@Override
+		protected String getKey(String object) {return object;}
+		@Override
+		protected String readObject(DataInputStream in) throws IOException {return in.readUTF();}
+		@Override
+		protected void writeObject(String object, DataOutputStream out) throws IOException {out.writeUTF(object);}
 
 	}
 
@@ -193,4 +223,63 @@ public class SelectionHistoryTest extends TestCase {
 		assertEquals(strings, expected);
 	}
 
+	public void testPositions() throws Exception {
+		History<String, String> history= new TestHistory();
+		for (int i= 0; i < 100; i++) {
+			history.accessed(String.valueOf(i));
+		}
+		assertEquals(-1, history.getPosition("0"));
+		assertEquals(0, history.getPosition("40"));
+		assertEquals(59, history.getPosition("99"));
+
+		history.accessed("40");
+		history.remove("98");
+		assertEquals(0, history.getPosition("41"));
+		assertEquals(57, history.getPosition("99"));
+		assertEquals(58, history.getPosition("40"));
+		assertEquals(1.0f, history.getNormalizedPosition("40"), 0.0f);
+		assertEquals(0.0f, history.getNormalizedPosition("98"), 0.0f);
+	}
+
+	public void testLog() throws Exception {
+		String logFileName= "SelectionHistoryTest.dat";
+		File file= JavaPlugin.getDefault().getStateLocation().append(logFileName).toFile();
+		file.delete();
+		try {
+			History<String, String> history= new LoggedTestHistory(logFileName);
+			history.load();
+			assertTrue(history.isEmpty());
+			history.accessed("a");
+			history.accessed("b");
+			history.accessed("c");
+			history.accessed("a");
+			history.remove("b");
+			history.accessed("d");
+			Job.getJobManager().join(History.class, null);
+
+			// not saved, the log is read back
+			History<String, String> loaded= new LoggedTestHistory(logFileName);
+			loaded.load();
+			assertFalse(loaded.containsKey("b"));
+			assertEquals(0, loaded.getPosition("c"));
+			assertEquals(1, loaded.getPosition("a"));
+			assertEquals(2, loaded.getPosition("d"));
+
+			// compacted many times over
+			for (int i= 0; i < 1000; i++) {
+				history.accessed(String.valueOf(i % 70));
+			}
+			history.save();
+			loaded= new LoggedTestHistory(logFileName);
+			loaded.load();
+			assertFalse(loaded.containsKey("a"));
+			assertEquals(-1, loaded.getPosition("29"));
+			assertEquals(0, loaded.getPosition("30"));
+			assertEquals(39, loaded.getPosition("69"));
+			assertEquals(59, loaded.getPosition("19"));
+		} finally {
+			file.delete();
+		}
+	}
+
 }
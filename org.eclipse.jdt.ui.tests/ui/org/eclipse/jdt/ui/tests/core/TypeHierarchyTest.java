@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -21,6 +21,7 @@ import org.eclipse.jface.text.IDocument;
 import org.eclipse.ui.IEditorPart;
 
 import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IPackageFragment;
 import org.eclipse.jdt.core.IPackageFragmentRoot;
@@ -34,6 +35,8 @@ import org.eclipse.jdt.ui.JavaUI;
 import org.eclipse.jdt.ui.SharedASTProvider;
 
 import org.eclipse.jdt.internal.ui.JavaPlugin;
+import org.eclipse.jdt.internal.ui.typehierarchy.ITypeHierarchyLifeCycleListener;
+import org.eclipse.jdt.internal.ui.typehierarchy.TypeHierarchyLifeCycle;
 
 
 public class TypeHierarchyTest extends TestCase {
@@ -291,7 +294,62 @@ public class TypeHierarchyTest extends TestCase {
 
 	}
 
+	public void testLifeCycleRefreshOnSupertypeWithSameName() throws Exception {
+		IPackageFragmentRoot root1= JavaProjectHelper.addSourceContainer(fJavaProject1, "src");
+		IPackageFragment pack1= root1.createPackageFragment("pack1", true, null);
+		pack1.createCompilationUnit("A.java", "package pack1;\npublic class A {\n}\n", true, null);
+		IPackageFragment pack3= root1.createPackageFragment("pack3", true, null);
+		pack3.createCompilationUnit("A.java", "package pack3;\npublic class A {\n}\n", true, null);
+
+		IPackageFragment pack2= root1.createPackageFragment("pack2", true, null);
+		ICompilationUnit cu2= pack2.createCompilationUnit("B.java", "package pack2;\npublic class B extends pack1.A {\n}\n", true, null);
+
+		final int[] refreshCount= new int[] {0};
+		TypeHierarchyLifeCycle lifeCycle= new TypeHierarchyLifeCycle(false);
+		lifeCycle.addChangedListener(new ITypeHierarchyLifeCycleListener() {
+			@Override
+			public void typeHierarchyChanged(TypeHierarchyLifeCycle typeHierarchyProvider, IType[] changedTypes) {
+				if (changedTypes == null)
+					refreshCount[0]++;
+			}
+		});
+		try {
+			lifeCycle.doHierarchyRefresh(new IJavaElement[] { cu2.getType("B") }, null);
+
+			// the simple name of the supertype stays the same
+			pack2.createCompilationUnit("B.java", "package pack2;\npublic class B extends pack3.A {\n}\n", true, null);
+
+			assertEquals(1, refreshCount[0]);
+		} finally {
+			lifeCycle.freeHierarchy();
+		}
+	}
 
+	public void testLifeCycleNoRefreshOnMemberChange() throws Exception {
+		IPackageFragmentRoot root1= JavaProjectHelper.addSourceContainer(fJavaProject1, "src");
+		IPackageFragment pack1= root1.createPackageFragment("pack1", true, null);
+		pack1.createCompilationUnit("A.java", "package pack1;\npublic class A {\n}\n", true, null);
 
+		IPackageFragment pack2= root1.createPackageFragment("pack2", true, null);
+		ICompilationUnit cu2= pack2.createCompilationUnit("B.java", "package pack2;\npublic class B extends pack1.A {\n}\n", true, null);
 
+		final int[] refreshCount= new int[] {0};
+		TypeHierarchyLifeCycle lifeCycle= new TypeHierarchyLifeCycle(false);
+		lifeCycle.addChangedListener(new ITypeHierarchyLifeCycleListener() {
+			@Override
+			public void typeHierarchyChanged(TypeHierarchyLifeCycle typeHierarchyProvider, IType[] changedTypes) {
+				if (changedTypes == null)
+					refreshCount[0]++;
+			}
+		});
+		try {
+			lifeCycle.doHierarchyRefresh(new IJavaElement[] { cu2.getType("B") }, null);
+
+			pack2.createCompilationUnit("B.java", "package pack2;\npublic class B extends pack1.A {\n    int x;\n}\n", true, null);
+
+			assertEquals(0, refreshCount[0]);
+		} finally {
+			lifeCycle.freeHierarchy();
+		}
+	}
 }
@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.jobs.Job;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.search.IJavaSearchConstants;
+import org.eclipse.jdt.core.search.SearchEngine;
+import org.eclipse.jdt.core.search.TypeNameMatch;
+
+import org.eclipse.jdt.internal.corext.util.TypeInfoFilter;
+import org.eclipse.jdt.internal.corext.util.TypeNameIndex;
+import org.eclipse.jdt.internal.corext.util.TypeNameMatchCollector;
+
+/**
+ * Tests for {@link TypeNameIndex}.
+ *
+ * @since 3.13
+ */
+public class TypeNameIndexTest extends TestCase {
+
+	private static final Class<TypeNameIndexTest> THIS= TypeNameIndexTest.class;
+
+	private IJavaProject fJProject1;
+	private IPackageFragment fPack;
+
+	public TypeNameIndexTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return setUpTest(new TestSuite(THIS));
+	}
+
+	public static Test setUpTest(Test test) {
+		return new ProjectTestSetup(test);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		fJProject1= JavaProjectHelper.createJavaProject("TestProject1", "bin");
+		assertNotNull("jre is null", JavaProjectHelper.addRTJar(fJProject1));
+		IPackageFragmentRoot root= JavaProjectHelper.addSourceContainer(fJProject1, "src");
+		fPack= root.createPackageFragment("pack", true, null);
+		fPack.createCompilationUnit("ZzqAlpha.java", "package pack;\npublic class ZzqAlpha {\n}\n", true, null);
+		fPack.createCompilationUnit("ZzqAlphaBeta.java", "package pack;\npublic class ZzqAlphaBeta {\n}\n", true, null);
+		fPack.createCompilationUnit("ZzqGamma.java", "package pack;\npublic class ZzqGamma {\n}\n", true, null);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		JavaProjectHelper.delete(fJProject1);
+	}
+
+	private static List<String> search(String pattern) throws Exception {
+		TypeInfoFilter filter= new TypeInfoFilter(pattern, SearchEngine.createWorkspaceScope(), IJavaSearchConstants.TYPE, null);
+		TypeNameIndex index= TypeNameIndex.getInstance();
+		List<TypeNameMatch> matches= new ArrayList<>();
+		if (!index.search(filter, new TypeNameMatchCollector(matches), new NullProgressMonitor())) {
+			Job.getJobManager().join(TypeNameIndex.class, null);
+			assertTrue("index not ready", index.search(filter, new TypeNameMatchCollector(matches), new NullProgressMonitor()));
+		}
+
+		List<String> names= new ArrayList<>();
+		for (TypeNameMatch match : matches)
+			names.add(match.getFullyQualifiedName());
+		Collections.sort(names);
+		return names;
+	}
+
+	private static List<String> list(String... names) {
+		List<String> result= new ArrayList<>();
+		Collections.addAll(result, names);
+		return result;
+	}
+
+	public void testPrefix() throws Exception {
+		assertEquals(list("pack.ZzqAlpha", "pack.ZzqAlphaBeta", "pack.ZzqGamma"), search("zzq"));
+		assertEquals(list("pack.ZzqAlpha", "pack.ZzqAlphaBeta"), search("zzqal"));
+		assertEquals(list("pack.ZzqGamma"), search("pack.zzqg"));
+	}
+
+	public void testExact() throws Exception {
+		assertEquals(list("pack.ZzqAlpha"), search("ZzqAlpha<"));
+	}
+
+	public void testCamelCase() throws Exception {
+		assertEquals(list("pack.ZzqAlpha", "pack.ZzqAlphaBeta"), search("pack.ZA"));
+		assertEquals(list("pack.ZzqAlphaBeta"), search("pack.ZAB"));
+		assertEquals(list("pack.ZzqAlphaBeta"), search("ZzqAB"));
+	}
+
+	public void testPattern() throws Exception {
+		assertEquals(list("pack.ZzqAlphaBeta"), search("Zzq*Beta"));
+		assertEquals(list("pack.ZzqAlpha", "pack.ZzqAlphaBeta", "pack.ZzqGamma"), search("*zzq"));
+	}
+
+	public void testChangedUnits() throws Exception {
+		assertEquals(list("pack.ZzqGamma"), search("ZzqG"));
+
+		fPack.createCompilationUnit("ZzqGammaDelta.java", "package pack;\npublic class ZzqGammaDelta {\n}\n", true, null);
+		assertEquals(list("pack.ZzqGamma", "pack.ZzqGammaDelta"), search("ZzqG"));
+
+		ICompilationUnit cu= fPack.getCompilationUnit("ZzqGamma.java");
+		cu.delete(true, null);
+		assertEquals(list("pack.ZzqGammaDelta"), search("ZzqG"));
+	}
+}
@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.quickfix;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+
+import org.eclipse.jface.text.Position;
+import org.eclipse.jface.text.source.Annotation;
+import org.eclipse.jface.text.source.AnnotationModel;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.compiler.IProblem;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+import org.eclipse.jdt.ui.tests.core.ProjectTestSetup;
+import org.eclipse.jdt.ui.text.java.IJavaCompletionProposal;
+
+import org.eclipse.jdt.internal.ui.javaeditor.CompilationUnitDocumentProvider.ProblemAnnotation;
+import org.eclipse.jdt.internal.ui.text.correction.AssistContext;
+import org.eclipse.jdt.internal.ui.text.correction.CorrectionProposalCache;
+import org.eclipse.jdt.internal.ui.text.correction.JavaCorrectionProcessor;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests that the quick fix and quick assist processors compute the same proposals when they are
+ * run concurrently.
+ *
+ * @since 3.13
+ */
+public class ConcurrentQuickFixTest extends QuickFixTest {
+
+	private static final Class<ConcurrentQuickFixTest> THIS= ConcurrentQuickFixTest.class;
+
+	private static final String CONCURRENT_PROPERTY= "org.eclipse.jdt.ui.quickFixConcurrent";
+
+	private IJavaProject fJProject1;
+	private IPackageFragmentRoot fSourceFolder;
+
+	public ConcurrentQuickFixTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return setUpTest(new TestSuite(THIS));
+	}
+
+	public static Test setUpTest(Test test) {
+		return new ProjectTestSetup(test);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		fJProject1= ProjectTestSetup.getProject();
+		fSourceFolder= JavaProjectHelper.addSourceContainer(fJProject1, "src");
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		System.clearProperty(CONCURRENT_PROPERTY);
+		JavaProjectHelper.clear(fJProject1, ProjectTestSetup.getDefaultClasspath());
+	}
+
+	private static List<String> collectProposals(ICompilationUnit cu, CompilationUnit astRoot, boolean concurrent) throws Exception {
+		if (concurrent) {
+			System.setProperty(CONCURRENT_PROPERTY, "true");
+		} else {
+			System.clearProperty(CONCURRENT_PROPERTY);
+		}
+
+		// compute the proposals again instead of reusing those of the other run
+		CorrectionProposalCache.getDefault().clear();
+
+		IProblem problem= astRoot.getProblems()[0];
+		int offset= problem.getSourceStart();
+		int length= problem.getSourceEnd() + 1 - offset;
+		AnnotationModel model= new AnnotationModel();
+		ProblemAnnotation annotation= new ProblemAnnotation(problem, cu);
+		model.addAnnotation(annotation, new Position(offset, length));
+		AssistContext context= getCorrectionContext(cu, offset, length);
+		context.setASTRoot(astRoot);
+
+		ArrayList<IJavaCompletionProposal> proposals= new ArrayList<>();
+		assertStatusOk(JavaCorrectionProcessor.collectProposals(context, model, new Annotation[] { annotation }, true, true, proposals));
+		assertCorrectLabels(proposals);
+
+		List<String> result= new ArrayList<>();
+		for (IJavaCompletionProposal proposal : proposals) {
+			result.add(proposal.getDisplayString());
+		}
+		Collections.sort(result);
+		return result;
+	}
+
+	public void testSameProposals() throws Exception {
+		IPackageFragment pack1= fSourceFolder.createPackageFragment("test1", false, null);
+		StringBuffer buf= new StringBuffer();
+		buf.append("package test1;\n");
+		buf.append("public class E {\n");
+		buf.append("    void foo() {\n");
+		buf.append("        Vector1 vec= null;\n");
+		buf.append("    }\n");
+		buf.append("}\n");
+		ICompilationUnit cu= pack1.createCompilationUnit("E.java", buf.toString(), false, null);
+
+		CompilationUnit astRoot= getASTRoot(cu);
+		List<String> serial= collectProposals(cu, astRoot, false);
+		List<String> concurrent= collectProposals(cu, astRoot, true);
+
+		assertFalse(serial.isEmpty());
+		assertEquals(serial, concurrent);
+	}
+}
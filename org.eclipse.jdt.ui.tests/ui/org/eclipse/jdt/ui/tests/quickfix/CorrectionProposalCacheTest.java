@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.quickfix;
+
+import java.util.ArrayList;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+
+import org.eclipse.jface.text.Position;
+import org.eclipse.jface.text.source.Annotation;
+import org.eclipse.jface.text.source.AnnotationModel;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.compiler.IProblem;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+import org.eclipse.jdt.ui.tests.core.ProjectTestSetup;
+import org.eclipse.jdt.ui.text.java.IJavaCompletionProposal;
+
+import org.eclipse.jdt.internal.ui.javaeditor.CompilationUnitDocumentProvider.ProblemAnnotation;
+import org.eclipse.jdt.internal.ui.text.correction.AssistContext;
+import org.eclipse.jdt.internal.ui.text.correction.CorrectionProposalCache;
+import org.eclipse.jdt.internal.ui.text.correction.JavaCorrectionProcessor;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests that quick fix proposals are reused for the same AST and problem.
+ *
+ * @since 3.13
+ */
+public class CorrectionProposalCacheTest extends QuickFixTest {
+
+	private static final Class<CorrectionProposalCacheTest> THIS= CorrectionProposalCacheTest.class;
+
+	private IJavaProject fJProject1;
+	private IPackageFragmentRoot fSourceFolder;
+
+	public CorrectionProposalCacheTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return setUpTest(new TestSuite(THIS));
+	}
+
+	public static Test setUpTest(Test test) {
+		return new ProjectTestSetup(test);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		fJProject1= ProjectTestSetup.getProject();
+		fSourceFolder= JavaProjectHelper.addSourceContainer(fJProject1, "src");
+		CorrectionProposalCache.getDefault().clear();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		JavaProjectHelper.clear(fJProject1, ProjectTestSetup.getDefaultClasspath());
+	}
+
+	private static ArrayList<IJavaCompletionProposal> collectCorrections(ICompilationUnit cu, CompilationUnit astRoot) throws Exception {
+		IProblem problem= astRoot.getProblems()[0];
+		int offset= problem.getSourceStart();
+		int length= problem.getSourceEnd() + 1 - offset;
+		AnnotationModel model= new AnnotationModel();
+		ProblemAnnotation annotation= new ProblemAnnotation(problem, cu);
+		model.addAnnotation(annotation, new Position(offset, length));
+		AssistContext context= getCorrectionContext(cu, offset, length);
+		context.setASTRoot(astRoot);
+
+		ArrayList<IJavaCompletionProposal> proposals= new ArrayList<>();
+		assertStatusOk(JavaCorrectionProcessor.collectProposals(context, model, new Annotation[] { annotation }, true, false, proposals));
+		return proposals;
+	}
+
+	private ICompilationUnit createUnit() throws Exception {
+		IPackageFragment pack1= fSourceFolder.createPackageFragment("test1", false, null);
+		StringBuffer buf= new StringBuffer();
+		buf.append("package test1;\n");
+		buf.append("public class E {\n");
+		buf.append("    void foo() {\n");
+		buf.append("        Vector1 vec= null;\n");
+		buf.append("    }\n");
+		buf.append("}\n");
+		return pack1.createCompilationUnit("E.java", buf.toString(), false, null);
+	}
+
+	public void testProposalsReusedForSameAST() throws Exception {
+		ICompilationUnit cu= createUnit();
+		CompilationUnit astRoot= getASTRoot(cu);
+
+		ArrayList<IJavaCompletionProposal> first= collectCorrections(cu, astRoot);
+		ArrayList<IJavaCompletionProposal> second= collectCorrections(cu, astRoot);
+
+		assertFalse(first.isEmpty());
+		assertEquals(first.size(), second.size());
+		for (int i= 0; i < first.size(); i++) {
+			assertSame(first.get(i), second.get(i));
+		}
+	}
+
+	public void testProposalsNotReusedForNewAST() throws Exception {
+		ICompilationUnit cu= createUnit();
+
+		ArrayList<IJavaCompletionProposal> first= collectCorrections(cu, getASTRoot(cu));
+		ArrayList<IJavaCompletionProposal> second= collectCorrections(cu, getASTRoot(cu));
+
+		assertFalse(first.isEmpty());
+		assertEquals(first.size(), second.size());
+		for (int i= 0; i < first.size(); i++) {
+			assertNotSame(first.get(i), second.get(i));
+		}
+	}
+}
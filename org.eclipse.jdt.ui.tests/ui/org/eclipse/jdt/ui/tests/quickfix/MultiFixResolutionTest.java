@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.quickfix;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IMarker;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaModelMarker;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+
+import org.eclipse.jdt.internal.corext.dom.ASTBatchParser;
+import org.eclipse.jdt.internal.corext.fix.CleanUpRefactoring.MultiFixTarget;
+
+import org.eclipse.jdt.ui.tests.core.ProjectTestSetup;
+import org.eclipse.jdt.ui.text.java.IProblemLocation;
+
+import org.eclipse.jdt.internal.ui.text.correction.CorrectionMarkerResolutionGenerator;
+import org.eclipse.jdt.internal.ui.text.correction.proposals.FixCorrectionProposal;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests how the markers of a multi-fix are grouped and how the compilation units are split into
+ * batches and changes.
+ *
+ * @since 3.13
+ */
+public class MultiFixResolutionTest extends QuickFixTest {
+
+	private static final Class<MultiFixResolutionTest> THIS= MultiFixResolutionTest.class;
+
+	private IJavaProject fJProject1;
+	private IJavaProject fJProject2;
+	private IPackageFragment fPack1;
+	private IPackageFragment fPack2;
+
+	public MultiFixResolutionTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return setUpTest(new TestSuite(THIS));
+	}
+
+	public static Test setUpTest(Test test) {
+		return new ProjectTestSetup(test);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		fJProject1= ProjectTestSetup.getProject();
+		IPackageFragmentRoot sourceFolder= JavaProjectHelper.addSourceContainer(fJProject1, "src");
+		fPack1= sourceFolder.createPackageFragment("test1", false, null);
+
+		fJProject2= JavaProjectHelper.createJavaProject("TestProject2", "bin");
+		IPackageFragmentRoot sourceFolder2= JavaProjectHelper.addSourceContainer(fJProject2, "src");
+		fPack2= sourceFolder2.createPackageFragment("test2", false, null);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		JavaProjectHelper.clear(fJProject1, ProjectTestSetup.getDefaultClasspath());
+		JavaProjectHelper.delete(fJProject2);
+	}
+
+	private static ICompilationUnit createUnit(IPackageFragment pack, String name, int fields) throws Exception {
+		StringBuffer buf= new StringBuffer();
+		buf.append("package " + pack.getElementName() + ";\n");
+		buf.append("public class " + name + " {\n");
+		for (int i= 0; i < fields; i++) {
+			buf.append("    int field" + i + ";\n");
+		}
+		buf.append("}\n");
+		return pack.createCompilationUnit(name + ".java", buf.toString(), false, null);
+	}
+
+	private static IMarker createMarker(ICompilationUnit cu) throws Exception {
+		return cu.getResource().createMarker(IJavaModelMarker.JAVA_MODEL_PROBLEM_MARKER);
+	}
+
+	private static long getSize(ICompilationUnit cu) {
+		return cu.getResource().getLocation().toFile().length();
+	}
+
+	private static MultiFixTarget createTarget(ICompilationUnit cu) {
+		return new MultiFixTarget(cu, new IProblemLocation[0]);
+	}
+
+	public void testMarkersGroupedByFile() throws Exception {
+		ICompilationUnit cu1= createUnit(fPack1, "E1", 0);
+		ICompilationUnit cu2= createUnit(fPack1, "E2", 0);
+		IMarker marker1= createMarker(cu1);
+		IMarker marker2= createMarker(cu2);
+		IMarker marker3= createMarker(cu1);
+		IMarker projectMarker= fJProject1.getProject().createMarker(IJavaModelMarker.JAVA_MODEL_PROBLEM_MARKER);
+
+		Map<IFile, List<IMarker>> groups= CorrectionMarkerResolutionGenerator.groupMarkersByFile(new IMarker[] { marker1, projectMarker, marker2, marker3 });
+
+		assertEquals(2, groups.size());
+		Iterator<Map.Entry<IFile, List<IMarker>>> iterator= groups.entrySet().iterator();
+		Map.Entry<IFile, List<IMarker>> first= iterator.next();
+		assertEquals(cu1.getResource(), first.getKey());
+		assertEquals(2, first.getValue().size());
+		assertSame(marker1, first.getValue().get(0));
+		assertSame(marker3, first.getValue().get(1));
+		Map.Entry<IFile, List<IMarker>> second= iterator.next();
+		assertEquals(cu2.getResource(), second.getKey());
+		assertEquals(1, second.getValue().size());
+		assertSame(marker2, second.getValue().get(0));
+	}
+
+	public void testTargetsSplitByProjectAndCount() throws Exception {
+		MultiFixTarget target1= createTarget(createUnit(fPack1, "E1", 0));
+		MultiFixTarget target2= createTarget(createUnit(fPack2, "E2", 0));
+		MultiFixTarget target3= createTarget(createUnit(fPack1, "E3", 0));
+		MultiFixTarget target4= createTarget(createUnit(fPack1, "E4", 0));
+
+		MultiFixTarget[][] chunks= FixCorrectionProposal.splitTargets(new MultiFixTarget[] { target1, target2, target3, target4 }, 2);
+
+		assertEquals(3, chunks.length);
+		assertEquals(2, chunks[0].length);
+		assertSame(target1, chunks[0][0]);
+		assertSame(target3, chunks[0][1]);
+		assertEquals(1, chunks[1].length);
+		assertSame(target4, chunks[1][0]);
+		assertEquals(1, chunks[2].length);
+		assertSame(target2, chunks[2][0]);
+	}
+
+	public void testBatchBoundedByCount() throws Exception {
+		ICompilationUnit[] units= { createUnit(fPack1, "E1", 0), createUnit(fPack1, "E2", 0), createUnit(fPack1, "E3", 0) };
+
+		assertEquals(3, ASTBatchParser.getBatchEnd(units, 0, 10, Long.MAX_VALUE));
+		assertEquals(2, ASTBatchParser.getBatchEnd(units, 0, 2, Long.MAX_VALUE));
+		assertEquals(3, ASTBatchParser.getBatchEnd(units, 2, 2, Long.MAX_VALUE));
+	}
+
+	public void testBatchBoundedBySourceSize() throws Exception {
+		ICompilationUnit[] units= { createUnit(fPack1, "E1", 0), createUnit(fPack1, "E2", 0), createUnit(fPack1, "E3", 100) };
+		long smallSize= getSize(units[0]) + getSize(units[1]);
+
+		assertEquals(2, ASTBatchParser.getBatchEnd(units, 0, 10, smallSize));
+		assertEquals(1, ASTBatchParser.getBatchEnd(units, 0, 10, getSize(units[0])));
+		// a single compilation unit is parsed even if it exceeds the bound
+		assertEquals(3, ASTBatchParser.getBatchEnd(units, 2, 10, 0));
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -103,6 +103,10 @@ public class QuickFixTest extends TestCase {
 		suite.addTest(AdvancedQuickAssistTest18.suite());
 		suite.addTest(CleanUpTestCase.suite());
 		suite.addTest(QuickFixEnablementTest.suite());
+		suite.addTest(ConcurrentQuickFixTest.suite());
+		suite.addTest(SimilarElementsIndexTest.suite());
+		suite.addTest(CorrectionProposalCacheTest.suite());
+		suite.addTest(MultiFixResolutionTest.suite());
 		suite.addTest(SurroundWithTemplateTest.suite());
 		suite.addTest(TypeParameterMismatchTest.suite());
 		suite.addTest(PropertiesFileQuickAssistTest.suite());
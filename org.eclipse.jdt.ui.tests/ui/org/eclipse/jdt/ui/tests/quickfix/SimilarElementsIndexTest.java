@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.quickfix;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.Name;
+import org.eclipse.jdt.core.dom.NodeFinder;
+
+import org.eclipse.jdt.ui.tests.core.ProjectTestSetup;
+
+import org.eclipse.jdt.internal.ui.text.correction.SimilarElement;
+import org.eclipse.jdt.internal.ui.text.correction.SimilarElementsIndex;
+import org.eclipse.jdt.internal.ui.text.correction.SimilarElementsRequestor;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests that {@link SimilarElementsRequestor} answers further unresolved names of an AST from the
+ * {@link SimilarElementsIndex}.
+ *
+ * @since 3.13
+ */
+public class SimilarElementsIndexTest extends QuickFixTest {
+
+	private static final Class<SimilarElementsIndexTest> THIS= SimilarElementsIndexTest.class;
+
+	private IJavaProject fJProject1;
+	private IPackageFragmentRoot fSourceFolder;
+
+	public SimilarElementsIndexTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return setUpTest(new TestSuite(THIS));
+	}
+
+	public static Test setUpTest(Test test) {
+		return new ProjectTestSetup(test);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		fJProject1= ProjectTestSetup.getProject();
+		fSourceFolder= JavaProjectHelper.addSourceContainer(fJProject1, "src");
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		JavaProjectHelper.clear(fJProject1, ProjectTestSetup.getDefaultClasspath());
+	}
+
+	private static Name findName(CompilationUnit astRoot, String content, String name, int occurrence) {
+		int offset= -1;
+		for (int i= 0; i <= occurrence; i++) {
+			offset= content.indexOf(name, offset + 1);
+		}
+		Name result= (Name) NodeFinder.perform(astRoot, offset, name.length());
+		assertNotNull(result);
+		return result;
+	}
+
+	private static Set<String> getNames(SimilarElement[] elements) {
+		Set<String> result= new HashSet<>();
+		for (int i= 0; i < elements.length; i++) {
+			result.add(elements[i].getName());
+		}
+		return result;
+	}
+
+	public void testSecondLookupHitsIndex() throws Exception {
+		IPackageFragment pack1= fSourceFolder.createPackageFragment("test1", false, null);
+		StringBuffer buf= new StringBuffer();
+		buf.append("package test1;\n");
+		buf.append("public class E {\n");
+		buf.append("    void foo() {\n");
+		buf.append("        Vectr a= null;\n");
+		buf.append("        Vectro b= null;\n");
+		buf.append("    }\n");
+		buf.append("}\n");
+		String content= buf.toString();
+		ICompilationUnit cu= pack1.createCompilationUnit("E.java", content, false, null);
+
+		CompilationUnit astRoot= getASTRoot(cu);
+		Name first= findName(astRoot, content, "Vectr", 0);
+		Name second= findName(astRoot, content, "Vectro", 0);
+		assertNull(SimilarElementsIndex.get(first));
+
+		Set<String> firstNames= getNames(SimilarElementsRequestor.findSimilarElement(cu, first, SimilarElementsRequestor.REF_TYPES));
+		assertTrue(firstNames.toString(), firstNames.contains("java.util.Vector"));
+
+		assertNotNull(SimilarElementsIndex.get(second));
+		Set<String> secondNames= getNames(SimilarElementsRequestor.findSimilarElement(cu, second, SimilarElementsRequestor.REF_TYPES));
+		assertTrue(secondNames.toString(), secondNames.contains("java.util.Vector"));
+	}
+
+	public void testLocationsNotShared() throws Exception {
+		IPackageFragment pack1= fSourceFolder.createPackageFragment("test1", false, null);
+		StringBuffer buf= new StringBuffer();
+		buf.append("package test1;\n");
+		buf.append("public class E {\n");
+		buf.append("    void foo(Exceptin p) throws Exceptin {\n");
+		buf.append("        try {\n");
+		buf.append("        } catch (Exceptin e) {\n");
+		buf.append("        }\n");
+		buf.append("    }\n");
+		buf.append("}\n");
+		String content= buf.toString();
+		ICompilationUnit cu= pack1.createCompilationUnit("E.java", content, false, null);
+
+		CompilationUnit astRoot= getASTRoot(cu);
+		Name parameter= findName(astRoot, content, "Exceptin", 0);
+		Name thrown= findName(astRoot, content, "Exceptin", 1);
+		Name caught= findName(astRoot, content, "Exceptin", 2);
+
+		SimilarElementsRequestor.findSimilarElement(cu, parameter, SimilarElementsRequestor.REF_TYPES);
+		assertNotNull(SimilarElementsIndex.get(parameter));
+		assertNull(SimilarElementsIndex.get(thrown));
+		assertNull(SimilarElementsIndex.get(caught));
+	}
+}
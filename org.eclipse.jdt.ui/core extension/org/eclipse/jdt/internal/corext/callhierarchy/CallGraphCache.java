@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.callhierarchy;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.JavaCore;
+
+/**
+ * The calls found so far, shared by all call hierarchy roots.
+ * <p>
+ * The callers of a member can be anywhere in the search scope, so the cache is cleared by every
+ * Java element delta that changes code, including reconciles of working copies. It is also cleared
+ * when a setting that influences the search, like the search scope or the filters, changes.
+ * </p>
+ * <p>
+ * This class is thread safe.
+ * </p>
+ *
+ * @since 3.13
+ */
+final class CallGraphCache {
+
+	private static final int MAX_ENTRIES= 500;
+
+	/**
+	 * The delta flags that do not change any code.
+	 */
+	private static final int IGNORED_FLAGS= IJavaElementDelta.F_CHILDREN | IJavaElementDelta.F_PRIMARY_WORKING_COPY | IJavaElementDelta.F_PRIMARY_RESOURCE;
+
+	private class CallGraphDeltaListener implements IElementChangedListener {
+		@Override
+		public void elementChanged(ElementChangedEvent event) {
+			if (changesCode(event.getDelta()))
+				clear();
+		}
+
+		private boolean changesCode(IJavaElementDelta delta) {
+			if (delta.getKind() != IJavaElementDelta.CHANGED)
+				return true;
+			if ((delta.getFlags() & ~IGNORED_FLAGS) != 0)
+				return true;
+			IJavaElementDelta[] children= delta.getAffectedChildren();
+			for (int i= 0; i < children.length; i++) {
+				if (changesCode(children[i]))
+					return true;
+			}
+			return false;
+		}
+	}
+
+	private static CallGraphCache fgInstance;
+
+	static synchronized CallGraphCache getDefault() {
+		if (fgInstance == null)
+			fgInstance= new CallGraphCache();
+		return fgInstance;
+	}
+
+	static synchronized void shutdown() {
+		if (fgInstance == null)
+			return;
+		JavaCore.removeElementChangedListener(fgInstance.fDeltaListener);
+		fgInstance= null;
+	}
+
+	private final Map<String, Map<String, MethodCall>> fCalls;
+	private final IElementChangedListener fDeltaListener;
+	private final CallHierarchyASTCache fASTs= new CallHierarchyASTCache();
+	// Incremented whenever the cache is cleared, so that searches that ran
+	// across a change don't store their outdated result
+	private int fStamp;
+
+	private CallGraphCache() {
+		fCalls= new LinkedHashMap<String, Map<String, MethodCall>>(MAX_ENTRIES, 0.75f, true) {
+			private static final long serialVersionUID= 1L;
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Map<String, MethodCall>> eldest) {
+				return size() > MAX_ENTRIES;
+			}
+		};
+		fDeltaListener= new CallGraphDeltaListener();
+		JavaCore.addElementChangedListener(fDeltaListener, ElementChangedEvent.POST_CHANGE | ElementChangedEvent.POST_RECONCILE);
+	}
+
+	/**
+	 * Returns the cached calls.
+	 *
+	 * @param key the key of the calls, see {@link MethodWrapper#getCallGraphKey()}
+	 * @return a map from handle identifier to {@link MethodCall}, or <code>null</code> if not
+	 *         cached. The map must not be modified.
+	 */
+	synchronized Map<String, MethodCall> get(String key) {
+		return fCalls.get(key);
+	}
+
+	/**
+	 * @return the current stamp of the cache, to be passed to {@link #put(String, Map, int)}
+	 */
+	synchronized int getStamp() {
+		return fStamp;
+	}
+
+	/**
+	 * Caches calls. Does nothing if the cache was cleared since the given stamp was taken.
+	 *
+	 * @param key the key of the calls, see {@link MethodWrapper#getCallGraphKey()}
+	 * @param calls a map from handle identifier to {@link MethodCall}, which must not be modified
+	 *            anymore
+	 * @param stamp the stamp of the cache taken before the calls were searched
+	 */
+	synchronized void put(String key, Map<String, MethodCall> calls, int stamp) {
+		if (stamp == fStamp)
+			fCalls.put(key, calls);
+	}
+
+	/**
+	 * @return the ASTs parsed for the callee analysis, cleared together with this cache
+	 */
+	CallHierarchyASTCache getASTCache() {
+		return fASTs;
+	}
+
+	synchronized void remove(String key) {
+		fCalls.remove(key);
+	}
+
+	synchronized void clear() {
+		fCalls.clear();
+		fASTs.clear();
+		fStamp++;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -49,6 +49,8 @@ public class CallHierarchy {
     private static final String DEFAULT_IGNORE_FILTERS = "java.*,javax.*"; //$NON-NLS-1$
     private static CallHierarchy fgInstance;
     private IJavaSearchScope fSearchScope;
+    private String fSearchScopeKey;
+    private int fSearchScopeCount;
     private StringMatcher[] fFilters;
 
     public static CallHierarchy getDefault() {
@@ -59,6 +61,24 @@ public class CallHierarchy {
         return fgInstance;
     }
 
+    /**
+     * Releases the calls cached for all call hierarchies.
+     *
+     * @since 3.13
+     */
+    public static void shutdown() {
+        CallGraphCache.shutdown();
+    }
+
+    /**
+     * Forgets the calls found so far, so that they are searched again.
+     *
+     * @since 3.13
+     */
+    public void clearCache() {
+        CallGraphCache.getDefault().clear();
+    }
+
     public boolean isSearchUsingImplementorsEnabled() {
         IPreferenceStore settings = JavaPlugin.getDefault().getPreferenceStore();
 
@@ -69,6 +89,7 @@ public class CallHierarchy {
         IPreferenceStore settings = JavaPlugin.getDefault().getPreferenceStore();
 
         settings.setValue(PREF_USE_IMPLEMENTORS, enabled);
+        clearCache();
     }
 
     public Collection<IJavaElement> getImplementingMethods(IMethod method) {
@@ -165,7 +186,7 @@ public class CallHierarchy {
         return callLocation;
     }
 
-    public IJavaSearchScope getSearchScope() {
+    public synchronized IJavaSearchScope getSearchScope() {
         if (fSearchScope == null) {
             fSearchScope= SearchEngine.createWorkspaceScope();
         }
@@ -174,7 +195,33 @@ public class CallHierarchy {
     }
 
     public void setSearchScope(IJavaSearchScope searchScope) {
+        setSearchScope(searchScope, null);
+    }
+
+    /**
+     * Sets the search scope together with a key that identifies it. Calls found in a scope are
+     * cached under the scope's key, so that they can be reused when the same scope is set again.
+     *
+     * @param searchScope the search scope
+     * @param scopeKey a key that is equal for equal scopes, or <code>null</code> if unknown
+     * @since 3.13
+     */
+    public synchronized void setSearchScope(IJavaSearchScope searchScope, String scopeKey) {
         this.fSearchScope = searchScope;
+        this.fSearchScopeKey = scopeKey;
+    }
+
+    /**
+     * Returns the key of the current search scope.
+     *
+     * @return the key given for the search scope, or a key that is unique to the current search
+     *         scope if none was given
+     */
+    synchronized String getSearchScopeKey() {
+        if (fSearchScopeKey == null) {
+            fSearchScopeKey = "#" + ++fSearchScopeCount; //$NON-NLS-1$
+        }
+        return fSearchScopeKey;
     }
 
 	/**
@@ -206,6 +253,7 @@ public class CallHierarchy {
     public void setFilterEnabled(boolean filterEnabled) {
         IPreferenceStore settings = JavaPlugin.getDefault().getPreferenceStore();
         settings.setValue(PREF_USE_FILTERS, filterEnabled);
+        clearCache();
     }
 
     /**
@@ -223,6 +271,7 @@ public class CallHierarchy {
 
         IPreferenceStore settings = JavaPlugin.getDefault().getPreferenceStore();
         settings.setValue(PREF_FILTERS_LIST, filters);
+        clearCache();
     }
 
     /**
@@ -281,7 +330,10 @@ public class CallHierarchy {
     }
 
     static CompilationUnit getCompilationUnitNode(IMember member, boolean resolveBindings) {
-    	ITypeRoot typeRoot= member.getTypeRoot();
+    	return getCompilationUnitNode(member.getTypeRoot(), resolveBindings);
+    }
+
+    static CompilationUnit getCompilationUnitNode(ITypeRoot typeRoot, boolean resolveBindings) {
         try {
 	    	if (typeRoot.exists() && typeRoot.getBuffer() != null) {
 				ASTParser parser= ASTParser.newParser(IASTSharedValues.SHARED_AST_LEVEL);
@@ -0,0 +1,247 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.callhierarchy;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.ITypeRoot;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.ASTRequestor;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+import org.eclipse.jdt.internal.corext.dom.IASTSharedValues;
+
+/**
+ * The ASTs with resolved bindings parsed for the callee analysis, shared by all call hierarchy
+ * roots.
+ * <p>
+ * Once a callee of a tree level has been analyzed, the compilation units needed by the other
+ * callees of that level are parsed in a single batch with the next one, so that they share one
+ * binding environment. Expanding a single node only parses its own compilation unit.
+ * </p>
+ * <p>
+ * Bindings are resolved lazily and the binding environment of a batch is not thread safe, so the
+ * ASTs of a batch must only be visited while holding the lock of the batch, see
+ * {@link CachedAST#getLock()}. The batches are evicted in least recently used order once their
+ * estimated footprint, the sources plus the binding environment, exceeds the maximum. The cache
+ * is cleared together with the {@link CallGraphCache}.
+ * </p>
+ * <p>
+ * This class is thread safe.
+ * </p>
+ *
+ * @since 3.13
+ */
+public final class CallHierarchyASTCache {
+
+	/**
+	 * An AST of the cache, together with the lock that guards the binding environment it shares
+	 * with the other ASTs of its batch.
+	 */
+	public static final class CachedAST {
+		private final CompilationUnit fAST;
+		private final Batch fBatch;
+
+		CachedAST(CompilationUnit ast, Batch batch) {
+			fAST= ast;
+			fBatch= batch;
+		}
+
+		/**
+		 * @return the AST with resolved bindings
+		 */
+		public CompilationUnit getAST() {
+			return fAST;
+		}
+
+		/**
+		 * @return the lock to hold while the AST is visited or its bindings are resolved
+		 */
+		public Object getLock() {
+			return fBatch;
+		}
+	}
+
+	/**
+	 * The ASTs parsed together, which share one binding environment.
+	 */
+	private static final class Batch {
+		int fFootprint= ENVIRONMENT_FOOTPRINT;
+	}
+
+	/** The default maximal estimated footprint of the cached ASTs, in bytes. */
+	private static final int MAX_FOOTPRINT= 64 * 1024 * 1024;
+	/** The estimated footprint of an AST with bindings, in bytes per character of its source. */
+	private static final int FOOTPRINT_PER_CHAR= 20;
+	/**
+	 * The estimated footprint of the binding environment of a batch, in bytes. It holds the
+	 * bindings of all referenced types, including the library types.
+	 */
+	private static final int ENVIRONMENT_FOOTPRINT= 4 * 1024 * 1024;
+	/** The maximal number of compilation units parsed in one batch. */
+	private static final int MAX_BATCH_SIZE= 16;
+
+	private final LinkedHashMap<String, CachedAST> fASTs= new LinkedHashMap<>(16, 0.75f, true);
+	private final int fMaxFootprint;
+	private int fFootprint;
+	// Incremented whenever the cache is cleared, so that ASTs parsed across a change aren't stored
+	private int fStamp;
+
+	/**
+	 * Creates a cache with the default maximal footprint.
+	 */
+	public CallHierarchyASTCache() {
+		this(MAX_FOOTPRINT);
+	}
+
+	/**
+	 * Creates a cache.
+	 *
+	 * @param maxFootprint the maximal estimated footprint of the cached ASTs in bytes. The most
+	 *            recently parsed batch is kept even if it exceeds the maximum.
+	 */
+	public CallHierarchyASTCache(int maxFootprint) {
+		fMaxFootprint= maxFootprint;
+	}
+
+	/**
+	 * Returns the AST of a type root, parsing it if it is not cached yet. If the AST of one of the
+	 * given siblings is already cached, the siblings whose ASTs are not cached yet are parsed in the
+	 * same batch.
+	 *
+	 * @param typeRoot the type root to get the AST for
+	 * @param siblings the type roots that are likely needed next
+	 * @param monitor the progress monitor used to cancel parsing, or <code>null</code>
+	 * @return the AST with resolved bindings, or <code>null</code> if the type root has no source
+	 * @throws OperationCanceledException if the monitor has been canceled
+	 */
+	public CachedAST getAST(ITypeRoot typeRoot, Collection<ITypeRoot> siblings, IProgressMonitor monitor) {
+		String key= typeRoot.getHandleIdentifier();
+		int stamp;
+		synchronized (this) {
+			CachedAST cached= fASTs.get(key);
+			if (cached != null)
+				return cached;
+			stamp= fStamp;
+		}
+
+		if (!(typeRoot instanceof ICompilationUnit)) {
+			// class files cannot be parsed in a batch
+			CompilationUnit ast= CallHierarchy.getCompilationUnitNode(typeRoot, true);
+			if (ast == null)
+				return null;
+			Batch batch= new Batch();
+			CachedAST cached= new CachedAST(ast, batch);
+			put(Collections.singletonMap(key, cached), batch, stamp);
+			return cached;
+		}
+
+		List<ICompilationUnit> units= new ArrayList<>();
+		units.add((ICompilationUnit) typeRoot);
+		IJavaProject project= typeRoot.getJavaProject();
+		synchronized (this) {
+			if (isAnyCached(siblings)) {
+				for (Iterator<ITypeRoot> iter= siblings.iterator(); iter.hasNext() && units.size() < MAX_BATCH_SIZE;) {
+					ITypeRoot sibling= iter.next();
+					if (sibling instanceof ICompilationUnit && !units.contains(sibling) && sibling.exists() && project.equals(sibling.getJavaProject())
+							&& !fASTs.containsKey(sibling.getHandleIdentifier()))
+						units.add((ICompilationUnit) sibling);
+				}
+			}
+		}
+
+		final Batch batch= new Batch();
+		final Map<String, CachedAST> asts= new HashMap<>();
+		ASTParser parser= ASTParser.newParser(IASTSharedValues.SHARED_AST_LEVEL);
+		parser.setProject(project);
+		parser.setResolveBindings(true);
+		parser.createASTs(units.toArray(new ICompilationUnit[units.size()]), new String[0], new ASTRequestor() {
+			@Override
+			public void acceptAST(ICompilationUnit source, CompilationUnit ast) {
+				asts.put(source.getHandleIdentifier(), new CachedAST(ast, batch));
+			}
+		}, monitor);
+		if (monitor != null && monitor.isCanceled())
+			throw new OperationCanceledException();
+
+		put(asts, batch, stamp);
+		// null if the unit does not exist anymore
+		return asts.get(key);
+	}
+
+	/**
+	 * @return the number of cached ASTs
+	 */
+	public synchronized int size() {
+		return fASTs.size();
+	}
+
+	/**
+	 * Removes all ASTs.
+	 */
+	public synchronized void clear() {
+		fASTs.clear();
+		fFootprint= 0;
+		fStamp++;
+	}
+
+	private boolean isAnyCached(Collection<ITypeRoot> typeRoots) {
+		for (Iterator<ITypeRoot> iter= typeRoots.iterator(); iter.hasNext();) {
+			if (fASTs.containsKey(iter.next().getHandleIdentifier()))
+				return true;
+		}
+		return false;
+	}
+
+	private synchronized void put(Map<String, CachedAST> asts, Batch batch, int stamp) {
+		if (stamp != fStamp || asts.isEmpty())
+			return;
+		for (Iterator<Map.Entry<String, CachedAST>> iter= asts.entrySet().iterator(); iter.hasNext();) {
+			Map.Entry<String, CachedAST> entry= iter.next();
+			batch.fFootprint+= entry.getValue().getAST().getLength() * FOOTPRINT_PER_CHAR;
+			// the AST may have been parsed concurrently by another batch, keep the first one
+			if (!fASTs.containsKey(entry.getKey()))
+				fASTs.put(entry.getKey(), entry.getValue());
+		}
+		fFootprint+= batch.fFootprint;
+
+		// the binding environment is only released once all ASTs of a batch are gone, evict whole batches
+		while (fFootprint > fMaxFootprint) {
+			Batch eldest= null;
+			for (Iterator<CachedAST> iter= fASTs.values().iterator(); iter.hasNext();) {
+				Batch candidate= iter.next().fBatch;
+				if (candidate != batch) {
+					eldest= candidate;
+					break;
+				}
+			}
+			if (eldest == null)
+				break;
+			for (Iterator<CachedAST> iter= fASTs.values().iterator(); iter.hasNext();) {
+				if (iter.next().fBatch == eldest)
+					iter.remove();
+			}
+			fFootprint-= eldest.fFootprint;
+		}
+	}
+}
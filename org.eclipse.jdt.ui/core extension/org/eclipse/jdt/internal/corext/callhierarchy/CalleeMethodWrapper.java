@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,16 +11,22 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.corext.callhierarchy;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 
 import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.ITypeRoot;
 import org.eclipse.jdt.core.dom.CompilationUnit;
 
+import org.eclipse.jdt.internal.corext.callhierarchy.CallHierarchyASTCache.CachedAST;
+
 class CalleeMethodWrapper extends MethodWrapper {
     private Comparator<MethodWrapper> fMethodWrapperComparator = new MethodWrapperComparator();
 
@@ -86,18 +92,40 @@ class CalleeMethodWrapper extends MethodWrapper {
 	protected Map<String, MethodCall> findChildren(IProgressMonitor progressMonitor) {
     	IMember member= getMember();
 		if (member.exists()) {
-			CompilationUnit cu= CallHierarchy.getCompilationUnitNode(member, true);
+			CachedAST cachedAST= CallGraphCache.getDefault().getASTCache().getAST(member.getTypeRoot(), getSiblingTypeRoots(), progressMonitor);
 		    if (progressMonitor != null) {
 		        progressMonitor.worked(5);
 		    }
 
-			if (cu != null) {
+			if (cachedAST != null) {
+				CompilationUnit cu= cachedAST.getAST();
 				CalleeAnalyzerVisitor visitor = new CalleeAnalyzerVisitor(member, cu, progressMonitor);
 
-				cu.accept(visitor);
+				// the ASTs of a batch share one binding environment, which other jobs may use concurrently
+				synchronized (cachedAST.getLock()) {
+					cu.accept(visitor);
+				}
 				return visitor.getCallees();
 			}
+			// the AST could not be created
+			return null;
 		}
         return new HashMap<>(0);
     }
+
+    private Collection<ITypeRoot> getSiblingTypeRoots() {
+        Collection<ITypeRoot> typeRoots = new ArrayList<>();
+        for (Iterator<MethodCall> iter = getSiblingCalls().iterator(); iter.hasNext();) {
+            ITypeRoot typeRoot = iter.next().getMember().getTypeRoot();
+            if (typeRoot != null && !typeRoots.contains(typeRoot)) {
+                typeRoots.add(typeRoot);
+            }
+        }
+        return typeRoots;
+    }
+
+    @Override
+	protected String getCallGraphKey() {
+        return "callees:" + CallHierarchy.getDefault().getSearchScopeKey() + ':' + getMember().getHandleIdentifier(); //$NON-NLS-1$
+    }
 }
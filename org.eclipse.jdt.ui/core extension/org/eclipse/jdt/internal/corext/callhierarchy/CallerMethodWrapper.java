@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -155,10 +155,15 @@ public class CallerMethodWrapper extends MethodWrapper {
 
 		} catch (CoreException e) {
 			JavaPlugin.log(e);
-			return new HashMap<>(0);
+			return null;
 		}
 	}
 
+	@Override
+	protected String getCallGraphKey() {
+		return "callers:" + CallHierarchy.getDefault().getSearchScopeKey() + ':' + getFieldSearchMode() + ':' + getMember().getHandleIdentifier(); //$NON-NLS-1$
+	}
+
 	private IJavaSearchScope getAccurateSearchScope(IJavaSearchScope defaultSearchScope, IMember member) throws JavaModelException {
 		if (! JdtFlags.isPrivate(member))
 			return defaultSearchScope;
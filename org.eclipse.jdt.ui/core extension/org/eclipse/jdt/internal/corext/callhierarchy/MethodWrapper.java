@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,6 +13,8 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.corext.callhierarchy;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
@@ -41,7 +43,8 @@ public abstract class MethodWrapper extends PlatformObject {
     /*
      * A cache of previously found methods. This cache should be searched
      * before adding a "new" method object reference to the list of elements.
-     * This way previously found methods won't be searched again.
+     * This way previously found methods won't be searched again. Shared by all
+     * wrappers of a root, which may be expanded concurrently.
      */
     private Map<String, Map<String, MethodCall>> fMethodCache;
     private final MethodCall fMethodCall;
@@ -57,7 +60,7 @@ public abstract class MethodWrapper extends PlatformObject {
         Assert.isNotNull(methodCall);
 
         if (parent == null) {
-            setMethodCache(new HashMap<String, Map<String, MethodCall>>());
+            setMethodCache(Collections.synchronizedMap(new HashMap<String, Map<String, MethodCall>>()));
             fLevel = 1;
         } else {
             setMethodCache(parent.getMethodCache());
@@ -80,7 +83,7 @@ public abstract class MethodWrapper extends PlatformObject {
 	    }
 	}
 
-    public MethodWrapper[] getCalls(IProgressMonitor progressMonitor) {
+    public synchronized MethodWrapper[] getCalls(IProgressMonitor progressMonitor) {
         if (fElements == null) {
             doFindChildren(progressMonitor);
         }
@@ -203,11 +206,6 @@ public abstract class MethodWrapper extends PlatformObject {
 
     protected abstract String getTaskName();
 
-    private void addCallToCache(MethodCall methodCall) {
-        Map<String, MethodCall> cachedCalls = lookupMethod(this.getMethodCall());
-        cachedCalls.put(methodCall.getKey(), methodCall);
-    }
-
 	/**
 	 * Creates a method wrapper for the child of the receiver.
 	 * 
@@ -223,8 +221,6 @@ public abstract class MethodWrapper extends PlatformObject {
             fElements = new HashMap<>();
             fElements.putAll(existingResults);
         } else {
-            initCalls();
-
             if (progressMonitor != null) {
                 progressMonitor.beginTask(getTaskName(), 100);
             }
@@ -275,18 +271,44 @@ public abstract class MethodWrapper extends PlatformObject {
      * callees, depending on the concrete subclass).
      * @param progressMonitor a progress monitor
      *
-     * @return a map from handle identifier ({@link String}) to {@link MethodCall}
+     * @return a map from handle identifier ({@link String}) to {@link MethodCall}, or
+     *         <code>null</code> if the children could not be searched
      */
     protected abstract Map<String, MethodCall> findChildren(IProgressMonitor progressMonitor);
 
-    private Map<String, Map<String, MethodCall>> getMethodCache() {
-        return fMethodCache;
+    /**
+     * Returns the key under which the result of {@link #findChildren(IProgressMonitor)} is
+     * shared with the other call hierarchy roots, or <code>null</code> if it is not shared.
+     * The key must identify everything the result depends on, apart from the code and the
+     * global call hierarchy settings.
+     *
+     * @return the key of the children in the call graph cache, or <code>null</code>
+     * @since 3.13
+     */
+    protected String getCallGraphKey() {
+        return null;
     }
 
-    private void initCalls() {
-        this.fElements = new HashMap<>();
+    /**
+     * Returns the calls of the parent of this wrapper that have been found so far, including
+     * the call of this wrapper.
+     *
+     * @return the calls of the parent, empty if this is a root or the parent's calls are not
+     *         known
+     */
+    Collection<MethodCall> getSiblingCalls() {
+        if (fParent == null) {
+            return Collections.emptyList();
+        }
+        Map<String, MethodCall> siblings = getMethodCache().get(fParent.getMethodCall().getKey());
+        if (siblings == null) {
+            return Collections.emptyList();
+        }
+        return siblings.values();
+    }
 
-        initCacheForMethod();
+    private Map<String, Map<String, MethodCall>> getMethodCache() {
+        return fMethodCache;
     }
 
     /**
@@ -299,25 +321,37 @@ public abstract class MethodWrapper extends PlatformObject {
     }
 
     private void performSearch(IProgressMonitor progressMonitor) {
-        fElements = findChildren(progressMonitor);
+        CallGraphCache callGraph = CallGraphCache.getDefault();
+        String callGraphKey = getCallGraphKey();
+        Map<String, MethodCall> calls = callGraphKey != null ? callGraph.get(callGraphKey) : null;
+
+        if (calls == null) {
+            int stamp = callGraph.getStamp();
+            calls = findChildren(progressMonitor);
+            if (calls == null) {
+                // the search failed, show no children but search again on the next expansion
+                calls = new HashMap<>(0);
+            } else if (callGraphKey != null) {
+                callGraph.put(callGraphKey, calls, stamp);
+            }
+        }
 
-        for (Iterator<String> iter = fElements.keySet().iterator(); iter.hasNext();) {
+        // publish the calls only when complete, other wrappers of the root may read them concurrently
+        Map<String, MethodCall> cachedCalls = new HashMap<>();
+        for (Iterator<String> iter = calls.keySet().iterator(); iter.hasNext();) {
             checkCanceled(progressMonitor);
 
-            MethodCall methodCall = getMethodCallFromMap(fElements, iter.next());
-            addCallToCache(methodCall);
+            MethodCall methodCall = getMethodCallFromMap(calls, iter.next());
+            cachedCalls.put(methodCall.getKey(), methodCall);
         }
+        getMethodCache().put(getMethodCall().getKey(), cachedCalls);
+        fElements = calls;
     }
 
     private MethodCall getMethodCallFromMap(Map<String, MethodCall> elements, String key) {
         return elements.get(key);
     }
 
-    private void initCacheForMethod() {
-        Map<String, MethodCall> cachedCalls = new HashMap<>();
-        getMethodCache().put(this.getMethodCall().getKey(), cachedCalls);
-    }
-
     /**
      * Checks with the progress monitor to see whether the creation of the type hierarchy
      * should be canceled. Should be regularly called
@@ -365,8 +399,11 @@ public abstract class MethodWrapper extends PlatformObject {
 	 *
 	 * @since 3.6
 	 */
-	public void removeFromCache() {
+	public synchronized void removeFromCache() {
 		fElements= null;
 		fMethodCache.remove(getMethodCall().getKey());
+		String callGraphKey= getCallGraphKey();
+		if (callGraphKey != null)
+			CallGraphCache.getDefault().remove(callGraphKey);
 	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2016 IBM Corporation and others.
+ * Copyright (c) 2007, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,16 +11,18 @@
 package org.eclipse.jdt.internal.corext.dom;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Hashtable;
 import java.util.Iterator;
-import java.util.List;
 
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.SubProgressMonitor;
 
+import org.eclipse.core.resources.IResource;
+
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.dom.ASTParser;
@@ -29,8 +31,9 @@ import org.eclipse.jdt.core.dom.IBinding;
 
 /**
  * Creates AST from a set of compilation units. Uses the
- * batch parser. Splits the set of compilation units in subsets
- * such that it is unlikely that a out of memory exception will occur.
+ * batch parser. Splits the set of compilation units in subsets,
+ * bounded by count and by source size, such that it is unlikely
+ * that a out of memory exception will occur.
  *
  * @since 3.4
  */
@@ -47,6 +50,13 @@ public class ASTBatchParser {
 		else                        MAX_AT_ONCE=  25;
 	}
 
+	/**
+	 * The maximal size in bytes of the source files parsed at once. The ASTs and bindings of a batch
+	 * are only released after the batch, so a few large compilation units must not be parsed
+	 * together with hundreds of others.
+	 */
+	private static final long MAX_SOURCE_SIZE_AT_ONCE= Runtime.getRuntime().maxMemory() / 128;
+
 	/**
 	 * Creates ASTs for each compilation unit in <code>units</code>.
 	 * <p>
@@ -79,20 +89,20 @@ public class ASTBatchParser {
 			for (int i= 0; i < splited.length; i++) {
 				ICompilationUnit[] units= splited[i];
 
-				if (units.length <= MAX_AT_ONCE) {
-					createParser(units[0].getJavaProject()).createASTs(units, bindingKeys, requestor, new SubProgressMonitor(monitor, units.length));
-				} else {
-					List<ICompilationUnit> list= Arrays.asList(units);
-					int end= 0;
-					int cursor= 0;
-					while (cursor < units.length) {
-						end= Math.min(end + MAX_AT_ONCE, units.length);
-						List<ICompilationUnit> toParse= list.subList(cursor, end);
-
-						createParser(units[0].getJavaProject()).createASTs(toParse.toArray(new ICompilationUnit[toParse.size()]), bindingKeys, requestor,
-								new SubProgressMonitor(monitor, toParse.size()));
-						cursor= end;
+				int cursor= 0;
+				while (cursor < units.length) {
+					if (monitor.isCanceled())
+						throw new OperationCanceledException();
+
+					int end= getBatchEnd(units, cursor, MAX_AT_ONCE, MAX_SOURCE_SIZE_AT_ONCE);
+					ICompilationUnit[] toParse= units;
+					if (cursor != 0 || end != units.length) {
+						toParse= new ICompilationUnit[end - cursor];
+						System.arraycopy(units, cursor, toParse, 0, toParse.length);
 					}
+
+					createParser(units[0].getJavaProject()).createASTs(toParse, bindingKeys, requestor, new SubProgressMonitor(monitor, toParse.length));
+					cursor= end;
 				}
 			}
 		} finally {
@@ -118,6 +128,36 @@ public class ASTBatchParser {
 		return result;
 	}
 
+	/**
+	 * Returns the end of the batch starting at <code>start</code>. A batch contains at most
+	 * <code>maxUnits</code> compilation units and, unless it consists of a single compilation unit,
+	 * at most <code>maxSourceSize</code> bytes of source.
+	 *
+	 * @param units the compilation units of one project
+	 * @param start the index of the first compilation unit of the batch
+	 * @param maxUnits the maximal number of compilation units of a batch
+	 * @param maxSourceSize the maximal size in bytes of the source files of a batch
+	 * @return the index after the last compilation unit of the batch
+	 */
+	public static int getBatchEnd(ICompilationUnit[] units, int start, int maxUnits, long maxSourceSize) {
+		int max= Math.min(start + maxUnits, units.length);
+		long size= 0;
+		for (int i= start; i < max; i++) {
+			size+= getSourceSize(units[i]);
+			if (size > maxSourceSize && i > start)
+				return i;
+		}
+		return max;
+	}
+
+	private static long getSourceSize(ICompilationUnit unit) {
+		IResource resource= unit.getResource();
+		if (resource == null)
+			return 0;
+		IPath location= resource.getLocation();
+		return location != null ? location.toFile().length() : 0;
+	}
+
 	private static ICompilationUnit[][] splitByProject(ICompilationUnit[] units) {
 		if (hasOnlyOneProject(units))
 			return new ICompilationUnit[][] { units };
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -371,9 +371,14 @@ public class CleanUpPostSaveListener implements IPostSaveListener {
     					}
     				}
 
+    				ICleanUp[] pass= cleanUps;
+    				int passLength= getPassLength(cleanUps);
     				CompilationUnit ast= null;
-    				if (requiresAST(cleanUps)) {
+    				if (requiresAST(cleanUps, passLength)) {
     					ast= createAst(unit, options, new SubProgressMonitor(monitor, 10));
+    				} else if (passLength < cleanUps.length) {
+    					pass= new ICleanUp[passLength];
+    					System.arraycopy(cleanUps, 0, pass, 0, passLength);
     				}
 
     				CleanUpContext context;
@@ -384,7 +389,10 @@ public class CleanUpPostSaveListener implements IPostSaveListener {
     				}
 
     				ArrayList<ICleanUp> undoneCleanUps= new ArrayList<>();
-					CleanUpChange change= CleanUpRefactoring.calculateChange(context, cleanUps, undoneCleanUps, slowCleanUps);
+					CleanUpChange change= CleanUpRefactoring.calculateChange(context, pass, undoneCleanUps, slowCleanUps);
+					for (int i= pass.length; i < cleanUps.length; i++) {
+						undoneCleanUps.add(cleanUps[i]);
+					}
 
     				RefactoringStatus postCondition= new RefactoringStatus();
     				for (int i= 0; i < cleanUps.length; i++) {
@@ -562,8 +570,24 @@ public class CleanUpPostSaveListener implements IPostSaveListener {
 		}
 	}
 
-	private boolean requiresAST(ICleanUp[] cleanUps) {
-		for (int i= 0; i < cleanUps.length; i++) {
+	/**
+	 * Returns the number of clean ups that {@link CleanUpRefactoring#calculateChange(CleanUpContext, ICleanUp[], java.util.List, HashSet)}
+	 * applies in one pass if it is given an AST: the first clean up and all following clean ups up
+	 * to the first one that requires a fresh AST.
+	 *
+	 * @param cleanUps the clean ups to apply
+	 * @return the number of clean ups applied in the next pass
+	 */
+	private static int getPassLength(ICleanUp[] cleanUps) {
+		int i= Math.min(1, cleanUps.length);
+		while (i < cleanUps.length && !cleanUps[i].getRequirements().requiresFreshAST()) {
+			i++;
+		}
+		return i;
+	}
+
+	private boolean requiresAST(ICleanUp[] cleanUps, int count) {
+		for (int i= 0; i < count; i++) {
 	        if (cleanUps[i].getRequirements().requiresAST())
 	        	return true;
         }
@@ -581,10 +605,13 @@ public class CleanUpPostSaveListener implements IPostSaveListener {
 		return false;
 	}
 
-	private CompilationUnit createAst(ICompilationUnit unit, Map<String, String> cleanUpOptions, IProgressMonitor monitor) {
+	private CompilationUnit createAst(ICompilationUnit unit, Map<String, String> cleanUpOptions, IProgressMonitor monitor) throws CoreException {
 		IJavaProject project= unit.getJavaProject();
-		if (compatibleOptions(project, cleanUpOptions)) {
-			CompilationUnit ast= SharedASTProvider.getAST(unit, SharedASTProvider.WAIT_NO, monitor);
+		// The shared AST only matches the buffer if the working copy has been reconciled since its last change.
+		// Outside the UI thread, waiting for a running reconcile of the active editor is cheaper than creating a second AST.
+		if (compatibleOptions(project, cleanUpOptions) && unit.isConsistent()) {
+			SharedASTProvider.WAIT_FLAG waitFlag= Display.getCurrent() != null ? SharedASTProvider.WAIT_NO : SharedASTProvider.WAIT_ACTIVE_ONLY;
+			CompilationUnit ast= SharedASTProvider.getAST(unit, waitFlag, monitor);
 			if (ast != null)
 				return ast;
 		}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -265,6 +265,8 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 
 		@Override
 		public void acceptAST(ICompilationUnit source, CompilationUnit ast) {
+			if (fMonitor.isCanceled())
+				throw new OperationCanceledException();
 
 			fMonitor.subTask(fMonitor.getSubTaskMessage(source));
 
@@ -365,6 +367,8 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 			try {
 				for (Iterator<ParseListElement> iter= fParseList.iterator(); iter.hasNext();) {
 					ParseListElement element= iter.next();
+					if (monitor.isCanceled())
+						throw new OperationCanceledException();
 
 					ICompilationUnit compilationUnit= element.getTarget().getCompilationUnit();
 					if (fSolutions.containsKey(compilationUnit)) {
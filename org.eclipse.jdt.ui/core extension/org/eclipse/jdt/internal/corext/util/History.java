@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,16 +10,22 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.corext.util;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Hashtable;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -45,7 +51,10 @@ import org.w3c.dom.NodeList;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 
 import org.eclipse.jdt.internal.corext.CorextMessages;
 
@@ -59,8 +68,10 @@ import org.eclipse.jdt.internal.core.manipulation.util.BasicElementLabels;
  * MAX_HISTORY_SIZE. If the list exceeds this size the eldest element is removed
  * from the list. An element can be added/renewed with a call to <code>accessed(Object)</code>.
  *
- * The history can be stored to/loaded from an xml file.
- * 
+ * The history can be stored to/loaded from an xml file, or instead to/from a compact binary log
+ * written by {@link #writeObject(Object, DataOutputStream)} and read by
+ * {@link #readObject(DataInputStream)}, see {@link #History(String, String, String, String)}.
+ *
  * @param <K> key type
  * @param <V> value type
  */
@@ -69,29 +80,79 @@ public abstract class History<K, V> {
 	private static final String DEFAULT_ROOT_NODE_NAME= "histroyRootNode"; //$NON-NLS-1$
 	private static final String DEFAULT_INFO_NODE_NAME= "infoNode"; //$NON-NLS-1$
 	private static final int MAX_HISTORY_SIZE= 60;
+	/**
+	 * The log is compacted when it holds this many times more records than the history has
+	 * entries.
+	 */
+	private static final int COMPACTION_FACTOR= 4;
+	/**
+	 * Delay before accesses are appended to the log, so that the disk is not written in the UI
+	 * thread and several accesses are written at once.
+	 */
+	private static final long LOG_DELAY= 1000;
 
 	private static JavaUIException createException(Throwable t, String message) {
 		return new JavaUIException(JavaUIStatus.createError(IStatus.ERROR, message, t));
 	}
 
 	private final Map<K, V> fHistory;
-	private final Hashtable<K, Integer> fPositions;
+	// Access stamp of each key, the stamps grow with every access
+	private final Map<K, Long> fStamps;
+	// The stamps of all keys in ascending order, i.e. from the eldest to the newest entry.
+	// The position of a key is the index of its stamp.
+	private final long[] fStampOrder;
+	private int fStampCount;
+	private long fNextStamp;
 	private final String fFileName;
 	private final String fRootNodeName;
 	private final String fInfoNodeName;
+	private final String fLogFileName;
+	// Guarded by fLogLock, which is taken before the lock on this history
+	private HistoryLog fLog;
+	private final Object fLogLock= new Object();
+	// The records not yet appended to the log
+	private final List<byte[]> fPendingRecords= new ArrayList<>();
+	// Set when an entry has been removed, the log is then compacted instead of appended to
+	private boolean fNeedsRewrite;
+	private boolean fIsLoading;
+	private Job fLogJob;
 
 	public History(String fileName, String rootNodeName, String infoNodeName) {
+		this(fileName, rootNodeName, infoNodeName, null);
+	}
+
+	/**
+	 * Creates a history that is stored in a binary log. Accesses are appended to the log shortly
+	 * after they happened in a background job, removals cause the log to be compacted. The log is
+	 * also compacted when it grew too large and on {@link #save()}. The xml file is only read if
+	 * the log does not exist yet, to migrate histories stored by earlier versions.
+	 *
+	 * @param fileName the name of the xml file
+	 * @param rootNodeName the name of the root node of the xml file
+	 * @param infoNodeName the name of the nodes storing the elements in the xml file
+	 * @param logFileName the name of the binary log, or <code>null</code> to store the history in
+	 *            the xml file
+	 * @since 3.13
+	 */
+	public History(String fileName, String rootNodeName, String infoNodeName, String logFileName) {
 		fHistory= new LinkedHashMap<K, V>(80, 0.75f, true) {
 			private static final long serialVersionUID= 1L;
 			@Override
 			protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
-				return size() > MAX_HISTORY_SIZE;
+				if (size() > MAX_HISTORY_SIZE) {
+					removeStamp(eldest.getKey());
+					entryRemoved(eldest.getValue());
+					return true;
+				}
+				return false;
 			}
 		};
 		fFileName= fileName;
 		fRootNodeName= rootNodeName;
 		fInfoNodeName= infoNodeName;
-		fPositions= new Hashtable<>(MAX_HISTORY_SIZE);
+		fLogFileName= logFileName;
+		fStamps= new HashMap<>(80);
+		fStampOrder= new long[MAX_HISTORY_SIZE + 1];
 	}
 
 	public History(String fileName) {
@@ -99,8 +160,8 @@ public abstract class History<K, V> {
 	}
 
 	public synchronized void accessed(V object) {
-		fHistory.put(getKey(object), object);
-		rebuildPositions();
+		put(getKey(object), object);
+		appendRecord(object);
 	}
 
 	public synchronized boolean contains(V object) {
@@ -116,14 +177,16 @@ public abstract class History<K, V> {
 	}
 
 	public synchronized Object remove(V object) {
-		Object removed= fHistory.remove(getKey(object));
-		rebuildPositions();
-		return removed;
+		return removeKey(getKey(object));
 	}
 
 	public synchronized Object removeKey(Object key) {
-		Object removed= fHistory.remove(key);
-		rebuildPositions();
+		V removed= fHistory.remove(key);
+		if (removed != null) {
+			removeStamp(key);
+			entryRemoved(removed);
+			scheduleRewrite();
+		}
 		return removed;
 	}
 
@@ -140,7 +203,7 @@ public abstract class History<K, V> {
 		if (!containsKey(key))
 			return 0.0f;
 
-		int pos= fPositions.get(key).intValue() + 1;
+		int pos= getPosition(key) + 1;
 
 		//containsKey(key) implies fHistory.size()>0
 		return (float)pos / (float)fHistory.size();
@@ -155,13 +218,51 @@ public abstract class History<K, V> {
 	 * @return value between 0 and MAX_HISTORY_SIZE - 1, or -1
 	 */
 	public synchronized int getPosition(K key) {
-		if (!containsKey(key))
+		Long stamp= fStamps.get(key);
+		if (stamp == null)
 			return -1;
 
-		return fPositions.get(key).intValue();
+		return Arrays.binarySearch(fStampOrder, 0, fStampCount, stamp.longValue());
+	}
+
+	public void load() {
+		if (fLogFileName == null) {
+			synchronized (this) {
+				loadXML();
+			}
+			return;
+		}
+
+		synchronized (fLogLock) {
+			synchronized (this) {
+				if (loadLog())
+					return;
+				loadXML();
+				if (fHistory.isEmpty())
+					return;
+			}
+			writeLog(true);
+		}
+	}
+
+	public void save() {
+		if (fLogFileName == null) {
+			synchronized (this) {
+				saveXML();
+			}
+			return;
+		}
+
+		Job job;
+		synchronized (this) {
+			job= fLogJob;
+		}
+		if (job != null)
+			job.cancel();
+		writeLog(true);
 	}
 
-	public synchronized void load() {
+	private void loadXML() {
 		IPath stateLocation= JavaPlugin.getDefault().getStateLocation().append(fFileName);
 		File file= stateLocation.toFile();
 		if (file.exists()) {
@@ -184,7 +285,7 @@ public abstract class History<K, V> {
 		}
 	}
 
-	public synchronized void save() {
+	private void saveXML() {
 		IPath stateLocation= JavaPlugin.getDefault().getStateLocation().append(fFileName);
 		File file= stateLocation.toFile();
 		OutputStream out= null;
@@ -242,15 +343,198 @@ public abstract class History<K, V> {
 	 */
 	protected abstract K getKey(V object);
 
-	private void rebuildPositions() {
-		fPositions.clear();
-		Collection<V> values= fHistory.values();
-		int pos=0;
-		for (Iterator<V> iter= values.iterator(); iter.hasNext();) {
-			V element= iter.next();
-			fPositions.put(getKey(element), new Integer(pos));
-			pos++;
+	/**
+	 * Writes <code>object</code> to a record of the binary log.
+	 *
+	 * @param object the object to store
+	 * @param out the stream to write to
+	 * @throws IOException if writing fails
+	 * @since 3.13
+	 */
+	protected abstract void writeObject(V object, DataOutputStream out) throws IOException;
+
+	/**
+	 * Reads an object from a record of the binary log.
+	 *
+	 * @param in the stream to read from
+	 * @return the object, or <code>null</code> if the record is not valid anymore
+	 * @throws IOException if reading fails
+	 * @since 3.13
+	 */
+	protected abstract V readObject(DataInputStream in) throws IOException;
+
+	/**
+	 * Called when an object has been removed from the history, either explicitly or because the
+	 * history is full. Subclasses can release the state they keep for the object.
+	 *
+	 * @param object the removed object
+	 * @since 3.13
+	 */
+	protected void entryRemoved(V object) {
+		// do nothing by default
+	}
+
+	private void put(K key, V object) {
+		long stamp= fNextStamp++;
+		Long old= fStamps.put(key, new Long(stamp));
+		if (old != null)
+			removeFromOrder(old.longValue());
+		// stamps grow, so the new stamp always goes last
+		fStampOrder[fStampCount++]= stamp;
+		// may evict the eldest entry, see removeEldestEntry
+		fHistory.put(key, object);
+	}
+
+	private void removeStamp(Object key) {
+		Long stamp= fStamps.remove(key);
+		if (stamp != null)
+			removeFromOrder(stamp.longValue());
+	}
+
+	private void removeFromOrder(long stamp) {
+		int index= Arrays.binarySearch(fStampOrder, 0, fStampCount, stamp);
+		if (index < 0)
+			return;
+		System.arraycopy(fStampOrder, index + 1, fStampOrder, index, fStampCount - index - 1);
+		fStampCount--;
+	}
+
+	private void clear() {
+		for (Iterator<V> iter= fHistory.values().iterator(); iter.hasNext();) {
+			entryRemoved(iter.next());
+		}
+		fHistory.clear();
+		fStamps.clear();
+		fStampCount= 0;
+	}
+
+	private HistoryLog getLog() {
+		if (fLog == null)
+			fLog= new HistoryLog(JavaPlugin.getDefault().getStateLocation().append(fLogFileName).toFile());
+		return fLog;
+	}
+
+	private boolean loadLog() {
+		HistoryLog log= getLog();
+		fIsLoading= true;
+		try {
+			boolean exists= log.read(new HistoryLog.RecordHandler() {
+				@Override
+				public void handle(DataInputStream payload) throws IOException {
+					V object= readObject(payload);
+					if (object != null)
+						put(getKey(object), object);
+				}
+			});
+			if (!exists)
+				return false;
+		} catch (IOException e) {
+			JavaPlugin.log(createException(e, Messages.format(CorextMessages.History_error_read_log, BasicElementLabels.getResourceName(fLogFileName))));
+			// fall back to the xml file, a valid log will be written on the next save
+			clear();
+			return false;
+		} finally {
+			fIsLoading= false;
+		}
+		// drop a damaged tail, so that new records are not appended behind it
+		if (log.isDamaged() || needsCompaction(0))
+			scheduleRewrite();
+		return true;
+	}
+
+	private boolean needsCompaction(int pendingRecords) {
+		return fLog.getRecordCount() + pendingRecords > COMPACTION_FACTOR * Math.max(fHistory.size(), MAX_HISTORY_SIZE / 2);
+	}
+
+	private void appendRecord(V object) {
+		if (fLogFileName == null || fIsLoading)
+			return;
+		try {
+			fPendingRecords.add(toBytes(object));
+		} catch (IOException e) {
+			JavaPlugin.log(createException(e, Messages.format(CorextMessages.History_error_write_log, BasicElementLabels.getResourceName(fLogFileName))));
+			return;
+		}
+		scheduleLogJob();
+	}
+
+	private void scheduleRewrite() {
+		if (fLogFileName == null || fIsLoading)
+			return;
+		fNeedsRewrite= true;
+		scheduleLogJob();
+	}
+
+	private void scheduleLogJob() {
+		if (fLogJob == null) {
+			fLogJob= new Job(CorextMessages.History_write_log_job) {
+				@Override
+				protected IStatus run(IProgressMonitor monitor) {
+					writeLog(false);
+					return Status.OK_STATUS;
+				}
+				@Override
+				public boolean belongsTo(Object family) {
+					return family == History.class;
+				}
+			};
+			fLogJob.setSystem(true);
+			fLogJob.setPriority(Job.DECORATE);
 		}
+		fLogJob.schedule(LOG_DELAY);
+	}
+
+	/**
+	 * Appends the pending records to the log, or rewrites the log if it needs to be compacted.
+	 * The disk is written without holding the lock on this history.
+	 *
+	 * @param compact <code>true</code> to rewrite the log in any case
+	 */
+	private void writeLog(boolean compact) {
+		synchronized (fLogLock) {
+			HistoryLog log;
+			List<byte[]> records;
+			List<byte[]> contents= null;
+			synchronized (this) {
+				log= getLog();
+				records= new ArrayList<>(fPendingRecords);
+				fPendingRecords.clear();
+				if (compact || fNeedsRewrite || needsCompaction(records.size())) {
+					fNeedsRewrite= false;
+					try {
+						contents= getPayloads();
+					} catch (IOException e) {
+						JavaPlugin.log(createException(e, Messages.format(CorextMessages.History_error_write_log, BasicElementLabels.getResourceName(fLogFileName))));
+						return;
+					}
+				}
+			}
+			try {
+				if (contents != null)
+					log.rewrite(contents);
+				else if (!records.isEmpty())
+					log.append(records);
+			} catch (IOException e) {
+				JavaPlugin.log(createException(e, Messages.format(CorextMessages.History_error_write_log, BasicElementLabels.getResourceName(fLogFileName))));
+			}
+		}
+	}
+
+	private List<byte[]> getPayloads() throws IOException {
+		List<byte[]> payloads= new ArrayList<>(fHistory.size());
+		// the values are ordered from the eldest to the newest entry
+		for (Iterator<V> iter= fHistory.values().iterator(); iter.hasNext();) {
+			payloads.add(toBytes(iter.next()));
+		}
+		return payloads;
+	}
+
+	private byte[] toBytes(V object) throws IOException {
+		ByteArrayOutputStream bytes= new ByteArrayOutputStream(64);
+		DataOutputStream out= new DataOutputStream(bytes);
+		writeObject(object, out);
+		out.flush();
+		return bytes.toByteArray();
 	}
 
 	private void load(InputSource inputSource) throws CoreException {
@@ -280,12 +564,11 @@ public abstract class History<K, V> {
 				if (type.getNodeName().equalsIgnoreCase(fInfoNodeName)) {
 					V object= createFromElement(type);
 					if (object != null) {
-						fHistory.put(getKey(object), object);
+						put(getKey(object), object);
 					}
 				}
 			}
 		}
-		rebuildPositions();
 	}
 
 	private void save(OutputStream stream) throws CoreException {
@@ -0,0 +1,229 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only binary log of history records.
+ * <p>
+ * The file starts with a magic number and a format version, followed by records. Each record
+ * consists of its kind, the length of its payload, a CRC32 checksum of the payload and the payload
+ * itself. There is only one kind of records, {@link #ACCESSED}: removals are not logged, the
+ * history rewrites the log instead. A record that was only partially written, for example because the workbench crashed
+ * while appending it, ends the log: it and everything following it is dropped on read and the log
+ * is reported as damaged.
+ * </p>
+ * <p>
+ * The log is compacted by {@link #rewrite(List)}, which writes the new contents to a temporary file
+ * and renames it over the log, so that the log is never left half written.
+ * </p>
+ * <p>
+ * This class is not thread safe, clients have to synchronize.
+ * </p>
+ *
+ * @since 3.13
+ */
+final class HistoryLog {
+
+	/**
+	 * Receives the records read from a log.
+	 */
+	interface RecordHandler {
+		/**
+		 * Handles an {@link HistoryLog#ACCESSED} record.
+		 *
+		 * @param payload the payload of the record
+		 * @throws IOException if the payload cannot be decoded, the record is skipped
+		 */
+		void handle(DataInputStream payload) throws IOException;
+	}
+
+	/** Kind of a record of an accessed element. */
+	static final byte ACCESSED= 1;
+
+	private static final int MAGIC= 0x4A484C47; // JHLG
+	private static final int VERSION= 1;
+	private static final int HEADER_LENGTH= 8;
+	private static final int MAX_PAYLOAD_LENGTH= 1 << 20;
+
+	private final File fFile;
+	private int fRecordCount;
+	private boolean fIsDamaged;
+
+	HistoryLog(File file) {
+		fFile= file;
+	}
+
+	/**
+	 * @return the number of records in the log, as far as known from reading and writing it
+	 */
+	int getRecordCount() {
+		return fRecordCount;
+	}
+
+	/**
+	 * @return <code>true</code> if the last {@link #read(RecordHandler)} dropped a truncated or
+	 *         corrupt tail of the log
+	 */
+	boolean isDamaged() {
+		return fIsDamaged;
+	}
+
+	/**
+	 * Reads all records of the log in the order they were written.
+	 *
+	 * @param handler the handler to pass the records to
+	 * @return <code>false</code> if the log does not exist
+	 * @throws IOException if the log cannot be read or is not a log of this version
+	 */
+	boolean read(RecordHandler handler) throws IOException {
+		fRecordCount= 0;
+		fIsDamaged= false;
+		if (!fFile.exists())
+			return false;
+
+		DataInputStream in= new DataInputStream(new BufferedInputStream(new FileInputStream(fFile)));
+		try {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION)
+				throw new IOException("Unsupported history log format: " + fFile); //$NON-NLS-1$
+
+			CRC32 crc= new CRC32();
+			byte[] buffer= new byte[256];
+			while (true) {
+				int kind= in.read();
+				if (kind == -1)
+					break;
+				int length;
+				int checksum;
+				try {
+					length= in.readInt();
+					checksum= in.readInt();
+					if (length < 0 || length > MAX_PAYLOAD_LENGTH) {
+						fIsDamaged= true;
+						break;
+					}
+					if (buffer.length < length)
+						buffer= new byte[Math.max(length, buffer.length * 2)];
+					in.readFully(buffer, 0, length);
+				} catch (EOFException e) {
+					fIsDamaged= true;
+					break;
+				}
+				crc.reset();
+				crc.update(buffer, 0, length);
+				if ((int) crc.getValue() != checksum) {
+					fIsDamaged= true;
+					break;
+				}
+				fRecordCount++;
+				if (kind != ACCESSED) {
+					// written by a later version, dropped on the next rewrite
+					fIsDamaged= true;
+					continue;
+				}
+				try {
+					handler.handle(new DataInputStream(new ByteArrayInputStream(buffer, 0, length)));
+				} catch (IOException e) {
+					// a record the handler cannot decode anymore, skip it
+				}
+			}
+		} finally {
+			in.close();
+		}
+		return true;
+	}
+
+	/**
+	 * Appends {@link #ACCESSED} records to the log, creating the log if it does not exist yet.
+	 *
+	 * @param payloads the payloads of the records, in the order they are to be read
+	 * @throws IOException if the records cannot be written
+	 */
+	void append(List<byte[]> payloads) throws IOException {
+		boolean create= !fFile.exists() || fFile.length() < HEADER_LENGTH;
+		ByteArrayOutputStream bytes= new ByteArrayOutputStream(HEADER_LENGTH + 64 * payloads.size());
+		DataOutputStream data= new DataOutputStream(bytes);
+		if (create)
+			writeHeader(data);
+		for (Iterator<byte[]> iter= payloads.iterator(); iter.hasNext();) {
+			writeRecord(data, ACCESSED, iter.next());
+		}
+
+		FileOutputStream out= new FileOutputStream(fFile, !create);
+		try {
+			// a single write, so that a crash leaves at most one partial record
+			bytes.writeTo(out);
+		} finally {
+			out.close();
+		}
+		if (create)
+			fRecordCount= 0;
+		fRecordCount+= payloads.size();
+	}
+
+	/**
+	 * Replaces the contents of the log with the given {@link #ACCESSED} records.
+	 *
+	 * @param payloads the payloads of the records, in the order they are to be read
+	 * @throws IOException if the log cannot be written
+	 */
+	void rewrite(List<byte[]> payloads) throws IOException {
+		File tmp= new File(fFile.getPath() + ".tmp"); //$NON-NLS-1$
+		DataOutputStream out= new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+		try {
+			writeHeader(out);
+			for (Iterator<byte[]> iter= payloads.iterator(); iter.hasNext();) {
+				writeRecord(out, ACCESSED, iter.next());
+			}
+			out.flush();
+		} finally {
+			out.close();
+		}
+		try {
+			Files.move(tmp.toPath(), fFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(tmp.toPath(), fFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		fRecordCount= payloads.size();
+		fIsDamaged= false;
+	}
+
+	private static void writeHeader(DataOutputStream out) throws IOException {
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+	}
+
+	private static void writeRecord(DataOutputStream out, byte kind, byte[] payload) throws IOException {
+		CRC32 crc= new CRC32();
+		crc.update(payload, 0, payload.length);
+		out.writeByte(kind);
+		out.writeInt(payload.length);
+		out.writeInt((int) crc.getValue());
+		out.write(payload);
+	}
+}
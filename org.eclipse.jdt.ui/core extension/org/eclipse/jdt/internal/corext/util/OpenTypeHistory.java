@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,14 +10,21 @@
  *******************************************************************************/
  package org.eclipse.jdt.internal.corext.util;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
 
 import org.w3c.dom.Element;
 
@@ -60,20 +67,26 @@ public class OpenTypeHistory extends History<TypeNameMatch, TypeNameMatch> {
 	private static class TypeHistoryDeltaListener implements IElementChangedListener {
 		@Override
 		public void elementChanged(ElementChangedEvent event) {
-			if (processDelta(event.getDelta())) {
+			Set<IJavaElement> dirtyContainers= new HashSet<>();
+			if (processDelta(event.getDelta(), dirtyContainers)) {
 				OpenTypeHistory.getInstance().markAsInconsistent();
+			} else if (!dirtyContainers.isEmpty()) {
+				OpenTypeHistory.getInstance().markAsInconsistent(dirtyContainers);
 			}
 		}
 
 		/**
-		 * Computes whether the history needs a consistency check or not.
+		 * Computes whether the history needs a consistency check or not. Changes below a package
+		 * fragment root only mark the root as dirty, removed or closed projects mark the project
+		 * as dirty.
 		 *
 		 * @param delta the Java element delta
+		 * @param dirtyContainers the set to add the dirty package fragment roots and projects to
 		 *
-		 * @return <code>true</code> if consistency must be checked
+		 * @return <code>true</code> if consistency must be checked for the enclosing element
 		 *  <code>false</code> otherwise.
 		 */
-		private boolean processDelta(IJavaElementDelta delta) {
+		private boolean processDelta(IJavaElementDelta delta, Set<IJavaElement> dirtyContainers) {
 			IJavaElement elem= delta.getElement();
 
 			boolean isChanged= delta.getKind() == IJavaElementDelta.CHANGED;
@@ -83,16 +96,18 @@ public class OpenTypeHistory extends History<TypeNameMatch, TypeNameMatch> {
 				case IJavaElement.JAVA_PROJECT:
 					if (isRemoved || (isChanged &&
 							(delta.getFlags() & IJavaElementDelta.F_CLOSED) != 0)) {
-						return true;
+						dirtyContainers.add(elem);
+						return false;
 					}
-					return processChildrenDelta(delta);
+					return processChildrenDelta(delta, dirtyContainers);
 				case IJavaElement.PACKAGE_FRAGMENT_ROOT:
 					if (isRemoved || (isChanged && (
 							(delta.getFlags() & IJavaElementDelta.F_ARCHIVE_CONTENT_CHANGED) != 0 ||
-							(delta.getFlags() & IJavaElementDelta.F_REMOVED_FROM_CLASSPATH) != 0))) {
-						return true;
+							(delta.getFlags() & IJavaElementDelta.F_REMOVED_FROM_CLASSPATH) != 0))
+							|| processChildrenDelta(delta, dirtyContainers)) {
+						dirtyContainers.add(elem);
 					}
-					return processChildrenDelta(delta);
+					return false;
 				case IJavaElement.TYPE:
 					if (isChanged && (delta.getFlags() & IJavaElementDelta.F_MODIFIERS) != 0) {
 						return true;
@@ -100,14 +115,14 @@ public class OpenTypeHistory extends History<TypeNameMatch, TypeNameMatch> {
 					if (isRemoved) {
 						return true;
 					}
-					return processChildrenDelta(delta);
+					return processChildrenDelta(delta, dirtyContainers);
 				case IJavaElement.JAVA_MODEL:
 				case IJavaElement.PACKAGE_FRAGMENT:
 				case IJavaElement.CLASS_FILE:
 					if (isRemoved) {
 						return true;
 					}
-					return processChildrenDelta(delta);
+					return processChildrenDelta(delta, dirtyContainers);
 				case IJavaElement.COMPILATION_UNIT:
 					// Not the primary compilation unit. Ignore it
 					if (!JavaModelUtil.isPrimary((ICompilationUnit) elem)) {
@@ -117,7 +132,7 @@ public class OpenTypeHistory extends History<TypeNameMatch, TypeNameMatch> {
 					if (isRemoved || (isChanged && isUnknownStructuralChange(delta.getFlags()))) {
 						return true;
 					}
-					return processChildrenDelta(delta);
+					return processChildrenDelta(delta, dirtyContainers);
 				default:
 					// fields, methods, imports ect
 					return false;
@@ -136,10 +151,10 @@ public class OpenTypeHistory extends History<TypeNameMatch, TypeNameMatch> {
 		}
 		*/
 
-		private boolean processChildrenDelta(IJavaElementDelta delta) {
+		private boolean processChildrenDelta(IJavaElementDelta delta, Set<IJavaElement> dirtyContainers) {
 			IJavaElementDelta[] children= delta.getAffectedChildren();
 			for (int i= 0; i < children.length; i++) {
-				if (processDelta(children[i])) {
+				if (processDelta(children[i], dirtyContainers)) {
 					return true;
 				}
 			}
@@ -166,6 +181,11 @@ public class OpenTypeHistory extends History<TypeNameMatch, TypeNameMatch> {
 
 	// Needs to be volatile since accesses aren't synchronized.
 	private volatile boolean fNeedsConsistencyCheck;
+	// Package fragment roots and projects whose entries need a consistency check,
+	// guarded by itself since markAsInconsistent isn't synchronized.
+	private final Set<IJavaElement> fDirtyContainers;
+	// Whether all entries need a consistency check, guarded by fDirtyContainers.
+	private boolean fCheckAll;
 	// Map of cached time stamps
 	private Map<TypeNameMatch, Long> fTimestampMapping;
 
@@ -173,6 +193,7 @@ public class OpenTypeHistory extends History<TypeNameMatch, TypeNameMatch> {
 	private final UpdateJob fUpdateJob;
 
 	private static final String FILENAME= "OpenTypeHistory.xml"; //$NON-NLS-1$
+	private static final String LOG_FILENAME= "OpenTypeHistory.dat"; //$NON-NLS-1$
 	private static final String NODE_ROOT= "typeInfoHistroy"; //$NON-NLS-1$
 	private static final String NODE_TYPE_INFO= "typeInfo"; //$NON-NLS-1$
 	private static final String NODE_HANDLE= "handle"; //$NON-NLS-1$
@@ -194,8 +215,11 @@ public class OpenTypeHistory extends History<TypeNameMatch, TypeNameMatch> {
 	}
 
 	private OpenTypeHistory() {
-		super(FILENAME, NODE_ROOT, NODE_TYPE_INFO);
+		super(FILENAME, NODE_ROOT, NODE_TYPE_INFO, LOG_FILENAME);
 		fTimestampMapping= new HashMap<>();
+		fDirtyContainers= new HashSet<>();
+		// containers may have changed while the workbench was not running
+		fCheckAll= true;
 		fNeedsConsistencyCheck= true;
 		load();
 		fDeltaListener= new TypeHistoryDeltaListener();
@@ -210,6 +234,25 @@ public class OpenTypeHistory extends History<TypeNameMatch, TypeNameMatch> {
 	}
 
 	public void markAsInconsistent() {
+		synchronized (fDirtyContainers) {
+			fCheckAll= true;
+		}
+		scheduleConsistencyCheck();
+	}
+
+	/**
+	 * Marks the entries in the given containers as inconsistent.
+	 *
+	 * @param containers the package fragment roots and Java projects that have changed
+	 */
+	public void markAsInconsistent(Collection<IJavaElement> containers) {
+		synchronized (fDirtyContainers) {
+			fDirtyContainers.addAll(containers);
+		}
+		scheduleConsistencyCheck();
+	}
+
+	private void scheduleConsistencyCheck() {
 		fNeedsConsistencyCheck= true;
 		// cancel the old job. If no job is running this is a NOOP.
 		fUpdateJob.cancel();
@@ -256,17 +299,20 @@ public class OpenTypeHistory extends History<TypeNameMatch, TypeNameMatch> {
 
 	@Override
 	public synchronized TypeNameMatch remove(TypeNameMatch info) {
-		fTimestampMapping.remove(info);
 		return (TypeNameMatch)super.remove(info);
 	}
 
 	public synchronized void replace(TypeNameMatch old, TypeNameMatch newMatch) {
-		fTimestampMapping.remove(old);
-		fTimestampMapping.put(newMatch, new Long(getContainerTimestamp(newMatch)));
 		super.remove(old);
+		fTimestampMapping.put(newMatch, new Long(getContainerTimestamp(newMatch)));
 		super.accessed(newMatch);
 	}
 
+	@Override
+	protected void entryRemoved(TypeNameMatch info) {
+		fTimestampMapping.remove(info);
+	}
+
 	public synchronized TypeNameMatch[] getTypeInfos() {
 		Collection<TypeNameMatch> values= getValues();
 		int size= values.size();
@@ -301,12 +347,67 @@ public class OpenTypeHistory extends History<TypeNameMatch, TypeNameMatch> {
 		// Setting fNeedsConsistencyCheck is necessary here since
 		// markAsInconsistent isn't synchronized.
 		fNeedsConsistencyCheck= true;
-		List<TypeNameMatch> typesToCheck= new ArrayList<>(getKeys());
-		monitor.beginTask(CorextMessages.TypeInfoHistory_consistency_check, typesToCheck.size());
+		boolean checkAll;
+		Set<IJavaElement> dirtyContainers;
+		synchronized (fDirtyContainers) {
+			checkAll= fCheckAll;
+			dirtyContainers= new HashSet<>(fDirtyContainers);
+			fCheckAll= false;
+			fDirtyContainers.clear();
+		}
+
+		// group the entries by package fragment root and only check the entries of dirty containers
+		Map<IPackageFragmentRoot, List<TypeNameMatch>> typesToCheck= new LinkedHashMap<>();
+		int count= 0;
+		for (Iterator<TypeNameMatch> iter= getKeys().iterator(); iter.hasNext();) {
+			TypeNameMatch type= iter.next();
+			IPackageFragmentRoot root= type.getPackageFragmentRoot();
+			if (checkAll || dirtyContainers.contains(root) || dirtyContainers.contains(root.getJavaProject())) {
+				List<TypeNameMatch> types= typesToCheck.get(root);
+				if (types == null) {
+					types= new ArrayList<>();
+					typesToCheck.put(root, types);
+				}
+				types.add(type);
+				count++;
+			}
+		}
+
+		monitor.beginTask(CorextMessages.TypeInfoHistory_consistency_check, count);
 		monitor.setTaskName(CorextMessages.TypeInfoHistory_consistency_check);
-		for (Iterator<TypeNameMatch> iter= typesToCheck.iterator(); iter.hasNext();) {
+		try {
+			for (Iterator<Entry<IPackageFragmentRoot, List<TypeNameMatch>>> iter= typesToCheck.entrySet().iterator(); iter.hasNext();) {
+				Entry<IPackageFragmentRoot, List<TypeNameMatch>> entry= iter.next();
+				checkConsistency(entry.getKey(), entry.getValue(), monitor);
+			}
+		} catch (OperationCanceledException e) {
+			// check the containers again next time
+			synchronized (fDirtyContainers) {
+				fCheckAll|= checkAll;
+				fDirtyContainers.addAll(dirtyContainers);
+			}
+			throw e;
+		}
+		monitor.done();
+		synchronized (fDirtyContainers) {
+			fNeedsConsistencyCheck= fCheckAll || !fDirtyContainers.isEmpty();
+		}
+	}
+
+	private void checkConsistency(IPackageFragmentRoot root, List<TypeNameMatch> types, IProgressMonitor monitor) throws OperationCanceledException {
+		// all types of an archive share its time stamp, only fetch it once
+		boolean isArchive= root.isArchive();
+		Long archiveTimestamp= null;
+		for (Iterator<TypeNameMatch> iter= types.iterator(); iter.hasNext();) {
 			TypeNameMatch type= iter.next();
-			long currentTimestamp= getContainerTimestamp(type);
+			long currentTimestamp;
+			if (isArchive) {
+				if (archiveTimestamp == null)
+					archiveTimestamp= new Long(getContainerTimestamp(type));
+				currentTimestamp= archiveTimestamp.longValue();
+			} else {
+				currentTimestamp= getContainerTimestamp(type);
+			}
 			Long lastTested= fTimestampMapping.get(type);
 			if (lastTested != null && currentTimestamp != IResource.NULL_STAMP && currentTimestamp == lastTested.longValue() && !isContainerDirty(type))
 				continue;
@@ -330,8 +431,6 @@ public class OpenTypeHistory extends History<TypeNameMatch, TypeNameMatch> {
 				throw new OperationCanceledException();
 			monitor.worked(1);
 		}
-		monitor.done();
-		fNeedsConsistencyCheck= false;
 	}
 
 	private long getContainerTimestamp(TypeNameMatch match) {
@@ -402,7 +501,6 @@ public class OpenTypeHistory extends History<TypeNameMatch, TypeNameMatch> {
 		} catch (NumberFormatException e) {
 			// take zero
 		}
-		TypeNameMatch info= SearchEngine.createTypeNameMatch((IType) element, modifiers);
 		long timestamp= IResource.NULL_STAMP;
 		String timestampValue= type.getAttribute(NODE_TIMESTAMP);
 		if (timestampValue != null && timestampValue.length() > 0) {
@@ -412,12 +510,37 @@ public class OpenTypeHistory extends History<TypeNameMatch, TypeNameMatch> {
 				// take null stamp
 			}
 		}
+		return createTypeNameMatch((IType) element, modifiers, timestamp);
+	}
+
+	@Override
+	protected TypeNameMatch readObject(DataInputStream in) throws IOException {
+		String handle= in.readUTF();
+		int modifiers= in.readInt();
+		long timestamp= in.readLong();
+
+		IJavaElement element= JavaCore.create(handle);
+		if (!(element instanceof IType))
+			return null;
+		return createTypeNameMatch((IType) element, modifiers, timestamp);
+	}
+
+	private TypeNameMatch createTypeNameMatch(IType type, int modifiers, long timestamp) {
+		TypeNameMatch info= SearchEngine.createTypeNameMatch(type, modifiers);
 		if (timestamp != IResource.NULL_STAMP) {
 			fTimestampMapping.put(info, new Long(timestamp));
 		}
 		return info;
 	}
 
+	@Override
+	protected void writeObject(TypeNameMatch type, DataOutputStream out) throws IOException {
+		out.writeUTF(type.getType().getHandleIdentifier());
+		out.writeInt(type.getModifiers());
+		Long timestamp= fTimestampMapping.get(type);
+		out.writeLong(timestamp == null ? IResource.NULL_STAMP : timestamp.longValue());
+	}
+
 	@Override
 	protected void setAttributes(Object object, Element typeElement) {
 		TypeNameMatch type= (TypeNameMatch) object;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,6 +10,10 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.corext.util;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
 import org.w3c.dom.Element;
 
 public class QualifiedTypeNameHistory extends History<String, String> {
@@ -23,13 +27,23 @@ public class QualifiedTypeNameHistory extends History<String, String> {
 
 	public static QualifiedTypeNameHistory getDefault() {
 		if (fgInstance == null)
-			fgInstance= new QualifiedTypeNameHistory("QualifiedTypeNameHistory.xml"); //$NON-NLS-1$
+			fgInstance= new QualifiedTypeNameHistory("QualifiedTypeNameHistory.xml", "QualifiedTypeNameHistory.dat"); //$NON-NLS-1$ //$NON-NLS-2$
 
 		return fgInstance;
 	}
 
 	public QualifiedTypeNameHistory(String fileName) {
-		super(fileName, NODE_ROOT, NODE_TYPE_INFO);
+		this(fileName, null);
+	}
+
+	/**
+	 * @param fileName the name of the xml file to migrate the history from
+	 * @param logFileName the name of the binary log storing the history, or <code>null</code> to
+	 *            store it in the xml file
+	 * @since 3.13
+	 */
+	public QualifiedTypeNameHistory(String fileName, String logFileName) {
+		super(fileName, NODE_ROOT, NODE_TYPE_INFO, logFileName);
 		load();
 	}
 
@@ -43,6 +57,16 @@ public class QualifiedTypeNameHistory extends History<String, String> {
 		return element.getAttribute(NODE_NAME);
 	}
 
+	@Override
+	protected String readObject(DataInputStream in) throws IOException {
+		return in.readUTF();
+	}
+
+	@Override
+	protected void writeObject(String object, DataOutputStream out) throws IOException {
+		out.writeUTF(object);
+	}
+
 	@Override
 	protected String getKey(String object) {
 		return object;
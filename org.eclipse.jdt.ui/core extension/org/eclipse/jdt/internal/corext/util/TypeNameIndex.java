@@ -0,0 +1,582 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.util;
+
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.search.IJavaSearchConstants;
+import org.eclipse.jdt.core.search.SearchEngine;
+import org.eclipse.jdt.core.search.SearchPattern;
+import org.eclipse.jdt.core.search.TypeNameMatch;
+import org.eclipse.jdt.core.search.TypeNameMatchRequestor;
+
+import org.eclipse.jdt.internal.corext.CorextMessages;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+
+/**
+ * In-memory index of all types in the workspace, used by the open type dialog to answer queries
+ * without going through the search engine.
+ * <p>
+ * The index is built in the background when it is queried for the first time and is then kept in
+ * sync with Java element deltas: compilation units that changed since the index has been built
+ * are read again when the index is queried, changes to class paths, archives or packages trigger a
+ * rebuild. Queries issued before the index is ready are not answered, callers fall back to the
+ * search engine.
+ * </p>
+ * <p>
+ * The index is held by a soft reference, so that it is dropped when memory runs low and built again
+ * by the next query. Workspaces with more than {@link #MAX_INDEXED_TYPES} types are not indexed at
+ * all until their structure changes.
+ * </p>
+ * <p>
+ * The case folded simple type names are packed into a single sorted <code>char[]</code>, so that
+ * prefix queries are answered by a binary search. A second sorted <code>char[]</code> holds the
+ * camel case initials of the names (the first character followed by all upper case characters),
+ * which narrows camel case queries the same way.
+ * </p>
+ *
+ * @since 3.13
+ */
+public class TypeNameIndex {
+
+	/**
+	 * Sorted, immutable state of the index.
+	 */
+	private static final class Snapshot {
+
+		private static final class Entry {
+			final TypeNameMatch fMatch;
+			final String fName;
+			final String fInitials;
+			int fIndex;
+
+			Entry(TypeNameMatch match) {
+				fMatch= match;
+				String simpleName= match.getSimpleTypeName();
+				fName= fold(simpleName);
+				fInitials= getInitials(simpleName);
+			}
+		}
+
+		/** The matches, sorted by their case folded simple names. */
+		final TypeNameMatch[] fMatches;
+		/** The case folded simple names of {@link #fMatches}, packed in the same order. */
+		final char[] fNames;
+		/** Start of the name of match <code>i</code> in {@link #fNames}, with an end marker. */
+		final int[] fNameStarts;
+		/** Indices into {@link #fMatches}, sorted by the camel case initials of the names. */
+		final int[] fInitialsOrder;
+		/** The camel case initials, packed in the order of {@link #fInitialsOrder}. */
+		final char[] fInitials;
+		/** Start of the initials of {@link #fInitialsOrder}<code>[k]</code> in {@link #fInitials}, with an end marker. */
+		final int[] fInitialStarts;
+
+		Snapshot(List<TypeNameMatch> matches) {
+			int n= matches.size();
+			Entry[] entries= new Entry[n];
+			int nameLength= 0;
+			int initialsLength= 0;
+			for (int i= 0; i < n; i++) {
+				Entry entry= new Entry(matches.get(i));
+				nameLength+= entry.fName.length();
+				initialsLength+= entry.fInitials.length();
+				entries[i]= entry;
+			}
+
+			Arrays.sort(entries, new Comparator<Entry>() {
+				@Override
+				public int compare(Entry e1, Entry e2) {
+					return e1.fName.compareTo(e2.fName);
+				}
+			});
+			fMatches= new TypeNameMatch[n];
+			fNames= new char[nameLength];
+			fNameStarts= new int[n + 1];
+			for (int i= 0, offset= 0; i < n; i++) {
+				Entry entry= entries[i];
+				entry.fIndex= i;
+				fMatches[i]= entry.fMatch;
+				fNameStarts[i]= offset;
+				entry.fName.getChars(0, entry.fName.length(), fNames, offset);
+				offset+= entry.fName.length();
+			}
+			fNameStarts[n]= nameLength;
+
+			Arrays.sort(entries, new Comparator<Entry>() {
+				@Override
+				public int compare(Entry e1, Entry e2) {
+					return e1.fInitials.compareTo(e2.fInitials);
+				}
+			});
+			fInitialsOrder= new int[n];
+			fInitials= new char[initialsLength];
+			fInitialStarts= new int[n + 1];
+			for (int k= 0, offset= 0; k < n; k++) {
+				Entry entry= entries[k];
+				fInitialsOrder[k]= entry.fIndex;
+				fInitialStarts[k]= offset;
+				entry.fInitials.getChars(0, entry.fInitials.length(), fInitials, offset);
+				offset+= entry.fInitials.length();
+			}
+			fInitialStarts[n]= initialsLength;
+		}
+
+		int size() {
+			return fMatches.length;
+		}
+
+		/*
+		 * Returns {from, to} such that the names in [from, to) start with the given case folded prefix.
+		 */
+		int[] getNameRange(char[] prefix) {
+			return new int[] { search(fNames, fNameStarts, prefix, false), search(fNames, fNameStarts, prefix, true) };
+		}
+
+		/*
+		 * Returns {from, to} such that the initials of fInitialsOrder[from, to) start with the given prefix.
+		 */
+		int[] getInitialsRange(char[] prefix) {
+			return new int[] { search(fInitials, fInitialStarts, prefix, false), search(fInitials, fInitialStarts, prefix, true) };
+		}
+
+		/*
+		 * Returns the first index of a packed string that is greater or equal (after: greater) than
+		 * the given prefix, where strings starting with the prefix compare equal to it.
+		 */
+		private static int search(char[] chars, int[] starts, char[] prefix, boolean after) {
+			int i= -1;
+			int j= starts.length - 1;
+			while (j - i > 1) {
+				int k= (i + j) >>> 1;
+				int comparison= comparePrefix(chars, starts[k], starts[k + 1], prefix);
+				if (after ? comparison > 0 : comparison >= 0)
+					j= k;
+				else
+					i= k;
+			}
+			return j;
+		}
+
+		private static int comparePrefix(char[] chars, int start, int end, char[] prefix) {
+			int length= Math.min(end - start, prefix.length);
+			for (int i= 0; i < length; i++) {
+				char c= chars[start + i];
+				if (c != prefix[i])
+					return c - prefix[i];
+			}
+			return end - start >= prefix.length ? 0 : -1;
+		}
+	}
+
+	private class TypeNameIndexDeltaListener implements IElementChangedListener {
+		@Override
+		public void elementChanged(ElementChangedEvent event) {
+			List<ICompilationUnit> changedUnits= new ArrayList<>();
+			if (processDelta(event.getDelta(), changedUnits))
+				markAsStale();
+			else if (!changedUnits.isEmpty())
+				unitsChanged(changedUnits);
+		}
+
+		/**
+		 * Collects the changed primary compilation units and computes whether the index must be
+		 * rebuilt.
+		 *
+		 * @param delta the Java element delta
+		 * @param changedUnits the list to add changed compilation units to
+		 * @return <code>true</code> if the index must be rebuilt
+		 */
+		private boolean processDelta(IJavaElementDelta delta, List<ICompilationUnit> changedUnits) {
+			IJavaElement elem= delta.getElement();
+			int kind= delta.getKind();
+			int flags= delta.getFlags();
+
+			switch (elem.getElementType()) {
+				case IJavaElement.JAVA_MODEL:
+					return processChildrenDelta(delta, changedUnits);
+				case IJavaElement.JAVA_PROJECT:
+					if (kind != IJavaElementDelta.CHANGED || (flags & (IJavaElementDelta.F_OPENED | IJavaElementDelta.F_CLOSED
+							| IJavaElementDelta.F_CLASSPATH_CHANGED | IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED)) != 0) {
+						return true;
+					}
+					return processChildrenDelta(delta, changedUnits);
+				case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+					if (kind != IJavaElementDelta.CHANGED || (flags & (IJavaElementDelta.F_ARCHIVE_CONTENT_CHANGED
+							| IJavaElementDelta.F_ADDED_TO_CLASSPATH | IJavaElementDelta.F_REMOVED_FROM_CLASSPATH)) != 0) {
+						return true;
+					}
+					return processChildrenDelta(delta, changedUnits);
+				case IJavaElement.PACKAGE_FRAGMENT:
+					if (kind != IJavaElementDelta.CHANGED)
+						return true;
+					return processChildrenDelta(delta, changedUnits);
+				case IJavaElement.CLASS_FILE:
+					return true;
+				case IJavaElement.COMPILATION_UNIT:
+					ICompilationUnit unit= (ICompilationUnit) elem;
+					// working copies of other owners are not searched
+					if (JavaModelUtil.isPrimary(unit))
+						changedUnits.add(unit);
+					return false;
+				default:
+					return false;
+			}
+		}
+
+		private boolean processChildrenDelta(IJavaElementDelta delta, List<ICompilationUnit> changedUnits) {
+			IJavaElementDelta[] children= delta.getAffectedChildren();
+			for (int i= 0; i < children.length; i++) {
+				if (processDelta(children[i], changedUnits)) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	private class BuildJob extends Job {
+		public BuildJob() {
+			super(CorextMessages.TypeNameIndex_build);
+		}
+		@Override
+		public boolean belongsTo(Object family) {
+			return family == TypeNameIndex.class;
+		}
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			try {
+				build(monitor);
+			} catch (OperationCanceledException e) {
+				return Status.CANCEL_STATUS;
+			} catch (JavaModelException e) {
+				JavaPlugin.log(e);
+			}
+			return Status.OK_STATUS;
+		}
+	}
+
+	/**
+	 * Delay before the index is rebuilt after a structural change, to coalesce the deltas of a
+	 * build or a class path update.
+	 */
+	private static final long BUILD_DELAY= 1000;
+
+	/**
+	 * Number of changed compilation units after which the index is rebuilt, so that queries do
+	 * not have to read too many compilation units.
+	 */
+	private static final int MAX_CHANGED_UNITS= 100;
+
+	/**
+	 * Maximal number of indexed types. Larger workspaces are answered by the search engine, so that
+	 * the index does not take more than a few tens of megabytes.
+	 */
+	private static final int MAX_INDEXED_TYPES= 300000;
+
+	private static TypeNameIndex fgInstance;
+
+	public static synchronized TypeNameIndex getInstance() {
+		if (fgInstance == null)
+			fgInstance= new TypeNameIndex();
+		return fgInstance;
+	}
+
+	public static synchronized void shutdown() {
+		if (fgInstance == null)
+			return;
+		fgInstance.doShutdown();
+		fgInstance= null;
+	}
+
+	private final IElementChangedListener fDeltaListener;
+	private final BuildJob fBuildJob;
+
+	private SoftReference<Snapshot> fSnapshot;
+	/** <code>true</code> if a structural change happened after {@link #fSnapshot} has been built */
+	private boolean fIsStale;
+	/** <code>true</code> if the workspace had too many types when the index was last built */
+	private boolean fIsTooLarge;
+	/** Incremented on every structural change */
+	private long fStructureStamp;
+	/** Changed compilation units, mapped to the change stamp of their last change */
+	private final Map<ICompilationUnit, Long> fChangedUnits= new HashMap<>();
+	private long fChangeStamp;
+
+	private TypeNameIndex() {
+		fDeltaListener= new TypeNameIndexDeltaListener();
+		JavaCore.addElementChangedListener(fDeltaListener, ElementChangedEvent.POST_CHANGE);
+		fBuildJob= new BuildJob();
+		fBuildJob.setSystem(true);
+		fBuildJob.setPriority(Job.DECORATE);
+	}
+
+	private void doShutdown() {
+		JavaCore.removeElementChangedListener(fDeltaListener);
+		fBuildJob.cancel();
+		synchronized (this) {
+			fSnapshot= null;
+			fChangedUnits.clear();
+		}
+	}
+
+	/**
+	 * Reports the types matching the given filter to the given requestor.
+	 *
+	 * @param filter the filter for the types
+	 * @param requestor the requestor to report the matching types to
+	 * @param monitor the progress monitor, used for cancellation only
+	 * @return <code>true</code> if the query has been answered, <code>false</code> if the index is
+	 *         not ready and the search engine must be used instead
+	 * @throws OperationCanceledException if the monitor has been canceled
+	 */
+	public boolean search(TypeInfoFilter filter, TypeNameMatchRequestor requestor, IProgressMonitor monitor) {
+		Snapshot snapshot;
+		Set<ICompilationUnit> changedUnits;
+		synchronized (this) {
+			if (fIsTooLarge)
+				return false;
+			snapshot= fSnapshot != null ? fSnapshot.get() : null;
+			if (snapshot == null || fIsStale) {
+				if (fBuildJob.getState() == Job.NONE)
+					fBuildJob.schedule();
+				return false;
+			}
+			changedUnits= new HashSet<>(fChangedUnits.keySet());
+		}
+		// types in editors are reported from the working copies
+		changedUnits.addAll(Arrays.asList(JavaCore.getWorkingCopies(null)));
+
+		String pattern= filter.getNamePattern();
+		int matchKind= filter.getSearchFlags();
+		int[] nameRange= null;
+		int[] initialsRange= null;
+		if (pattern.length() > 0 && isFoldable(pattern)) {
+			switch (matchKind) {
+				case SearchPattern.R_EXACT_MATCH:
+				case SearchPattern.R_PREFIX_MATCH:
+					nameRange= snapshot.getNameRange(fold(pattern).toCharArray());
+					break;
+				case SearchPattern.R_CAMELCASE_MATCH:
+				case SearchPattern.R_CAMELCASE_SAME_PART_COUNT_MATCH:
+					// camel case matching falls back to prefix matching
+					nameRange= snapshot.getNameRange(fold(pattern).toCharArray());
+					if (isCamelCaseNarrowable(pattern))
+						initialsRange= snapshot.getInitialsRange(getInitials(pattern).toCharArray());
+					else
+						nameRange= null;
+					break;
+				case SearchPattern.R_PATTERN_MATCH:
+					String prefix= getLiteralPrefix(pattern);
+					if (prefix.length() > 0)
+						nameRange= snapshot.getNameRange(fold(prefix).toCharArray());
+					break;
+			}
+		}
+
+		if (nameRange == null) {
+			for (int i= 0, n= snapshot.size(); i < n; i++)
+				report(snapshot, i, filter, changedUnits, requestor, monitor);
+		} else {
+			for (int i= nameRange[0]; i < nameRange[1]; i++)
+				report(snapshot, i, filter, changedUnits, requestor, monitor);
+			if (initialsRange != null) {
+				for (int k= initialsRange[0]; k < initialsRange[1]; k++) {
+					int i= snapshot.fInitialsOrder[k];
+					if (i < nameRange[0] || i >= nameRange[1]) // already reported
+						report(snapshot, i, filter, changedUnits, requestor, monitor);
+				}
+			}
+		}
+
+		for (Iterator<ICompilationUnit> iter= changedUnits.iterator(); iter.hasNext();) {
+			ICompilationUnit unit= iter.next();
+			try {
+				if (!unit.exists())
+					continue;
+				IType[] types= unit.getAllTypes();
+				for (int i= 0; i < types.length; i++) {
+					TypeNameMatch match= SearchEngine.createTypeNameMatch(types[i], types[i].getFlags());
+					if (filter.matchesHistoryElement(match))
+						requestor.acceptTypeNameMatch(match);
+				}
+			} catch (JavaModelException e) {
+				// the unit has been deleted or cannot be parsed, ignore it
+			}
+			if (monitor.isCanceled())
+				throw new OperationCanceledException();
+		}
+		return true;
+	}
+
+	private static void report(Snapshot snapshot, int i, TypeInfoFilter filter, Set<ICompilationUnit> changedUnits, TypeNameMatchRequestor requestor, IProgressMonitor monitor) {
+		if ((i & 0xff) == 0 && monitor.isCanceled())
+			throw new OperationCanceledException();
+
+		TypeNameMatch match= snapshot.fMatches[i];
+		if (!changedUnits.isEmpty()) {
+			ICompilationUnit unit= match.getType().getCompilationUnit();
+			if (unit != null && changedUnits.contains(unit))
+				return;
+		}
+		if (filter.matchesHistoryElement(match))
+			requestor.acceptTypeNameMatch(match);
+	}
+
+	private void build(IProgressMonitor monitor) throws JavaModelException {
+		long stamp;
+		long structureStamp;
+		synchronized (this) {
+			stamp= fChangeStamp;
+			structureStamp= fStructureStamp;
+		}
+
+		final List<TypeNameMatch> matches= new ArrayList<>();
+		final boolean[] tooLarge= { false };
+		new SearchEngine().searchAllTypeNames(
+				null,
+				SearchPattern.R_EXACT_MATCH,
+				null,
+				SearchPattern.R_PREFIX_MATCH,
+				IJavaSearchConstants.TYPE,
+				SearchEngine.createWorkspaceScope(),
+				new TypeNameMatchRequestor() {
+					@Override
+					public void acceptTypeNameMatch(TypeNameMatch match) {
+						if (matches.size() < MAX_INDEXED_TYPES)
+							matches.add(match);
+						else
+							tooLarge[0]= true;
+					}
+				},
+				IJavaSearchConstants.WAIT_UNTIL_READY_TO_SEARCH,
+				monitor);
+		Snapshot snapshot= tooLarge[0] ? null : new Snapshot(matches);
+
+		synchronized (this) {
+			fSnapshot= snapshot != null ? new SoftReference<>(snapshot) : null;
+			fIsTooLarge= tooLarge[0];
+			// changes that happened while searching may be missing in the snapshot
+			for (Iterator<Long> iter= fChangedUnits.values().iterator(); iter.hasNext();) {
+				if (iter.next().longValue() <= stamp)
+					iter.remove();
+			}
+			if (fStructureStamp == structureStamp)
+				fIsStale= false;
+		}
+	}
+
+	private void markAsStale() {
+		synchronized (this) {
+			fIsStale= true;
+			fIsTooLarge= false;
+			fStructureStamp++;
+		}
+		// cancel the old job. If no job is running this is a NOOP.
+		fBuildJob.cancel();
+		fBuildJob.schedule(BUILD_DELAY);
+	}
+
+	private void unitsChanged(List<ICompilationUnit> units) {
+		boolean rebuild= false;
+		synchronized (this) {
+			Long stamp= new Long(++fChangeStamp);
+			for (int i= 0; i < units.size(); i++)
+				fChangedUnits.put(units.get(i), stamp);
+			if (fChangedUnits.size() > MAX_CHANGED_UNITS && fBuildJob.getState() == Job.NONE) {
+				if (fSnapshot == null || fSnapshot.get() == null)
+					// nothing to keep up to date, the next query builds the index from scratch
+					fChangedUnits.clear();
+				else
+					rebuild= true;
+			}
+		}
+		// the changed units are still answered correctly until the rebuild has finished
+		if (rebuild)
+			fBuildJob.schedule(BUILD_DELAY);
+	}
+
+	/*
+	 * Case folding that matches String#regionMatches(true, ...).
+	 */
+	private static String fold(String name) {
+		char[] chars= name.toCharArray();
+		for (int i= 0; i < chars.length; i++)
+			chars[i]= Character.toLowerCase(Character.toUpperCase(chars[i]));
+		return new String(chars);
+	}
+
+	/*
+	 * The first character followed by all upper case characters.
+	 */
+	private static String getInitials(String name) {
+		StringBuffer buf= new StringBuffer(8);
+		for (int i= 0, length= name.length(); i < length; i++) {
+			char c= name.charAt(i);
+			if (i == 0 || Character.isUpperCase(c))
+				buf.append(c);
+		}
+		return buf.toString();
+	}
+
+	private static boolean isFoldable(String pattern) {
+		for (int i= 0, length= pattern.length(); i < length; i++) {
+			if (pattern.charAt(i) >= 0x80)
+				return false;
+		}
+		return true;
+	}
+
+	/*
+	 * Camel case patterns map their upper case characters to consecutive upper case characters of
+	 * the name. Digits in the pattern are matched like upper case characters but are not part of
+	 * the initials.
+	 */
+	private static boolean isCamelCaseNarrowable(String pattern) {
+		for (int i= 0, length= pattern.length(); i < length; i++) {
+			if (Character.isDigit(pattern.charAt(i)))
+				return false;
+		}
+		return true;
+	}
+
+	private static String getLiteralPrefix(String pattern) {
+		for (int i= 0, length= pattern.length(); i < length; i++) {
+			char c= pattern.charAt(i);
+			if (c == '*' || c == '?')
+				return pattern.substring(0, i);
+		}
+		return pattern;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,6 +10,7 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.ui;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.Hashtable;
 import java.util.Iterator;
@@ -81,6 +82,7 @@ import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.WorkingCopyOwner;
 import org.eclipse.jdt.core.manipulation.JavaManipulation;
 
+import org.eclipse.jdt.internal.corext.callhierarchy.CallHierarchy;
 import org.eclipse.jdt.internal.corext.fix.CleanUpRegistry;
 import org.eclipse.jdt.internal.corext.template.java.AbstractJavaContextType;
 import org.eclipse.jdt.internal.corext.template.java.CodeTemplateContextType;
@@ -89,6 +91,7 @@ import org.eclipse.jdt.internal.corext.template.java.SWTContextType;
 import org.eclipse.jdt.internal.corext.util.OpenTypeHistory;
 import org.eclipse.jdt.internal.corext.util.QualifiedTypeNameHistory;
 import org.eclipse.jdt.internal.corext.util.TypeFilter;
+import org.eclipse.jdt.internal.corext.util.TypeNameIndex;
 
 import org.eclipse.jdt.ui.IContextMenuConstants;
 import org.eclipse.jdt.ui.JavaUI;
@@ -106,12 +109,17 @@ import org.eclipse.jdt.internal.ui.preferences.MembersOrderPreferenceCache;
 import org.eclipse.jdt.internal.ui.preferences.formatter.FormatterProfileStore;
 import org.eclipse.jdt.internal.ui.propertiesfileeditor.PropertiesFileDocumentProvider;
 import org.eclipse.jdt.internal.ui.text.PreferencesAdapter;
+import org.eclipse.jdt.internal.ui.text.correction.CorrectionProposalCache;
+import org.eclipse.jdt.internal.ui.text.correction.JavaCorrectionProcessor;
 import org.eclipse.jdt.internal.ui.text.folding.JavaFoldingStructureProviderRegistry;
 import org.eclipse.jdt.internal.ui.text.java.ContentAssistHistory;
+import org.eclipse.jdt.internal.ui.text.java.ContentAssistProcessor;
 import org.eclipse.jdt.internal.ui.text.java.hover.JavaEditorTextHoverDescriptor;
+import org.eclipse.jdt.internal.ui.text.javadoc.JavadocContentCache;
 import org.eclipse.jdt.internal.ui.text.spelling.SpellCheckEngine;
 import org.eclipse.jdt.internal.ui.viewsupport.ImageDescriptorRegistry;
 import org.eclipse.jdt.internal.ui.viewsupport.ImagesOnFileSystemRegistry;
+import org.eclipse.jdt.internal.ui.viewsupport.JavaElementLabelCache;
 import org.eclipse.jdt.internal.ui.viewsupport.ProblemMarkerManager;
 import org.eclipse.jdt.internal.ui.wizards.buildpaths.ClasspathAttributeConfigurationDescriptors;
 
@@ -150,6 +158,11 @@ public class JavaPlugin extends AbstractUIPlugin implements DebugOptionsListener
 	 * @since 3.0
 	 */
 	private static final String CODE_TEMPLATES_MIGRATION_KEY= "org.eclipse.jdt.ui.text.code_templates_migrated"; //$NON-NLS-1$
+	/**
+	 * The name of the file in the state location that stores the content assist history.
+	 * @since 3.13
+	 */
+	private static final String CONTENT_ASSIST_HISTORY_FILE= "content_assist_history.dat"; //$NON-NLS-1$
 
 	public static boolean DEBUG_AST_PROVIDER;
 
@@ -159,6 +172,8 @@ public class JavaPlugin extends AbstractUIPlugin implements DebugOptionsListener
 
 	public static boolean DEBUG_RESULT_COLLECTOR;
 
+	public static boolean DEBUG_LABEL_CACHE;
+
 	private static JavaPlugin fgJavaPlugin;
 
 	private static LinkedHashMap<String, Long> fgRepeatedMessages= new LinkedHashMap<String, Long>(20, 0.75f, true) {
@@ -467,7 +482,8 @@ public class JavaPlugin extends AbstractUIPlugin implements DebugOptionsListener
 			}
 
 			if (fContentAssistHistory != null) {
-				ContentAssistHistory.store(fContentAssistHistory, getPluginPreferences(), PreferenceConstants.CODEASSIST_LRU_HISTORY);
+				fContentAssistHistory.flush();
+				fContentAssistHistory.dispose();
 				fContentAssistHistory= null;
 			}
 
@@ -513,6 +529,13 @@ public class JavaPlugin extends AbstractUIPlugin implements DebugOptionsListener
 			// must add here to guarantee that it is the first in the listener list
 
 			OpenTypeHistory.shutdown();
+			TypeNameIndex.shutdown();
+			CallHierarchy.shutdown();
+			JavaElementLabelCache.shutdown();
+			JavadocContentCache.shutdown();
+			ContentAssistProcessor.shutdownExecutor();
+			JavaCorrectionProcessor.shutdownExecutor();
+			CorrectionProposalCache.shutdown();
 		} finally {
 			super.stop(context);
 		}
@@ -919,13 +942,23 @@ public class JavaPlugin extends AbstractUIPlugin implements DebugOptionsListener
 	 */
 	public ContentAssistHistory getContentAssistHistory() {
 		if (fContentAssistHistory == null) {
+			File file= getStateLocation().append(CONTENT_ASSIST_HISTORY_FILE).toFile();
 			try {
-				fContentAssistHistory= ContentAssistHistory.load(getPluginPreferences(), PreferenceConstants.CODEASSIST_LRU_HISTORY);
+				fContentAssistHistory= ContentAssistHistory.load(file);
+				if (fContentAssistHistory == null) {
+					// migrate the XML history stored in the preferences by earlier versions
+					fContentAssistHistory= ContentAssistHistory.load(getPluginPreferences(), PreferenceConstants.CODEASSIST_LRU_HISTORY);
+					if (fContentAssistHistory != null) {
+						ContentAssistHistory.store(fContentAssistHistory, file);
+						getPluginPreferences().setToDefault(PreferenceConstants.CODEASSIST_LRU_HISTORY);
+					}
+				}
 			} catch (CoreException x) {
 				log(x);
 			}
 			if (fContentAssistHistory == null)
 				fContentAssistHistory= new ContentAssistHistory();
+			fContentAssistHistory.setStoreFile(file);
 		}
 
 		return fContentAssistHistory;
@@ -1018,5 +1051,6 @@ public class JavaPlugin extends AbstractUIPlugin implements DebugOptionsListener
 		DEBUG_BREADCRUMB_ITEM_DROP_DOWN= options.getBooleanOption("org.eclipse.jdt.ui/debug/BreadcrumbItemDropDown", false); //$NON-NLS-1$
 		DEBUG_TYPE_CONSTRAINTS= options.getBooleanOption("org.eclipse.jdt.ui/debug/TypeConstraints", false); //$NON-NLS-1$
 		DEBUG_RESULT_COLLECTOR= options.getBooleanOption("org.eclipse.jdt.ui/debug/ResultCollector", false); //$NON-NLS-1$
+		DEBUG_LABEL_CACHE= options.getBooleanOption("org.eclipse.jdt.ui/debug/LabelCache", false); //$NON-NLS-1$
 	}
 }
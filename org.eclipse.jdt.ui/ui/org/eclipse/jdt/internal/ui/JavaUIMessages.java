@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -249,4 +249,5 @@ public final class JavaUIMessages extends NLS {
 	public static String HistoryListAction_remove;
 	public static String HistoryListAction_max_entries_constraint;
 	public static String HistoryListAction_remove_all;
+	public static String JavaElementLabelCache_prefetch_job;
 }
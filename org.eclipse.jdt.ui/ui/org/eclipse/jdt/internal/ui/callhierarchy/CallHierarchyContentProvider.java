@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,6 +12,7 @@
 package org.eclipse.jdt.internal.ui.callhierarchy;
 
 import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.swt.widgets.Display;
 
@@ -61,6 +62,8 @@ public class CallHierarchyContentProvider implements ITreeContentProvider {
 	private final static Object[] EMPTY_ARRAY= new Object[0];
 
     private DeferredTreeContentManager fManager;
+    // number of method wrappers whose children are being fetched concurrently
+    private final AtomicInteger fFetchCount= new AtomicInteger();
     private CallHierarchyViewPart fPart;
 
     private class MethodWrapperRunnable implements IRunnableWithProgress {
@@ -466,7 +469,7 @@ public class CallHierarchyContentProvider implements ITreeContentProvider {
      *
      */
     public void doneFetching() {
-        if (fPart != null) {
+        if (fFetchCount.decrementAndGet() == 0 && fPart != null) {
             fPart.setCancelEnabled(false);
         }
     }
@@ -475,7 +478,7 @@ public class CallHierarchyContentProvider implements ITreeContentProvider {
      *
      */
     public void startFetching() {
-        if (fPart != null) {
+        if (fFetchCount.getAndIncrement() == 0 && fPart != null) {
             fPart.setCancelEnabled(true);
         }
     }
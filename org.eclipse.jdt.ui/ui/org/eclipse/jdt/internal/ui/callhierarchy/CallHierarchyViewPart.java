@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -51,7 +51,9 @@ import org.eclipse.jface.action.Separator;
 import org.eclipse.jface.dialogs.IDialogSettings;
 import org.eclipse.jface.util.DelegatingDragAdapter;
 import org.eclipse.jface.util.DelegatingDropAdapter;
+import org.eclipse.jface.util.IPropertyChangeListener;
 import org.eclipse.jface.util.OpenStrategy;
+import org.eclipse.jface.util.PropertyChangeEvent;
 import org.eclipse.jface.viewers.ISelection;
 import org.eclipse.jface.viewers.ISelectionChangedListener;
 import org.eclipse.jface.viewers.IStructuredSelection;
@@ -71,6 +73,7 @@ import org.eclipse.ui.IWorkbenchCommandConstants;
 import org.eclipse.ui.IWorkbenchPage;
 import org.eclipse.ui.IWorkbenchPartReference;
 import org.eclipse.ui.IWorkbenchPartSite;
+import org.eclipse.ui.IWorkingSetManager;
 import org.eclipse.ui.OpenAndLinkWithEditorHelper;
 import org.eclipse.ui.PartInitException;
 import org.eclipse.ui.PlatformUI;
@@ -241,6 +244,7 @@ public class CallHierarchyViewPart extends ViewPart implements ICallHierarchyVie
     private boolean fShowCallDetails;
 	protected Composite fParent;
 	private IPartListener2 fPartListener;
+	private IPropertyChangeListener fWorkingSetListener;
 	private boolean fIsPinned;
 	private PinCallHierarchyViewAction fPinViewAction;
 
@@ -476,6 +480,8 @@ public class CallHierarchyViewPart extends ViewPart implements ICallHierarchyVie
 
         PlatformUI.getWorkbench().getHelpSystem().setHelp(fPagebook, IJavaHelpContextIds.CALL_HIERARCHY_VIEW);
 
+        addWorkingSetListener();
+
         fSelectionProviderMediator = new CallHierarchySelectionProvider(new StructuredViewer[] {
                     fCallHierarchyViewer, fLocationViewer
                 });
@@ -585,6 +591,25 @@ public class CallHierarchyViewPart extends ViewPart implements ICallHierarchyVie
 		fDialogSettings.put(DIALOGSTORE_VIEWORIENTATION, fOrientation);
 	}
 
+	/**
+	 * The calls found in a working set scope are cached under the names of the working sets, so
+	 * they must be searched again when a working set changes.
+	 */
+	private void addWorkingSetListener() {
+		fWorkingSetListener= new IPropertyChangeListener() {
+			@Override
+			public void propertyChange(PropertyChangeEvent event) {
+				String property= event.getProperty();
+				if (IWorkingSetManager.CHANGE_WORKING_SET_CONTENT_CHANGE.equals(property)
+						|| IWorkingSetManager.CHANGE_WORKING_SET_NAME_CHANGE.equals(property)
+						|| IWorkingSetManager.CHANGE_WORKING_SET_REMOVE.equals(property)) {
+					CallHierarchy.getDefault().clearCache();
+				}
+			}
+		};
+		PlatformUI.getWorkbench().getWorkingSetManager().addPropertyChangeListener(fWorkingSetListener);
+	}
+
 	private void addResizeListener(Composite parent) {
 		parent.addControlListener(new ControlListener() {
 			@Override
@@ -741,6 +766,11 @@ public class CallHierarchyViewPart extends ViewPart implements ICallHierarchyVie
 			getViewSite().getPage().removePartListener(fPartListener);
 			fPartListener= null;
 		}
+
+		if (fWorkingSetListener != null) {
+			PlatformUI.getWorkbench().getWorkingSetManager().removePropertyChangeListener(fWorkingSetListener);
+			fWorkingSetListener= null;
+		}
 		super.dispose();
 	}
 
@@ -768,6 +798,7 @@ public class CallHierarchyViewPart extends ViewPart implements ICallHierarchyVie
      *
      */
     public void refresh() {
+        CallHierarchy.getDefault().clearCache();
         setCalleeRoots(null);
         setCallerRoots(null);
 
@@ -1137,7 +1168,7 @@ public class CallHierarchyViewPart extends ViewPart implements ICallHierarchyVie
 			showPage(PAGE_VIEWER);
 
 			int includeMask= getIncludeMask();
-			CallHierarchy.getDefault().setSearchScope(getSearchScope(includeMask));
+			CallHierarchy.getDefault().setSearchScope(getSearchScope(includeMask), fSearchScopeActions.getScopeKey(includeMask));
 
 			// set input to null so that setComparator does not cause a refresh on the old contents:
 			fCallHierarchyViewer.setInput(null);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,6 +11,8 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.ui.callhierarchy;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.eclipse.swt.widgets.Display;
 
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -25,6 +27,15 @@ import org.eclipse.jdt.internal.corext.callhierarchy.MethodWrapper;
 import org.eclipse.jdt.internal.ui.JavaPlugin;
 
 public class DeferredMethodWrapper extends MethodWrapperWorkbenchAdapter implements IDeferredWorkbenchAdapter {
+    /**
+     * The maximum number of method wrappers whose children are fetched concurrently.
+     *
+     * @since 3.13
+     */
+    private static final int MAX_CONCURRENT_FETCHES= Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    private static final AtomicInteger fgNextSlot= new AtomicInteger();
+
     private final CallHierarchyContentProvider fProvider;
 
     /**
@@ -100,7 +111,10 @@ public class DeferredMethodWrapper extends MethodWrapperWorkbenchAdapter impleme
 
     @Override
 	public ISchedulingRule getRule(Object o) {
-        return new BatchSimilarSchedulingRule("org.eclipse.jdt.ui.callhierarchy.methodwrapper"); //$NON-NLS-1$
+        // jobs in the same slot run one after the other, so that siblings are expanded
+        // concurrently but never more than MAX_CONCURRENT_FETCHES at once
+        int slot= (fgNextSlot.getAndIncrement() & Integer.MAX_VALUE) % MAX_CONCURRENT_FETCHES;
+        return new BatchSimilarSchedulingRule("org.eclipse.jdt.ui.callhierarchy.methodwrapper." + slot); //$NON-NLS-1$
     }
 
     @Override
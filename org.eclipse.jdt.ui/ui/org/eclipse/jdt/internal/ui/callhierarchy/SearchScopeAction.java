@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -52,4 +52,15 @@ abstract class SearchScopeAction extends Action {
 	 * @since 3.7
 	 */
 	public abstract String getFullDescription(int includeMask);
+
+	/**
+	 * Fetches a key that identifies the search scope with the appropriate include mask. Unlike the
+	 * description, the key is not localized or shortened, so that different scopes have different
+	 * keys.
+	 *
+	 * @param includeMask the include mask
+	 * @return the key of the scope with the appropriate include mask
+	 * @since 3.13
+	 */
+	public abstract String getScopeKey(int includeMask);
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -362,5 +362,19 @@ class SearchScopeActionGroup extends ActionGroup {
 			return fSelectedAction.getFullDescription(includeMask);
 		return null;
 	}
+
+	/**
+	 * Fetches the key of the scope with the appropriate include mask.
+	 *
+	 * @param includeMask the include mask
+	 * @return the key of the scope with the appropriate include mask, or <code>null</code> if no
+	 *         scope is selected
+	 * @since 3.13
+	 */
+	public String getScopeKey(int includeMask) {
+		if (fSelectedAction != null)
+			return fSelectedAction.getScopeKey(includeMask);
+		return null;
+	}
 }
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -16,6 +16,7 @@
 package org.eclipse.jdt.internal.ui.callhierarchy;
 
 import java.util.HashSet;
+import java.util.TreeSet;
 
 import org.eclipse.ui.PlatformUI;
 
@@ -74,4 +75,16 @@ class SearchScopeProjectAction extends SearchScopeAction {
 		}
 		return ""; //$NON-NLS-1$
 	}
+
+	@Override
+	public String getScopeKey(int includeMask) {
+		TreeSet<String> projectNames= new TreeSet<>();
+		IMember[] members= fGroup.getView().getInputElements();
+		if (members != null) {
+			for (int i= 0; i < members.length; i++) {
+				projectNames.add(members[i].getJavaProject().getElementName());
+			}
+		}
+		return "project" + projectNames + '/' + includeMask; //$NON-NLS-1$
+	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,9 +13,16 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.ui.callhierarchy;
 
+import java.util.TreeSet;
+
+import org.eclipse.core.runtime.IAdaptable;
+
+import org.eclipse.core.resources.IResource;
+
 import org.eclipse.ui.IWorkingSet;
 import org.eclipse.ui.PlatformUI;
 
+import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.search.IJavaSearchScope;
 
 import org.eclipse.jdt.internal.ui.IJavaHelpContextIds;
@@ -54,4 +61,27 @@ class SearchScopeWorkingSetAction extends SearchScopeAction {
 	public String getFullDescription(int includeMask) {
 		return JavaSearchScopeFactory.getInstance().getWorkingSetScopeDescription(fWorkingSets, includeMask);
 	}
+
+	@Override
+	public String getScopeKey(int includeMask) {
+		// the contents of a working set can change while its name stays the same
+		TreeSet<String> elements= new TreeSet<>();
+		for (int i= 0; i < fWorkingSets.length; i++) {
+			IAdaptable[] workingSetElements= fWorkingSets[i].getElements();
+			for (int j= 0; j < workingSetElements.length; j++) {
+				elements.add(getElementKey(workingSetElements[j]));
+			}
+		}
+		return "workingSet" + elements + '/' + includeMask; //$NON-NLS-1$
+	}
+
+	private static String getElementKey(IAdaptable element) {
+		IJavaElement javaElement= element.getAdapter(IJavaElement.class);
+		if (javaElement != null)
+			return javaElement.getHandleIdentifier();
+		IResource resource= element.getAdapter(IResource.class);
+		if (resource != null)
+			return resource.getFullPath().toString();
+		return String.valueOf(element);
+	}
 }
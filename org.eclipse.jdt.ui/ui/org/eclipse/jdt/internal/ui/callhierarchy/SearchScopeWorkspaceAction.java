@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -43,4 +43,9 @@ class SearchScopeWorkspaceAction extends SearchScopeAction {
 	public String getFullDescription(int includeMask) {
 		return fFactory.getWorkspaceScopeDescription(includeMask);
 	}
+
+	@Override
+	public String getScopeKey(int includeMask) {
+		return "workspace/" + includeMask; //$NON-NLS-1$
+	}
 }
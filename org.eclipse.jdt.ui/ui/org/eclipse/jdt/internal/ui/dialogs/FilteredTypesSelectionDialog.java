@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -20,6 +20,7 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.graphics.TextStyle;
@@ -87,7 +88,6 @@ import org.eclipse.jdt.core.search.SearchEngine;
 import org.eclipse.jdt.core.search.SearchPattern;
 import org.eclipse.jdt.core.search.TypeNameMatch;
 import org.eclipse.jdt.core.search.TypeNameMatchRequestor;
-import org.eclipse.jdt.core.search.TypeNameRequestor;
 
 import org.eclipse.jdt.internal.corext.util.CollectionsUtil;
 import org.eclipse.jdt.internal.corext.util.Messages;
@@ -96,6 +96,7 @@ import org.eclipse.jdt.internal.corext.util.Strings;
 import org.eclipse.jdt.internal.corext.util.TypeFilter;
 import org.eclipse.jdt.internal.corext.util.TypeInfoFilter;
 import org.eclipse.jdt.internal.corext.util.TypeInfoRequestorAdapter;
+import org.eclipse.jdt.internal.corext.util.TypeNameIndex;
 
 import org.eclipse.jdt.launching.IVMInstall;
 import org.eclipse.jdt.launching.IVMInstallType;
@@ -516,6 +517,9 @@ public class FilteredTypesSelectionDialog extends FilteredItemsSelectionDialog i
 		typeSearchFilter.setMatchEverythingMode(true);
 
 		try {
+			// the type name index is kept warm between dialog invocations, use the search engine until it is ready
+			if (TypeNameIndex.getInstance().search(typeSearchFilter.getTypeInfoFilter(), requestor, progressMonitor))
+				return;
 			engine.searchAllTypeNames(packPattern == null ? null : packPattern.toCharArray(),
 					typeSearchFilter.getPackageFlags(),
 					typePattern.toCharArray(),
@@ -571,7 +575,8 @@ public class FilteredTypesSelectionDialog extends FilteredItemsSelectionDialog i
 
 	/*
 	 * We only have to ensure history consistency here since the search engine
-	 * takes care of working copies.
+	 * takes care of working copies. The search engine also waits for the indexes
+	 * to be ready, so they are not refreshed upfront.
 	 */
 	private static class ConsistencyRunnable implements IRunnableWithProgress {
 		@Override
@@ -580,41 +585,14 @@ public class FilteredTypesSelectionDialog extends FilteredItemsSelectionDialog i
 				// Join the initialize after load job.
 				IJobManager manager= Job.getJobManager();
 				manager.join(JavaUI.ID_PLUGIN, monitor);
-			}
-			OpenTypeHistory history= OpenTypeHistory.getInstance();
-			if (fgFirstTime || history.isEmpty()) {
-				if (history.needConsistencyCheck()) {
-					SubMonitor subMonitor= SubMonitor.convert(monitor,JavaUIMessages.TypeSelectionDialog_progress_consistency, 10 );
-					refreshSearchIndices(subMonitor.split(9));
-					history.checkConsistency(subMonitor.split(1));
-				} else {
-					refreshSearchIndices(monitor);
-				}
 				fgFirstTime= false;
-			} else {
-				history.checkConsistency(monitor);
 			}
+			// only checks the entries of containers that changed since the last check
+			OpenTypeHistory.getInstance().checkConsistency(monitor);
 		}
 		public static boolean needsExecution() {
 			OpenTypeHistory history= OpenTypeHistory.getInstance();
-			return fgFirstTime || history.isEmpty() || history.needConsistencyCheck();
-		}
-		private void refreshSearchIndices(IProgressMonitor monitor) throws InvocationTargetException {
-			try {
-				new SearchEngine().searchAllTypeNames(
-						null,
-						0,
-						// make sure we search a concrete name. This is faster according to Kent
-						"_______________".toCharArray(), //$NON-NLS-1$
-						SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE,
-						IJavaSearchConstants.ENUM,
-						SearchEngine.createWorkspaceScope(),
-						new TypeNameRequestor() { /* dummy */},
-						IJavaSearchConstants.WAIT_UNTIL_READY_TO_SEARCH,
-						monitor);
-			} catch (JavaModelException e) {
-				throw new InvocationTargetException(e);
-			}
+			return fgFirstTime || history.needConsistencyCheck();
 		}
 	}
 
@@ -865,6 +843,9 @@ public class FilteredTypesSelectionDialog extends FilteredItemsSelectionDialog i
 
 		private final String[] fVMNames;
 
+		/** Container names by package fragment root, used by the UI thread and the filter job */
+		private final Map<IPackageFragmentRoot, String> fContainerNames= new ConcurrentHashMap<>();
+
 		public TypeInfoUtil(ITypeInfoImageProvider extension) {
 			fProviderExtension= extension;
 			List<IPath> locations= new ArrayList<>();
@@ -960,6 +941,15 @@ public class FilteredTypesSelectionDialog extends FilteredItemsSelectionDialog i
 
 		private String getContainerName(TypeNameMatch type) {
 			IPackageFragmentRoot root= type.getPackageFragmentRoot();
+			String name= fContainerNames.get(root);
+			if (name == null) {
+				name= computeContainerName(root);
+				fContainerNames.put(root, name);
+			}
+			return name;
+		}
+
+		private String computeContainerName(IPackageFragmentRoot root) {
 			if (root.isExternal()) {
 				IPath path= root.getPath();
 				for (int i= 0; i < fInstallLocations.length; i++) {
@@ -1034,6 +1024,10 @@ public class FilteredTypesSelectionDialog extends FilteredItemsSelectionDialog i
 			return fTypeInfoFilter.getElementKind();
 		}
 
+		public TypeInfoFilter getTypeInfoFilter() {
+			return fTypeInfoFilter;
+		}
+
 		public IJavaSearchScope getSearchScope() {
 			return fTypeInfoFilter.getSearchScope();
 		}
@@ -1188,6 +1182,13 @@ public class FilteredTypesSelectionDialog extends FilteredItemsSelectionDialog i
 
 		private final String[] fVMNames;
 
+		/**
+		 * Container names and element type categories by package fragment root. Sorting compares
+		 * types of the same roots over and over again, computing the container name is expensive.
+		 */
+		private final Map<IPackageFragmentRoot, String> fContainerNames= new ConcurrentHashMap<>();
+		private final Map<IPackageFragmentRoot, Integer> fCategories= new ConcurrentHashMap<>();
+
 		/**
 		 * Creates new instance of TypeItemsComparator
 		 */
@@ -1299,6 +1300,15 @@ public class FilteredTypesSelectionDialog extends FilteredItemsSelectionDialog i
 
 		private String getContainerName(TypeNameMatch type) {
 			IPackageFragmentRoot root= type.getPackageFragmentRoot();
+			String name= fContainerNames.get(root);
+			if (name == null) {
+				name= computeContainerName(root);
+				fContainerNames.put(root, name);
+			}
+			return name;
+		}
+
+		private String computeContainerName(IPackageFragmentRoot root) {
 			if (root.isExternal()) {
 				String name= root.getPath().toOSString();
 				for (int i= 0; i < fInstallLocations.length; i++) {
@@ -1316,8 +1326,18 @@ public class FilteredTypesSelectionDialog extends FilteredItemsSelectionDialog i
 		}
 
 		private int getElementTypeCategory(TypeNameMatch type) {
+			IPackageFragmentRoot root= type.getPackageFragmentRoot();
+			Integer category= fCategories.get(root);
+			if (category == null) {
+				category= new Integer(computeElementTypeCategory(root));
+				fCategories.put(root, category);
+			}
+			return category.intValue();
+		}
+
+		private int computeElementTypeCategory(IPackageFragmentRoot root) {
 			try {
-				if (type.getPackageFragmentRoot().getKind() == IPackageFragmentRoot.K_SOURCE)
+				if (root.getKind() == IPackageFragmentRoot.K_SOURCE)
 					return 0;
 			} catch (JavaModelException e) {
 				JavaPlugin.log(e);
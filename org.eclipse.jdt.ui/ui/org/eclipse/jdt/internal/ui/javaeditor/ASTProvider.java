@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,6 +11,10 @@
 package org.eclipse.jdt.internal.ui.javaeditor;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.ISafeRunnable;
@@ -47,6 +51,11 @@ import org.eclipse.jdt.internal.ui.JavaPlugin;
 /**
  * Provides a shared AST for clients. The shared AST is
  * the AST of the active Java editor's input element.
+ * <p>
+ * The ASTs of a few other inputs, e.g. of the previously
+ * active editors, are kept in an {@link ASTSnapshotCache}
+ * as long as they are up to date.
+ * </p>
  *
  * @since 3.0
  */
@@ -210,14 +219,39 @@ public final class ASTProvider implements IASTSharedValues {
 
 	private static final String DEBUG_PREFIX= "ASTProvider > "; //$NON-NLS-1$
 
-	private volatile ITypeRoot fReconcilingJavaElement;
-	private ITypeRoot fActiveJavaElement;
-	private CompilationUnit fAST;
+	/**
+	 * The maximal time to wait for a reconcile, in milliseconds. Avoids deadlocks, see
+	 * https://bugs.eclipse.org/366048#c21
+	 */
+	private static final long MAX_WAIT_TIME= 30000;
+	/** The interval in which waiting threads check their progress monitor, in milliseconds. */
+	private static final long CANCEL_CHECK_INTERVAL= 100;
+
+	/**
+	 * The active Java element together with its AST. Replaced as a whole, so that readers of the
+	 * AST need no lock.
+	 */
+	private static final class ActiveAST {
+		final ITypeRoot fJavaElement;
+		final CompilationUnit fAST;
+
+		ActiveAST(ITypeRoot javaElement, CompilationUnit ast) {
+			fJavaElement= javaElement;
+			fAST= ast;
+		}
+	}
+
+	private volatile ActiveAST fActive= new ActiveAST(null, null);
 	private ActivationListener fActivationListener;
-	private Object fReconcileLock= new Object();
-	private Object fWaitLock= new Object();
-	private volatile boolean fIsReconciling;
+	private final Object fReconcileLock= new Object();
+	// The element being reconciled, guarded by fReconcileLock
+	private ITypeRoot fReconcilingJavaElement;
+	// Completed when the reconcile of fReconcilingJavaElement ends, null if not reconciling; guarded by fReconcileLock
+	private CompletableFuture<CompilationUnit> fReconcileFuture;
 	private IWorkbenchPart fActiveEditor;
+	private final ASTSnapshotCache fSnapshots= new ASTSnapshotCache();
+	// The generation of the snapshot cache when the active AST was cached
+	private int fASTGeneration;
 
 
 	/**
@@ -258,22 +292,19 @@ public final class ASTProvider implements IASTSharedValues {
 			javaElement= ((JavaEditor)editor).getInputJavaElement();
 
 		synchronized (this) {
+			ActiveAST active= fActive;
+			if (active.fAST != null && active.fJavaElement != null && !active.fJavaElement.equals(javaElement))
+				fSnapshots.put(active.fJavaElement, active.fAST, fASTGeneration);
 			fActiveEditor= editor;
-			fActiveJavaElement= javaElement;
-			cache(null, javaElement);
+			fActive= new ActiveAST(javaElement, null);
 		}
 
 		if (JavaPlugin.DEBUG_AST_PROVIDER)
 			System.out.println(getThreadName() + " - " + DEBUG_PREFIX + "active editor is: " + toString(javaElement)); //$NON-NLS-1$ //$NON-NLS-2$
 
 		synchronized (fReconcileLock) {
-			if (fIsReconciling && (fReconcilingJavaElement == null || !fReconcilingJavaElement.equals(javaElement))) {
-				fIsReconciling= false;
-				fReconcilingJavaElement= null;
-			} else if (javaElement == null) {
-				fIsReconciling= false;
-				fReconcilingJavaElement= null;
-			}
+			if (fReconcileFuture != null && (javaElement == null || !javaElement.equals(fReconcilingJavaElement)))
+				endReconcile(null);
 		}
 	}
 
@@ -285,7 +316,29 @@ public final class ASTProvider implements IASTSharedValues {
 	 * @return <code>true</code> if the given AST is the cached one
 	 */
 	public boolean isCached(CompilationUnit ast) {
-		return ast != null && fAST == ast;
+		return ast != null && fActive.fAST == ast;
+	}
+
+	/**
+	 * Returns the number of AST requests for inactive inputs that were
+	 * answered from the snapshot cache.
+	 *
+	 * @return the number of snapshot cache hits
+	 * @since 3.13
+	 */
+	public int getSnapshotHitCount() {
+		return fSnapshots.getHitCount();
+	}
+
+	/**
+	 * Returns the number of AST requests for inactive inputs that were
+	 * not answered from the snapshot cache.
+	 *
+	 * @return the number of snapshot cache misses
+	 * @since 3.13
+	 */
+	public int getSnapshotMissCount() {
+		return fSnapshots.getMissCount();
 	}
 
 	/**
@@ -296,8 +349,8 @@ public final class ASTProvider implements IASTSharedValues {
 	 * @return <code>true</code> if the given compilation unit is the active one
 	 * @since 3.1
 	 */
-	public synchronized boolean isActive(ICompilationUnit cu) {
-		return cu != null && cu.equals(fActiveJavaElement);
+	public boolean isActive(ICompilationUnit cu) {
+		return cu != null && cu.equals(fActive.fJavaElement);
 	}
 
 	/**
@@ -315,26 +368,40 @@ public final class ASTProvider implements IASTSharedValues {
 			System.out.println(getThreadName() + " - " + DEBUG_PREFIX + "about to reconcile: " + toString(javaElement)); //$NON-NLS-1$ //$NON-NLS-2$
 
 		synchronized (fReconcileLock) {
+			if (fReconcileFuture != null && !javaElement.equals(fReconcilingJavaElement))
+				endReconcile(null);
 			fReconcilingJavaElement= javaElement;
-			fIsReconciling= true;
+			if (fReconcileFuture == null)
+				fReconcileFuture= new CompletableFuture<>();
 		}
 		cache(null, javaElement);
 	}
 
+	/**
+	 * Ends the current reconcile and wakes up the threads waiting for it. Must be called while
+	 * holding <code>fReconcileLock</code>.
+	 *
+	 * @param ast the AST of the reconciled element or <code>null</code> if none
+	 */
+	private void endReconcile(CompilationUnit ast) {
+		CompletableFuture<CompilationUnit> future= fReconcileFuture;
+		fReconcileFuture= null;
+		if (future != null)
+			future.complete(ast);
+	}
+
 	/**
 	 * Disposes the cached AST.
 	 */
 	private synchronized void disposeAST() {
-
-		if (fAST == null)
+		ActiveAST active= fActive;
+		if (active.fAST == null)
 			return;
 
 		if (JavaPlugin.DEBUG_AST_PROVIDER)
-			System.out.println(getThreadName() + " - " + DEBUG_PREFIX + "disposing AST: " + toString(fAST) + " for: " + toString(fActiveJavaElement)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			System.out.println(getThreadName() + " - " + DEBUG_PREFIX + "disposing AST: " + toString(active.fAST) + " for: " + toString(active.fJavaElement)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 
-		fAST= null;
-
-		cache(null, null);
+		fActive= new ActiveAST(active.fJavaElement, null);
 	}
 
 	/**
@@ -375,8 +442,8 @@ public final class ASTProvider implements IASTSharedValues {
 	 * @param javaElement the java element
 	 */
 	private synchronized void cache(CompilationUnit ast, ITypeRoot javaElement) {
-
-		if (fActiveJavaElement != null && !fActiveJavaElement.equals(javaElement)) {
+		ITypeRoot activeJavaElement= fActive.fJavaElement;
+		if (activeJavaElement != null && !activeJavaElement.equals(javaElement)) {
 			if (JavaPlugin.DEBUG_AST_PROVIDER && javaElement != null) // don't report call from disposeAST()
 				System.out.println(getThreadName() + " - " + DEBUG_PREFIX + "don't cache AST for inactive: " + toString(javaElement)); //$NON-NLS-1$ //$NON-NLS-2$
 			return;
@@ -385,15 +452,11 @@ public final class ASTProvider implements IASTSharedValues {
 		if (JavaPlugin.DEBUG_AST_PROVIDER && (javaElement != null || ast != null)) // don't report call from disposeAST()
 			System.out.println(getThreadName() + " - " + DEBUG_PREFIX + "caching AST: " + toString(ast) + " for: " + toString(javaElement)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 
-		if (fAST != null)
-			disposeAST();
-
-		fAST= ast;
+		disposeAST();
 
-		// Signal AST change
-		synchronized (fWaitLock) {
-			fWaitLock.notifyAll();
-		}
+		if (ast != null)
+			fASTGeneration= fSnapshots.getGeneration();
+		fActive= new ActiveAST(activeJavaElement, ast);
 	}
 
 	/**
@@ -415,68 +478,76 @@ public final class ASTProvider implements IASTSharedValues {
 		if (progressMonitor != null && progressMonitor.isCanceled())
 			return null;
 
-		boolean isActiveElement;
-		synchronized (this) {
-			isActiveElement= input.equals(fActiveJavaElement);
-			if (isActiveElement) {
-				if (fAST != null) {
-					if (JavaPlugin.DEBUG_AST_PROVIDER)
-						System.out.println(getThreadName() + " - " + DEBUG_PREFIX + "returning cached AST:" + toString(fAST) + " for: " + input.getElementName()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		ActiveAST active= fActive;
+		boolean isActiveElement= input.equals(active.fJavaElement);
+		if (isActiveElement) {
+			if (active.fAST != null) {
+				if (JavaPlugin.DEBUG_AST_PROVIDER)
+					System.out.println(getThreadName() + " - " + DEBUG_PREFIX + "returning cached AST:" + toString(active.fAST) + " for: " + input.getElementName()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 
-					return fAST;
-				}
-				if (waitFlag == SharedASTProvider.WAIT_NO) {
-					if (JavaPlugin.DEBUG_AST_PROVIDER)
-						System.out.println(getThreadName() + " - " + DEBUG_PREFIX + "returning null (WAIT_NO) for: " + input.getElementName()); //$NON-NLS-1$ //$NON-NLS-2$
+				return active.fAST;
+			}
+			if (waitFlag == SharedASTProvider.WAIT_NO) {
+				if (JavaPlugin.DEBUG_AST_PROVIDER)
+					System.out.println(getThreadName() + " - " + DEBUG_PREFIX + "returning null (WAIT_NO) for: " + input.getElementName()); //$NON-NLS-1$ //$NON-NLS-2$
 
-					return null;
+				return null;
 
-				}
 			}
 		}
 
-		final boolean canReturnNull= waitFlag == SharedASTProvider.WAIT_NO || (waitFlag == SharedASTProvider.WAIT_ACTIVE_ONLY && !(isActiveElement && fAST == null));
-		boolean isReconciling= false;
-		final ITypeRoot activeElement;
+		final boolean canReturnNull= waitFlag == SharedASTProvider.WAIT_NO || (waitFlag == SharedASTProvider.WAIT_ACTIVE_ONLY && !isActiveElement);
+		CompletableFuture<CompilationUnit> reconcile= null;
 		if (isActiveElement) {
 			synchronized (fReconcileLock) {
-				activeElement= fReconcilingJavaElement;
-				isReconciling= isReconciling(input);
-				if (!isReconciling && !canReturnNull)
+				if (isReconciling(input))
+					reconcile= fReconcileFuture;
+				else if (!canReturnNull)
 					aboutToBeReconciled(input);
 			}
-		} else
-			activeElement= null;
+		}
 
-		if (isReconciling) {
+		if (reconcile != null) {
+			if (JavaPlugin.DEBUG_AST_PROVIDER)
+				System.out.println(getThreadName() + " - " + DEBUG_PREFIX + "waiting for AST for: " + input.getElementName()); //$NON-NLS-1$ //$NON-NLS-2$
 			try {
-				// Wait for AST
-				synchronized (fWaitLock) {
-					if (isReconciling(input)) {
+				if (await(reconcile, progressMonitor)) {
+					// Check whether the element is still active
+					active= fActive;
+					if (input.equals(active.fJavaElement) && active.fAST != null) {
 						if (JavaPlugin.DEBUG_AST_PROVIDER)
-							System.out.println(getThreadName() + " - " + DEBUG_PREFIX + "waiting for AST for: " + input.getElementName()); //$NON-NLS-1$ //$NON-NLS-2$
-						fWaitLock.wait(30000); // XXX: The 30 seconds timeout is an attempt to at least avoid a deadlock. See https://bugs.eclipse.org/366048#c21
-					}
-				}
-
-				// Check whether active element is still valid
-				synchronized (this) {
-					if (activeElement == fActiveJavaElement && fAST != null) {
-						if (JavaPlugin.DEBUG_AST_PROVIDER)
-							System.out.println(getThreadName() + " - " + DEBUG_PREFIX + "...got AST: " + toString(fAST) + " for: " + input.getElementName()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+							System.out.println(getThreadName() + " - " + DEBUG_PREFIX + "...got AST: " + toString(active.fAST) + " for: " + input.getElementName()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 
-						return fAST;
+						return active.fAST;
 					}
+					return getAST(input, waitFlag, progressMonitor);
 				}
-				return getAST(input, waitFlag, progressMonitor);
 			} catch (InterruptedException e) {
 				return null; // thread has been interrupted don't compute AST
 			}
+			if (progressMonitor != null && progressMonitor.isCanceled())
+				return null;
+			if (JavaPlugin.DEBUG_AST_PROVIDER)
+				System.out.println(getThreadName() + " - " + DEBUG_PREFIX + "reconcile timed out, creating AST for: " + input.getElementName()); //$NON-NLS-1$ //$NON-NLS-2$
 		} else if (canReturnNull)
-			return null;
+			return isActiveElement ? null : fSnapshots.get(input);
 
 
-		CompilationUnit ast= null;
+		CompilationUnit ast= fSnapshots.get(input);
+		if (ast != null) {
+			if (isActiveElement) {
+				active= fActive;
+				if (input.equals(active.fJavaElement) && active.fAST != null) {
+					// in the meantime, reconcile created a new AST. Return that one
+					if (JavaPlugin.DEBUG_AST_PROVIDER)
+						System.out.println(getThreadName() + " - " + DEBUG_PREFIX + "Ignore snapshot AST for " + input.getElementName() + " - AST from reconciler is newer"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+					return active.fAST;
+				}
+				reconciled(ast, input, null);
+			}
+			return ast;
+		}
+		int generation= fSnapshots.getGeneration();
 		try {
 			ast= createAST(input, progressMonitor);
 			if (progressMonitor != null && progressMonitor.isCanceled()) {
@@ -486,19 +557,46 @@ public final class ASTProvider implements IASTSharedValues {
 			}
 		} finally {
 			if (isActiveElement) {
-				if (fAST != null) {
+				CompilationUnit reconciledAST= fActive.fAST;
+				if (reconciledAST != null) {
 					// in the meantime, reconcile created a new AST. Return that one
 					if (JavaPlugin.DEBUG_AST_PROVIDER)
 						System.out.println(getThreadName() + " - " + DEBUG_PREFIX + "Ignore created AST for " + input.getElementName() + " - AST from reconciler is newer"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
-					reconciled(fAST, input, null);
-					return fAST;
+					reconciled(reconciledAST, input, null);
+					return reconciledAST;
 				} else
 					reconciled(ast, input, null);
+			} else {
+				fSnapshots.put(input, ast, generation);
 			}
 		}
 		return ast;
 	}
 
+	/**
+	 * Waits until the given future is done, the progress monitor is canceled or
+	 * {@link #MAX_WAIT_TIME} has passed.
+	 *
+	 * @param future the future to wait for
+	 * @param progressMonitor the progress monitor or <code>null</code>
+	 * @return <code>true</code> if the future is done
+	 * @throws InterruptedException if the thread has been interrupted
+	 */
+	private static boolean await(CompletableFuture<CompilationUnit> future, IProgressMonitor progressMonitor) throws InterruptedException {
+		long deadline= System.currentTimeMillis() + MAX_WAIT_TIME;
+		while (true) {
+			try {
+				future.get(CANCEL_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+				return true;
+			} catch (TimeoutException e) {
+				if ((progressMonitor != null && progressMonitor.isCanceled()) || System.currentTimeMillis() > deadline)
+					return false;
+			} catch (ExecutionException e) {
+				return true; // the futures are never completed exceptionally
+			}
+		}
+	}
+
 	/**
 	 * Tells whether the given Java element is the one
 	 * reported as currently being reconciled.
@@ -507,7 +605,9 @@ public final class ASTProvider implements IASTSharedValues {
 	 * @return <code>true</code> if reported as currently being reconciled
 	 */
 	private boolean isReconciling(ITypeRoot javaElement) {
-		return javaElement != null && javaElement.equals(fReconcilingJavaElement) && fIsReconciling;
+		synchronized (fReconcileLock) {
+			return javaElement != null && javaElement.equals(fReconcilingJavaElement) && fReconcileFuture != null;
+		}
 	}
 
 	/**
@@ -590,9 +690,10 @@ public final class ASTProvider implements IASTSharedValues {
 		fActivationListener= null;
 
 		disposeAST();
+		fSnapshots.dispose();
 
-		synchronized (fWaitLock) {
-			fWaitLock.notifyAll();
+		synchronized (fReconcileLock) {
+			endReconcile(null);
 		}
 	}
 
@@ -611,20 +712,17 @@ public final class ASTProvider implements IASTSharedValues {
 			System.out.println(getThreadName() + " - " + DEBUG_PREFIX + "reconciled: " + toString(javaElement) + ", AST: " + toString(ast)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 
 		synchronized (fReconcileLock) {
-			fIsReconciling= false;
 			if (javaElement == null || !javaElement.equals(fReconcilingJavaElement)) {
 
 				if (JavaPlugin.DEBUG_AST_PROVIDER)
 					System.out.println(getThreadName() + " - " + DEBUG_PREFIX + "  ignoring AST of out-dated editor"); //$NON-NLS-1$ //$NON-NLS-2$
 
 				// Signal - threads might wait for wrong element
-				synchronized (fWaitLock) {
-					fWaitLock.notifyAll();
-				}
-
+				endReconcile(null);
 				return;
 			}
 			cache(ast, javaElement);
+			endReconcile(ast);
 		}
 	}
 
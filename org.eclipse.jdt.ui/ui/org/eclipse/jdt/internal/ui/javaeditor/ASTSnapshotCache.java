@@ -0,0 +1,220 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.javaeditor;
+
+import java.lang.ref.SoftReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.core.resources.IResource;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.ITypeRoot;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+
+/**
+ * The ASTs of the last few inputs that are not the active editor's input, so that switching
+ * between editors or asking for the AST of an inactive editor does not parse again.
+ * <p>
+ * An entry is keyed by its type root and the modification stamp of the type root's resource, and
+ * is only returned while the working copy is consistent with its buffer. A fine-grained Java element
+ * delta that changes the content of a compilation unit, but none of its elements, removes that
+ * compilation unit's entry. Any other delta may change the bindings of all ASTs and removes all
+ * entries. The ASTs are held by soft
+ * references, so that they are released before memory runs out.
+ * </p>
+ * <p>
+ * This class is thread safe.
+ * </p>
+ *
+ * @since 3.13
+ */
+final class ASTSnapshotCache implements IElementChangedListener {
+
+	/** The maximal number of cached ASTs. */
+	private static final int MAX_ENTRIES= 5;
+
+	/**
+	 * The delta flags of a fine-grained compilation unit delta without affected children that do
+	 * not change the bindings of other compilation units.
+	 */
+	private static final int CONTENT_FLAGS= IJavaElementDelta.F_CONTENT | IJavaElementDelta.F_FINE_GRAINED
+			| IJavaElementDelta.F_AST_AFFECTED | IJavaElementDelta.F_PRIMARY_RESOURCE;
+
+	private static final class Entry {
+		final SoftReference<CompilationUnit> fAST;
+		final long fStamp;
+
+		Entry(CompilationUnit ast, long stamp) {
+			fAST= new SoftReference<>(ast);
+			fStamp= stamp;
+		}
+	}
+
+	private final Map<ITypeRoot, Entry> fEntries;
+	// Incremented whenever entries are removed, so that ASTs computed across a change aren't stored
+	private int fGeneration;
+	private int fHits;
+	private int fMisses;
+
+	ASTSnapshotCache() {
+		fEntries= new LinkedHashMap<ITypeRoot, Entry>(MAX_ENTRIES, 0.75f, true) {
+			private static final long serialVersionUID= 1L;
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<ITypeRoot, Entry> eldest) {
+				return size() > MAX_ENTRIES;
+			}
+		};
+		JavaCore.addElementChangedListener(this, ElementChangedEvent.POST_CHANGE | ElementChangedEvent.POST_RECONCILE);
+	}
+
+	/**
+	 * Returns the cached AST of the given type root.
+	 *
+	 * @param input the type root
+	 * @return the AST, or <code>null</code> if not cached or outdated
+	 */
+	synchronized CompilationUnit get(ITypeRoot input) {
+		CompilationUnit ast= null;
+		Entry entry= fEntries.get(input);
+		if (entry != null) {
+			ast= entry.fAST.get();
+			if (ast == null || entry.fStamp != getStamp(input)) {
+				fEntries.remove(input);
+				ast= null;
+			} else if (!isConsistent(input)) {
+				ast= null;
+			}
+		}
+
+		if (ast != null)
+			fHits++;
+		else
+			fMisses++;
+		if (JavaPlugin.DEBUG_AST_PROVIDER)
+			System.out.println(Thread.currentThread().getName() + " - ASTSnapshotCache > " + (ast != null ? "hit" : "miss") + " for: " + input.getElementName() + " " + this); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+		return ast;
+	}
+
+	/**
+	 * @return the current generation of the cache, to be passed to
+	 *         {@link #put(ITypeRoot, CompilationUnit, int)}
+	 */
+	synchronized int getGeneration() {
+		return fGeneration;
+	}
+
+	/**
+	 * Caches an AST. Does nothing if entries were removed since the given generation was taken,
+	 * i.e. if the AST may be outdated.
+	 *
+	 * @param input the type root of the AST
+	 * @param ast the AST, must be protected against modification
+	 * @param generation the generation of the cache taken before the AST was created
+	 * @return <code>true</code> if the AST was cached, <code>false</code> if it may be outdated
+	 */
+	synchronized boolean put(ITypeRoot input, CompilationUnit ast, int generation) {
+		if (ast == null || generation != fGeneration || !isConsistent(input))
+			return false;
+		fEntries.put(input, new Entry(ast, getStamp(input)));
+		return true;
+	}
+
+	/**
+	 * Removes all cached ASTs.
+	 */
+	synchronized void clear() {
+		fEntries.clear();
+		fGeneration++;
+	}
+
+	/**
+	 * Removes all cached ASTs and stops listening to changes.
+	 */
+	void dispose() {
+		JavaCore.removeElementChangedListener(this);
+		clear();
+	}
+
+	/**
+	 * @return the number of requests answered from the cache
+	 */
+	synchronized int getHitCount() {
+		return fHits;
+	}
+
+	/**
+	 * @return the number of requests not answered from the cache
+	 */
+	synchronized int getMissCount() {
+		return fMisses;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "(" + fEntries.size() + " entries, " + fHits + " hits, " + fMisses + " misses)"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+	}
+
+	@Override
+	public void elementChanged(ElementChangedEvent event) {
+		processDelta(event.getDelta());
+	}
+
+	private void processDelta(IJavaElementDelta delta) {
+		IJavaElement element= delta.getElement();
+		if (element.getElementType() == IJavaElement.COMPILATION_UNIT) {
+			int flags= delta.getFlags();
+			if (delta.getKind() == IJavaElementDelta.CHANGED && (flags & IJavaElementDelta.F_FINE_GRAINED) != 0 && (flags & ~CONTENT_FLAGS) == 0
+					&& delta.getAffectedChildren().length == 0) {
+				remove((ITypeRoot) element);
+			} else {
+				clear();
+			}
+			return;
+		}
+		if (element.getElementType() > IJavaElement.COMPILATION_UNIT || delta.getKind() != IJavaElementDelta.CHANGED || (delta.getFlags() & ~IJavaElementDelta.F_CHILDREN) != 0) {
+			clear();
+			return;
+		}
+		IJavaElementDelta[] children= delta.getAffectedChildren();
+		for (int i= 0; i < children.length; i++) {
+			processDelta(children[i]);
+		}
+	}
+
+	private synchronized void remove(ITypeRoot input) {
+		fEntries.remove(input);
+		fGeneration++;
+	}
+
+	private static long getStamp(ITypeRoot input) {
+		IResource resource= input.getResource();
+		return resource != null ? resource.getModificationStamp() : IResource.NULL_STAMP;
+	}
+
+	private static boolean isConsistent(ITypeRoot input) {
+		if (!(input instanceof ICompilationUnit))
+			return true;
+		try {
+			return ((ICompilationUnit) input).isConsistent();
+		} catch (JavaModelException e) {
+			return false;
+		}
+	}
+}
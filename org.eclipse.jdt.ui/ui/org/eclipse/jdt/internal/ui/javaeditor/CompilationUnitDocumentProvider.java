@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -18,9 +18,12 @@ import java.io.Reader;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.graphics.GC;
@@ -65,6 +68,7 @@ import org.eclipse.jface.util.PropertyChangeEvent;
 import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.DefaultLineTracker;
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
 import org.eclipse.jface.text.ILineTracker;
 import org.eclipse.jface.text.IRegion;
 import org.eclipse.jface.text.Position;
@@ -427,78 +431,124 @@ public class CompilationUnitDocumentProvider extends TextFileDocumentProvider im
 	 * The reason for this specific structure is that positions can
 	 * change over time. Thus a lookup is based on value and not
 	 * on hash value.
+	 * <p>
+	 * The entries are hashed by the offset and length their positions had
+	 * when the table was last rebuilt. Positions only move when the document
+	 * is modified, so the table is rebuilt on the first access after the
+	 * modification stamp passed to {@link #setModificationStamp(long)} changed.
+	 * </p>
 	 */
 	protected static class ReverseMap {
 
 		static class Entry {
 			Position fPosition;
 			Object fValue;
+			/** The next entry whose position has the same offset and length, or <code>null</code> */
+			Entry fNext;
 		}
 
-		private List<Entry> fList= new ArrayList<>(2);
-		private int fAnchor= 0;
+		private Map<Long, Entry> fMap= new HashMap<>();
+		private long fModificationStamp= IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+		private boolean fIsValid= true;
 
 		public ReverseMap() {
 		}
 
+		/**
+		 * Sets the modification stamp of the document the positions belong to.
+		 *
+		 * @param modificationStamp the modification stamp, or
+		 *            {@link IDocumentExtension4#UNKNOWN_MODIFICATION_STAMP} if the positions
+		 *            may have moved
+		 * @since 3.13
+		 */
+		public void setModificationStamp(long modificationStamp) {
+			if (modificationStamp != fModificationStamp || modificationStamp == IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP) {
+				fModificationStamp= modificationStamp;
+				fIsValid= false;
+			}
+		}
+
+		/**
+		 * Tells this map that positions were moved without a modification of the document.
+		 *
+		 * @since 3.13
+		 */
+		public void invalidate() {
+			fIsValid= false;
+		}
+
 		public Object get(Position position) {
+			Entry entry= getEntry(position);
+			return entry != null ? entry.fValue : null;
+		}
 
-			Entry entry;
+		private Entry getEntry(Position position) {
+			if (!fIsValid)
+				rehash();
 
-			// behind anchor
-			int length= fList.size();
-			for (int i= fAnchor; i < length; i++) {
-				entry= fList.get(i);
-				if (entry.fPosition.equals(position)) {
-					fAnchor= i;
-					return entry.fValue;
-				}
+			Long key= getKey(position);
+			Entry entry= fMap.get(key);
+			if (entry != null && !key.equals(getKey(entry.fPosition))) {
+				// the position moved without us being told
+				rehash();
+				entry= fMap.get(key);
 			}
-
-			// before anchor
-			for (int i= 0; i < fAnchor; i++) {
-				entry= fList.get(i);
-				if (entry.fPosition.equals(position)) {
-					fAnchor= i;
-					return entry.fValue;
+			return entry;
+		}
+
+		private void rehash() {
+			Map<Long, Entry> map= new HashMap<>(fMap.size() * 2);
+			for (Iterator<Entry> iter= fMap.values().iterator(); iter.hasNext();) {
+				Entry entry= iter.next();
+				while (entry != null) {
+					Entry next= entry.fNext;
+					entry.fNext= null;
+					Long key= getKey(entry.fPosition);
+					Entry first= map.get(key);
+					if (first == null) {
+						map.put(key, entry);
+					} else {
+						// positions that became equal, the first one keeps precedence
+						while (first.fNext != null)
+							first= first.fNext;
+						first.fNext= entry;
+					}
+					entry= next;
 				}
 			}
-
-			return null;
+			fMap= map;
+			fIsValid= true;
 		}
 
-		private int getIndex(Position position) {
-			Entry entry;
-			int length= fList.size();
-			for (int i= 0; i < length; i++) {
-				entry= fList.get(i);
-				if (entry.fPosition.equals(position))
-					return i;
-			}
-			return -1;
+		private static Long getKey(Position position) {
+			return Long.valueOf(((long) position.getOffset() << 32) | (position.getLength() & 0xFFFFFFFFL));
 		}
 
 		public void put(Position position,  Object value) {
-			int index= getIndex(position);
-			if (index == -1) {
-				Entry entry= new Entry();
+			Entry entry= getEntry(position);
+			if (entry == null) {
+				entry= new Entry();
 				entry.fPosition= position;
 				entry.fValue= value;
-				fList.add(entry);
+				fMap.put(getKey(position), entry);
 			} else {
-				Entry entry= fList.get(index);
 				entry.fValue= value;
 			}
 		}
 
 		public void remove(Position position) {
-			int index= getIndex(position);
-			if (index > -1)
-				fList.remove(index);
+			Entry entry= getEntry(position);
+			if (entry != null) {
+				if (entry.fNext != null)
+					fMap.put(getKey(position), entry.fNext);
+				else
+					fMap.remove(getKey(position));
+			}
 		}
 
 		public void clear() {
-			fList.clear();
+			fMap.clear();
 		}
 	}
 
@@ -524,8 +574,8 @@ public class CompilationUnitDocumentProvider extends TextFileDocumentProvider im
 		private boolean fIsHandlingTemporaryProblems;
 
 		private ReverseMap fReverseMap= new ReverseMap();
-		private List<JavaMarkerAnnotation> fPreviouslyOverlaid= null;
-		private List<JavaMarkerAnnotation> fCurrentlyOverlaid= new ArrayList<>();
+		private Set<JavaMarkerAnnotation> fPreviouslyOverlaid= null;
+		private Set<JavaMarkerAnnotation> fCurrentlyOverlaid= new HashSet<>();
 		private Thread fActiveThread;
 
 
@@ -656,6 +706,11 @@ public class CompilationUnitDocumentProvider extends TextFileDocumentProvider im
 
 		/**
 		 * Signals the end of problem reporting.
+		 * <p>
+		 * The reported problems are matched with the annotations of the previous report by id,
+		 * type, message, arguments and position, so that only the annotations of new and fixed
+		 * problems are added and removed.
+		 * </p>
 		 *
 		 * @param reportedProblems the problems to report
 		 */
@@ -667,46 +722,91 @@ public class CompilationUnitDocumentProvider extends TextFileDocumentProvider im
 
 			synchronized (getLockObject()) {
 
-				boolean isCanceled= false;
-
 				fPreviouslyOverlaid= fCurrentlyOverlaid;
-				fCurrentlyOverlaid= new ArrayList<>();
-
-				if (fGeneratedAnnotations.size() > 0) {
-					temporaryProblemsChanged= true;
-					removeAnnotations(fGeneratedAnnotations, false, true);
-					fGeneratedAnnotations.clear();
+				fCurrentlyOverlaid= new HashSet<>();
+
+				Map<String, List<ProblemAnnotation>> previousAnnotations= new HashMap<>();
+				Iterator<ProblemAnnotation> iter= fGeneratedAnnotations.iterator();
+				while (iter.hasNext()) {
+					ProblemAnnotation annotation= iter.next();
+					Position position= getPosition(annotation);
+					if (position != null && !position.isDeleted()) {
+						String key= getProblemKey(annotation, position);
+						List<ProblemAnnotation> annotations= previousAnnotations.get(key);
+						if (annotations == null) {
+							annotations= new ArrayList<>(1);
+							previousAnnotations.put(key, annotations);
+						}
+						annotations.add(annotation);
+					}
 				}
 
+				List<ProblemAnnotation> keptAnnotations= new ArrayList<>();
+				Map<ProblemAnnotation, Position> addedAnnotations= new LinkedHashMap<>();
 				if (reportedProblems != null && reportedProblems.size() > 0) {
 
 					Iterator<IProblem> e= reportedProblems.iterator();
 					while (e.hasNext()) {
 
 						if (fProgressMonitor != null && fProgressMonitor.isCanceled()) {
-							isCanceled= true;
-							break;
+							// keep the annotations of the previous report
+							removeMarkerOverlays(true);
+							fPreviouslyOverlaid= null;
+							return;
 						}
 
 						IProblem problem= e.next();
 						Position position= createPositionFromProblem(problem);
 						if (position != null) {
-
-							try {
-								ProblemAnnotation annotation= new ProblemAnnotation(problem, fCompilationUnit);
-								overlayMarkers(position, annotation);
-								addAnnotation(annotation, position, false);
-								fGeneratedAnnotations.add(annotation);
-
-								temporaryProblemsChanged= true;
-							} catch (BadLocationException x) {
-								// ignore invalid position
-							}
+							ProblemAnnotation annotation= new ProblemAnnotation(problem, fCompilationUnit);
+							List<ProblemAnnotation> annotations= previousAnnotations.get(getProblemKey(annotation, position));
+							if (annotations != null && annotations.size() > 0)
+								keptAnnotations.add(annotations.remove(annotations.size() - 1));
+							else
+								addedAnnotations.put(annotation, position);
 						}
 					}
 				}
 
-				removeMarkerOverlays(isCanceled);
+				List<ProblemAnnotation> removedAnnotations= new ArrayList<>();
+				if (keptAnnotations.size() < fGeneratedAnnotations.size()) {
+					Set<ProblemAnnotation> kept= new HashSet<>(keptAnnotations);
+					iter= fGeneratedAnnotations.iterator();
+					while (iter.hasNext()) {
+						ProblemAnnotation annotation= iter.next();
+						if (!kept.contains(annotation))
+							removedAnnotations.add(annotation);
+					}
+				}
+
+				if (removedAnnotations.size() > 0 || addedAnnotations.size() > 0) {
+					temporaryProblemsChanged= true;
+					try {
+						replaceAnnotations(removedAnnotations.toArray(new Annotation[removedAnnotations.size()]), addedAnnotations, false);
+					} catch (BadLocationException x) {
+						addRemainingAnnotations(addedAnnotations);
+					}
+				}
+
+				fGeneratedAnnotations.clear();
+				fGeneratedAnnotations.addAll(keptAnnotations);
+				fGeneratedAnnotations.addAll(addedAnnotations.keySet());
+
+				iter= keptAnnotations.iterator();
+				while (iter.hasNext()) {
+					ProblemAnnotation annotation= iter.next();
+					if (overlayMarkers(getPosition(annotation), annotation))
+						temporaryProblemsChanged= true;
+				}
+				Iterator<Map.Entry<ProblemAnnotation, Position>> entries= addedAnnotations.entrySet().iterator();
+				while (entries.hasNext()) {
+					Map.Entry<ProblemAnnotation, Position> entry= entries.next();
+					overlayMarkers(entry.getValue(), entry.getKey());
+				}
+
+				if (fPreviouslyOverlaid.size() > 0)
+					temporaryProblemsChanged= true;
+				removeMarkerOverlays(false);
 				fPreviouslyOverlaid= null;
 			}
 
@@ -714,6 +814,40 @@ public class CompilationUnitDocumentProvider extends TextFileDocumentProvider im
 				fireModelChanged();
 		}
 
+		/**
+		 * Adds the annotations that have not been added, skipping those with an invalid position.
+		 *
+		 * @param annotations the annotations to add, annotations with an invalid position are
+		 *            removed from the map
+		 */
+		private void addRemainingAnnotations(Map<ProblemAnnotation, Position> annotations) {
+			Iterator<Map.Entry<ProblemAnnotation, Position>> e= annotations.entrySet().iterator();
+			while (e.hasNext()) {
+				Map.Entry<ProblemAnnotation, Position> entry= e.next();
+				if (getPosition(entry.getKey()) == null) {
+					try {
+						addAnnotation(entry.getKey(), entry.getValue(), false);
+					} catch (BadLocationException x) {
+						// ignore invalid position
+						e.remove();
+					}
+				}
+			}
+		}
+
+		private static String getProblemKey(ProblemAnnotation annotation, Position position) {
+			StringBuffer buf= new StringBuffer();
+			buf.append(annotation.getId()).append(' ').append(annotation.getType());
+			buf.append(' ').append(position.getOffset()).append(' ').append(position.getLength());
+			buf.append(' ').append(annotation.getText());
+			String[] arguments= annotation.getArguments();
+			if (arguments != null) {
+				for (int i= 0; i < arguments.length; i++)
+					buf.append('\u0000').append(arguments[i]);
+			}
+			return buf.toString();
+		}
+
 		private void removeMarkerOverlays(boolean isCanceled) {
 			if (isCanceled) {
 				fCurrentlyOverlaid.addAll(fPreviouslyOverlaid);
@@ -731,28 +865,34 @@ public class CompilationUnitDocumentProvider extends TextFileDocumentProvider im
 		 * 
 		 * @param value the value
 		 * @param problemAnnotation the problem annotation
+		 * @return <code>true</code> if the value was not overlaid by the previous report
 		 */
-		private void setOverlay(Object value, ProblemAnnotation problemAnnotation) {
+		private boolean setOverlay(Object value, ProblemAnnotation problemAnnotation) {
 			if (value instanceof  JavaMarkerAnnotation) {
 				JavaMarkerAnnotation annotation= (JavaMarkerAnnotation) value;
 				if (annotation.isProblem()) {
 					annotation.setOverlay(problemAnnotation);
-					fPreviouslyOverlaid.remove(annotation);
+					boolean wasOverlaid= fPreviouslyOverlaid.remove(annotation);
 					fCurrentlyOverlaid.add(annotation);
+					return !wasOverlaid;
 				}
-			} else {
 			}
+			return false;
 		}
 
-		private void  overlayMarkers(Position position, ProblemAnnotation problemAnnotation) {
+		private boolean overlayMarkers(Position position, ProblemAnnotation problemAnnotation) {
+			boolean changed= false;
 			Object value= getAnnotations(position);
 			if (value instanceof List) {
 				List<?> list= (List<?>) value;
-				for (Iterator<?> e = list.iterator(); e.hasNext();)
-					setOverlay(e.next(), problemAnnotation);
+				for (Iterator<?> e = list.iterator(); e.hasNext();) {
+					if (setOverlay(e.next(), problemAnnotation))
+						changed= true;
+				}
 			} else {
-				setOverlay(value, problemAnnotation);
+				changed= setOverlay(value, problemAnnotation);
 			}
+			return changed;
 		}
 
 		/**
@@ -817,10 +957,19 @@ public class CompilationUnitDocumentProvider extends TextFileDocumentProvider im
 
 		private Object getAnnotations(Position position) {
 			synchronized (getLockObject()) {
+				validateReverseMap();
 				return fReverseMap.get(position);
 			}
 		}
 
+		private void validateReverseMap() {
+			IDocument document= fDocument;
+			if (document instanceof IDocumentExtension4)
+				fReverseMap.setModificationStamp(((IDocumentExtension4) document).getModificationStamp());
+			else
+				fReverseMap.setModificationStamp(IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP);
+		}
+
 		/*
 		 * @see AnnotationModel#addAnnotation(Annotation, Position, boolean)
 		 */
@@ -829,6 +978,7 @@ public class CompilationUnitDocumentProvider extends TextFileDocumentProvider im
 			super.addAnnotation(annotation, position, fireModelChanged);
 
 			synchronized (getLockObject()) {
+				validateReverseMap();
 				Object cached= fReverseMap.get(position);
 				if (cached == null)
 					fReverseMap.put(position, annotation);
@@ -845,6 +995,17 @@ public class CompilationUnitDocumentProvider extends TextFileDocumentProvider im
 			}
 		}
 
+		/*
+		 * @see AnnotationModel#modifyAnnotationPosition(Annotation, Position, boolean)
+		 */
+		@Override
+		protected void modifyAnnotationPosition(Annotation annotation, Position position, boolean fireModelChanged) {
+			super.modifyAnnotationPosition(annotation, position, fireModelChanged);
+			synchronized (getLockObject()) {
+				fReverseMap.invalidate();
+			}
+		}
+
 		/*
 		 * @see AnnotationModel#removeAllAnnotations(boolean)
 		 */
@@ -863,6 +1024,7 @@ public class CompilationUnitDocumentProvider extends TextFileDocumentProvider im
 		protected void removeAnnotation(Annotation annotation, boolean fireModelChanged) {
 			Position position= getPosition(annotation);
 			synchronized (getLockObject()) {
+				validateReverseMap();
 				Object cached= fReverseMap.get(position);
 				if (cached instanceof List) {
 					@SuppressWarnings("unchecked")
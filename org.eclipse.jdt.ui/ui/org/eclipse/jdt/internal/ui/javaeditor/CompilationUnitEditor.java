@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -1025,12 +1025,24 @@ public class CompilationUnitEditor extends JavaEditor implements IJavaReconcilin
 
 	private CorrectionCommandInstaller fCorrectionCommands;
 
+	/**
+	 * Renders the Javadoc of the visible library members in the background.
+	 * @since 3.13
+	 */
+	private JavadocPrefetcher fJavadocPrefetcher;
+
 	/**
 	 * Reconciling listeners.
 	 * @since 3.0
 	 */
 	private final ListenerList<IJavaReconcilingListener> fReconcilingListeners= new ListenerList<>(ListenerList.IDENTITY);
 
+	/**
+	 * Notifies the reconciling listeners that are deferred to the background.
+	 * @since 3.13
+	 */
+	private final PostReconcileScheduler fPostReconcileScheduler= new PostReconcileScheduler();
+
 	/**
 	 * Mutex for the reconciler. See https://bugs.eclipse.org/bugs/show_bug.cgi?id=63898
 	 * for a description of the problem.
@@ -1431,7 +1443,7 @@ public class CompilationUnitEditor extends JavaEditor implements IJavaReconcilin
 		if (fOverrideIndicatorManager == null)
 			return;
 
-		addReconcileListener(fOverrideIndicatorManager);
+		addDeferredReconcileListener(fOverrideIndicatorManager);
 	}
 
 	/*
@@ -1515,6 +1527,14 @@ public class CompilationUnitEditor extends JavaEditor implements IJavaReconcilin
 			fCorrectionCommands= null;
 		}
 
+		if (fJavadocPrefetcher != null) {
+			removeReconcileListener(fJavadocPrefetcher);
+			fJavadocPrefetcher.uninstall();
+			fJavadocPrefetcher= null;
+		}
+
+		fPostReconcileScheduler.dispose();
+
 		super.dispose();
 	}
 
@@ -1539,6 +1559,10 @@ public class CompilationUnitEditor extends JavaEditor implements IJavaReconcilin
 		if (sourceViewer instanceof ITextViewerExtension)
 			((ITextViewerExtension) sourceViewer).prependVerifyKeyListener(fBracketInserter);
 
+		fJavadocPrefetcher= new JavadocPrefetcher(this);
+		fJavadocPrefetcher.install(sourceViewer);
+		addReconcileListener(fJavadocPrefetcher);
+
 		if (isMarkingOccurrences())
 			installOccurrencesFinder(false);
 	}
@@ -1665,6 +1689,7 @@ public class CompilationUnitEditor extends JavaEditor implements IJavaReconcilin
 		for (IJavaReconcilingListener listener : fReconcilingListeners) {
 			listener.aboutToBeReconciled();
 		}
+		fPostReconcileScheduler.aboutToBeReconciled(getReconciledDocument());
 	}
 
 	/*
@@ -1684,8 +1709,9 @@ public class CompilationUnitEditor extends JavaEditor implements IJavaReconcilin
 
 		// Notify listeners
 		for (IJavaReconcilingListener listener : fReconcilingListeners) {
-			listener.reconciled(ast, forced, progressMonitor);
+			PostReconcileScheduler.notifyReconciled(listener, ast, forced, progressMonitor);
 		}
+		fPostReconcileScheduler.reconciled(ast, forced, getReconciledDocument(), progressMonitor);
 
 		// Update Java Outline page selection
 		if (!forced && !progressMonitor.isCanceled()) {
@@ -1701,6 +1727,17 @@ public class CompilationUnitEditor extends JavaEditor implements IJavaReconcilin
 		}
 	}
 
+	/**
+	 * Returns the document of this editor's input.
+	 *
+	 * @return the document or <code>null</code> if the editor has no input
+	 * @since 3.13
+	 */
+	private IDocument getReconciledDocument() {
+		IDocumentProvider provider= getDocumentProvider();
+		return provider != null ? provider.getDocument(getEditorInput()) : null;
+	}
+
 	/**
 	 * Tells whether this is the active editor in the active page.
 	 *
@@ -1729,6 +1766,19 @@ public class CompilationUnitEditor extends JavaEditor implements IJavaReconcilin
 		}
 	}
 
+	/**
+	 * Adds the given listener, which is notified in the background after the
+	 * listeners added with {@link #addReconcileListener(IJavaReconcilingListener)}.
+	 * Meant for listeners whose work is costly and not needed to show the visible
+	 * part of the editor. Has no effect if an identical listener was already registered.
+	 *
+	 * @param listener	The reconcile listener to be added
+	 * @since 3.13
+	 */
+	final void addDeferredReconcileListener(IJavaReconcilingListener listener) {
+		fPostReconcileScheduler.addListener(listener);
+	}
+
 	/**
 	 * Removes the given listener.
 	 * Has no effect if an identical listener was not already registered.
@@ -1740,6 +1790,7 @@ public class CompilationUnitEditor extends JavaEditor implements IJavaReconcilin
 		synchronized (fReconcilingListeners) {
 			fReconcilingListeners.remove(listener);
 		}
+		fPostReconcileScheduler.removeListener(listener);
 	}
 
 	/*
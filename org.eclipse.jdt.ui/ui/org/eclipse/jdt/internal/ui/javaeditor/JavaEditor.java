@@ -222,6 +222,7 @@ import org.eclipse.jdt.internal.core.manipulation.search.IOccurrencesFinder;
 import org.eclipse.jdt.internal.core.manipulation.search.IOccurrencesFinder.OccurrenceLocation;
 import org.eclipse.jdt.internal.ui.search.ImplementOccurrencesFinder;
 import org.eclipse.jdt.internal.ui.search.MethodExitsFinder;
+import org.eclipse.jdt.internal.ui.search.OccurrencesIndex;
 import org.eclipse.jdt.internal.core.manipulation.search.OccurrencesFinder;
 import org.eclipse.jdt.internal.ui.text.DocumentCharacterIterator;
 import org.eclipse.jdt.internal.ui.text.JavaChangeHover;
@@ -1671,6 +1672,11 @@ public abstract class JavaEditor extends AbstractDecoratedTextEditor implements
 	private ActivationListener fActivationListener= new ActivationListener();
 	private ISelectionListenerWithAST fPostSelectionListenerWithAST;
 	private OccurrencesFinderJob fOccurrencesFinderJob;
+	/**
+	 * The occurrences index for the AST that was last used to mark occurrences.
+	 * @since 3.13
+	 */
+	private volatile OccurrencesIndex fOccurrencesIndex;
 	/** The occurrences finder job canceler */
 	private OccurrencesFinderJobCanceler fOccurrencesFinderJobCanceler;
 	/**
@@ -3299,45 +3305,31 @@ public abstract class JavaEditor extends AbstractDecoratedTextEditor implements
 			fMarkOccurrenceModificationStamp= currentModificationStamp;
 		}
 
+		OccurrencesIndex index= fOccurrencesIndex;
+		if (index == null || index.getASTRoot() != astRoot) {
+			index= new OccurrencesIndex(astRoot);
+			fOccurrencesIndex= index;
+		}
+
 		OccurrenceLocation[] locations= null;
 
 		ASTNode selectedNode= NodeFinder.perform(astRoot, selection.getOffset(), selection.getLength());
-		if (fMarkExceptions) {
-			ExceptionOccurrencesFinder finder= new ExceptionOccurrencesFinder();
-			if (finder.initialize(astRoot, selectedNode) == null) {
-				locations= finder.getOccurrences();
-			}
-		}
+		if (fMarkExceptions)
+			locations= index.getOccurrences(new ExceptionOccurrencesFinder(), selectedNode);
 
-		if (locations == null && fMarkMethodExitPoints) {
-			MethodExitsFinder finder= new MethodExitsFinder();
-			if (finder.initialize(astRoot, selectedNode) == null) {
-				locations= finder.getOccurrences();
-			}
-		}
+		if (locations == null && fMarkMethodExitPoints)
+			locations= index.getOccurrences(new MethodExitsFinder(), selectedNode);
 
-		if (locations == null && fMarkBreakContinueTargets) {
-			BreakContinueTargetFinder finder= new BreakContinueTargetFinder();
-			if (finder.initialize(astRoot, selectedNode) == null) {
-				locations= finder.getOccurrences();
-			}
-		}
+		if (locations == null && fMarkBreakContinueTargets)
+			locations= index.getOccurrences(new BreakContinueTargetFinder(), selectedNode);
 
-		if (locations == null && fMarkImplementors) {
-			ImplementOccurrencesFinder finder= new ImplementOccurrencesFinder();
-			if (finder.initialize(astRoot, selectedNode) == null) {
-				locations= finder.getOccurrences();
-			}
-		}
+		if (locations == null && fMarkImplementors)
+			locations= index.getOccurrences(new ImplementOccurrencesFinder(), selectedNode);
 
 		if (locations == null && selectedNode instanceof Name) {
 			IBinding binding= ((Name)selectedNode).resolveBinding();
-			if (binding != null && markOccurrencesOfType(binding)) {
-				OccurrencesFinder finder= new OccurrencesFinder();
-				if (finder.initialize(astRoot, selectedNode) == null) {
-					locations= finder.getOccurrences();
-				}
-			}
+			if (binding != null && markOccurrencesOfType(binding))
+				locations= index.getOccurrences(new OccurrencesFinder(), selectedNode);
 		}
 
 		if (locations == null) {
@@ -3397,6 +3389,8 @@ public abstract class JavaEditor extends AbstractDecoratedTextEditor implements
 			fOccurrencesFinderJobCanceler= null;
 		}
 
+		fOccurrencesIndex= null;
+
 		if (fPostSelectionListenerWithAST != null) {
 			SelectionListenerWithASTManager.getDefault().removeListener(this, fPostSelectionListenerWithAST);
 			fPostSelectionListenerWithAST= null;
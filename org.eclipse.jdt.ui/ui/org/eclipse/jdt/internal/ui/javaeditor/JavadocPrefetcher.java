@@ -0,0 +1,169 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.javaeditor;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+import org.eclipse.jface.text.ITextViewer;
+import org.eclipse.jface.text.IViewportListener;
+
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.ITypeRoot;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.IBinding;
+import org.eclipse.jdt.core.dom.SimpleName;
+
+import org.eclipse.jdt.ui.SharedASTProvider;
+
+import org.eclipse.jdt.internal.ui.text.java.IJavaReconcilingListener;
+import org.eclipse.jdt.internal.ui.text.javadoc.JavadocContentCache;
+
+/**
+ * Renders the Javadoc of the library members referenced in the visible part of an editor in the
+ * background, so that the Javadoc hover finds it in the {@link JavadocContentCache}.
+ * <p>
+ * Only members of binary package fragment roots with a source attachment are prefetched. Their
+ * Javadoc is read from local files and survives changes of the edited code, whereas fetching
+ * attached Javadoc may need the network.
+ * </p>
+ *
+ * @since 3.13
+ */
+class JavadocPrefetcher implements IJavaReconcilingListener, IViewportListener {
+
+	/** The delay after the last scroll or reconcile before the Javadoc is prefetched, in milliseconds. */
+	private static final long DELAY= 500;
+	/** The maximal number of members prefetched at once. */
+	private static final int MAX_ELEMENTS= 50;
+
+	private class PrefetchJob extends Job {
+		PrefetchJob() {
+			super(JavaEditorMessages.JavadocPrefetcher_job_name);
+			setSystem(true);
+			setPriority(Job.DECORATE);
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			ITypeRoot typeRoot= fTypeRoot;
+			if (typeRoot == null)
+				return Status.OK_STATUS;
+			CompilationUnit ast= SharedASTProvider.getAST(typeRoot, SharedASTProvider.WAIT_NO, monitor);
+			if (ast == null || monitor.isCanceled())
+				return Status.OK_STATUS;
+			Set<IJavaElement> elements= collectElements(ast, fVisibleStart, fVisibleEnd);
+			JavadocContentCache.getDefault().prefetch(elements, monitor);
+			return monitor.isCanceled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
+		}
+	}
+
+	private final JavaEditor fEditor;
+	private final PrefetchJob fJob= new PrefetchJob();
+	private ITextViewer fViewer;
+	private volatile ITypeRoot fTypeRoot;
+	private volatile int fVisibleStart;
+	private volatile int fVisibleEnd;
+
+	JavadocPrefetcher(JavaEditor editor) {
+		fEditor= editor;
+	}
+
+	/**
+	 * Starts prefetching for the given viewer.
+	 *
+	 * @param viewer the viewer of the editor
+	 */
+	void install(ITextViewer viewer) {
+		fViewer= viewer;
+		fViewer.addViewportListener(this);
+		viewportChanged(fViewer.getTopIndexStartOffset());
+	}
+
+	/**
+	 * Stops prefetching.
+	 */
+	void uninstall() {
+		if (fViewer != null) {
+			fViewer.removeViewportListener(this);
+			fViewer= null;
+		}
+		fTypeRoot= null;
+		fJob.cancel();
+	}
+
+	@Override
+	public void viewportChanged(int verticalOffset) {
+		if (fViewer == null)
+			return;
+		fVisibleStart= fViewer.getTopIndexStartOffset();
+		fVisibleEnd= fViewer.getBottomIndexEndOffset();
+		fTypeRoot= EditorUtility.getEditorInputJavaElement(fEditor, false);
+		schedule();
+	}
+
+	@Override
+	public void aboutToBeReconciled() {
+		fJob.cancel();
+	}
+
+	@Override
+	public void reconciled(CompilationUnit ast, boolean forced, IProgressMonitor progressMonitor) {
+		if (ast != null && fTypeRoot != null)
+			schedule();
+	}
+
+	private void schedule() {
+		fJob.cancel();
+		fJob.schedule(DELAY);
+	}
+
+	private static Set<IJavaElement> collectElements(CompilationUnit ast, final int start, final int end) {
+		final Set<IJavaElement> elements= new LinkedHashSet<>();
+		ast.accept(new ASTVisitor() {
+			@Override
+			public boolean preVisit2(ASTNode node) {
+				return elements.size() < MAX_ELEMENTS && node.getStartPosition() <= end && node.getStartPosition() + node.getLength() >= start;
+			}
+
+			@Override
+			public boolean visit(SimpleName node) {
+				IBinding binding= node.resolveBinding();
+				if (binding == null)
+					return false;
+				IJavaElement element= binding.getJavaElement();
+				if (element instanceof IMember && hasSourceAttachment(element))
+					elements.add(element);
+				return false;
+			}
+		});
+		return elements;
+	}
+
+	private static boolean hasSourceAttachment(IJavaElement element) {
+		IPackageFragmentRoot root= (IPackageFragmentRoot) element.getAncestor(IJavaElement.PACKAGE_FRAGMENT_ROOT);
+		try {
+			return root != null && root.getKind() == IPackageFragmentRoot.K_BINARY && root.getSourceAttachmentPath() != null;
+		} catch (JavaModelException e) {
+			return false;
+		}
+	}
+}
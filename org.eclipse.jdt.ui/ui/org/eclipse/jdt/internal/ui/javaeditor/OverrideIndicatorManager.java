@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -207,10 +207,11 @@ class OverrideIndicatorManager implements IJavaReconcilingListener {
 			}
 		});
 
-		if (progressMonitor.isCanceled())
-			return;
-
 		synchronized (fAnnotationModelLockObject) {
+			// checked while holding the lock, so that no annotations are added after removeAnnotations()
+			if (progressMonitor.isCanceled())
+				return;
+
 			if (fAnnotationModel instanceof IAnnotationModelExtension) {
 				((IAnnotationModelExtension)fAnnotationModel).replaceAnnotations(fOverrideAnnotations, annotationMap);
 			} else {
@@ -229,10 +230,10 @@ class OverrideIndicatorManager implements IJavaReconcilingListener {
 	 * Removes all override indicators from this manager's annotation model.
 	 */
 	void removeAnnotations() {
-		if (fOverrideAnnotations == null)
-			return;
-
 		synchronized (fAnnotationModelLockObject) {
+			if (fOverrideAnnotations == null)
+				return;
+
 			if (fAnnotationModel instanceof IAnnotationModelExtension) {
 				((IAnnotationModelExtension)fAnnotationModel).replaceAnnotations(fOverrideAnnotations, null);
 			} else {
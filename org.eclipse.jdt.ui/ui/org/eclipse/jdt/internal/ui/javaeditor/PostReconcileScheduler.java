@@ -0,0 +1,254 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.javaeditor;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.ListenerList;
+import org.eclipse.core.runtime.PerformanceStats;
+import org.eclipse.core.runtime.ProgressMonitorWrapper;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
+
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+import org.eclipse.jdt.internal.ui.text.java.IJavaReconcilingListener;
+
+/**
+ * Notifies the reconciling listeners of an editor whose work is costly and not needed to show the
+ * visible part of the editor, e.g. the override indicators. These deferred listeners are notified
+ * in a background job after the listeners that are notified on the reconciler thread.
+ * <p>
+ * Only the last reconcile is passed to the deferred listeners: the job is canceled as soon as the
+ * next reconcile starts, and the listeners get the canceled progress monitor. The listeners are
+ * not notified if the document was changed since the reconcile started, as the AST no longer
+ * matches the document.
+ * </p>
+ * <p>
+ * A removed listener is no longer notified. If it is being notified while it is removed, its
+ * progress monitor reports cancellation from then on, so that it can stop before it updates the
+ * editor. Removing a listener does not wait for the job.
+ * </p>
+ * <p>
+ * If tracing of <code>org.eclipse.jdt.ui/perf/reconcile/listeners</code> is enabled, the time
+ * spent in each listener is reported to core's {@link PerformanceStats} service.
+ * </p>
+ *
+ * @since 3.13
+ */
+final class PostReconcileScheduler {
+
+	/** The name of the performance event used to trace the reconciling listeners. */
+	private static final String PERFORMANCE_EVENT= JavaPlugin.getPluginId() + "/perf/reconcile/listeners"; //$NON-NLS-1$
+	/**
+	 * If <code>true</code>, execution time of the reconciling listeners is measured and the data
+	 * forwarded to core's {@link PerformanceStats} service.
+	 */
+	private static final boolean MEASURE_PERFORMANCE= PerformanceStats.isEnabled(PERFORMANCE_EVENT);
+
+	private static final class DeferredListener {
+		final IJavaReconcilingListener fListener;
+		// Set when the listener is removed, read by the job
+		volatile boolean fRemoved;
+
+		DeferredListener(IJavaReconcilingListener listener) {
+			fListener= listener;
+		}
+
+		/**
+		 * Returns a progress monitor that is canceled when the given monitor is canceled or when
+		 * this listener is removed.
+		 *
+		 * @param monitor the progress monitor of the job
+		 * @return the progress monitor to pass to the listener
+		 */
+		IProgressMonitor wrap(IProgressMonitor monitor) {
+			return new ProgressMonitorWrapper(monitor) {
+				@Override
+				public boolean isCanceled() {
+					return fRemoved || super.isCanceled();
+				}
+			};
+		}
+	}
+
+	private class DeferredJob extends Job {
+		DeferredJob() {
+			super(JavaEditorMessages.PostReconcileScheduler_job_name);
+			setSystem(true);
+			setPriority(Job.DECORATE);
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			CompilationUnit ast;
+			boolean forced;
+			IDocument document;
+			long stamp;
+			synchronized (PostReconcileScheduler.this) {
+				ast= fAST;
+				forced= fForced;
+				document= fDocument;
+				stamp= fStamp;
+				fAST= null;
+				fDocument= null;
+			}
+			for (DeferredListener listener : fListeners) {
+				if (monitor.isCanceled())
+					return Status.CANCEL_STATUS;
+				if (hasChanged(document, stamp))
+					return Status.OK_STATUS; // the next reconcile notifies the listeners
+				if (!listener.fRemoved)
+					notifyReconciled(listener.fListener, ast, forced, listener.wrap(monitor));
+			}
+			return monitor.isCanceled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
+		}
+	}
+
+	private final ListenerList<DeferredListener> fListeners= new ListenerList<>(ListenerList.IDENTITY);
+	private final DeferredJob fJob= new DeferredJob();
+	private CompilationUnit fAST;
+	private boolean fForced;
+	private IDocument fDocument;
+	// The modification stamp of fDocument when the reconcile of fAST started
+	private long fStamp;
+	// The modification stamp of the document when the running reconcile started
+	private volatile long fReconcileStamp= IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+
+	/**
+	 * Adds a deferred listener. Has no effect if an identical listener is already registered.
+	 *
+	 * @param listener the reconciling listener
+	 */
+	synchronized void addListener(IJavaReconcilingListener listener) {
+		if (find(listener) == null)
+			fListeners.add(new DeferredListener(listener));
+	}
+
+	/**
+	 * Removes a deferred listener. Has no effect if the listener is not registered. The listener is
+	 * not notified again after this method returns. If it is being notified, its progress monitor is
+	 * canceled, but this method does not wait for it to return.
+	 *
+	 * @param listener the reconciling listener
+	 */
+	synchronized void removeListener(IJavaReconcilingListener listener) {
+		DeferredListener deferred= find(listener);
+		if (deferred == null)
+			return;
+		deferred.fRemoved= true;
+		fListeners.remove(deferred);
+		if (fListeners.isEmpty())
+			fJob.cancel();
+	}
+
+	private DeferredListener find(IJavaReconcilingListener listener) {
+		for (DeferredListener deferred : fListeners) {
+			if (deferred.fListener == listener)
+				return deferred;
+		}
+		return null;
+	}
+
+	/**
+	 * Cancels the notification of the previous reconcile and informs the deferred listeners that
+	 * reconciling is about to be started.
+	 *
+	 * @param document the document being reconciled or <code>null</code>
+	 */
+	void aboutToBeReconciled(IDocument document) {
+		fReconcileStamp= getModificationStamp(document);
+		fJob.cancel();
+		for (DeferredListener listener : fListeners) {
+			listener.fListener.aboutToBeReconciled();
+		}
+	}
+
+	/**
+	 * Schedules the notification of the deferred listeners.
+	 *
+	 * @param ast the compilation unit AST or <code>null</code>
+	 * @param forced <code>true</code> iff the reconcile was forced
+	 * @param document the reconciled document or <code>null</code>
+	 * @param progressMonitor the progress monitor of the reconcile
+	 */
+	void reconciled(CompilationUnit ast, boolean forced, IDocument document, IProgressMonitor progressMonitor) {
+		long stamp= fReconcileStamp;
+		fReconcileStamp= IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+		if (fListeners.isEmpty() || progressMonitor.isCanceled() || hasChanged(document, stamp))
+			return;
+		synchronized (this) {
+			fAST= ast;
+			fForced= forced;
+			fDocument= document;
+			fStamp= stamp;
+		}
+		fJob.cancel();
+		fJob.schedule();
+	}
+
+	/**
+	 * Stops notifying the deferred listeners.
+	 */
+	synchronized void dispose() {
+		for (DeferredListener listener : fListeners) {
+			listener.fRemoved= true;
+		}
+		fListeners.clear();
+		fJob.cancel();
+		fAST= null;
+		fDocument= null;
+	}
+
+	private static long getModificationStamp(IDocument document) {
+		if (document instanceof IDocumentExtension4)
+			return ((IDocumentExtension4) document).getModificationStamp();
+		return IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+	}
+
+	/**
+	 * Tells whether the document was changed since the given modification stamp was taken.
+	 *
+	 * @param document the document or <code>null</code>
+	 * @param stamp the modification stamp
+	 * @return <code>true</code> if the document is known to be changed
+	 */
+	private static boolean hasChanged(IDocument document, long stamp) {
+		return stamp != IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP && getModificationStamp(document) != stamp;
+	}
+
+	/**
+	 * Notifies a reconciling listener and measures the time spent in it if performance tracing is
+	 * enabled.
+	 *
+	 * @param listener the reconciling listener
+	 * @param ast the compilation unit AST or <code>null</code>
+	 * @param forced <code>true</code> iff the reconcile was forced
+	 * @param progressMonitor the progress monitor
+	 */
+	static void notifyReconciled(IJavaReconcilingListener listener, CompilationUnit ast, boolean forced, IProgressMonitor progressMonitor) {
+		if (MEASURE_PERFORMANCE) {
+			PerformanceStats stats= PerformanceStats.getStats(PERFORMANCE_EVENT, listener.getClass().getName());
+			stats.startRun();
+			try {
+				listener.reconciled(ast, forced, progressMonitor);
+			} finally {
+				stats.endRun();
+			}
+		} else {
+			listener.reconciled(ast, forced, progressMonitor);
+		}
+	}
+}
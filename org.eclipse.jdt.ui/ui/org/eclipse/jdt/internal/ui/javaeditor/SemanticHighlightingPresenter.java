@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,7 +12,6 @@
 package org.eclipse.jdt.internal.ui.javaeditor;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 import org.eclipse.swt.custom.StyleRange;
@@ -27,6 +26,7 @@ import org.eclipse.jface.text.IRegion;
 import org.eclipse.jface.text.ISynchronizable;
 import org.eclipse.jface.text.ITextInputListener;
 import org.eclipse.jface.text.ITextPresentationListener;
+import org.eclipse.jface.text.IViewportListener;
 import org.eclipse.jface.text.Position;
 import org.eclipse.jface.text.Region;
 import org.eclipse.jface.text.TextPresentation;
@@ -223,6 +223,7 @@ public class SemanticHighlightingPresenter implements ITextPresentationListener,
 		private void updateWithIncludingEvent(HighlightedPosition position, DocumentEvent event) {
 			position.delete();
 			position.update(event.getOffset(), 0);
+			fHasDeletedPositions= true;
 		}
 	}
 
@@ -234,10 +235,31 @@ public class SemanticHighlightingPresenter implements ITextPresentationListener,
 	/** The background presentation reconciler */
 	private JavaPresentationReconciler fPresentationReconciler;
 
-	/** UI's current highlighted positions - can contain <code>null</code> elements */
-	private List<Position> fPositions= new ArrayList<>();
+	/** UI's current highlighted positions */
+	private SortedPositionList fPositions= new SortedPositionList();
 	/** UI position lock */
 	private Object fPositionLock= new Object();
+	/**
+	 * <code>true</code> iff the position updater deleted positions that are still contained in
+	 * <code>fPositions</code>, only accessed in the UI thread.
+	 * @since 3.13
+	 */
+	private boolean fHasDeletedPositions= false;
+	/**
+	 * The document region currently visible in the source viewer, updated in the UI thread.
+	 * @since 3.13
+	 */
+	private volatile IRegion fVisibleRegion;
+	/**
+	 * Tracks the visible region of the source viewer.
+	 * @since 3.13
+	 */
+	private IViewportListener fViewportListener= new IViewportListener() {
+		@Override
+		public void viewportChanged(int verticalOffset) {
+			updateVisibleRegion();
+		}
+	};
 
 	/** <code>true</code> iff the current reconcile is canceled. */
 	private boolean fIsCanceled= false;
@@ -268,10 +290,40 @@ public class SemanticHighlightingPresenter implements ITextPresentationListener,
 	 */
 	public void addAllPositions(List<Position> list) {
 		synchronized (fPositionLock) {
-			list.addAll(fPositions);
+			fPositions.addAllTo(list);
 		}
 	}
 
+	/**
+	 * Returns the document region that was visible in the source viewer when it was last
+	 * scrolled.
+	 * <p>
+	 * NOTE: Also called from background thread.
+	 * </p>
+	 *
+	 * @return the visible region or <code>null</code> if unknown
+	 * @since 3.13
+	 */
+	public IRegion getVisibleRegion() {
+		return fVisibleRegion;
+	}
+
+	/**
+	 * Updates the cached visible region, only from UI thread.
+	 *
+	 * @since 3.13
+	 */
+	private void updateVisibleRegion() {
+		JavaSourceViewer sourceViewer= fSourceViewer;
+		if (sourceViewer == null || sourceViewer.getTextWidget() == null) {
+			fVisibleRegion= null;
+			return;
+		}
+		int start= sourceViewer.getTopIndexStartOffset();
+		int end= sourceViewer.getBottomIndexEndOffset();
+		fVisibleRegion= start <= end ? new Region(start, end - start + 1) : null;
+	}
+
 	/**
 	 * Create a text presentation in the background.
 	 * <p>
@@ -381,61 +433,26 @@ public class SemanticHighlightingPresenter implements ITextPresentationListener,
 
 		String positionCategory= getPositionCategory();
 
-		List<HighlightedPosition> removedPositionsList= Arrays.asList(removedPositions);
-
 		try {
 			synchronized (fPositionLock) {
-				List<Position> oldPositions= fPositions;
-				int newSize= Math.max(fPositions.size() + addedPositions.length - removedPositions.length, 10);
-
-				/*
-				 * The following loop is a kind of merge sort: it merges two List<Position>, each
-				 * sorted by position.offset, into one new list. The first of the two is the
-				 * previous list of positions (oldPositions), from which any deleted positions get
-				 * removed on the fly. The second of two is the list of added positions. The result
-				 * is stored in newPositions.
-				 */
-				List<Position> newPositions= new ArrayList<>(newSize);
-				Position position= null;
-				Position addedPosition= null;
-				for (int i= 0, j= 0, n= oldPositions.size(), m= addedPositions.length; i < n || position != null || j < m || addedPosition != null;) {
-					// loop variant: i + j < old(i + j)
-
-					// a) find the next non-deleted Position from the old list
-					while (position == null && i < n) {
-						position= oldPositions.get(i++);
-						if (position.isDeleted() || contain(removedPositionsList, position)) {
-							document.removePosition(positionCategory, position);
-							position= null;
-						}
-					}
-
-					// b) find the next Position from the added list
-					if (addedPosition == null && j < m) {
-						addedPosition= addedPositions[j++];
-						document.addPosition(positionCategory, addedPosition);
-					}
-
-					// c) merge: add the next of position/addedPosition with the lower offset
-					if (position != null) {
-						if (addedPosition != null)
-							if (position.getOffset() <= addedPosition.getOffset()) {
-								newPositions.add(position);
-								position= null;
-							} else {
-								newPositions.add(addedPosition);
-								addedPosition= null;
-							}
-						else {
-							newPositions.add(position);
-							position= null;
-						}
-					} else if (addedPosition != null) {
-						newPositions.add(addedPosition);
-						addedPosition= null;
-					}
+				// deleted positions are removed even if the reconciler did not report them
+				if (fHasDeletedPositions) {
+					List<Position> deletedPositions= new ArrayList<>();
+					fPositions.removeDeleted(deletedPositions);
+					for (int i= 0, n= deletedPositions.size(); i < n; i++)
+						document.removePosition(positionCategory, deletedPositions.get(i));
+					fHasDeletedPositions= false;
+				}
+				for (int i= 0, n= removedPositions.length; i < n; i++) {
+					HighlightedPosition position= removedPositions[i];
+					document.removePosition(positionCategory, position);
+					fPositions.remove(position);
+				}
+				for (int i= 0, n= addedPositions.length; i < n; i++) {
+					HighlightedPosition position= addedPositions[i];
+					document.addPosition(positionCategory, position);
+					fPositions.add(position);
 				}
-				fPositions= newPositions;
 			}
 		} catch (BadPositionCategoryException e) {
 			// Should not happen
@@ -461,96 +478,19 @@ public class SemanticHighlightingPresenter implements ITextPresentationListener,
 //		}
 //	}
 
-	/**
-	 * Returns <code>true</code> iff the positions contain the position.
-	 * @param positions the positions, must be ordered by offset but may overlap
-	 * @param position the position
-	 * @return <code>true</code> iff the positions contain the position
-	 */
-	private boolean contain(List<? extends Position> positions, Position position) {
-		return indexOf(positions, position) != -1;
-	}
-
-	/**
-	 * Returns index of the position in the positions, <code>-1</code> if not found.
-	 * @param positions the positions, must be ordered by offset but may overlap
-	 * @param position the position
-	 * @return the index
-	 */
-	private int indexOf(List<? extends Position> positions, Position position) {
-		int index= computeIndexAtOffset(positions, position.getOffset());
-		int size= positions.size();
-		while (index < size) {
-			if (positions.get(index) == position)
-				return index;
-			index++;
-		}
-		return -1;
-	}
-
-	/**
-	 * Insert the given position in <code>fPositions</code>, s.t. the offsets remain in linear order.
-	 *
-	 * @param position The position for insertion
-	 */
-	private void insertPosition(Position position) {
-		int i= computeIndexAfterOffset(fPositions, position.getOffset());
-		fPositions.add(i, position);
-	}
-
-	/**
-	 * Returns the index of the first position with an offset greater than the given offset.
-	 *
-	 * @param positions the positions, must be ordered by offset and must not overlap
-	 * @param offset the offset
-	 * @return the index of the last position with an offset greater than the given offset
-	 */
-	private int computeIndexAfterOffset(List<Position> positions, int offset) {
-		int i= -1;
-		int j= positions.size();
-		while (j - i > 1) {
-			int k= (i + j) >> 1;
-			Position position= positions.get(k);
-			if (position.getOffset() > offset)
-				j= k;
-			else
-				i= k;
-		}
-		return j;
-	}
-
-	/**
-	 * Returns the index of the first position with an offset equal or greater than the given offset.
-	 *
-	 * @param positions the positions, must be ordered by offset and must not overlap
-	 * @param offset the offset
-	 * @return the index of the last position with an offset equal or greater than the given offset
-	 */
-	private int computeIndexAtOffset(List<? extends Position> positions, int offset) {
-		int i= -1;
-		int j= positions.size();
-		while (j - i > 1) {
-			int k= (i + j) >> 1;
-			Position position= positions.get(k);
-			if (position.getOffset() >= offset)
-				j= k;
-			else
-				i= k;
-		}
-		return j;
-	}
-
 	/*
 	 * @see org.eclipse.jface.text.ITextPresentationListener#applyTextPresentation(org.eclipse.jface.text.TextPresentation)
 	 */
 	@Override
 	public void applyTextPresentation(TextPresentation textPresentation) {
 		IRegion region= textPresentation.getExtent();
-		int i= computeIndexAtOffset(fPositions, region.getOffset()), n= computeIndexAtOffset(fPositions, region.getOffset() + region.getLength());
-		if (n - i > 2) {
-			List<StyleRange> ranges= new ArrayList<>(n - i);
-			for (; i < n; i++) {
-				HighlightedPosition position= (HighlightedPosition) fPositions.get(i);
+		List<Position> positions= new ArrayList<>();
+		fPositions.collect(region.getOffset(), region.getOffset() + region.getLength(), positions);
+		int n= positions.size();
+		if (n > 2) {
+			List<StyleRange> ranges= new ArrayList<>(n);
+			for (int i= 0; i < n; i++) {
+				HighlightedPosition position= (HighlightedPosition) positions.get(i);
 				if (!position.isDeleted())
 					ranges.add(position.createStyleRange());
 			}
@@ -558,8 +498,8 @@ public class SemanticHighlightingPresenter implements ITextPresentationListener,
 			array= ranges.toArray(array);
 			textPresentation.replaceStyleRanges(array);
 		} else {
-			for (; i < n; i++) {
-				HighlightedPosition position= (HighlightedPosition) fPositions.get(i);
+			for (int i= 0; i < n; i++) {
+				HighlightedPosition position= (HighlightedPosition) positions.get(i);
 				if (!position.isDeleted())
 					textPresentation.replaceStyleRange(position.createStyleRange());
 			}
@@ -660,7 +600,9 @@ public class SemanticHighlightingPresenter implements ITextPresentationListener,
 
 		fSourceViewer.prependTextPresentationListener(this);
 		fSourceViewer.addTextInputListener(this);
+		fSourceViewer.addViewportListener(fViewportListener);
 		manageDocument(fSourceViewer.getDocument());
+		updateVisibleRegion();
 	}
 
 	/**
@@ -671,6 +613,7 @@ public class SemanticHighlightingPresenter implements ITextPresentationListener,
 
 		if (fSourceViewer != null) {
 			fSourceViewer.removeTextPresentationListener(this);
+			fSourceViewer.removeViewportListener(fViewportListener);
 			releaseDocument(fSourceViewer.getDocument());
 			invalidateTextPresentation();
 			resetState();
@@ -686,8 +629,10 @@ public class SemanticHighlightingPresenter implements ITextPresentationListener,
 	 * @param highlighting The highlighting
 	 */
 	public void highlightingStyleChanged(Highlighting highlighting) {
-		for (int i= 0, n= fPositions.size(); i < n; i++) {
-			HighlightedPosition position= (HighlightedPosition) fPositions.get(i);
+		List<Position> positions= new ArrayList<>(fPositions.size());
+		fPositions.addAllTo(positions);
+		for (int i= 0, n= positions.size(); i < n; i++) {
+			HighlightedPosition position= (HighlightedPosition) positions.get(i);
 			if (position.getHighlighting() == highlighting)
 				fSourceViewer.invalidateTextPresentation(position.getOffset(), position.getLength());
 		}
@@ -697,8 +642,10 @@ public class SemanticHighlightingPresenter implements ITextPresentationListener,
 	 * Invalidate text presentation of all positions.
 	 */
 	private void invalidateTextPresentation() {
-		for (int i= 0, n= fPositions.size(); i < n; i++) {
-			Position position= fPositions.get(i);
+		List<Position> positions= new ArrayList<>(fPositions.size());
+		fPositions.addAllTo(positions);
+		for (int i= 0, n= positions.size(); i < n; i++) {
+			Position position= positions.get(i);
 			fSourceViewer.invalidateTextPresentation(position.getOffset(), position.getLength());
 		}
 	}
@@ -715,7 +662,7 @@ public class SemanticHighlightingPresenter implements ITextPresentationListener,
 	private void addPositionFromUI(int offset, int length, Highlighting highlighting) {
 		Position position= createHighlightedPosition(offset, length, highlighting);
 		synchronized (fPositionLock) {
-			insertPosition(position);
+			fPositions.add(position);
 		}
 
 		IDocument document= fSourceViewer.getDocument();
@@ -739,6 +686,7 @@ public class SemanticHighlightingPresenter implements ITextPresentationListener,
 	private void resetState() {
 		synchronized (fPositionLock) {
 			fPositions.clear();
+			fHasDeletedPositions= false;
 		}
 	}
 
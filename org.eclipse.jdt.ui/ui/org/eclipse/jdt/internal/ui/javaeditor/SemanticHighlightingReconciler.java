@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,8 +12,11 @@
 package org.eclipse.jdt.internal.ui.javaeditor;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 
+import org.eclipse.swt.custom.StyleRange;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Shell;
 
@@ -23,8 +26,10 @@ import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
 
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IRegion;
 import org.eclipse.jface.text.ITextInputListener;
 import org.eclipse.jface.text.Position;
+import org.eclipse.jface.text.Region;
 import org.eclipse.jface.text.TextPresentation;
 import org.eclipse.jface.text.source.ISourceViewer;
 
@@ -186,8 +191,7 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 		 */
 		private void addPosition(int offset, int length, Highlighting highlighting) {
 			boolean isExisting= false;
-			// TODO: use binary search
-			for (int i= 0, n= fRemovedPositions.size(); i < n; i++) {
+			for (int i= computeIndexAtOffset(offset), n= fRemovedPositions.size(); i < n && fRemovedOffsets[i] == offset; i++) {
 				HighlightedPosition position= (HighlightedPosition) fRemovedPositions.get(i);
 				if (position == null)
 					continue;
@@ -211,8 +215,7 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 		 * @param length The range length
 		 */
 		private void retainPositions(int offset, int length) {
-			// TODO: use binary search
-			for (int i= 0, n= fRemovedPositions.size(); i < n; i++) {
+			for (int i= computeIndexAtOffset(offset), n= fRemovedPositions.size(); i < n && fRemovedOffsets[i] <= offset + length; i++) {
 				HighlightedPosition position= (HighlightedPosition) fRemovedPositions.get(i);
 				if (position != null && position.isContained(offset, length)) {
 					fRemovedPositions.set(i, null);
@@ -220,8 +223,42 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 				}
 			}
 		}
+
+		/**
+		 * Returns the index of the first removed position with an offset equal or greater than
+		 * the given offset.
+		 *
+		 * @param offset the offset
+		 * @return the index into {@link SemanticHighlightingReconciler#fRemovedPositions}
+		 * @since 3.13
+		 */
+		private int computeIndexAtOffset(int offset) {
+			int i= -1;
+			int j= fRemovedPositions.size();
+			while (j - i > 1) {
+				int k= (i + j) >> 1;
+				if (fRemovedOffsets[k] >= offset)
+					j= k;
+				else
+					i= k;
+			}
+			return j;
+		}
 	}
 
+	/**
+	 * Number of added and removed positions above which the presentation is updated
+	 * incrementally, starting with the visible region.
+	 * @since 3.13
+	 */
+	private static final int INCREMENTAL_UPDATE_THRESHOLD= 2000;
+	/**
+	 * Number of added and removed positions updated in one chunk when the presentation is
+	 * updated incrementally.
+	 * @since 3.13
+	 */
+	private static final int INCREMENTAL_UPDATE_CHUNK_SIZE= 1000;
+
 	/** Position collector */
 	private PositionCollector fCollector= new PositionCollector();
 
@@ -242,6 +279,13 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 	private List<Position> fRemovedPositions= new ArrayList<>();
 	/** Number of removed positions */
 	private int fNOfRemovedPositions;
+	/**
+	 * Offsets of the removed positions when reconciling started, used for binary search. The
+	 * removed positions are sorted by these offsets. A position can only move if the document
+	 * changes, which cancels the reconcile.
+	 * @since 3.13
+	 */
+	private int[] fRemovedOffsets= new int[0];
 
 	/** Background job */
 	private Job fJob;
@@ -323,12 +367,16 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 				reconcilePositions(subtrees);
 			}
 
-			TextPresentation textPresentation= null;
-			if (!fJobPresenter.isCanceled())
-				textPresentation= fJobPresenter.createPresentation(fAddedPositions, fRemovedPositions);
+			if (fAddedPositions.size() + fRemovedPositions.size() > INCREMENTAL_UPDATE_THRESHOLD) {
+				updatePresentationIncrementally(fAddedPositions, fRemovedPositions);
+			} else {
+				TextPresentation textPresentation= null;
+				if (!fJobPresenter.isCanceled())
+					textPresentation= fJobPresenter.createPresentation(fAddedPositions, fRemovedPositions);
 
-			if (!fJobPresenter.isCanceled())
-				updatePresentation(textPresentation, fAddedPositions, fRemovedPositions);
+				if (!fJobPresenter.isCanceled())
+					updatePresentation(textPresentation, fAddedPositions, fRemovedPositions);
+			}
 
 			stopReconcilingPositions();
 		} finally {
@@ -357,6 +405,25 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 	private void startReconcilingPositions() {
 		fJobPresenter.addAllPositions(fRemovedPositions);
 		fNOfRemovedPositions= fRemovedPositions.size();
+
+		// read each offset once and sort by these, the UI thread may move positions concurrently
+		long[] keys= new long[fNOfRemovedPositions];
+		boolean isSorted= true;
+		for (int i= 0; i < fNOfRemovedPositions; i++) {
+			keys[i]= (long) fRemovedPositions.get(i).getOffset() << 32 | i;
+			if (i > 0 && keys[i] < keys[i - 1])
+				isSorted= false;
+		}
+		if (!isSorted) {
+			Arrays.sort(keys);
+			List<Position> sortedPositions= new ArrayList<>(fNOfRemovedPositions);
+			for (int i= 0; i < fNOfRemovedPositions; i++)
+				sortedPositions.add(fRemovedPositions.get((int) keys[i]));
+			fRemovedPositions= sortedPositions;
+		}
+		fRemovedOffsets= new int[fNOfRemovedPositions];
+		for (int i= 0; i < fNOfRemovedPositions; i++)
+			fRemovedOffsets[i]= (int) (keys[i] >>> 32);
 	}
 
 	/**
@@ -381,6 +448,152 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 		fRemovedPositions= newPositions;
 	}
 
+	/**
+	 * Update the presentation of a large number of positions in chunks. The positions in the
+	 * visible region are updated first, then the positions after and before it, each in order of
+	 * their offsets. No chunk covers the visible region, so it is not presented twice.
+	 * <p>
+	 * The positions themselves are still collected from the whole AST before the visible region
+	 * is presented. This happens in the reconciler thread; only presenting them is costly in the
+	 * UI thread.
+	 * </p>
+	 *
+	 * @param addedPositions the added positions, ordered by offset
+	 * @param removedPositions the removed positions, ordered by offset
+	 * @since 3.13
+	 */
+	private void updatePresentationIncrementally(List<Position> addedPositions, List<Position> removedPositions) {
+		IRegion visibleRegion= fJobPresenter.getVisibleRegion();
+		if (visibleRegion == null) {
+			updatePresentationInChunks(addedPositions, removedPositions);
+			return;
+		}
+
+		List<Position> beforeAdded= new ArrayList<>();
+		List<Position> beforeRemoved= new ArrayList<>();
+		List<Position> visibleAdded= new ArrayList<>();
+		List<Position> visibleRemoved= new ArrayList<>();
+		List<Position> afterAdded= new ArrayList<>();
+		List<Position> afterRemoved= new ArrayList<>();
+		partition(addedPositions, visibleRegion, beforeAdded, visibleAdded, afterAdded);
+		partition(removedPositions, visibleRegion, beforeRemoved, visibleRemoved, afterRemoved);
+		if (!visibleAdded.isEmpty() || !visibleRemoved.isEmpty()) {
+			TextPresentation textPresentation= null;
+			if (!fJobPresenter.isCanceled())
+				textPresentation= fJobPresenter.createPresentation(visibleAdded, visibleRemoved);
+
+			if (!fJobPresenter.isCanceled())
+				updatePresentation(textPresentation, visibleAdded, visibleRemoved);
+		}
+		updatePresentationInChunks(afterAdded, afterRemoved);
+		updatePresentationInChunks(beforeAdded, beforeRemoved);
+	}
+
+	/**
+	 * Update the presentation of the given positions in chunks. The text presentation of the
+	 * positions is created once and split into one presentation per chunk, so the UI thread never
+	 * has to process the whole document at once.
+	 *
+	 * @param added the added positions, ordered by offset
+	 * @param removed the removed positions, ordered by offset
+	 * @since 3.13
+	 */
+	private void updatePresentationInChunks(List<Position> added, List<Position> removed) {
+		if (added.isEmpty() && removed.isEmpty() || fJobPresenter.isCanceled())
+			return;
+
+		TextPresentation textPresentation= fJobPresenter.createPresentation(added, removed);
+		if (textPresentation == null)
+			return;
+
+		List<StyleRange> styleRanges= new ArrayList<>();
+		for (Iterator<StyleRange> iter= textPresentation.getAllStyleRangeIterator(); iter.hasNext();)
+			styleRanges.add(iter.next());
+		IRegion extent= textPresentation.getExtent();
+		int extentEnd= extent.getOffset() + extent.getLength();
+		int chunkStart= extent.getOffset();
+		int styleRangeIndex= 0;
+		for (int i= 0, j= 0, n= added.size(), m= removed.size(); i < n || j < m;) {
+			if (fJobPresenter.isCanceled())
+				return;
+
+			List<Position> chunkAdded= new ArrayList<>();
+			List<Position> chunkRemoved= new ArrayList<>();
+			int chunkEnd= chunkStart;
+			for (int count= 0; count < INCREMENTAL_UPDATE_CHUNK_SIZE && (i < n || j < m); count++) {
+				Position position;
+				if (j == m || i < n && added.get(i).getOffset() <= removed.get(j).getOffset()) {
+					position= added.get(i++);
+					chunkAdded.add(position);
+				} else {
+					position= removed.get(j++);
+					chunkRemoved.add(position);
+				}
+				chunkEnd= Math.max(chunkEnd, position.getOffset() + position.getLength());
+			}
+			if (i == n && j == m)
+				chunkEnd= extentEnd;
+			else
+				chunkEnd= Math.min(chunkEnd, extentEnd);
+
+			// the chunks are adjacent, so every style range is looked at about once
+			TextPresentation chunkPresentation= new TextPresentation(new Region(chunkStart, chunkEnd - chunkStart), INCREMENTAL_UPDATE_CHUNK_SIZE);
+			while (styleRangeIndex < styleRanges.size() && getEnd(styleRanges.get(styleRangeIndex)) <= chunkStart)
+				styleRangeIndex++;
+			for (int k= styleRangeIndex, l= styleRanges.size(); k < l && styleRanges.get(k).start < chunkEnd; k++) {
+				StyleRange styleRange= styleRanges.get(k);
+				int start= Math.max(styleRange.start, chunkStart);
+				int end= Math.min(getEnd(styleRange), chunkEnd);
+				if (start < end) {
+					StyleRange clipped= (StyleRange) styleRange.clone();
+					clipped.start= start;
+					clipped.length= end - start;
+					chunkPresentation.addStyleRange(clipped);
+				}
+			}
+			chunkStart= chunkEnd;
+
+			if (!fJobPresenter.isCanceled())
+				updatePresentation(chunkPresentation, chunkAdded, chunkRemoved);
+		}
+	}
+
+	/**
+	 * Returns the end offset of the given style range.
+	 *
+	 * @param styleRange the style range
+	 * @return the exclusive end offset
+	 * @since 3.13
+	 */
+	private static int getEnd(StyleRange styleRange) {
+		return styleRange.start + styleRange.length;
+	}
+
+	/**
+	 * Splits the given positions into the ones before the given region, the ones overlapping it
+	 * and the ones after it.
+	 *
+	 * @param positions the positions
+	 * @param region the region
+	 * @param before the list to add the positions ending before the region to
+	 * @param inside the list to add the positions overlapping the region to
+	 * @param after the list to add the positions starting after the region to
+	 * @since 3.13
+	 */
+	private static void partition(List<Position> positions, IRegion region, List<Position> before, List<Position> inside, List<Position> after) {
+		int start= region.getOffset();
+		int end= start + region.getLength();
+		for (int i= 0, n= positions.size(); i < n; i++) {
+			Position position= positions.get(i);
+			if (position.getOffset() + position.getLength() <= start)
+				before.add(position);
+			else if (position.getOffset() >= end)
+				after.add(position);
+			else
+				inside.add(position);
+		}
+	}
+
 	/**
 	 * Update the presentation.
 	 *
@@ -418,6 +631,7 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 	private void stopReconcilingPositions() {
 		fRemovedPositions.clear();
 		fNOfRemovedPositions= 0;
+		fRemovedOffsets= new int[0];
 		fAddedPositions.clear();
 	}
 
@@ -0,0 +1,275 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.javaeditor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jface.text.Position;
+
+
+/**
+ * A list of positions ordered by offset, stored as a sorted sequence of small blocks.
+ * <p>
+ * Inserting and removing a position only shifts the elements of a single block, which keeps
+ * updates cheap even for documents with hundreds of thousands of positions. The offsets of the
+ * contained positions may change as long as their relative order is preserved, which is the case
+ * for positions updated by a position updater. Deleted positions are not guaranteed to keep their
+ * order and must be removed with {@link #removeDeleted(List)}.
+ * </p>
+ * <p>
+ * This class is not thread safe.
+ * </p>
+ *
+ * @since 3.13
+ */
+public final class SortedPositionList {
+
+	/** Maximal number of positions in a block, blocks are split in halves when they exceed it. */
+	private static final int MAX_BLOCK_SIZE= 512;
+
+	private static final class Block {
+		Position[] fItems= new Position[MAX_BLOCK_SIZE + 1];
+		int fSize;
+
+		int firstOffset() {
+			return fItems[0].getOffset();
+		}
+
+		/*
+		 * Returns the index of the first position with an offset greater than the given offset.
+		 */
+		int indexAfterOffset(int offset) {
+			int i= -1;
+			int j= fSize;
+			while (j - i > 1) {
+				int k= (i + j) >> 1;
+				if (fItems[k].getOffset() > offset)
+					j= k;
+				else
+					i= k;
+			}
+			return j;
+		}
+
+		/*
+		 * Returns the index of the first position with an offset equal or greater than the given offset.
+		 */
+		int indexAtOffset(int offset) {
+			int i= -1;
+			int j= fSize;
+			while (j - i > 1) {
+				int k= (i + j) >> 1;
+				if (fItems[k].getOffset() >= offset)
+					j= k;
+				else
+					i= k;
+			}
+			return j;
+		}
+
+		void insert(int index, Position position) {
+			System.arraycopy(fItems, index, fItems, index + 1, fSize - index);
+			fItems[index]= position;
+			fSize++;
+		}
+
+		void remove(int index) {
+			System.arraycopy(fItems, index + 1, fItems, index, fSize - index - 1);
+			fItems[--fSize]= null;
+		}
+
+		/*
+		 * Removes the deleted positions, adds them to the given list and returns their number.
+		 */
+		int removeDeleted(List<Position> deleted) {
+			int j= 0;
+			for (int i= 0; i < fSize; i++) {
+				Position position= fItems[i];
+				if (position.isDeleted())
+					deleted.add(position);
+				else
+					fItems[j++]= position;
+			}
+			int removed= fSize - j;
+			for (int i= j; i < fSize; i++)
+				fItems[i]= null;
+			fSize= j;
+			return removed;
+		}
+	}
+
+	private final List<Block> fBlocks= new ArrayList<>();
+	private int fSize;
+
+	/**
+	 * @return the number of positions in this list
+	 */
+	public int size() {
+		return fSize;
+	}
+
+	/**
+	 * Removes all positions.
+	 */
+	public void clear() {
+		fBlocks.clear();
+		fSize= 0;
+	}
+
+	/**
+	 * Inserts the given position after all positions with a smaller or equal offset.
+	 *
+	 * @param position the position to add
+	 */
+	public void add(Position position) {
+		int offset= position.getOffset();
+		Block block;
+		int blockIndex;
+		if (fBlocks.isEmpty()) {
+			block= new Block();
+			blockIndex= 0;
+			fBlocks.add(block);
+		} else {
+			blockIndex= Math.max(0, computeBlockIndexAfterOffset(offset) - 1);
+			block= fBlocks.get(blockIndex);
+		}
+		block.insert(block.indexAfterOffset(offset), position);
+		fSize++;
+
+		if (block.fSize > MAX_BLOCK_SIZE) {
+			Block split= new Block();
+			int half= block.fSize >> 1;
+			split.fSize= block.fSize - half;
+			System.arraycopy(block.fItems, half, split.fItems, 0, split.fSize);
+			for (int i= half; i < block.fSize; i++)
+				block.fItems[i]= null;
+			block.fSize= half;
+			fBlocks.add(blockIndex + 1, split);
+		}
+	}
+
+	/**
+	 * Removes the given position from this list. The position is looked up by its offset, so it
+	 * must not have been moved out of order, see {@link #removeDeleted(List)}.
+	 *
+	 * @param position the position to remove, compared by identity
+	 * @return <code>true</code> iff the position was found in this list
+	 */
+	public boolean remove(Position position) {
+		int offset= position.getOffset();
+		int n= fBlocks.size();
+		// positions with equal offsets can span several blocks
+		for (int b= Math.max(0, computeBlockIndexAtOffset(offset) - 1); b < n; b++) {
+			Block block= fBlocks.get(b);
+			if (block.firstOffset() > offset)
+				break;
+			for (int i= block.indexAtOffset(offset); i < block.fSize && block.fItems[i].getOffset() == offset; i++) {
+				if (block.fItems[i] == position) {
+					removeFromBlock(b, i);
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Removes all deleted positions from this list.
+	 *
+	 * @param deleted the list to add the removed positions to
+	 * @see Position#isDeleted()
+	 */
+	public void removeDeleted(List<Position> deleted) {
+		for (int b= 0; b < fBlocks.size();) {
+			Block block= fBlocks.get(b);
+			fSize-= block.removeDeleted(deleted);
+			if (block.fSize == 0)
+				fBlocks.remove(b);
+			else
+				b++;
+		}
+	}
+
+	/**
+	 * Adds the positions with an offset in <code>[start, end)</code> to the given list.
+	 *
+	 * @param start the start offset, inclusive
+	 * @param end the end offset, exclusive
+	 * @param result the list to add the positions to
+	 */
+	public void collect(int start, int end, List<Position> result) {
+		for (int b= Math.max(0, computeBlockIndexAtOffset(start) - 1), n= fBlocks.size(); b < n; b++) {
+			Block block= fBlocks.get(b);
+			if (block.firstOffset() >= end)
+				return;
+			for (int i= block.indexAtOffset(start); i < block.fSize; i++) {
+				Position position= block.fItems[i];
+				if (position.getOffset() >= end)
+					return;
+				result.add(position);
+			}
+		}
+	}
+
+	/**
+	 * Adds all positions to the given list, in offset order.
+	 *
+	 * @param result the list to add the positions to
+	 */
+	public void addAllTo(List<Position> result) {
+		for (int b= 0, n= fBlocks.size(); b < n; b++) {
+			Block block= fBlocks.get(b);
+			for (int i= 0; i < block.fSize; i++)
+				result.add(block.fItems[i]);
+		}
+	}
+
+	private void removeFromBlock(int blockIndex, int index) {
+		Block block= fBlocks.get(blockIndex);
+		block.remove(index);
+		fSize--;
+		if (block.fSize == 0)
+			fBlocks.remove(blockIndex);
+	}
+
+	/*
+	 * Returns the index of the first block whose first position has an offset greater than the given offset.
+	 */
+	private int computeBlockIndexAfterOffset(int offset) {
+		int i= -1;
+		int j= fBlocks.size();
+		while (j - i > 1) {
+			int k= (i + j) >> 1;
+			if (fBlocks.get(k).firstOffset() > offset)
+				j= k;
+			else
+				i= k;
+		}
+		return j;
+	}
+
+	/*
+	 * Returns the index of the first block whose first position has an offset equal or greater than the given offset.
+	 */
+	private int computeBlockIndexAtOffset(int offset) {
+		int i= -1;
+		int j= fBlocks.size();
+		while (j - i > 1) {
+			int k= (i + j) >> 1;
+			if (fBlocks.get(k).firstOffset() >= offset)
+				j= k;
+			else
+				i= k;
+		}
+		return j;
+	}
+}
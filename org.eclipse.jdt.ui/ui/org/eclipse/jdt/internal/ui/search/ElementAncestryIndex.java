@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.search;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.eclipse.core.resources.IResource;
+
+import org.eclipse.jdt.core.IJavaElement;
+
+/**
+ * Index of the elements of a search result that finds the elements contained in a Java element
+ * or resource without looking at the other elements.
+ * <p>
+ * Java elements are indexed by their handle identifier and resources by their full path. The
+ * handle identifier of a Java element starts with the handle identifier of its parent, and the
+ * path of a resource starts with the path of its parent, so the descendants of an element are
+ * found by a range lookup of its key. Other elements are not indexed.
+ * </p>
+ * <p>
+ * This class is not thread safe, clients have to synchronize.
+ * </p>
+ *
+ * @since 3.13
+ */
+final class ElementAncestryIndex {
+
+	private final TreeMap<String, IJavaElement> fJavaElements= new TreeMap<>();
+	private final TreeMap<String, IResource> fResources= new TreeMap<>();
+
+	void add(Object element) {
+		if (element instanceof IJavaElement) {
+			IJavaElement javaElement= (IJavaElement) element;
+			fJavaElements.put(javaElement.getHandleIdentifier(), javaElement);
+		} else if (element instanceof IResource) {
+			IResource resource= (IResource) element;
+			fResources.put(resource.getFullPath().toString(), resource);
+		}
+	}
+
+	void remove(Object element) {
+		if (element instanceof IJavaElement) {
+			fJavaElements.remove(((IJavaElement) element).getHandleIdentifier());
+		} else if (element instanceof IResource) {
+			fResources.remove(((IResource) element).getFullPath().toString());
+		}
+	}
+
+	void clear() {
+		fJavaElements.clear();
+		fResources.clear();
+	}
+
+	/**
+	 * Adds the indexed elements that are equal to or descendants of <code>container</code> to
+	 * <code>result</code>.
+	 *
+	 * @param container a Java element or resource
+	 * @param result the collection to add the elements to
+	 */
+	void collectElementsIn(Object container, Collection<Object> result) {
+		if (container instanceof IJavaElement) {
+			IJavaElement javaElement= (IJavaElement) container;
+			String prefix= javaElement.getHandleIdentifier();
+			for (Iterator<Map.Entry<String, IJavaElement>> iter= fJavaElements.tailMap(prefix, true).entrySet().iterator(); iter.hasNext();) {
+				Map.Entry<String, IJavaElement> entry= iter.next();
+				if (!entry.getKey().startsWith(prefix))
+					break;
+				// the prefix can also be the handle of a sibling with a longer name
+				if (isAncestorOf(javaElement, entry.getValue()))
+					result.add(entry.getValue());
+			}
+		} else if (container instanceof IResource) {
+			String prefix= ((IResource) container).getFullPath().toString();
+			for (Iterator<Map.Entry<String, IResource>> iter= fResources.tailMap(prefix, true).entrySet().iterator(); iter.hasNext();) {
+				Map.Entry<String, IResource> entry= iter.next();
+				String key= entry.getKey();
+				if (!key.startsWith(prefix))
+					break;
+				if (key.length() == prefix.length() || key.charAt(prefix.length()) == '/' || prefix.endsWith("/")) //$NON-NLS-1$
+					result.add(entry.getValue());
+			}
+		}
+	}
+
+	private static boolean isAncestorOf(IJavaElement ancestor, IJavaElement element) {
+		while (element != null && !ancestor.equals(element))
+			element= element.getParent();
+		return element != null;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -171,8 +171,12 @@ public class JavaSearchQuery implements ISearchQuery {
 			boolean ignorePotentials= NewSearchUI.arePotentialMatchesIgnored();
 			NewSearchResultCollector collector= new NewSearchResultCollector(textResult, ignorePotentials);
 
-
-			engine.search(pattern, new SearchParticipant[] { SearchEngine.getDefaultSearchParticipant() }, getFirstSpecification().getScope(), collector, subMonitor.split(1000));
+			try {
+				engine.search(pattern, new SearchParticipant[] { SearchEngine.getDefaultSearchParticipant() }, getFirstSpecification().getScope(), collector, subMonitor.split(1000));
+			} finally {
+				// the collector adds matches in batches from a job, don't lose the last one when the search is canceled
+				collector.finish();
+			}
 			for (int i= 0; i < participantDescriptors.length; i++) {
 				final ISearchRequestor requestor= new SearchRequestor(participantDescriptors[i].getParticipant(), textResult);
 				final IProgressMonitor participantPM= subMonitor.split(ticks[i]);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,7 +10,9 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.ui.search;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.eclipse.core.runtime.IStatus;
@@ -32,10 +34,12 @@ public class JavaSearchResult extends AbstractJavaSearchResult {
 
 	private final JavaSearchQuery fQuery;
 	private final Map<Object, IMatchPresentation> fElementsToParticipants;
+	private final ElementAncestryIndex fElementIndex;
 
 	public JavaSearchResult(JavaSearchQuery query) {
 		fQuery= query;
 		fElementsToParticipants= new HashMap<>();
+		fElementIndex= new ElementAncestryIndex();
 		setActiveMatchFilters(JavaMatchFilter.getLastUsedFilters());
 	}
 
@@ -88,20 +92,68 @@ public class JavaSearchResult extends AbstractJavaSearchResult {
 		return true;
 	}
 
+	@Override
+	public void addMatch(Match match) {
+		synchronized(this) {
+			fElementIndex.add(match.getElement());
+		}
+		super.addMatch(match);
+	}
+
+	@Override
+	public void addMatches(Match[] matches) {
+		synchronized(this) {
+			for (int i= 0; i < matches.length; i++) {
+				fElementIndex.add(matches[i].getElement());
+			}
+		}
+		super.addMatches(matches);
+	}
+
 	@Override
 	public void removeAll() {
 		synchronized(this) {
 			fElementsToParticipants.clear();
+			fElementIndex.clear();
 		}
 		super.removeAll();
 	}
 
 	@Override
 	public void removeMatch(Match match) {
+		super.removeMatch(match);
 		synchronized(this) {
-			if (getMatchCount(match.getElement()) == 1)
-				fElementsToParticipants.remove(match.getElement());
+			elementRemoved(match.getElement());
 		}
-		super.removeMatch(match);
+	}
+
+	@Override
+	public void removeMatches(Match[] matches) {
+		super.removeMatches(matches);
+		synchronized(this) {
+			for (int i= 0; i < matches.length; i++) {
+				elementRemoved(matches[i].getElement());
+			}
+		}
+	}
+
+	private void elementRemoved(Object element) {
+		if (getMatchCount(element) == 0) {
+			fElementsToParticipants.remove(element);
+			fElementIndex.remove(element);
+		}
+	}
+
+	/**
+	 * Returns the elements of this result that are equal to or descendants of the given Java
+	 * element or resource. Other kinds of elements are not supported.
+	 *
+	 * @param container a Java element or resource
+	 * @return the contained elements of this result
+	 */
+	synchronized List<Object> getElementsIn(Object container) {
+		List<Object> result= new ArrayList<>();
+		fElementIndex.collectElementsIn(container, result);
+		return result;
 	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -36,8 +36,12 @@ import org.eclipse.jdt.ui.StandardJavaElementContentProvider;
 
 public class LevelTreeContentProvider extends JavaSearchContentProvider implements ITreeContentProvider {
 	private Map<Object, Set<Object>> fChildrenMap;
+	// Parents of the elements in the tree, computed on demand for the current level
+	private final Map<Object, Object> fParents;
 	private StandardJavaElementContentProvider fContentProvider;
 
+	private static final Object NO_PARENT= new Object();
+
 	public static final int LEVEL_TYPE= 1;
 	public static final int LEVEL_FILE= 2;
 	public static final int LEVEL_PACKAGE= 3;
@@ -81,10 +85,20 @@ public class LevelTreeContentProvider extends JavaSearchContentProvider implemen
 		super(page);
 		fCurrentLevel= level;
 		fContentProvider= new FastJavaElementProvider();
+		fParents= new HashMap<>();
 	}
 
 	@Override
-	public Object getParent(Object child) {
+	public synchronized Object getParent(Object child) {
+		Object parent= fParents.get(child);
+		if (parent == null) {
+			parent= computeParent(child);
+			fParents.put(child, parent != null ? parent : NO_PARENT);
+		}
+		return parent != NO_PARENT ? parent : null;
+	}
+
+	private Object computeParent(Object child) {
 		Object possibleParent= internalGetParent(child);
 		if (possibleParent instanceof IJavaElement) {
 			IJavaElement javaElement= (IJavaElement) possibleParent;
@@ -127,6 +141,7 @@ public class LevelTreeContentProvider extends JavaSearchContentProvider implemen
 	protected synchronized void initialize(AbstractTextSearchResult result) {
 		super.initialize(result);
 		fChildrenMap= new HashMap<>();
+		fParents.clear();
 		if (result != null) {
 			Object[] elements= result.getElements();
 			for (int i= 0; i < elements.length; i++) {
@@ -180,6 +195,7 @@ public class LevelTreeContentProvider extends JavaSearchContentProvider implemen
 			if (getPage().getDisplayedMatchCount(element) == 0) {
 				fChildrenMap.remove(element);
 				Object parent= getParent(element);
+				fParents.remove(element);
 				if (parent != null) {
 					if (removeFromSiblings(element, parent)) {
 						remove(toRemove, toUpdate, parent);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,9 +10,17 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.ui.search;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 
 import org.eclipse.search.ui.text.AbstractTextSearchResult;
+import org.eclipse.search.ui.text.Match;
 
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.search.FieldDeclarationMatch;
@@ -24,14 +32,42 @@ import org.eclipse.jdt.core.search.SearchMatch;
 import org.eclipse.jdt.core.search.SearchParticipant;
 import org.eclipse.jdt.core.search.SearchRequestor;
 
+/**
+ * Collects search matches into a search result.
+ * <p>
+ * Matches are not added one by one, since every addition notifies the listeners of the result,
+ * e.g. the content providers of the search view. Instead they are added in batches of at most
+ * {@link #MAX_BATCH_SIZE} matches. A job adds a batch at the latest {@link #MAX_BATCH_DELAY}
+ * milliseconds after its first match has been found, so that the search view keeps showing progress
+ * even when the search finds matches only rarely. The last batch is added in {@link #endReporting()}.
+ * </p>
+ */
 public class NewSearchResultCollector extends SearchRequestor {
+
+	/** The maximum number of matches added to the result at once. */
+	private static final int MAX_BATCH_SIZE= 500;
+	/** The maximum time in milliseconds a match is held back before it is added to the result. */
+	private static final long MAX_BATCH_DELAY= 100;
+
 	private AbstractTextSearchResult fSearch;
 	private boolean fIgnorePotentials;
+	/** The matches not yet added to the result, guarded by <code>this</code>. */
+	private List<Match> fBatch;
+	private final Job fFlushJob;
 
 	public NewSearchResultCollector(AbstractTextSearchResult search, boolean ignorePotentials) {
 		super();
 		fSearch= search;
 		fIgnorePotentials= ignorePotentials;
+		fBatch= new ArrayList<>();
+		fFlushJob= new Job(SearchMessages.NewSearchResultCollector_flush_job) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				flush();
+				return Status.OK_STATUS;
+			}
+		};
+		fFlushJob.setSystem(true);
 	}
 
 	@Override
@@ -60,8 +96,34 @@ public class NewSearchResultCollector extends SearchRequestor {
 				MethodReferenceMatch methodRef= (MethodReferenceMatch) match;
 				isSuperInvocation= methodRef.isSuperInvocation();
 			}
-			fSearch.addMatch(new JavaElementMatch(enclosingElement, match.getRule(), match.getOffset(), match.getLength(), match.getAccuracy(), isReadAccess, isWriteAccess, match.isInsideDocComment(), isSuperInvocation));
+			addMatch(new JavaElementMatch(enclosingElement, match.getRule(), match.getOffset(), match.getLength(), match.getAccuracy(), isReadAccess, isWriteAccess, match.isInsideDocComment(), isSuperInvocation));
+		}
+	}
+
+	private void addMatch(Match match) {
+		boolean full;
+		synchronized (this) {
+			fBatch.add(match);
+			if (fBatch.size() == 1)
+				fFlushJob.schedule(MAX_BATCH_DELAY);
+			full= fBatch.size() >= MAX_BATCH_SIZE;
 		}
+		if (full)
+			flush();
+	}
+
+	/**
+	 * Adds the matches collected so far to the search result.
+	 */
+	public void flush() {
+		List<Match> batch;
+		synchronized (this) {
+			if (fBatch.isEmpty())
+				return;
+			batch= fBatch;
+			fBatch= new ArrayList<>();
+		}
+		fSearch.addMatches(batch.toArray(new Match[batch.size()]));
 	}
 
 	@Override
@@ -70,6 +132,23 @@ public class NewSearchResultCollector extends SearchRequestor {
 
 	@Override
 	public void endReporting() {
+		finish();
+	}
+
+	/**
+	 * Waits for a running flush job and adds the remaining matches to the search result. Also
+	 * needs to be called when the search is canceled, since {@link #endReporting()} is not called
+	 * then.
+	 */
+	public void finish() {
+		// a running flush must have added its matches when the search is reported as done
+		fFlushJob.cancel();
+		try {
+			fFlushJob.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		flush();
 	}
 
 	@Override
@@ -78,6 +157,7 @@ public class NewSearchResultCollector extends SearchRequestor {
 
 	@Override
 	public void exitParticipant(SearchParticipant participant) {
+		flush();
 	}
 
 }
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.search;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.IBinding;
+import org.eclipse.jdt.core.dom.IMethodBinding;
+import org.eclipse.jdt.core.dom.ITypeBinding;
+import org.eclipse.jdt.core.dom.IVariableBinding;
+import org.eclipse.jdt.core.dom.ImportDeclaration;
+import org.eclipse.jdt.core.dom.Name;
+import org.eclipse.jdt.core.dom.QualifiedName;
+
+import org.eclipse.jdt.internal.core.manipulation.search.IOccurrencesFinder;
+import org.eclipse.jdt.internal.core.manipulation.search.IOccurrencesFinder.OccurrenceLocation;
+import org.eclipse.jdt.internal.core.manipulation.search.OccurrencesFinder;
+
+/**
+ * Occurrence index for a single AST. The registered {@link IOccurrencesFinder}s act as query
+ * strategies: the first query for a target runs the finder over the AST, later queries for the
+ * same target (e.g. when the caret moves between occurrences of the same binding) are answered
+ * from the index.
+ * <p>
+ * The index is filled lazily by the thread that issues the query, which for the editor is the
+ * background selection listener job. It is thread safe.
+ * </p>
+ *
+ * @since 3.13
+ */
+public final class OccurrencesIndex {
+
+	/**
+	 * Marker for targets for which the finder did not report any occurrences.
+	 */
+	private static final OccurrenceLocation[] NO_OCCURRENCES= new OccurrenceLocation[0];
+
+	private final CompilationUnit fASTRoot;
+
+	/**
+	 * Maps query keys (finder id plus binding key or node range) to the found locations.
+	 */
+	private final Map<String, OccurrenceLocation[]> fLocations;
+
+	/**
+	 * Creates an empty index for the given AST.
+	 *
+	 * @param astRoot the AST root, must have bindings
+	 */
+	public OccurrencesIndex(CompilationUnit astRoot) {
+		fASTRoot= astRoot;
+		fLocations= new HashMap<>();
+	}
+
+	/**
+	 * Returns the AST this index has been built for.
+	 *
+	 * @return the AST root
+	 */
+	public CompilationUnit getASTRoot() {
+		return fASTRoot;
+	}
+
+	/**
+	 * Returns the occurrences the given finder reports for the selected node.
+	 *
+	 * @param finder the query strategy, must not have been initialized yet
+	 * @param selectedNode the selected node in the AST of this index
+	 * @return the occurrences or <code>null</code> if the finder is not applicable or did not find
+	 *         any occurrences
+	 */
+	public OccurrenceLocation[] getOccurrences(IOccurrencesFinder finder, ASTNode selectedNode) {
+		if (selectedNode == null)
+			return null;
+
+		String key= getQueryKey(finder, selectedNode);
+		OccurrenceLocation[] locations;
+		synchronized (fLocations) {
+			locations= fLocations.get(key);
+		}
+		if (locations == null) {
+			locations= NO_OCCURRENCES;
+			if (finder.initialize(fASTRoot, selectedNode) == null) {
+				OccurrenceLocation[] found= finder.getOccurrences();
+				if (found != null)
+					locations= found;
+			}
+			synchronized (fLocations) {
+				fLocations.put(key, locations);
+			}
+		}
+		return locations == NO_OCCURRENCES ? null : locations;
+	}
+
+	/**
+	 * Returns the number of cached queries.
+	 *
+	 * @return the number of entries in this index
+	 */
+	public int size() {
+		synchronized (fLocations) {
+			return fLocations.size();
+		}
+	}
+
+	private static String getQueryKey(IOccurrencesFinder finder, ASTNode selectedNode) {
+		if (OccurrencesFinder.ID.equals(finder.getID()) && selectedNode instanceof Name && !isInStaticImport(selectedNode)) {
+			IBinding binding= ((Name) selectedNode).resolveBinding();
+			if (binding != null) {
+				String bindingKey= getBindingDeclaration(binding).getKey();
+				if (bindingKey != null)
+					return finder.getID() + '#' + bindingKey;
+			}
+		}
+		// results of the other finders depend on the selected node, not only on a binding
+		return finder.getID() + '@' + selectedNode.getStartPosition() + ',' + selectedNode.getLength();
+	}
+
+	private static boolean isInStaticImport(ASTNode node) {
+		ASTNode parent= node.getParent();
+		if (node instanceof QualifiedName)
+			return parent instanceof ImportDeclaration && ((ImportDeclaration) parent).isStatic();
+		return parent instanceof QualifiedName && isInStaticImport(parent);
+	}
+
+	private static IBinding getBindingDeclaration(IBinding binding) {
+		switch (binding.getKind()) {
+			case IBinding.TYPE :
+				return ((ITypeBinding) binding).getTypeDeclaration();
+			case IBinding.METHOD :
+				return ((IMethodBinding) binding).getMethodDeclaration();
+			case IBinding.VARIABLE :
+				return ((IVariableBinding) binding).getVariableDeclaration();
+			default:
+				return binding;
+		}
+	}
+}
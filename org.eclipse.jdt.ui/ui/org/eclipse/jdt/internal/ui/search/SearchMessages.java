@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -261,6 +261,7 @@ public final class SearchMessages extends NLS {
 	public static String JavaSearchQuery_error_element_does_not_exist;
 	public static String JavaSearchQuery_pluralReferencesWithMatchLocations;
 	public static String JavaSearchQuery_multi_selection_search_description;
+	public static String NewSearchResultCollector_flush_job;
 	public static String MatchFilter_PotentialFilter_name;
 	public static String MatchFilter_PotentialFilter_actionLabel;
 	public static String MatchFilter_PotentialFilter_description;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,8 +10,11 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.ui.search;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 
 import org.eclipse.core.runtime.IAdaptable;
@@ -60,53 +63,34 @@ public class SearchResultUpdater implements IElementChangedListener, IQueryListe
 	}
 
 	private void handleRemoved(Set<IAdaptable> removedElements) {
-		Object[] elements= fResult.getElements();
-		for (int i= 0; i < elements.length; i++) {
-			if (isContainedInRemoved(removedElements, elements[i])) {
-				if (elements[i] instanceof IJavaElement) {
-					IJavaElement je= (IJavaElement)elements[i];
-					if (!je.exists()) {
-						//System.out.println("removing: "+je+" in "+fResult.getUserData());
-						Match[] matches= fResult.getMatches(elements[i]);
-						for (int j= 0; j < matches.length; j++) {
-							fResult.removeMatch(matches[j]);
-						}
-					}
-				} else if (elements[i] instanceof IResource) {
-					IResource resource= (IResource)elements[i];
-					if (!resource.exists()) {
-						//System.out.println("removing: "+resource+" in "+fResult.getUserData());
-						Match[] matches= fResult.getMatches(elements[i]);
-						for (int j= 0; j < matches.length; j++) {
-							fResult.removeMatch(matches[j]);
-						}
-					}
-
-				}
+		Set<Object> checked= new HashSet<>();
+		List<Match> removedMatches= new ArrayList<>();
+		for (Iterator<IAdaptable> iter= removedElements.iterator(); iter.hasNext();) {
+			IAdaptable removed= iter.next();
+			List<Object> elements= fResult.getElementsIn(removed);
+			if (elements.isEmpty())
+				continue;
+			// the descendants of an element that does not exist don't exist either
+			boolean removedExists= exists(removed);
+			for (Iterator<Object> elementIter= elements.iterator(); elementIter.hasNext();) {
+				Object element= elementIter.next();
+				if (!checked.add(element))
+					continue;
+				if (!removedExists || !exists(element))
+					removedMatches.addAll(Arrays.asList(fResult.getMatches(element)));
 			}
 		}
+		// remove all matches at once, so that listeners are notified only once
+		if (!removedMatches.isEmpty())
+			fResult.removeMatches(removedMatches.toArray(new Match[removedMatches.size()]));
 	}
 
-	private boolean isContainedInRemoved(Set<IAdaptable> removedElements, Object object) {
-		for (Iterator<IAdaptable> elements= removedElements.iterator(); elements.hasNext();) {
-			if (isParentOf(elements.next(), object))
-				return true;
-		}
-		return false;
-	}
-
-	private boolean isParentOf(Object ancestor, Object descendant) {
-		while (descendant != null && !ancestor.equals(descendant))
-			descendant= getParent(descendant);
-		return descendant != null;
-	}
-
-	private Object getParent(Object object) {
+	private boolean exists(Object object) {
 		if (object instanceof IJavaElement)
-			return ((IJavaElement)object).getParent();
+			return ((IJavaElement)object).exists();
 		else if (object instanceof IResource)
-			return ((IResource)object).getParent();
-		return null;
+			return ((IResource)object).exists();
+		return true;
 	}
 
 	private void collectRemoved(Set<IAdaptable> potentiallyRemovedSet, Set<IAdaptable> removedElements, IJavaElementDelta delta) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -122,6 +122,181 @@ import org.eclipse.jdt.internal.ui.text.correction.proposals.LinkedCorrectionPro
 /**
  */
 public class AdvancedQuickAssistProcessor implements IQuickAssistProcessor {
+	/**
+	 * The quick assists in the order in which {@link #hasAssists(IInvocationContext)} tests them,
+	 * with the nodes they can apply to.
+	 */
+	private static final QuickAssistPredicate[] ASSIST_PREDICATES= {
+		new QuickAssistPredicate("ConvertToIfReturn") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getConvertToIfReturnProposals(context, coveringNode, null);
+			}
+		}.onNode(IfStatement.class),
+		new QuickAssistPredicate("InverseIf") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getInverseIfProposals(context, coveringNode, null);
+			}
+		}.onNode(IfStatement.class),
+		new QuickAssistPredicate("IfReturnIntoIfElseAtEndOfVoidMethod") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getIfReturnIntoIfElseAtEndOfVoidMethodProposals(context, coveringNode, null);
+			}
+		}.onNode(IfStatement.class),
+		new QuickAssistPredicate("InverseIfContinueIntoIfThenInLoops") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getInverseIfContinueIntoIfThenInLoopsProposals(context, coveringNode, null);
+			}
+		}.onNode(IfStatement.class),
+		new QuickAssistPredicate("InverseIfIntoContinueInLoops") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getInverseIfIntoContinueInLoopsProposals(context, coveringNode, null);
+			}
+		}.onNode(IfStatement.class),
+		new QuickAssistPredicate("InverseCondition") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getInverseConditionProposals(context, coveringNode, coveredNodes, null);
+			}
+		},
+		new QuickAssistPredicate("RemoveExtraParentheses") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getRemoveExtraParenthesesProposals(context, coveringNode, coveredNodes, null);
+			}
+		},
+		new QuickAssistPredicate("AddParanoidalParentheses") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getAddParanoidalParenthesesProposals(context, coveredNodes, null);
+			}
+		},
+		new QuickAssistPredicate("AddParenthesesForExpression") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getAddParenthesesForExpressionProposals(context, coveringNode, null);
+			}
+		},
+		new QuickAssistPredicate("JoinAndIfStatements") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getJoinAndIfStatementsProposals(context, coveringNode, null);
+			}
+		}.onNode(IfStatement.class),
+		new QuickAssistPredicate("SplitAndCondition") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getSplitAndConditionProposals(context, coveringNode, null);
+			}
+		}.onNode(InfixExpression.class),
+		new QuickAssistPredicate("JoinOrIfStatements") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getJoinOrIfStatementsProposals(context, coveringNode, coveredNodes, null);
+			}
+		},
+		new QuickAssistPredicate("SplitOrCondition") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getSplitOrConditionProposals(context, coveringNode, null);
+			}
+		}.onNode(InfixExpression.class),
+		new QuickAssistPredicate("InverseConditionalExpression") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getInverseConditionalExpressionProposals(context, coveringNode, null);
+			}
+		}.inside(ConditionalExpression.class),
+		new QuickAssistPredicate("ExchangeInnerAndOuterIfConditions") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getExchangeInnerAndOuterIfConditionsProposals(context, coveringNode, null);
+			}
+		}.onNode(IfStatement.class),
+		new QuickAssistPredicate("ExchangeOperands") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getExchangeOperandsProposals(context, coveringNode, null);
+			}
+		}.onNode(InfixExpression.class),
+		new QuickAssistPredicate("CastAndAssignIfStatement") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getCastAndAssignIfStatementProposals(context, coveringNode, null);
+			}
+		}.onNode(IfStatement.class, WhileStatement.class, Block.class).inside(InstanceofExpression.class),
+		new QuickAssistPredicate("CombineString") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getCombineStringProposals(context, coveringNode, null);
+			}
+		}.onNode(InfixExpression.class).onParent(InfixExpression.class),
+		new QuickAssistPredicate("PickOutString") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getPickOutStringProposals(context, coveringNode, null);
+			}
+		}.onNode(StringLiteral.class),
+		new QuickAssistPredicate("ReplaceIfElseWithConditional") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getReplaceIfElseWithConditionalProposals(context, coveringNode, null);
+			}
+		}.onNode(IfStatement.class),
+		new QuickAssistPredicate("ReplaceConditionalWithIfElse") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getReplaceConditionalWithIfElseProposals(context, coveringNode, null);
+			}
+		},
+		new QuickAssistPredicate("InverseLocalVariable") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getInverseLocalVariableProposals(context, coveringNode, null);
+			}
+		}.onNode(SimpleName.class),
+		new QuickAssistPredicate("PushNegationDown") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getPushNegationDownProposals(context, coveringNode, null);
+			}
+		}.onNode(PrefixExpression.class, ParenthesizedExpression.class),
+		new QuickAssistPredicate("PullNegationUp") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getPullNegationUpProposals(context, coveredNodes, null);
+			}
+		},
+		new QuickAssistPredicate("JoinIfListInIfElseIf") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getJoinIfListInIfElseIfProposals(context, coveringNode, coveredNodes, null);
+			}
+		},
+		new QuickAssistPredicate("ConvertSwitchToIf") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getConvertSwitchToIfProposals(context, coveringNode, null);
+			}
+		}.onNode(SwitchStatement.class),
+		new QuickAssistPredicate("ConvertIfElseToSwitch") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getConvertIfElseToSwitchProposals(context, coveringNode, null);
+			}
+		}.onNode(IfStatement.class),
+		new QuickAssistPredicate("GetterSetter") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return GetterSetterCorrectionSubProcessor.addGetterSetterProposal(context, coveringNode, null, null);
+			}
+		}.onNode(SimpleName.class)
+	};
+
 	public AdvancedQuickAssistProcessor() {
 		super();
 	}
@@ -131,34 +306,7 @@ public class AdvancedQuickAssistProcessor implements IQuickAssistProcessor {
 		ASTNode coveringNode= context.getCoveringNode();
 		if (coveringNode != null) {
 			ArrayList<ASTNode> coveredNodes= getFullyCoveredNodes(context, coveringNode);
-			return getConvertToIfReturnProposals(context, coveringNode, null)
-					|| getInverseIfProposals(context, coveringNode, null)
-					|| getIfReturnIntoIfElseAtEndOfVoidMethodProposals(context, coveringNode, null)
-					|| getInverseIfContinueIntoIfThenInLoopsProposals(context, coveringNode, null)
-					|| getInverseIfIntoContinueInLoopsProposals(context, coveringNode, null)
-					|| getInverseConditionProposals(context, coveringNode, coveredNodes, null)
-					|| getRemoveExtraParenthesesProposals(context, coveringNode, coveredNodes, null)
-					|| getAddParanoidalParenthesesProposals(context, coveredNodes, null)
-					|| getAddParenthesesForExpressionProposals(context, coveringNode, null)
-					|| getJoinAndIfStatementsProposals(context, coveringNode, null)
-					|| getSplitAndConditionProposals(context, coveringNode, null)
-					|| getJoinOrIfStatementsProposals(context, coveringNode, coveredNodes, null)
-					|| getSplitOrConditionProposals(context, coveringNode, null)
-					|| getInverseConditionalExpressionProposals(context, coveringNode, null)
-					|| getExchangeInnerAndOuterIfConditionsProposals(context, coveringNode, null)
-					|| getExchangeOperandsProposals(context, coveringNode, null)
-					|| getCastAndAssignIfStatementProposals(context, coveringNode, null)
-					|| getCombineStringProposals(context, coveringNode, null)
-					|| getPickOutStringProposals(context, coveringNode, null)
-					|| getReplaceIfElseWithConditionalProposals(context, coveringNode, null)
-					|| getReplaceConditionalWithIfElseProposals(context, coveringNode, null)
-					|| getInverseLocalVariableProposals(context, coveringNode, null)
-					|| getPushNegationDownProposals(context, coveringNode, null)
-					|| getPullNegationUpProposals(context, coveredNodes, null)
-					|| getJoinIfListInIfElseIfProposals(context, coveringNode, coveredNodes, null)
-					|| getConvertSwitchToIfProposals(context, coveringNode, null)
-					|| getConvertIfElseToSwitchProposals(context, coveringNode, null)
-					|| GetterSetterCorrectionSubProcessor.addGetterSetterProposal(context, coveringNode, null, null);
+			return QuickAssistPredicate.hasAssists(ASSIST_PREDICATES, context, coveringNode, coveredNodes);
 		}
 		return false;
 	}
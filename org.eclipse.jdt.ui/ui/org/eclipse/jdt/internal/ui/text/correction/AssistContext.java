@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -119,8 +119,12 @@ public class AssistContext extends TextInvocationContext implements IInvocationC
 		return getOffset();
 	}
 
+	/*
+	 * The AST and the selected nodes are created lazily. Quick fix processors that run concurrently
+	 * share them, so they are created and handed out under the lock of the context.
+	 */
 	@Override
-	public CompilationUnit getASTRoot() {
+	public synchronized CompilationUnit getASTRoot() {
 		if (fASTRoot == null) {
 			fASTRoot= SharedASTProvider.getAST(fCompilationUnit, fWaitFlag, null);
 			if (fASTRoot == null) {
@@ -135,12 +139,12 @@ public class AssistContext extends TextInvocationContext implements IInvocationC
 	/**
 	 * @param root The ASTRoot to set.
 	 */
-	public void setASTRoot(CompilationUnit root) {
+	public synchronized void setASTRoot(CompilationUnit root) {
 		fASTRoot= root;
 	}
 
 	@Override
-	public ASTNode getCoveringNode() {
+	public synchronized ASTNode getCoveringNode() {
 		if (fNodeFinder == null) {
 			fNodeFinder= new NodeFinder(getASTRoot(), getOffset(), getLength());
 		}
@@ -148,7 +152,7 @@ public class AssistContext extends TextInvocationContext implements IInvocationC
 	}
 
 	@Override
-	public ASTNode getCoveredNode() {
+	public synchronized ASTNode getCoveredNode() {
 		if (fNodeFinder == null) {
 			fNodeFinder= new NodeFinder(getASTRoot(), getOffset(), getLength());
 		}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,8 +12,10 @@ package org.eclipse.jdt.internal.ui.text.correction;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -23,6 +25,8 @@ import org.eclipse.swt.graphics.Image;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubProgressMonitor;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IMarker;
@@ -132,10 +136,11 @@ public class CorrectionMarkerResolutionGenerator implements IMarkerResolutionGen
 			if (monitor == null)
 				monitor= new NullProgressMonitor();
 
+			monitor.beginTask("", 2 * markers.length); //$NON-NLS-1$
 			try {
-				MultiFixTarget[] problems= getCleanUpTargets(markers);
+				MultiFixTarget[] problems= getCleanUpTargets(markers, new SubProgressMonitor(monitor, markers.length));
 
-				((FixCorrectionProposal)fProposal).resolve(problems, monitor);
+				((FixCorrectionProposal)fProposal).resolve(problems, new SubProgressMonitor(monitor, markers.length));
 
 				IEditorPart part= EditorUtility.isOpenInEditor(fCompilationUnit);
 				if (part instanceof ITextEditor) {
@@ -149,37 +154,39 @@ public class CorrectionMarkerResolutionGenerator implements IMarkerResolutionGen
 			}
 		}
 
-		private MultiFixTarget[] getCleanUpTargets(IMarker[] markers) {
-			Hashtable<ICompilationUnit, List<IProblemLocation>> problemLocations= new Hashtable<>();
-			for (int i= 0; i < markers.length; i++) {
-				IMarker marker= markers[i];
-				ICompilationUnit cu= getCompilationUnit(marker);
-
-				if (cu != null) {
-					IEditorInput input= EditorUtility.getEditorInput(cu);
-					IProblemLocation location= findProblemLocation(input, marker);
-					if (location != null) {
-						List<IProblemLocation> l= problemLocations.get(cu.getPrimary());
-						if (l == null) {
-							l= new ArrayList<>();
-							problemLocations.put(cu.getPrimary(), l);
-						}
-						l.add(location);
+		/**
+		 * Creates the targets of the multi-fix in one pass over the markers. The markers are first
+		 * grouped by file, so that the compilation unit and the annotation model of a file are only
+		 * looked up once, however many of its markers are fixed.
+		 *
+		 * @param markers the markers to fix
+		 * @param monitor the progress monitor
+		 * @return one target per compilation unit
+		 */
+		private MultiFixTarget[] getCleanUpTargets(IMarker[] markers, IProgressMonitor monitor) {
+			Map<IFile, List<IMarker>> fileMarkers= groupMarkersByFile(markers);
+			List<MultiFixTarget> result= new ArrayList<>(fileMarkers.size());
+			monitor.beginTask("", markers.length); //$NON-NLS-1$
+			try {
+				for (Iterator<Map.Entry<IFile, List<IMarker>>> iterator= fileMarkers.entrySet().iterator(); iterator.hasNext();) {
+					Map.Entry<IFile, List<IMarker>> entry= iterator.next();
+					List<IMarker> list= entry.getValue();
+					if (monitor.isCanceled())
+						throw new OperationCanceledException();
+
+					IJavaElement element= JavaCore.create(entry.getKey());
+					if (element instanceof ICompilationUnit) {
+						ICompilationUnit cu= (ICompilationUnit) element;
+						IProblemLocation[] locations= findProblemLocations(EditorUtility.getEditorInput(cu), cu, list);
+						if (locations.length > 0)
+							result.add(new MultiFixTarget(cu.getPrimary(), locations));
 					}
+					monitor.worked(list.size());
 				}
+			} finally {
+				monitor.done();
 			}
-
-			MultiFixTarget[] result= new MultiFixTarget[problemLocations.size()];
-			int i= 0;
-			for (Iterator<Map.Entry<ICompilationUnit, List<IProblemLocation>>> iterator= problemLocations.entrySet().iterator(); iterator.hasNext();) {
-				Map.Entry<ICompilationUnit, List<IProblemLocation>> entry= iterator.next();
-				ICompilationUnit cu= entry.getKey();
-				List<IProblemLocation> locations= entry.getValue();
-				result[i]= new MultiFixTarget(cu, locations.toArray(new IProblemLocation[locations.size()]));
-				i++;
-			}
-
-			return result;
+			return result.toArray(new MultiFixTarget[result.size()]);
 		}
 
 		@Override
@@ -378,6 +385,68 @@ public class CorrectionMarkerResolutionGenerator implements IMarkerResolutionGen
 		return null;
 	}
 
+	/**
+	 * Groups the given markers by their file. Markers that are not on an accessible file are
+	 * ignored. The files and the markers of each file keep the order of <code>markers</code>.
+	 *
+	 * @param markers the markers to group
+	 * @return the markers of each file
+	 */
+	public static Map<IFile, List<IMarker>> groupMarkersByFile(IMarker[] markers) {
+		LinkedHashMap<IFile, List<IMarker>> result= new LinkedHashMap<>();
+		for (int i= 0; i < markers.length; i++) {
+			IResource res= markers[i].getResource();
+			if (res instanceof IFile && res.isAccessible()) {
+				List<IMarker> list= result.get(res);
+				if (list == null) {
+					list= new ArrayList<>();
+					result.put((IFile) res, list);
+				}
+				list.add(markers[i]);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the problem locations of the given markers of one compilation unit. If the compilation
+	 * unit is open in an editor, its annotation model is only traversed once.
+	 *
+	 * @param input the editor input of the compilation unit
+	 * @param cu the compilation unit
+	 * @param markers the markers of the compilation unit
+	 * @return the problem locations of the markers that are still valid
+	 */
+	private static IProblemLocation[] findProblemLocations(IEditorInput input, ICompilationUnit cu, List<IMarker> markers) {
+		List<IProblemLocation> result= new ArrayList<>(markers.size());
+		IAnnotationModel model= JavaPlugin.getDefault().getCompilationUnitDocumentProvider().getAnnotationModel(input);
+		if (model != null) { // open in editor
+			HashMap<IMarker, IProblemLocation> locations= new HashMap<>();
+			Iterator<Annotation> iter= model.getAnnotationIterator();
+			while (iter.hasNext()) {
+				Annotation curr= iter.next();
+				if (curr instanceof JavaMarkerAnnotation) {
+					JavaMarkerAnnotation annot= (JavaMarkerAnnotation) curr;
+					Position pos= model.getPosition(annot);
+					if (pos != null)
+						locations.put(annot.getMarker(), new ProblemLocation(pos.getOffset(), pos.getLength(), annot));
+				}
+			}
+			for (int i= 0; i < markers.size(); i++) {
+				IProblemLocation location= locations.get(markers.get(i));
+				if (location != null)
+					result.add(location);
+			}
+		} else { // not open in editor
+			for (int i= 0; i < markers.size(); i++) {
+				IProblemLocation location= createFromMarker(markers.get(i), cu);
+				if (location != null)
+					result.add(location);
+			}
+		}
+		return result.toArray(new IProblemLocation[result.size()]);
+	}
+
 	private static IProblemLocation createFromMarker(IMarker marker, ICompilationUnit cu) {
 		try {
 			int id= marker.getAttribute(IJavaModelMarker.ID, -1);
@@ -0,0 +1,220 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.text.correction;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jface.util.IPropertyChangeListener;
+import org.eclipse.jface.util.PropertyChangeEvent;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+import org.eclipse.jdt.ui.PreferenceConstants;
+import org.eclipse.jdt.ui.text.java.IInvocationContext;
+import org.eclipse.jdt.ui.text.java.IJavaCompletionProposal;
+import org.eclipse.jdt.ui.text.java.IProblemLocation;
+
+/**
+ * The proposals computed by the quick fix processors for single problems, so that invoking quick
+ * fix again on unchanged code does not run the processors again.
+ * <p>
+ * Entries are keyed by the AST of the invocation context, the processor, the selection, the editor
+ * and the id, position and marker type of the problem. A reconcile creates a new AST, so entries
+ * of outdated ASTs are never found again. In particular, applying a proposal changes the document,
+ * so a proposal is not handed out again after it has been applied. The cache is cleared by every
+ * Java element delta that changes code, since proposals can depend on other compilation units,
+ * and by every change of the Java UI preferences.
+ * </p>
+ * <p>
+ * This class is thread safe.
+ * </p>
+ *
+ * @since 3.13
+ */
+public final class CorrectionProposalCache {
+
+	private static final int MAX_ENTRIES= 50;
+
+	/**
+	 * The delta flags that do not change any code.
+	 */
+	private static final int IGNORED_FLAGS= IJavaElementDelta.F_CHILDREN | IJavaElementDelta.F_AST_AFFECTED;
+
+	/**
+	 * The key of the proposals of one processor for one problem.
+	 */
+	static final class Key {
+		private final CompilationUnit fASTRoot;
+		private final ContributedProcessorDescriptor fProcessor;
+		private final Object fEditor;
+		private final int fOffset;
+		private final int fLength;
+		private final int fProblemId;
+		private final int fProblemOffset;
+		private final int fProblemLength;
+		private final String fMarkerType;
+
+		Key(CompilationUnit astRoot, ContributedProcessorDescriptor processor, Object editor, int offset, int length, IProblemLocation location) {
+			fASTRoot= astRoot;
+			fProcessor= processor;
+			fEditor= editor;
+			fOffset= offset;
+			fLength= length;
+			fProblemId= location.getProblemId();
+			fProblemOffset= location.getOffset();
+			fProblemLength= location.getLength();
+			fMarkerType= location.getMarkerType();
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(fASTRoot) ^ System.identityHashCode(fProcessor) ^ (fOffset * 31 + fLength) ^ (fProblemId * 31 + fProblemOffset);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key))
+				return false;
+			Key other= (Key) obj;
+			return fASTRoot == other.fASTRoot && fProcessor == other.fProcessor && fEditor == other.fEditor
+					&& fOffset == other.fOffset && fLength == other.fLength
+					&& fProblemId == other.fProblemId && fProblemOffset == other.fProblemOffset && fProblemLength == other.fProblemLength
+					&& (fMarkerType == null ? other.fMarkerType == null : fMarkerType.equals(other.fMarkerType));
+		}
+	}
+
+	private class ProposalCacheListener implements IElementChangedListener, IPropertyChangeListener {
+		@Override
+		public void elementChanged(ElementChangedEvent event) {
+			if (changesCode(event.getDelta()))
+				clear();
+		}
+
+		@Override
+		public void propertyChange(PropertyChangeEvent event) {
+			clear();
+		}
+
+		private boolean changesCode(IJavaElementDelta delta) {
+			if (delta.getKind() != IJavaElementDelta.CHANGED)
+				return true;
+			if ((delta.getFlags() & ~IGNORED_FLAGS) != 0)
+				return true;
+			IJavaElementDelta[] children= delta.getAffectedChildren();
+			for (int i= 0; i < children.length; i++) {
+				if (changesCode(children[i]))
+					return true;
+			}
+			return false;
+		}
+	}
+
+	private static CorrectionProposalCache fgInstance;
+
+	/**
+	 * Returns the shared proposal cache.
+	 *
+	 * @return the proposal cache
+	 */
+	public static synchronized CorrectionProposalCache getDefault() {
+		if (fgInstance == null)
+			fgInstance= new CorrectionProposalCache();
+		return fgInstance;
+	}
+
+	/**
+	 * Releases the shared proposal cache.
+	 */
+	public static synchronized void shutdown() {
+		if (fgInstance == null)
+			return;
+		JavaCore.removeElementChangedListener(fgInstance.fListener);
+		PreferenceConstants.getPreferenceStore().removePropertyChangeListener(fgInstance.fListener);
+		fgInstance= null;
+	}
+
+	private final Map<Key, List<IJavaCompletionProposal>> fProposals;
+	private final ProposalCacheListener fListener;
+	// Incremented whenever the cache is cleared, so that proposals computed across a change aren't stored
+	private int fStamp;
+
+	private CorrectionProposalCache() {
+		fProposals= new LinkedHashMap<Key, List<IJavaCompletionProposal>>(MAX_ENTRIES, 0.75f, true) {
+			private static final long serialVersionUID= 1L;
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, List<IJavaCompletionProposal>> eldest) {
+				return size() > MAX_ENTRIES;
+			}
+		};
+		fListener= new ProposalCacheListener();
+		JavaCore.addElementChangedListener(fListener, ElementChangedEvent.POST_CHANGE | ElementChangedEvent.POST_RECONCILE);
+		PreferenceConstants.getPreferenceStore().addPropertyChangeListener(fListener);
+	}
+
+	/**
+	 * Creates the key of the proposals of a quick fix processor for a problem.
+	 *
+	 * @param context the invocation context
+	 * @param processor the quick fix processor
+	 * @param location the problem
+	 * @return the key, or <code>null</code> if the context has no AST
+	 */
+	static Key createKey(IInvocationContext context, ContributedProcessorDescriptor processor, IProblemLocation location) {
+		CompilationUnit astRoot= context.getASTRoot();
+		if (astRoot == null)
+			return null;
+		Object editor= context instanceof AssistContext ? ((AssistContext) context).getEditor() : null;
+		return new Key(astRoot, processor, editor, context.getSelectionOffset(), context.getSelectionLength(), location);
+	}
+
+	/**
+	 * Returns the cached proposals.
+	 *
+	 * @param key the key of the proposals
+	 * @return the proposals, or <code>null</code> if not cached. The list must not be modified.
+	 */
+	synchronized List<IJavaCompletionProposal> get(Key key) {
+		return fProposals.get(key);
+	}
+
+	/**
+	 * @return the current stamp of the cache, to be passed to {@link #put(Key, List, int)}
+	 */
+	synchronized int getStamp() {
+		return fStamp;
+	}
+
+	/**
+	 * Caches proposals. Does nothing if the cache was cleared since the given stamp was taken.
+	 *
+	 * @param key the key of the proposals
+	 * @param proposals the proposals, which must not be modified anymore
+	 * @param stamp the stamp of the cache taken before the proposals were computed
+	 */
+	synchronized void put(Key key, List<IJavaCompletionProposal> proposals, int stamp) {
+		if (stamp == fStamp)
+			fProposals.put(key, proposals);
+	}
+
+	/**
+	 * Removes all cached proposals.
+	 */
+	public synchronized void clear() {
+		fProposals.clear();
+		fStamp++;
+	}
+}
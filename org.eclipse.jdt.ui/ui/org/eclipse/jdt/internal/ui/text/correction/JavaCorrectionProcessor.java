@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,14 +11,30 @@
 
 package org.eclipse.jdt.internal.ui.text.correction;
 
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.ISafeRunnable;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.MultiStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.SafeRunner;
 import org.eclipse.core.runtime.Status;
@@ -47,6 +63,7 @@ import org.eclipse.ui.texteditor.SimpleMarkerAnnotation;
 import org.eclipse.ltk.core.refactoring.NullChange;
 
 import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.dom.CompilationUnit;
 
 import org.eclipse.jdt.internal.corext.util.Messages;
 
@@ -72,6 +89,53 @@ public class JavaCorrectionProcessor implements org.eclipse.jface.text.quickassi
 	private static ContributedProcessorDescriptor[] fgContributedAssistProcessors= null;
 	private static ContributedProcessorDescriptor[] fgContributedCorrectionProcessors= null;
 
+	/**
+	 * The system property that tells whether the quick fix and quick assist processors are run
+	 * concurrently.
+	 *
+	 * @since 3.13
+	 */
+	private static final String CONCURRENT_COMPUTATION_PROPERTY= "org.eclipse.jdt.ui.quickFixConcurrent"; //$NON-NLS-1$
+
+	/**
+	 * Time after which a concurrently running processor is abandoned.
+	 *
+	 * @since 3.13
+	 */
+	private static final long PROCESSOR_TIMEOUT= Long.getLong("org.eclipse.jdt.ui.quickFixProcessorTimeout", 3000).longValue(); // ms //$NON-NLS-1$
+
+	/**
+	 * The executor for concurrent processor runs, created on demand.
+	 *
+	 * @since 3.13
+	 */
+	private static ExecutorService fgExecutor;
+
+	/**
+	 * The maximal number of processor runs waiting for a thread of the executor. Further runs are
+	 * run in the calling thread.
+	 *
+	 * @since 3.13
+	 */
+	private static final int MAX_QUEUED_COMPUTATIONS= 16;
+
+	/**
+	 * The processors that are running on the executor, including those whose run has been
+	 * abandoned. A processor is not started again before its previous run has ended.
+	 *
+	 * @since 3.13
+	 */
+	private static final Set<ContributedProcessorDescriptor> fgRunningProcessors= new HashSet<>();
+
+	/*
+	 * The answer of the last hasAssists query. The light bulb and the quick assist assistant ask again
+	 * for the same AST and selection, e.g. when the editor regains focus.
+	 */
+	private static WeakReference<CompilationUnit> fgLastAssistAST= null;
+	private static int fgLastAssistOffset;
+	private static int fgLastAssistLength;
+	private static boolean fgLastHasAssists;
+
 	private static ContributedProcessorDescriptor[] getProcessorDescriptors(String contributionId, boolean testMarkerTypes) {
 		IConfigurationElement[] elements= Platform.getExtensionRegistry().getConfigurationElementsFor(JavaUI.ID_PLUGIN, contributionId);
 		ArrayList<ContributedProcessorDescriptor> res= new ArrayList<>(elements.length);
@@ -147,16 +211,37 @@ public class JavaCorrectionProcessor implements org.eclipse.jface.text.quickassi
 	}
 
 	public static boolean hasAssists(IInvocationContext context) {
+		CompilationUnit astRoot= context.getASTRoot();
+		int offset= context.getSelectionOffset();
+		int length= context.getSelectionLength();
+		synchronized (JavaCorrectionProcessor.class) {
+			if (astRoot != null && fgLastAssistAST != null && fgLastAssistAST.get() == astRoot
+					&& fgLastAssistOffset == offset && fgLastAssistLength == length) {
+				return fgLastHasAssists;
+			}
+		}
+
 		ContributedProcessorDescriptor[] processors= getAssistProcessors();
 		SafeHasAssist collector= new SafeHasAssist(context);
 
+		boolean hasAssists= false;
 		for (int i= 0; i < processors.length; i++) {
 			collector.process(processors[i]);
 			if (collector.hasAssists()) {
-				return true;
+				hasAssists= true;
+				break;
 			}
 		}
-		return false;
+
+		if (astRoot != null && collector.getStatus().isOK()) {
+			synchronized (JavaCorrectionProcessor.class) {
+				fgLastAssistAST= new WeakReference<>(astRoot);
+				fgLastAssistOffset= offset;
+				fgLastAssistLength= length;
+				fgLastHasAssists= hasAssists;
+			}
+		}
+		return hasAssists;
 	}
 
 	private JavaCorrectionAssistant fAssistant;
@@ -277,24 +362,73 @@ public class JavaCorrectionProcessor implements org.eclipse.jface.text.quickassi
 				collectMarkerProposals((SimpleMarkerAnnotation) curr, proposals);
 			}
 		}
-		MultiStatus resStatus= null;
 
 		IProblemLocation[] problemLocations= problems.toArray(new IProblemLocation[problems.size()]);
+		ArrayList<ProcessorComputation> computations= new ArrayList<>();
 		if (addQuickFixes) {
-			IStatus status= collectCorrections(context, problemLocations, proposals);
-			if (!status.isOK()) {
-				resStatus= new MultiStatus(JavaUI.ID_PLUGIN, IStatus.ERROR, CorrectionMessages.JavaCorrectionProcessor_error_quickfix_message, null);
-				resStatus.add(status);
+			ContributedProcessorDescriptor[] processors= getCorrectionProcessors();
+			for (int i= 0; i < processors.length; i++) {
+				IProblemLocation[] handled= getHandledProblems(problemLocations, processors[i]);
+				if (handled != null) {
+					computations.add(new ProcessorComputation(processors[i], context, handled, false));
+				}
 			}
 		}
 		if (addQuickAssists) {
-			IStatus status= collectAssists(context, problemLocations, proposals);
-			if (!status.isOK()) {
-				if (resStatus == null) {
-					resStatus= new MultiStatus(JavaUI.ID_PLUGIN, IStatus.ERROR, CorrectionMessages.JavaCorrectionProcessor_error_quickassist_message, null);
+			ContributedProcessorDescriptor[] processors= getAssistProcessors();
+			for (int i= 0; i < processors.length; i++) {
+				computations.add(new ProcessorComputation(processors[i], context, problemLocations, true));
+			}
+		}
+
+		ArrayList<IJavaCompletionProposal> computed= new ArrayList<>();
+		MultiStatus correctionStatus= new MultiStatus(JavaUI.ID_PLUGIN, IStatus.OK, CorrectionMessages.JavaCorrectionProcessor_error_status, null);
+		MultiStatus assistStatus= new MultiStatus(JavaUI.ID_PLUGIN, IStatus.OK, CorrectionMessages.JavaCorrectionProcessor_error_status, null);
+		if (isConcurrentComputation()) {
+			// the processors share the AST of the context, create it and the selected nodes before they run
+			context.getASTRoot();
+			context.getCoveringNode();
+			context.getCoveredNode();
+
+			long deadline= System.currentTimeMillis() + PROCESSOR_TIMEOUT;
+			for (int i= 0; i < computations.size(); i++) {
+				computations.get(i).submit();
+			}
+			for (int i= 0; i < computations.size(); i++) {
+				ProcessorComputation computation= computations.get(i);
+				if (computation.await(deadline)) {
+					computed.addAll(computation.getProposals());
+					if (computation.isAssist()) {
+						assistStatus.merge(computation.getStatus());
+					} else {
+						correctionStatus.merge(computation.getStatus());
+					}
 				}
-				resStatus.add(status);
 			}
+		} else {
+			for (int i= 0; i < computations.size(); i++) {
+				ProcessorComputation computation= computations.get(i);
+				computation.run();
+				computed.addAll(computation.getProposals());
+				if (computation.isAssist()) {
+					assistStatus.merge(computation.getStatus());
+				} else {
+					correctionStatus.merge(computation.getStatus());
+				}
+			}
+		}
+		proposals.addAll(computed);
+
+		MultiStatus resStatus= null;
+		if (!correctionStatus.isOK()) {
+			resStatus= new MultiStatus(JavaUI.ID_PLUGIN, IStatus.ERROR, CorrectionMessages.JavaCorrectionProcessor_error_quickfix_message, null);
+			resStatus.add(correctionStatus);
+		}
+		if (!assistStatus.isOK()) {
+			if (resStatus == null) {
+				resStatus= new MultiStatus(JavaUI.ID_PLUGIN, IStatus.ERROR, CorrectionMessages.JavaCorrectionProcessor_error_quickassist_message, null);
+			}
+			resStatus.add(assistStatus);
 		}
 		if (resStatus != null) {
 			return resStatus;
@@ -463,6 +597,251 @@ public class JavaCorrectionProcessor implements org.eclipse.jface.text.quickassi
 	}
 
 
+	/**
+	 * The run of one processor, either in the calling thread or on the executor, see
+	 * {@link #isConcurrentComputation()}.
+	 * <p>
+	 * A quick fix processor is asked for the proposals of one problem at a time, so that they can
+	 * be kept in the {@link CorrectionProposalCache}. Like the Java quick fix processor does within
+	 * one call, only the first problem with a given id is passed to the processor.
+	 * </p>
+	 * <p>
+	 * Concurrent runs share the AST of the invocation context, which is created before the runs
+	 * start. Its bindings are resolved by a synchronized binding resolver. Processors have no
+	 * progress monitor, so a run that does not finish before the deadline is canceled through the
+	 * monitor of the run: it is not started if it is still queued, and it stops between two
+	 * problems. Its processor is skipped until the run has ended.
+	 * </p>
+	 *
+	 * @since 3.13
+	 */
+	private static final class ProcessorComputation implements Callable<IStatus> {
+		private final ContributedProcessorDescriptor fDescriptor;
+		private final IInvocationContext fContext;
+		private final IProblemLocation[] fLocations;
+		private final boolean fAssist;
+		private final CorrectionProposalCache.Key[] fKeys;
+		/** The proposals for each problem, or in the only element for a quick assist processor. */
+		private final List<List<IJavaCompletionProposal>> fProposals;
+		private final int fCacheStamp;
+		private final IProgressMonitor fMonitor= new NullProgressMonitor();
+		private Future<IStatus> fFuture;
+		private boolean fSkipped;
+		private IStatus fStatus;
+
+		ProcessorComputation(ContributedProcessorDescriptor descriptor, IInvocationContext context, IProblemLocation[] locations, boolean assist) {
+			fDescriptor= descriptor;
+			fContext= context;
+			fAssist= assist;
+			CorrectionProposalCache cache= CorrectionProposalCache.getDefault();
+			fCacheStamp= cache.getStamp();
+			if (assist) {
+				fLocations= locations;
+				fKeys= null;
+				fProposals= new ArrayList<>(1);
+				fProposals.add(null);
+			} else {
+				fLocations= getFirstOfEachProblem(locations);
+				fKeys= new CorrectionProposalCache.Key[fLocations.length];
+				fProposals= new ArrayList<>(fLocations.length);
+				for (int i= 0; i < fLocations.length; i++) {
+					fKeys[i]= CorrectionProposalCache.createKey(context, descriptor, fLocations[i]);
+					fProposals.add(fKeys[i] != null ? cache.get(fKeys[i]) : null);
+				}
+			}
+		}
+
+		private static IProblemLocation[] getFirstOfEachProblem(IProblemLocation[] locations) {
+			HashSet<Integer> problemIds= new HashSet<>(locations.length);
+			ArrayList<IProblemLocation> result= new ArrayList<>(locations.length);
+			for (int i= 0; i < locations.length; i++) {
+				if (problemIds.add(new Integer(locations[i].getProblemId()))) {
+					result.add(locations[i]);
+				}
+			}
+			return result.toArray(new IProblemLocation[result.size()]);
+		}
+
+		private boolean isComputed() {
+			return !fProposals.contains(null);
+		}
+
+		@Override
+		public IStatus call() {
+			try {
+				return compute();
+			} finally {
+				synchronized (fgRunningProcessors) {
+					fgRunningProcessors.remove(fDescriptor);
+				}
+			}
+		}
+
+		private IStatus compute() {
+			if (fAssist) {
+				if (fMonitor.isCanceled()) {
+					return Status.CANCEL_STATUS;
+				}
+				ArrayList<IJavaCompletionProposal> proposals= new ArrayList<>();
+				SafeAssistCollector collector= new SafeAssistCollector(fContext, fLocations, proposals);
+				collector.process(fDescriptor);
+				fProposals.set(0, proposals);
+				return collector.getStatus();
+			}
+			MultiStatus status= new MultiStatus(JavaUI.ID_PLUGIN, IStatus.OK, CorrectionMessages.JavaCorrectionProcessor_error_status, null);
+			for (int i= 0; i < fLocations.length; i++) {
+				if (fProposals.get(i) != null) {
+					continue;
+				}
+				if (fMonitor.isCanceled()) {
+					return Status.CANCEL_STATUS;
+				}
+				ArrayList<IJavaCompletionProposal> proposals= new ArrayList<>();
+				SafeCorrectionCollector collector= new SafeCorrectionCollector(fContext, proposals);
+				collector.setProblemLocations(new IProblemLocation[] { fLocations[i] });
+				collector.process(fDescriptor);
+				IStatus problemStatus= collector.getStatus();
+				if (problemStatus.isOK() && fKeys[i] != null) {
+					CorrectionProposalCache.getDefault().put(fKeys[i], proposals, fCacheStamp);
+				}
+				status.merge(problemStatus);
+				fProposals.set(i, proposals);
+			}
+			return status;
+		}
+
+		/**
+		 * Runs the processor in the calling thread.
+		 */
+		void run() {
+			fStatus= isComputed() ? Status.OK_STATUS : compute();
+		}
+
+		void submit() {
+			if (isComputed()) {
+				fStatus= Status.OK_STATUS;
+				return;
+			}
+			synchronized (fgRunningProcessors) {
+				if (!fgRunningProcessors.add(fDescriptor)) {
+					// an abandoned run has not ended yet
+					fSkipped= true;
+					return;
+				}
+			}
+			try {
+				fFuture= getExecutor().submit(this);
+			} catch (RejectedExecutionException e) {
+				// the queue is full
+				synchronized (fgRunningProcessors) {
+					fgRunningProcessors.remove(fDescriptor);
+				}
+				fFuture= null;
+			}
+		}
+
+		/**
+		 * Waits for the processor to finish. Runs it in the calling thread if it could not be
+		 * submitted.
+		 *
+		 * @param deadline the time until which to wait, in milliseconds
+		 * @return <code>true</code> if the processor has finished, <code>false</code> if it has
+		 *         been skipped or abandoned
+		 */
+		boolean await(long deadline) {
+			if (fSkipped) {
+				return false;
+			}
+			if (fStatus != null) {
+				// all proposals were cached
+				return true;
+			}
+			if (fFuture == null) {
+				run();
+				return true;
+			}
+			try {
+				fStatus= fFuture.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+				return true;
+			} catch (TimeoutException e) {
+				fMonitor.setCanceled(true);
+			} catch (InterruptedException e) {
+				fMonitor.setCanceled(true);
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				JavaPlugin.log(e);
+			}
+			return false;
+		}
+
+		boolean isAssist() {
+			return fAssist;
+		}
+
+		List<IJavaCompletionProposal> getProposals() {
+			ArrayList<IJavaCompletionProposal> result= new ArrayList<>();
+			for (int i= 0; i < fProposals.size(); i++) {
+				List<IJavaCompletionProposal> proposals= fProposals.get(i);
+				if (proposals != null) {
+					result.addAll(proposals);
+				}
+			}
+			return result;
+		}
+
+		IStatus getStatus() {
+			return fStatus;
+		}
+	}
+
+	/**
+	 * Tells whether the quick fix and quick assist processors are run concurrently, which is
+	 * enabled by the system property <code>org.eclipse.jdt.ui.quickFixConcurrent</code>.
+	 *
+	 * @return <code>true</code> if the processors are run concurrently
+	 * @since 3.13
+	 */
+	private static boolean isConcurrentComputation() {
+		return Boolean.getBoolean(CONCURRENT_COMPUTATION_PROPERTY);
+	}
+
+	/**
+	 * Returns the executor for concurrent processor runs.
+	 *
+	 * @return the shared executor
+	 * @since 3.13
+	 */
+	private static synchronized ExecutorService getExecutor() {
+		if (fgExecutor == null) {
+			int threads= Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+			ThreadPoolExecutor executor= new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(MAX_QUEUED_COMPUTATIONS), new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread= new Thread(r, "Java Quick Fix Processor"); //$NON-NLS-1$
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			executor.allowCoreThreadTimeOut(true);
+			fgExecutor= executor;
+		}
+		return fgExecutor;
+	}
+
+	/**
+	 * Shuts down the executor for concurrent processor runs, if it has been created. Runs that
+	 * have been started are not interrupted.
+	 *
+	 * @since 3.13
+	 */
+	public static synchronized void shutdownExecutor() {
+		if (fgExecutor != null) {
+			fgExecutor.shutdown();
+			fgExecutor= null;
+		}
+	}
+
+
 	public static IStatus collectCorrections(IInvocationContext context, IProblemLocation[] locations, Collection<IJavaCompletionProposal> proposals) {
 		ContributedProcessorDescriptor[] processors= getCorrectionProcessors();
 		SafeCorrectionCollector collector= new SafeCorrectionCollector(context, proposals);
@@ -0,0 +1,199 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.text.correction;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.PerformanceStats;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+
+import org.eclipse.jdt.ui.text.java.IInvocationContext;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+
+/**
+ * The test whether a quick assist is available, together with the AST nodes the quick assist can
+ * apply to. Used to implement <code>IQuickAssistProcessor#hasAssists(IInvocationContext)</code>,
+ * which is called for every caret move when the light bulb is enabled.
+ * <p>
+ * A predicate is only evaluated if the covering node has one of the types given to
+ * {@link #onNode(Class...)}, its parent has one of the types given to {@link #onParent(Class...)},
+ * or the covering node or one of its ancestors has one of the types given to
+ * {@link #inside(Class...)}. A predicate that declares no types is evaluated for any covering
+ * node. The declared types must be a necessary condition for the assist, they only serve to skip
+ * predicates that cannot succeed.
+ * </p>
+ * <p>
+ * If tracing of <code>org.eclipse.jdt.ui/perf/quickassist/predicates</code> is enabled, the time
+ * spent in each predicate is reported to core's {@link PerformanceStats} service.
+ * </p>
+ *
+ * @since 3.13
+ */
+abstract class QuickAssistPredicate {
+
+	/** The name of the performance event used to trace the predicates. */
+	private static final String PERFORMANCE_EVENT= JavaPlugin.getPluginId() + "/perf/quickassist/predicates"; //$NON-NLS-1$
+	/**
+	 * If <code>true</code>, execution time of the predicates is measured and the data forwarded to
+	 * core's {@link PerformanceStats} service.
+	 */
+	private static final boolean MEASURE_PERFORMANCE= PerformanceStats.isEnabled(PERFORMANCE_EVENT);
+
+	/**
+	 * The largest node type constant checked for in {@link #toNodeTypes(Class[])}.
+	 */
+	private static final int MAX_NODE_TYPE= 127;
+
+	private final String fName;
+	private BitSet fNodeTypes;
+	private BitSet fParentTypes;
+	private BitSet fAncestorTypes;
+
+	/**
+	 * @param name the name of the predicate, used to report its performance
+	 */
+	QuickAssistPredicate(String name) {
+		fName= name;
+	}
+
+	/**
+	 * Tests whether the assist is available.
+	 *
+	 * @param context the invocation context
+	 * @param coveringNode the covering node of the context
+	 * @param coveredNodes the nodes fully covered by the selection of the context
+	 * @return <code>true</code> if the assist has proposals for the context
+	 * @throws CoreException if the test fails
+	 */
+	abstract boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException;
+
+	/**
+	 * Declares that the assist only applies if the covering node is an instance of one of the given
+	 * classes.
+	 *
+	 * @param nodeClasses the classes of the covering node
+	 * @return this predicate
+	 */
+	QuickAssistPredicate onNode(Class<?>... nodeClasses) {
+		fNodeTypes= toNodeTypes(nodeClasses);
+		return this;
+	}
+
+	/**
+	 * Declares that the assist only applies if the parent of the covering node is an instance of
+	 * one of the given classes.
+	 *
+	 * @param nodeClasses the classes of the parent
+	 * @return this predicate
+	 */
+	QuickAssistPredicate onParent(Class<?>... nodeClasses) {
+		fParentTypes= toNodeTypes(nodeClasses);
+		return this;
+	}
+
+	/**
+	 * Declares that the assist only applies if the covering node or one of its ancestors is an
+	 * instance of one of the given classes.
+	 *
+	 * @param nodeClasses the classes of the ancestor
+	 * @return this predicate
+	 */
+	QuickAssistPredicate inside(Class<?>... nodeClasses) {
+		fAncestorTypes= toNodeTypes(nodeClasses);
+		return this;
+	}
+
+	/**
+	 * Tests whether the assist can apply to the given covering node according to the declared node
+	 * types.
+	 *
+	 * @param coveringNode the covering node
+	 * @return <code>false</code> if the assist is not available at the covering node
+	 */
+	boolean isApplicable(ASTNode coveringNode) {
+		if (fNodeTypes == null && fParentTypes == null && fAncestorTypes == null)
+			return true;
+		if (fNodeTypes != null && fNodeTypes.get(coveringNode.getNodeType()))
+			return true;
+		ASTNode parent= coveringNode.getParent();
+		if (fParentTypes != null && parent != null && fParentTypes.get(parent.getNodeType()))
+			return true;
+		if (fAncestorTypes != null) {
+			for (ASTNode node= coveringNode; node != null; node= node.getParent()) {
+				if (fAncestorTypes.get(node.getNodeType()))
+					return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return fName;
+	}
+
+	/**
+	 * Evaluates the applicable predicates in the given order until one of them succeeds.
+	 *
+	 * @param predicates the predicates
+	 * @param context the invocation context
+	 * @param coveringNode the covering node of the context
+	 * @param coveredNodes the nodes fully covered by the selection of the context
+	 * @return <code>true</code> if one of the predicates has assists for the context
+	 * @throws CoreException if a predicate fails
+	 */
+	static boolean hasAssists(QuickAssistPredicate[] predicates, IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+		for (int i= 0; i < predicates.length; i++) {
+			QuickAssistPredicate predicate= predicates[i];
+			if (!predicate.isApplicable(coveringNode))
+				continue;
+
+			boolean hasAssist;
+			if (MEASURE_PERFORMANCE) {
+				PerformanceStats stats= PerformanceStats.getStats(PERFORMANCE_EVENT, predicate);
+				stats.startRun();
+				try {
+					hasAssist= predicate.hasAssist(context, coveringNode, coveredNodes);
+				} finally {
+					stats.endRun();
+				}
+			} else {
+				hasAssist= predicate.hasAssist(context, coveringNode, coveredNodes);
+			}
+			if (hasAssist)
+				return true;
+		}
+		return false;
+	}
+
+	private static BitSet toNodeTypes(Class<?>[] nodeClasses) {
+		BitSet nodeTypes= new BitSet(MAX_NODE_TYPE + 1);
+		for (int type= 1; type <= MAX_NODE_TYPE; type++) {
+			Class<?> nodeClass;
+			try {
+				nodeClass= ASTNode.nodeClassForType(type);
+			} catch (IllegalArgumentException e) {
+				continue; // no such node type
+			}
+			for (int i= 0; i < nodeClasses.length; i++) {
+				if (nodeClasses[i].isAssignableFrom(nodeClass)) {
+					nodeTypes.set(type);
+					break;
+				}
+			}
+		}
+		return nodeTypes;
+	}
+}
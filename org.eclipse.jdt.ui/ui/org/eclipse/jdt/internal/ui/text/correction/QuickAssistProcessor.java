@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -208,6 +208,254 @@ public class QuickAssistProcessor implements IQuickAssistProcessor {
 	public static final String CONVERT_TO_MESSAGE_FORMAT_ID= "org.eclipse.jdt.ui.correction.convertToMessageFormat.assist"; //$NON-NLS-1$;
 	public static final String EXTRACT_METHOD_INPLACE_ID= "org.eclipse.jdt.ui.correction.extractMethodInplace.assist"; //$NON-NLS-1$;
 
+	/**
+	 * The quick assists in the order in which {@link #hasAssists(IInvocationContext)} tests them,
+	 * with the nodes they can apply to.
+	 */
+	private static final QuickAssistPredicate[] ASSIST_PREDICATES= {
+		new QuickAssistPredicate("CatchClauseToThrows") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getCatchClauseToThrowsProposals(context, coveringNode, null);
+			}
+		}.inside(CatchClause.class),
+		new QuickAssistPredicate("PickoutTypeFromMulticatch") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getPickoutTypeFromMulticatchProposals(context, coveringNode, coveredNodes, null);
+			}
+		}.inside(CatchClause.class),
+		new QuickAssistPredicate("ConvertToMultiCatch") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getConvertToMultiCatchProposals(context, coveringNode, null);
+			}
+		}.inside(CatchClause.class),
+		new QuickAssistPredicate("UnrollMultiCatch") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getUnrollMultiCatchProposals(context, coveringNode, null);
+			}
+		}.inside(CatchClause.class),
+		new QuickAssistPredicate("RenameLocal") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getRenameLocalProposals(context, coveringNode, null, null);
+			}
+		}.onNode(SimpleName.class),
+		new QuickAssistPredicate("RenameRefactoring") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getRenameRefactoringProposal(context, coveringNode, null, null);
+			}
+		}.onNode(SimpleName.class),
+		new QuickAssistPredicate("AssignToVariable") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getAssignToVariableProposals(context, coveringNode, null, null);
+			}
+		}.inside(ExpressionStatement.class),
+		new QuickAssistPredicate("UnWrap") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getUnWrapProposals(context, coveringNode, null);
+			}
+		}.onNode(Block.class, IfStatement.class, WhileStatement.class, ForStatement.class, EnhancedForStatement.class, SynchronizedStatement.class,
+				LabeledStatement.class, DoStatement.class, TryStatement.class, AnonymousClassDeclaration.class, MethodInvocation.class).onParent(LabeledStatement.class),
+		new QuickAssistPredicate("AssignParamToField") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getAssignParamToFieldProposals(context, coveringNode, null);
+			}
+		}.inside(SingleVariableDeclaration.class),
+		new QuickAssistPredicate("AssignAllParamsToFields") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getAssignAllParamsToFieldsProposals(context, coveringNode, null);
+			}
+		}.inside(SingleVariableDeclaration.class),
+		new QuickAssistPredicate("JoinVariable") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getJoinVariableProposals(context, coveringNode, null);
+			}
+		}.onNode(SimpleName.class).onParent(VariableDeclarationFragment.class),
+		new QuickAssistPredicate("AddFinally") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getAddFinallyProposals(context, coveringNode, null);
+			}
+		}.inside(TryStatement.class),
+		new QuickAssistPredicate("AddElse") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getAddElseProposals(context, coveringNode, null);
+			}
+		}.onNode(IfStatement.class),
+		new QuickAssistPredicate("SplitVariable") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getSplitVariableProposals(context, coveringNode, null);
+			}
+		}.onNode(VariableDeclarationFragment.class).onParent(VariableDeclarationFragment.class),
+		new QuickAssistPredicate("AddBlock") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getAddBlockProposals(context, coveringNode, null);
+			}
+		}.onNode(Statement.class),
+		new QuickAssistPredicate("ArrayInitializerToArrayCreation") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getArrayInitializerToArrayCreation(context, coveringNode, null);
+			}
+		}.onNode(ArrayInitializer.class),
+		new QuickAssistPredicate("CreateInSuperClass") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getCreateInSuperClassProposals(context, coveringNode, null);
+			}
+		}.onParent(MethodDeclaration.class),
+		new QuickAssistPredicate("InvertEquals") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getInvertEqualsProposal(context, coveringNode, null);
+			}
+		}.onNode(MethodInvocation.class).onParent(MethodInvocation.class),
+		new QuickAssistPredicate("ConvertForLoop") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getConvertForLoopProposal(context, coveringNode, null);
+			}
+		}.inside(ForStatement.class),
+		new QuickAssistPredicate("ConvertIterableLoop") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getConvertIterableLoopProposal(context, coveringNode, null);
+			}
+		}.inside(ForStatement.class),
+		new QuickAssistPredicate("ConvertEnhancedForLoop") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getConvertEnhancedForLoopProposal(context, coveringNode, null);
+			}
+		}.inside(EnhancedForStatement.class),
+		new QuickAssistPredicate("GenerateForLoop") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getGenerateForLoopProposals(context, coveringNode, null, null);
+			}
+		}.inside(ExpressionStatement.class),
+		new QuickAssistPredicate("ExtractVariable") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getExtractVariableProposal(context, false, null);
+			}
+		},
+		new QuickAssistPredicate("ExtractMethod") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getExtractMethodProposal(context, coveringNode, false, null);
+			}
+		}.onNode(Expression.class, Statement.class),
+		new QuickAssistPredicate("InlineLocal") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getInlineLocalProposal(context, coveringNode, null);
+			}
+		}.onNode(SimpleName.class),
+		new QuickAssistPredicate("ConvertLocalToField") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getConvertLocalToFieldProposal(context, coveringNode, null);
+			}
+		}.onNode(SimpleName.class),
+		new QuickAssistPredicate("ConvertAnonymousToNested") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getConvertAnonymousToNestedProposal(context, coveringNode, null);
+			}
+		}.onNode(Name.class),
+		new QuickAssistPredicate("ConvertAnonymousClassCreationsToLambda") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getConvertAnonymousClassCreationsToLambdaProposals(context, coveringNode, null);
+			}
+		}.inside(ClassInstanceCreation.class),
+		new QuickAssistPredicate("ConvertLambdaToAnonymousClassCreations") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getConvertLambdaToAnonymousClassCreationsProposals(context, coveringNode, null);
+			}
+		}.onNode(LambdaExpression.class).onParent(LambdaExpression.class),
+		new QuickAssistPredicate("ChangeLambdaBodyToBlock") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getChangeLambdaBodyToBlockProposal(context, coveringNode, null);
+			}
+		}.onNode(LambdaExpression.class).onParent(LambdaExpression.class),
+		new QuickAssistPredicate("ChangeLambdaBodyToExpression") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getChangeLambdaBodyToExpressionProposal(context, coveringNode, null);
+			}
+		}.onNode(LambdaExpression.class).onParent(LambdaExpression.class),
+		new QuickAssistPredicate("AddInferredLambdaParameterTypes") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getAddInferredLambdaParameterTypes(context, coveringNode, null);
+			}
+		}.inside(LambdaExpression.class),
+		new QuickAssistPredicate("ConvertMethodReferenceToLambda") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getConvertMethodReferenceToLambdaProposal(context, coveringNode, null);
+			}
+		}.onNode(MethodReference.class).onParent(MethodReference.class),
+		new QuickAssistPredicate("ConvertLambdaToMethodReference") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getConvertLambdaToMethodReferenceProposal(context, coveringNode, null);
+			}
+		}.inside(LambdaExpression.class),
+		new QuickAssistPredicate("FixParenthesesInLambdaExpression") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getFixParenthesesInLambdaExpression(context, coveringNode, null);
+			}
+		}.inside(LambdaExpression.class),
+		new QuickAssistPredicate("RemoveBlock") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getRemoveBlockProposals(context, coveringNode, null);
+			}
+		}.onNode(Statement.class),
+		new QuickAssistPredicate("MakeVariableDeclarationFinal") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getMakeVariableDeclarationFinalProposals(context, null);
+			}
+		},
+		new QuickAssistPredicate("MissingCaseStatement") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getMissingCaseStatementProposals(context, coveringNode, null);
+			}
+		}.onNode(SwitchStatement.class, SwitchCase.class),
+		new QuickAssistPredicate("ConvertStringConcatenation") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getConvertStringConcatenationProposals(context, null);
+			}
+		}.inside(MethodDeclaration.class, Initializer.class),
+		new QuickAssistPredicate("InferDiamondArguments") { //$NON-NLS-1$
+			@Override
+			boolean hasAssist(IInvocationContext context, ASTNode coveringNode, ArrayList<ASTNode> coveredNodes) throws CoreException {
+				return getInferDiamondArgumentsProposal(context, coveringNode, null, null);
+			}
+		}.onNode(Name.class, ParameterizedType.class, ClassInstanceCreation.class)
+	};
+
 	public QuickAssistProcessor() {
 		super();
 	}
@@ -217,46 +465,7 @@ public class QuickAssistProcessor implements IQuickAssistProcessor {
 		ASTNode coveringNode= context.getCoveringNode();
 		if (coveringNode != null) {
 			ArrayList<ASTNode> coveredNodes= AdvancedQuickAssistProcessor.getFullyCoveredNodes(context, coveringNode);
-			return getCatchClauseToThrowsProposals(context, coveringNode, null)
-				|| getPickoutTypeFromMulticatchProposals(context, coveringNode, coveredNodes, null)
-				|| getConvertToMultiCatchProposals(context, coveringNode, null)
-				|| getUnrollMultiCatchProposals(context, coveringNode, null)
-				|| getRenameLocalProposals(context, coveringNode, null, null)
-				|| getRenameRefactoringProposal(context, coveringNode, null, null)
-				|| getAssignToVariableProposals(context, coveringNode, null, null)
-				|| getUnWrapProposals(context, coveringNode, null)
-				|| getAssignParamToFieldProposals(context, coveringNode, null)
-				|| getAssignAllParamsToFieldsProposals(context, coveringNode, null)
-				|| getJoinVariableProposals(context, coveringNode, null)
-				|| getAddFinallyProposals(context, coveringNode, null)
-				|| getAddElseProposals(context, coveringNode, null)
-				|| getSplitVariableProposals(context, coveringNode, null)
-				|| getAddBlockProposals(context, coveringNode, null)
-				|| getArrayInitializerToArrayCreation(context, coveringNode, null)
-				|| getCreateInSuperClassProposals(context, coveringNode, null)
-				|| getInvertEqualsProposal(context, coveringNode, null)
-				|| getConvertForLoopProposal(context, coveringNode, null)
-				|| getConvertIterableLoopProposal(context, coveringNode, null)
-				|| getConvertEnhancedForLoopProposal(context, coveringNode, null)
-				|| getGenerateForLoopProposals(context, coveringNode, null, null)
-				|| getExtractVariableProposal(context, false, null)
-				|| getExtractMethodProposal(context, coveringNode, false, null)
-				|| getInlineLocalProposal(context, coveringNode, null)
-				|| getConvertLocalToFieldProposal(context, coveringNode, null)
-				|| getConvertAnonymousToNestedProposal(context, coveringNode, null)
-				|| getConvertAnonymousClassCreationsToLambdaProposals(context, coveringNode, null)
-				|| getConvertLambdaToAnonymousClassCreationsProposals(context, coveringNode, null)
-				|| getChangeLambdaBodyToBlockProposal(context, coveringNode, null)
-				|| getChangeLambdaBodyToExpressionProposal(context, coveringNode, null)
-				|| getAddInferredLambdaParameterTypes(context, coveringNode, null)
-				|| getConvertMethodReferenceToLambdaProposal(context, coveringNode, null)
-				|| getConvertLambdaToMethodReferenceProposal(context, coveringNode, null)
-				|| getFixParenthesesInLambdaExpression(context, coveringNode, null)
-				|| getRemoveBlockProposals(context, coveringNode, null)
-				|| getMakeVariableDeclarationFinalProposals(context, null)
-				|| getMissingCaseStatementProposals(context, coveringNode, null)
-				|| getConvertStringConcatenationProposals(context, null)
-				|| getInferDiamondArgumentsProposal(context, coveringNode, null, null);
+			return QuickAssistPredicate.hasAssists(ASSIST_PREDICATES, context, coveringNode, coveredNodes);
 		}
 		return false;
 	}
@@ -1442,7 +1651,7 @@ public class QuickAssistProcessor implements IQuickAssistProcessor {
 			FixCorrectionProposal proposal= new FixCorrectionProposal(fix, new TypeParametersCleanUp(options), relevance, image, context);
 			resultingCollections.add(proposal);
 		}
-		return true;
+		return fix != null;
 	}
 
 	private static boolean getJoinVariableProposals(IInvocationContext context, ASTNode node, Collection<ICommandAccess> resultingCollections) {
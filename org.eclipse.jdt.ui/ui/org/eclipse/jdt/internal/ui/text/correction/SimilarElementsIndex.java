@@ -0,0 +1,194 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.text.correction;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import org.eclipse.jdt.core.Signature;
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.BodyDeclaration;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.Name;
+import org.eclipse.jdt.core.dom.TypeDeclarationStatement;
+
+import org.eclipse.jdt.internal.corext.dom.ASTNodes;
+
+/**
+ * The types found by code completion for one scope of an AST and one first letter, used by
+ * {@link SimilarElementsRequestor} to answer the similar types of further unresolved names of the
+ * same AST without running code completion again.
+ * <p>
+ * A scope is the innermost body declaration of the unresolved name, together with the syntactic
+ * location of the name. Scopes that declare local types are not indexed, since the local types
+ * visible at a position depend on the position inside the scope. The candidates are grouped by the
+ * length of their simple name, so that a lookup only tests the names whose length allows
+ * {@link NameMatcher#isSimilarName(String, String)} to succeed: the shorter name must have at least
+ * half the length of the longer one.
+ * </p>
+ * <p>
+ * Only the indexes of the last AST are kept. A reconcile creates a new AST, so the indexes never
+ * outlive a change of the compilation unit.
+ * </p>
+ *
+ * @since 3.13
+ */
+public final class SimilarElementsIndex {
+
+	/**
+	 * A type reported by code completion.
+	 */
+	static final class Candidate {
+		final char[] fSignature;
+		final int fFlags;
+		final int fRelevance;
+
+		Candidate(char[] signature, int flags, int relevance) {
+			fSignature= signature;
+			fFlags= flags;
+			fRelevance= relevance;
+		}
+	}
+
+	private static WeakReference<CompilationUnit> fgAST;
+	private static final HashMap<String, SimilarElementsIndex> fgIndexes= new HashMap<>();
+
+	/**
+	 * Returns the index for an unresolved name.
+	 *
+	 * @param name the unresolved name, not inside a Javadoc comment
+	 * @return the index, or <code>null</code> if not built yet
+	 */
+	public static SimilarElementsIndex get(Name name) {
+		String key= getKey(name);
+		if (key == null)
+			return null;
+		CompilationUnit astRoot= (CompilationUnit) name.getRoot();
+		synchronized (SimilarElementsIndex.class) {
+			if (fgAST == null || fgAST.get() != astRoot)
+				return null;
+			return fgIndexes.get(key);
+		}
+	}
+
+	/**
+	 * Remembers the index for an unresolved name. Drops the indexes of other ASTs.
+	 *
+	 * @param name the unresolved name the index was built for
+	 * @param index the index, which must not be modified anymore
+	 */
+	static void put(Name name, SimilarElementsIndex index) {
+		String key= getKey(name);
+		if (key == null)
+			return;
+		CompilationUnit astRoot= (CompilationUnit) name.getRoot();
+		synchronized (SimilarElementsIndex.class) {
+			if (fgAST == null || fgAST.get() != astRoot) {
+				fgIndexes.clear();
+				fgAST= new WeakReference<>(astRoot);
+			}
+			fgIndexes.put(key, index);
+		}
+	}
+
+	/*
+	 * Code completion runs with the first letter of the name as prefix, which is matched
+	 * case-insensitively. The kinds of types it reports depend on the syntactic location, e.g. only
+	 * annotation types are reported for an annotation name and only exception types for a thrown
+	 * or caught type. The location up to the grandparent is part of the key, which tells a
+	 * supertype, a thrown type, a caught type and a parameter type apart.
+	 * Completion of a qualified name reports the members of the qualifier, it is not indexed.
+	 */
+	private static String getKey(Name name) {
+		if (!(name.getRoot() instanceof CompilationUnit) || name.isQualifiedName())
+			return null;
+		ASTNode scope= name;
+		while (scope != null && !(scope instanceof BodyDeclaration)) {
+			scope= scope.getParent();
+		}
+		if (scope == null || declaresLocalTypes(scope))
+			return null;
+		String identifier= ASTNodes.getSimpleNameIdentifier(name);
+		if (identifier.length() == 0)
+			return null;
+		ASTNode parent= name.getParent();
+		ASTNode grandparent= parent.getParent();
+		StringBuffer key= new StringBuffer();
+		key.append(scope.getStartPosition()).append(':');
+		key.append(parent.getNodeType()).append(':').append(name.getLocationInParent().getId()).append(':');
+		if (grandparent != null)
+			key.append(grandparent.getNodeType()).append(':').append(parent.getLocationInParent().getId()).append(':');
+		if (grandparent != null && grandparent.getParent() != null)
+			key.append(grandparent.getLocationInParent().getId()).append(':');
+		key.append(Character.toLowerCase(identifier.charAt(0)));
+		return key.toString();
+	}
+
+	private static boolean declaresLocalTypes(ASTNode scope) {
+		final boolean[] result= new boolean[1];
+		scope.accept(new ASTVisitor() {
+			@Override
+			public boolean preVisit2(ASTNode node) {
+				return !result[0];
+			}
+
+			@Override
+			public boolean visit(TypeDeclarationStatement node) {
+				result[0]= true;
+				return false;
+			}
+		});
+		return result[0];
+	}
+
+	private final ArrayList<ArrayList<Candidate>> fCandidatesByLength= new ArrayList<>();
+
+	/**
+	 * Adds a type reported by code completion.
+	 *
+	 * @param signature the type signature
+	 * @param flags the modifier flags
+	 * @param relevance the relevance
+	 */
+	void add(char[] signature, int flags, int relevance) {
+		int length= Signature.getSimpleName(new String(Signature.toCharArray(Signature.getTypeErasure(signature)))).length();
+		while (fCandidatesByLength.size() <= length) {
+			fCandidatesByLength.add(null);
+		}
+		ArrayList<Candidate> candidates= fCandidatesByLength.get(length);
+		if (candidates == null) {
+			candidates= new ArrayList<>();
+			fCandidatesByLength.set(length, candidates);
+		}
+		candidates.add(new Candidate(signature, flags, relevance));
+	}
+
+	/**
+	 * Returns the types whose simple name is long enough and short enough to be similar to the
+	 * given name.
+	 *
+	 * @param name the unresolved name
+	 * @return the candidates, to be tested with {@link NameMatcher}
+	 */
+	ArrayList<Candidate> getCandidates(String name) {
+		ArrayList<Candidate> result= new ArrayList<>();
+		int min= (name.length() + 1) / 2;
+		int max= Math.min(2 * name.length(), fCandidatesByLength.size() - 1);
+		for (int length= min; length <= max; length++) {
+			ArrayList<Candidate> candidates= fCandidatesByLength.get(length);
+			if (candidates != null)
+				result.addAll(candidates);
+		}
+		return result;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,6 +10,7 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.ui.text.correction;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 
 import org.eclipse.jdt.core.CompletionProposal;
@@ -49,6 +50,12 @@ public class SimilarElementsRequestor extends CompletionRequestor {
 
 	private HashSet<SimilarElement> fResult;
 
+	/**
+	 * The index to which all types found by code completion are added, or <code>null</code>.
+	 * @since 3.13
+	 */
+	private SimilarElementsIndex fIndex;
+
 	public static SimilarElement[] findSimilarElement(ICompilationUnit cu, Name name, int kind) throws JavaModelException {
 		int pos= name.getStartPosition();
 		int nArguments= -1;
@@ -70,23 +77,18 @@ public class SimilarElementsRequestor extends CompletionRequestor {
 			}
 
 			SimilarElementsRequestor requestor= new SimilarElementsRequestor(identifier, kind, nArguments, returnType);
-			requestor.setIgnored(CompletionProposal.ANONYMOUS_CLASS_DECLARATION, true);
-			requestor.setIgnored(CompletionProposal.ANONYMOUS_CLASS_CONSTRUCTOR_INVOCATION, true);
-			requestor.setIgnored(CompletionProposal.KEYWORD, true);
-			requestor.setIgnored(CompletionProposal.LABEL_REF, true);
-			requestor.setIgnored(CompletionProposal.METHOD_DECLARATION, true);
-			requestor.setIgnored(CompletionProposal.PACKAGE_REF, true);
-			requestor.setIgnored(CompletionProposal.VARIABLE_DECLARATION, true);
-			requestor.setIgnored(CompletionProposal.METHOD_REF, true);
-			requestor.setIgnored(CompletionProposal.CONSTRUCTOR_INVOCATION, true);
-			requestor.setIgnored(CompletionProposal.METHOD_REF_WITH_CASTED_RECEIVER, true);
-			requestor.setIgnored(CompletionProposal.FIELD_REF, true);
-			requestor.setIgnored(CompletionProposal.FIELD_REF_WITH_CASTED_RECEIVER, true);
-			requestor.setIgnored(CompletionProposal.LOCAL_VARIABLE_REF, true);
-			requestor.setIgnored(CompletionProposal.VARIABLE_DECLARATION, true);
-			requestor.setIgnored(CompletionProposal.VARIABLE_DECLARATION, true);
-			requestor.setIgnored(CompletionProposal.POTENTIAL_METHOD_DECLARATION, true);
-			requestor.setIgnored(CompletionProposal.METHOD_NAME_REFERENCE, true);
+			if (javadoc == null) {
+				// the types found for a previous unresolved name of the same AST and scope
+				SimilarElementsIndex index= SimilarElementsIndex.get(name);
+				if (index != null) {
+					return requestor.process(index);
+				}
+				index= new SimilarElementsIndex();
+				requestor.fIndex= index;
+				SimilarElement[] result= requestor.process(cu, pos);
+				SimilarElementsIndex.put(name, index);
+				return result;
+			}
 			return requestor.process(cu, pos);
 		} finally {
 			if (preparedCU != null) {
@@ -132,6 +134,22 @@ public class SimilarElementsRequestor extends CompletionRequestor {
 
 		fResult= new HashSet<>();
 		// nArguments and preferredType not yet used
+
+		setIgnored(CompletionProposal.ANONYMOUS_CLASS_DECLARATION, true);
+		setIgnored(CompletionProposal.ANONYMOUS_CLASS_CONSTRUCTOR_INVOCATION, true);
+		setIgnored(CompletionProposal.KEYWORD, true);
+		setIgnored(CompletionProposal.LABEL_REF, true);
+		setIgnored(CompletionProposal.METHOD_DECLARATION, true);
+		setIgnored(CompletionProposal.PACKAGE_REF, true);
+		setIgnored(CompletionProposal.VARIABLE_DECLARATION, true);
+		setIgnored(CompletionProposal.METHOD_REF, true);
+		setIgnored(CompletionProposal.CONSTRUCTOR_INVOCATION, true);
+		setIgnored(CompletionProposal.METHOD_REF_WITH_CASTED_RECEIVER, true);
+		setIgnored(CompletionProposal.FIELD_REF, true);
+		setIgnored(CompletionProposal.FIELD_REF_WITH_CASTED_RECEIVER, true);
+		setIgnored(CompletionProposal.LOCAL_VARIABLE_REF, true);
+		setIgnored(CompletionProposal.POTENTIAL_METHOD_DECLARATION, true);
+		setIgnored(CompletionProposal.METHOD_NAME_REFERENCE, true);
 	}
 
 	private void addResult(SimilarElement elem) {
@@ -148,6 +166,20 @@ public class SimilarElementsRequestor extends CompletionRequestor {
 		}
 	}
 
+	private SimilarElement[] process(SimilarElementsIndex index) {
+		try {
+			ArrayList<SimilarElementsIndex.Candidate> candidates= index.getCandidates(fName);
+			for (int i= 0; i < candidates.size(); i++) {
+				SimilarElementsIndex.Candidate curr= candidates.get(i);
+				addType(curr.fSignature, curr.fFlags, curr.fRelevance);
+			}
+			processKeywords();
+			return fResult.toArray(new SimilarElement[fResult.size()]);
+		} finally {
+			fResult.clear();
+		}
+	}
+
 	private boolean isKind(int kind) {
 		return (fKind & kind) != 0;
 	}
@@ -206,6 +238,9 @@ public class SimilarElementsRequestor extends CompletionRequestor {
 	@Override
 	public void accept(CompletionProposal proposal) {
 		if (proposal.getKind() == CompletionProposal.TYPE_REF) {
+			if (fIndex != null) {
+				fIndex.add(proposal.getSignature(), proposal.getFlags(), proposal.getRelevance());
+			}
 			addType(proposal.getSignature(), proposal.getFlags(), proposal.getRelevance());
 		}
 	}
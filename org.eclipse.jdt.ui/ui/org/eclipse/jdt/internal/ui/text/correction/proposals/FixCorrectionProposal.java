@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,6 +11,9 @@
 package org.eclipse.jdt.internal.ui.text.correction.proposals;
 
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.graphics.Image;
@@ -21,7 +24,9 @@ import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubProgressMonitor;
 
 import org.eclipse.jface.operation.IRunnableContext;
 import org.eclipse.jface.operation.IRunnableWithProgress;
@@ -38,6 +43,7 @@ import org.eclipse.ltk.core.refactoring.RefactoringCore;
 import org.eclipse.ltk.core.refactoring.TextChange;
 import org.eclipse.ltk.core.refactoring.TextFileChange;
 
+import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jdt.core.refactoring.CompilationUnitChange;
 
@@ -68,6 +74,13 @@ import org.eclipse.jdt.internal.ui.viewsupport.ImageImageDescriptor;
  */
 public class FixCorrectionProposal extends LinkedCorrectionProposal implements ICompletionProposalExtension2, IStatusLineProposal {
 
+	/**
+	 * The maximal number of compilation units changed by one refactoring when a multi-fix is
+	 * resolved. Larger multi-fixes are split, so that the changes of all compilation units are not
+	 * held in memory at the same time.
+	 */
+	private static final int MAX_UNITS_PER_CHANGE= 100;
+
 	private final IProposableFix fFix;
 	private final ICleanUp fCleanUp;
 	private CompilationUnit fCompilationUnit;
@@ -179,13 +192,25 @@ public class FixCorrectionProposal extends LinkedCorrectionProposal implements I
 		apply(viewer.getDocument());
 	}
 
-	public void resolve(MultiFixTarget[] targets, final IProgressMonitor monitor) throws CoreException {
+	/**
+	 * Resolves the given targets. The targets are split by project and into chunks of at most
+	 * {@link #MAX_UNITS_PER_CHANGE} compilation units. Each chunk is performed as one change, and
+	 * cancellation is checked between the chunks.
+	 *
+	 * @param targets the targets to fix
+	 * @param monitor the progress monitor, or <code>null</code>
+	 * @throws CoreException if a chunk could not be performed
+	 */
+	public void resolve(MultiFixTarget[] targets, IProgressMonitor monitor) throws CoreException {
 		if (targets.length == 0)
 			return;
 
 		if (fCleanUp == null)
 			return;
 
+		if (monitor == null)
+			monitor= new NullProgressMonitor();
+
 		String changeName;
 		String[] descriptions= fCleanUp.getStepDescriptions();
 		if (descriptions.length == 1) {
@@ -194,6 +219,22 @@ public class FixCorrectionProposal extends LinkedCorrectionProposal implements I
 			changeName= CorrectionMessages.FixCorrectionProposal_MultiFixChange_label;
 		}
 
+		MultiFixTarget[][] chunks= splitTargets(targets, MAX_UNITS_PER_CHANGE);
+		monitor.beginTask("", targets.length); //$NON-NLS-1$
+		try {
+			for (int i= 0; i < chunks.length; i++) {
+				if (monitor.isCanceled())
+					throw new OperationCanceledException();
+
+				if (!resolve(chunks[i], changeName, new SubProgressMonitor(monitor, chunks[i].length)))
+					return;
+			}
+		} finally {
+			monitor.done();
+		}
+	}
+
+	private boolean resolve(MultiFixTarget[] targets, String changeName, final IProgressMonitor monitor) throws CoreException {
 		final CleanUpRefactoring refactoring= new CleanUpRefactoring(changeName);
 		for (int i= 0; i < targets.length; i++) {
 			refactoring.addCleanUpTarget(targets[i]);
@@ -204,7 +245,7 @@ public class FixCorrectionProposal extends LinkedCorrectionProposal implements I
 		IRunnableContext context= new IRunnableContext() {
 			@Override
 			public void run(boolean fork, boolean cancelable, IRunnableWithProgress runnable) throws InvocationTargetException, InterruptedException {
-				runnable.run(monitor == null ? new NullProgressMonitor() : monitor);
+				runnable.run(monitor);
 			}
 		};
 
@@ -212,7 +253,9 @@ public class FixCorrectionProposal extends LinkedCorrectionProposal implements I
 		RefactoringExecutionHelper helper= new RefactoringExecutionHelper(refactoring, IStatus.INFO, RefactoringSaveHelper.SAVE_REFACTORING, shell, context);
 		try {
 			helper.perform(true, true);
+			return true;
 		} catch (InterruptedException e) {
+			return false;
 		} catch (InvocationTargetException e) {
 			Throwable cause= e.getCause();
 			if (cause instanceof CoreException) {
@@ -223,6 +266,37 @@ public class FixCorrectionProposal extends LinkedCorrectionProposal implements I
 		}
 	}
 
+	/**
+	 * Splits the given targets into chunks. The targets of a chunk belong to the same project, and
+	 * a chunk contains at most <code>maxUnits</code> targets. The order of the targets of each
+	 * project is kept.
+	 *
+	 * @param targets the targets to split
+	 * @param maxUnits the maximal number of targets of a chunk
+	 * @return the chunks
+	 */
+	public static MultiFixTarget[][] splitTargets(MultiFixTarget[] targets, int maxUnits) {
+		LinkedHashMap<IJavaProject, List<MultiFixTarget>> projectTargets= new LinkedHashMap<>();
+		for (int i= 0; i < targets.length; i++) {
+			IJavaProject project= targets[i].getCompilationUnit().getJavaProject();
+			List<MultiFixTarget> list= projectTargets.get(project);
+			if (list == null) {
+				list= new ArrayList<>();
+				projectTargets.put(project, list);
+			}
+			list.add(targets[i]);
+		}
+
+		List<MultiFixTarget[]> result= new ArrayList<>();
+		for (List<MultiFixTarget> list : projectTargets.values()) {
+			for (int start= 0; start < list.size(); start+= maxUnits) {
+				List<MultiFixTarget> chunk= list.subList(start, Math.min(start + maxUnits, list.size()));
+				result.add(chunk.toArray(new MultiFixTarget[chunk.size()]));
+			}
+		}
+		return result.toArray(new MultiFixTarget[result.size()][]);
+	}
+
 	@Override
 	public void selected(ITextViewer viewer, boolean smartToggle) {
 	}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2016 IBM Corporation and others.
+ * Copyright (c) 2005, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -270,6 +270,20 @@ public abstract class AbstractJavaCompletionProposal implements IJavaCompletionP
 	 */
 	private ITextPresentationListener fTextPresentationListener;
 
+	/**
+	 * The match index of the content assist session, <code>null</code> if not yet looked up or if
+	 * this proposal has no invocation context.
+	 * @since 3.13
+	 */
+	private ProposalMatchIndex fMatchIndex;
+
+	/**
+	 * The string that was last matched against a pattern, and its characters.
+	 * @since 3.13
+	 */
+	private String fMatchString;
+	private char[] fMatchStringChars;
+
 	protected AbstractJavaCompletionProposal() {
 		fInvocationContext= null;
 	}
@@ -871,6 +885,12 @@ public abstract class AbstractJavaCompletionProposal implements IJavaCompletionP
 	 * @since 3.2
 	 */
 	protected String getPrefix(IDocument document, int offset) {
+		ProposalMatchIndex index= getMatchIndex();
+		if (index != null) {
+			String prefix= index.getText(document, getReplacementOffset(), offset);
+			return prefix != null ? prefix : ""; //$NON-NLS-1$
+		}
+
 		try {
 			int length= offset - getReplacementOffset();
 			if (length > 0)
@@ -909,25 +929,63 @@ public abstract class AbstractJavaCompletionProposal implements IJavaCompletionP
 	 * @since 3.12
 	 */
 	protected int getPatternMatchRule(String pattern, String string) {
-		String start;
-		try {
-			start= string.substring(0, pattern.length());
-		} catch (StringIndexOutOfBoundsException e) {
+		if (pattern.length() > string.length()) {
 			String message= "Error retrieving proposal text.\nDisplay string:\n" + string + "\nPattern:\n" + pattern; //$NON-NLS-1$//$NON-NLS-2$
-			JavaPlugin.log(new Status(IStatus.ERROR, JavaPlugin.getPluginId(), IStatus.OK, message, e));
+			JavaPlugin.log(new Status(IStatus.ERROR, JavaPlugin.getPluginId(), IStatus.OK, message, new StringIndexOutOfBoundsException(pattern.length())));
 			return -1;
 		}
-		if (start.equalsIgnoreCase(pattern)) {
+		if (string.regionMatches(true, 0, pattern, 0, pattern.length())) {
 			return SearchPattern.R_PREFIX_MATCH;
-		} else if (isCamelCaseMatching() && CharOperation.camelCaseMatch(pattern.toCharArray(), string.toCharArray())) {
+		} else if (isCamelCaseMatching() && CharOperation.camelCaseMatch(getPatternChars(pattern), getMatchStringChars(string))) {
 			return SearchPattern.R_CAMELCASE_MATCH;
-		} else if (isSubstringMatching() && CharOperation.substringMatch(pattern.toCharArray(), string.toCharArray())) {
+		} else if (isSubstringMatching() && CharOperation.substringMatch(getPatternChars(pattern), getMatchStringChars(string))) {
 			return SearchPattern.R_SUBSTRING_MATCH;
 		} else {
 			return -1;
 		}
 	}
 
+	/**
+	 * Returns the characters of the given pattern, shared with the other proposals of the session.
+	 *
+	 * @param pattern the pattern
+	 * @return the characters of the pattern, must not be modified
+	 * @since 3.13
+	 */
+	private char[] getPatternChars(String pattern) {
+		ProposalMatchIndex index= getMatchIndex();
+		return index != null ? index.getPatternChars(pattern) : pattern.toCharArray();
+	}
+
+	/**
+	 * Returns the characters of the given string that is matched against a pattern. The
+	 * characters are remembered, since proposals are matched against the same strings on each
+	 * keystroke.
+	 *
+	 * @param string the string
+	 * @return the characters of the string, must not be modified
+	 * @since 3.13
+	 */
+	private char[] getMatchStringChars(String string) {
+		if (!string.equals(fMatchString)) {
+			fMatchString= string;
+			fMatchStringChars= string.toCharArray();
+		}
+		return fMatchStringChars;
+	}
+
+	/**
+	 * Returns the match index of the content assist session this proposal belongs to.
+	 *
+	 * @return the match index or <code>null</code> if this proposal has no invocation context
+	 * @since 3.13
+	 */
+	private ProposalMatchIndex getMatchIndex() {
+		if (fMatchIndex == null)
+			fMatchIndex= ProposalMatchIndex.getIndex(fInvocationContext);
+		return fMatchIndex;
+	}
+
 	/**
 	 * Matches <code>prefix</code> against <code>string</code> and replaces the matched region
 	 * by prefix. Case is preserved as much as possible. This method returns <code>string</code> if camel case completion
@@ -971,6 +1029,9 @@ public abstract class AbstractJavaCompletionProposal implements IJavaCompletionP
 	 * @since 3.2
 	 */
 	protected boolean isCamelCaseMatching() {
+		ProposalMatchIndex index= getMatchIndex();
+		if (index != null)
+			return index.isCamelCaseMatching();
 		String value= JavaCore.getOption(JavaCore.CODEASSIST_CAMEL_CASE_MATCH);
 		return JavaCore.ENABLED.equals(value);
 	}
@@ -982,6 +1043,9 @@ public abstract class AbstractJavaCompletionProposal implements IJavaCompletionP
 	 * @since 3.12
 	 */
 	protected boolean isSubstringMatching() {
+		ProposalMatchIndex index= getMatchIndex();
+		if (index != null)
+			return index.isSubstringMatching();
 		String value= JavaCore.getOption(JavaCore.CODEASSIST_SUBSTRING_MATCH);
 		return JavaCore.ENABLED.equals(value);
 	}
@@ -1267,6 +1331,10 @@ public abstract class AbstractJavaCompletionProposal implements IJavaCompletionP
 	 */
 	protected String getPatternToEmphasizeMatch(IDocument document, int offset) {
 		int start= getPrefixCompletionStart(document, offset);
+		ProposalMatchIndex index= getMatchIndex();
+		if (index != null)
+			return index.getText(document, start, offset);
+
 		int patternLength= offset - start;
 		String pattern= null;
 		try {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2012 IBM Corporation and others.
+ * Copyright (c) 2005, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,14 +11,19 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.ui.text.java;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.osgi.framework.Bundle;
 
+import org.eclipse.swt.widgets.Display;
+
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IConfigurationElement;
@@ -64,6 +69,8 @@ final class CompletionProposalComputerDescriptor {
 	private static final String ACTIVATE= "activate"; //$NON-NLS-1$
 	/** The extension schema name of the needsSortingAfterFiltering attribute. */
 	private static final String NEEDS_SORTING_AFTER_FILTERING= "needsSortingAfterFiltering"; //$NON-NLS-1$
+	/** The extension schema name of the requiresUIThread attribute. */
+	private static final String REQUIRES_UI_THREAD= "requiresUIThread"; //$NON-NLS-1$
 	/** The extension schema name of the partition child elements. */
 	private static final String PARTITION= "partition"; //$NON-NLS-1$
 	/** Set of Java partition types. */
@@ -82,6 +89,13 @@ final class CompletionProposalComputerDescriptor {
 	 * {@link #fIsReportingDelay}.
 	 */
 	private static final long MAX_DELAY= 5000;
+	/**
+	 * Interval in milliseconds in which a computation waiting for a previous computation of the
+	 * same computer checks for cancellation.
+	 *
+	 * @since 3.13
+	 */
+	private static final long CANCEL_CHECK_INTERVAL= 100;
 
 	/* log constants */
 	private static final String COMPUTE_COMPLETION_PROPOSALS= "computeCompletionProposals()"; //$NON-NLS-1$
@@ -144,6 +158,36 @@ final class CompletionProposalComputerDescriptor {
 	 */
 	private boolean fNeedsSortingAfterFiltering;
 
+	/**
+	 * Tells whether the computer must be called in the UI thread.
+	 *
+	 * @since 3.13
+	 */
+	private final boolean fRequiresUIThread;
+
+	/**
+	 * Held while the computer computes proposals. A computer that exceeded its deadline may still
+	 * be running when the next computation starts, which then waits for it.
+	 *
+	 * @since 3.13
+	 */
+	private final ReentrantLock fComputationLock= new ReentrantLock();
+
+	/**
+	 * The problems that occurred outside the UI thread and have not been reported to the user yet.
+	 *
+	 * @since 3.13
+	 */
+	private final List<IStatus> fDeferredProblems= new ArrayList<>();
+
+	/**
+	 * The latencies of the proposal computations, recorded independently of the
+	 * {@link PerformanceStats} service.
+	 *
+	 * @since 3.13
+	 */
+	private final LatencyHistogram fLatencies= new LatencyHistogram();
+
 
 	/**
 	 * Creates a new descriptor.
@@ -189,6 +233,9 @@ final class CompletionProposalComputerDescriptor {
 		String needsSortingAfterFilteringAttribute= element.getAttribute(NEEDS_SORTING_AFTER_FILTERING);
 		fNeedsSortingAfterFiltering= Boolean.valueOf(needsSortingAfterFilteringAttribute).booleanValue();
 
+		String requiresUIThreadAttribute= element.getAttribute(REQUIRES_UI_THREAD);
+		fRequiresUIThread= requiresUIThreadAttribute == null || Boolean.valueOf(requiresUIThreadAttribute).booleanValue();
+
 		fClass= element.getAttribute(CLASS);
 		checkNotNull(fClass, CLASS);
 
@@ -322,6 +369,13 @@ final class CompletionProposalComputerDescriptor {
 		if (!isEnabled())
 			return Collections.emptyList();
 
+		if (!lockComputation(monitor)) {
+			// still busy with a computation that exceeded its deadline
+			fLatencies.recordTimeout();
+			monitor.done();
+			return Collections.emptyList();
+		}
+
 		IStatus status;
 		try {
 			IJavaCompletionProposalComputer computer= getComputer(true);
@@ -330,7 +384,9 @@ final class CompletionProposalComputerDescriptor {
 
 			try {
 				PerformanceStats stats= startMeter(context, computer);
+				long start= System.currentTimeMillis();
 				List<ICompletionProposal> proposals= computer.computeCompletionProposals(context, monitor);
+				fLatencies.record(System.currentTimeMillis() - start);
 				stopMeter(stats, COMPUTE_COMPLETION_PROPOSALS);
 
 				if (proposals != null) {
@@ -346,16 +402,64 @@ final class CompletionProposalComputerDescriptor {
 		} catch (CoreException x) {
 			status= createExceptionStatus(x);
 		} catch (RuntimeException x) {
+			// an abandoned computation may read the document while it is changed, its result is not used
+			if (monitor.isCanceled())
+				return Collections.emptyList();
 			status= createExceptionStatus(x);
 		} finally {
+			fComputationLock.unlock();
 			monitor.done();
 		}
 
-		fRegistry.informUser(this, status);
+		informUser(status);
 
 		return Collections.emptyList();
 	}
 
+	/**
+	 * Waits until no other thread computes proposals with the described computer and locks it. A
+	 * computation waiting in the UI thread gives up after {@link #MAX_DELAY} milliseconds.
+	 *
+	 * @param monitor the progress monitor of the waiting computation
+	 * @return <code>true</code> if the computer was locked, <code>false</code> if the monitor was
+	 *         canceled or the wait timed out
+	 * @since 3.13
+	 */
+	private boolean lockComputation(IProgressMonitor monitor) {
+		long deadline= Display.getCurrent() != null ? System.currentTimeMillis() + MAX_DELAY : Long.MAX_VALUE;
+		try {
+			while (!fComputationLock.tryLock(CANCEL_CHECK_INTERVAL, TimeUnit.MILLISECONDS)) {
+				if (monitor.isCanceled() || System.currentTimeMillis() > deadline)
+					return false;
+			}
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	/**
+	 * Tells whether the described computer must be called in the UI thread. Computers that do not
+	 * require the UI thread can be run concurrently with other computers.
+	 *
+	 * @return <code>true</code> if the computer must be called in the UI thread
+	 * @since 3.13
+	 */
+	public boolean requiresUIThread() {
+		return fRequiresUIThread;
+	}
+
+	/**
+	 * Returns the latencies of the proposal computations of the described computer.
+	 *
+	 * @return the latency histogram
+	 * @since 3.13
+	 */
+	LatencyHistogram getLatencyHistogram() {
+		return fLatencies;
+	}
+
 	/**
 	 * Safely computes context information objects through the described extension. If the extension
 	 * is disabled, throws an exception or otherwise does not adhere to the contract described in
@@ -396,7 +500,7 @@ final class CompletionProposalComputerDescriptor {
 			monitor.done();
 		}
 
-		fRegistry.informUser(this, status);
+		informUser(status);
 
 		return Collections.emptyList();
 	}
@@ -432,7 +536,7 @@ final class CompletionProposalComputerDescriptor {
 			status= createExceptionStatus(x);
 		}
 
-		fRegistry.informUser(this, status);
+		informUser(status);
 	}
 
 	/**
@@ -465,9 +569,44 @@ final class CompletionProposalComputerDescriptor {
 			status= createExceptionStatus(x);
 		}
 
+		informUser(status);
+	}
+
+	/**
+	 * Reports a problem to the user. Problems that occur outside the UI thread are deferred until
+	 * {@link #reportDeferredProblems()} is called.
+	 *
+	 * @param status the problem
+	 * @since 3.13
+	 */
+	private void informUser(IStatus status) {
+		if (Display.getCurrent() == null) {
+			synchronized (fDeferredProblems) {
+				fDeferredProblems.add(status);
+			}
+			return;
+		}
 		fRegistry.informUser(this, status);
 	}
 
+	/**
+	 * Reports the problems that occurred while proposals were computed outside the UI thread.
+	 * Must be called in the UI thread.
+	 *
+	 * @since 3.13
+	 */
+	void reportDeferredProblems() {
+		IStatus[] problems;
+		synchronized (fDeferredProblems) {
+			if (fDeferredProblems.isEmpty())
+				return;
+			problems= fDeferredProblems.toArray(new IStatus[fDeferredProblems.size()]);
+			fDeferredProblems.clear();
+		}
+		for (int i= 0; i < problems.length; i++)
+			fRegistry.informUser(this, problems[i]);
+	}
+
 	private PerformanceStats startMeter(Object context, IJavaCompletionProposalComputer computer) {
 		final PerformanceStats stats;
 		if (MEASURE_PERFORMANCE) {
@@ -489,7 +628,7 @@ final class CompletionProposalComputerDescriptor {
 			stats.endRun();
 			if (stats.isFailure()) {
 				IStatus status= createPerformanceStatus(operation);
-				fRegistry.informUser(this, status);
+				informUser(status);
 				return;
 			}
 		}
@@ -498,7 +637,7 @@ final class CompletionProposalComputerDescriptor {
 			long current= System.currentTimeMillis();
 			if (current - fStart > MAX_DELAY) {
 				IStatus status= createPerformanceStatus(operation);
-				fRegistry.informUser(this, status);
+				informUser(status);
 			}
 		}
 	}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2011 IBM Corporation and others.
+ * Copyright (c) 2005, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,9 +10,18 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.ui.text.java;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -20,6 +29,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -50,10 +60,17 @@ import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Preferences;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 
+import org.eclipse.jdt.core.ElementChangedEvent;
 import org.eclipse.jdt.core.Flags;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
 import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.ITypeHierarchy;
+import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.JavaModelException;
 
 import org.eclipse.jdt.internal.ui.JavaPlugin;
@@ -62,6 +79,11 @@ import org.eclipse.jdt.internal.ui.JavaUIStatus;
 
 /**
  * An LRU cache for code assist.
+ * <p>
+ * Resolving the supertypes of a selected type is memoized per type, and can be moved off the UI
+ * thread using {@link #rememberInBackground(IType, IType)}. Once a {@link #setStoreFile(File) store
+ * file} is set, the history saves itself in a compact binary format shortly after it changed.
+ * </p>
  *
  * @since 3.2
  */
@@ -161,7 +183,7 @@ public final class ContentAssistHistory {
 									if (rhsElement.getNodeName().equalsIgnoreCase(NODE_RHS)) {
 										String rhs= rhsElement.getAttribute(ATTRIBUTE_NAME);
 										if (rhs != null) {
-											cache.add(rhs);
+											cache.add(history.intern(rhs));
 										}
 									}
 								}
@@ -190,6 +212,114 @@ public final class ContentAssistHistory {
 		}
 	}
 
+	/**
+	 * Compact binary persistence implementation. Every type name is written once into a name
+	 * table, the left and right hand sides refer to it by index.
+	 *
+	 * @since 3.13
+	 */
+	private static final class BinaryReaderWriter {
+
+		private static final int MAGIC= 0x43414831; // "CAH1"
+		private static final int VERSION= 1;
+
+		public void store(ContentAssistHistory history, DataOutputStream out) throws IOException {
+			Map<String, Integer> names= new HashMap<>();
+			List<String> nameTable= new ArrayList<>();
+			List<int[]> entries= new ArrayList<>();
+			int maxLHS;
+			int maxRHS;
+			synchronized (history) {
+				maxLHS= history.fMaxLHS;
+				maxRHS= history.fMaxRHS;
+				for (Iterator<Entry<String, MRUSet<String>>> it= history.fLHSCache.entrySet().iterator(); it.hasNext();) {
+					Entry<String, MRUSet<String>> entry= it.next();
+					MRUSet<String> rightHandSides= entry.getValue();
+					int[] entryIndices= new int[rightHandSides.size() + 1];
+					entryIndices[0]= getNameIndex(entry.getKey(), names, nameTable);
+					int i= 1;
+					for (Iterator<String> rhsIterator= rightHandSides.iterator(); rhsIterator.hasNext(); i++)
+						entryIndices[i]= getNameIndex(rhsIterator.next(), names, nameTable);
+					entries.add(entryIndices);
+				}
+			}
+
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(maxLHS);
+			out.writeInt(maxRHS);
+			out.writeInt(nameTable.size());
+			for (int i= 0, n= nameTable.size(); i < n; i++)
+				out.writeUTF(nameTable.get(i));
+			out.writeInt(entries.size());
+			for (int i= 0, n= entries.size(); i < n; i++) {
+				int[] entryIndices= entries.get(i);
+				out.writeInt(entryIndices.length - 1);
+				for (int j= 0; j < entryIndices.length; j++)
+					out.writeInt(entryIndices[j]);
+			}
+		}
+
+		public ContentAssistHistory load(DataInputStream in) throws IOException {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION)
+				return null;
+
+			int maxLHS= in.readInt();
+			int maxRHS= in.readInt();
+			ContentAssistHistory history= new ContentAssistHistory(maxLHS > 0 ? maxLHS : DEFAULT_TRACKED_LHS, maxRHS > 0 ? maxRHS : DEFAULT_TRACKED_RHS);
+
+			String[] nameTable= new String[in.readInt()];
+			for (int i= 0; i < nameTable.length; i++)
+				nameTable[i]= in.readUTF();
+
+			int entryCount= in.readInt();
+			for (int i= 0; i < entryCount; i++) {
+				int rhsCount= in.readInt();
+				Set<String> cache= history.getCache(getName(nameTable, in.readInt()));
+				for (int j= 0; j < rhsCount; j++)
+					cache.add(history.intern(getName(nameTable, in.readInt())));
+			}
+			return history;
+		}
+
+		private static int getNameIndex(String name, Map<String, Integer> names, List<String> nameTable) {
+			Integer index= names.get(name);
+			if (index == null) {
+				index= new Integer(nameTable.size());
+				names.put(name, index);
+				nameTable.add(name);
+			}
+			return index.intValue();
+		}
+
+		private static String getName(String[] nameTable, int index) throws IOException {
+			if (index < 0 || index >= nameTable.length)
+				throw new IOException("Corrupt content assist history: name index out of range"); //$NON-NLS-1$
+			return nameTable[index];
+		}
+	}
+
+	/**
+	 * The memoized result of resolving the supertypes of a right hand side.
+	 *
+	 * @since 3.13
+	 */
+	private static final class Supertypes {
+		/** <code>false</code> if the right hand side is an interface or an abstract type */
+		final boolean fIsCacheable;
+		/**
+		 * Maps the handle identifiers of the types in the right hand side's supertype hierarchy to
+		 * the qualified names of the cacheable left hand sides to remember when that type is the
+		 * expected type.
+		 */
+		final Map<String, String[]> fLeftHandSides;
+
+		Supertypes(boolean isCacheable, Map<String, String[]> leftHandSides) {
+			fIsCacheable= isCacheable;
+			fLeftHandSides= leftHandSides;
+		}
+	}
+
 	/**
 	 * Most recently used variant with capped size that only counts
 	 * {@linkplain #put(Object, Object) put} as access. This is implemented by always removing an
@@ -323,6 +453,15 @@ public final class ContentAssistHistory {
 	private static final RHSHistory EMPTY_HISTORY= new RHSHistory(null);
 	private static final int DEFAULT_TRACKED_LHS= 100;
 	private static final int DEFAULT_TRACKED_RHS= 10;
+	private static final int MEMOIZED_SUPERTYPES= 50;
+	private static final long SAVE_DELAY= 5000;
+	/**
+	 * The delta flags of a project, package fragment root or package fragment that may change the
+	 * supertypes of the types it contains.
+	 */
+	private static final int CONTAINER_HIERARCHY_FLAGS= IJavaElementDelta.F_CLASSPATH_CHANGED | IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED
+			| IJavaElementDelta.F_ADDED_TO_CLASSPATH | IJavaElementDelta.F_REMOVED_FROM_CLASSPATH | IJavaElementDelta.F_ARCHIVE_CONTENT_CHANGED
+			| IJavaElementDelta.F_OPENED | IJavaElementDelta.F_CLOSED | IJavaElementDelta.F_REORDER;
 
 	private static final Set<String> UNCACHEABLE;
 	static {
@@ -338,6 +477,43 @@ public final class ContentAssistHistory {
 	private final int fMaxLHS;
 	private final int fMaxRHS;
 
+	/**
+	 * Interned type names, so that a type remembered for several left hand sides is kept only
+	 * once. The least recently used names are dropped once the pool is full.
+	 */
+	private final Map<String, String> fNames;
+	/**
+	 * The computed histories by left hand side, discarded whenever the history changes.
+	 */
+	private final Map<String, RHSHistory> fHistories= new HashMap<>();
+	/**
+	 * Memoized supertype resolutions by handle identifier of the right hand side, discarded by
+	 * {@link #fSupertypesInvalidator} whenever a type hierarchy may have changed.
+	 */
+	private final Map<String, Supertypes> fSupertypes= new MRUMap<>(MEMOIZED_SUPERTYPES);
+	/**
+	 * Incremented whenever {@link #fSupertypes} is cleared, so that resolutions computed across a
+	 * change aren't memoized. Guarded by <code>fSupertypes</code>.
+	 */
+	private int fSupertypesGeneration;
+	/**
+	 * Clears {@link #fSupertypes}, registered while resolutions are memoized. Guarded by
+	 * <code>fSupertypes</code>.
+	 */
+	private IElementChangedListener fSupertypesInvalidator;
+	/**
+	 * Selections waiting to be remembered by {@link #fRememberJob}, elements are
+	 * <code>{lhs, rhs}</code> pairs.
+	 */
+	private final LinkedList<IType[]> fPendingSelections= new LinkedList<>();
+	private final Job fRememberJob;
+	private final Job fSaveJob;
+	private final Object fSaveLock= new Object();
+
+	private File fStoreFile;
+	private int fModificationCount;
+	private int fSavedModificationCount;
+
 	/**
 	 * Creates a new history.
 	 *
@@ -350,6 +526,43 @@ public final class ContentAssistHistory {
 		fMaxLHS= maxLHS;
 		fMaxRHS= maxRHS;
 		fLHSCache= new MRUMap<>(fMaxLHS);
+		final int maxNames= fMaxLHS * (fMaxRHS + 1);
+		fNames= new LinkedHashMap<String, String>(16, 0.75f, true) {
+			private static final long serialVersionUID= 1L;
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+				return size() > maxNames;
+			}
+		};
+
+		fRememberJob= new Job(JavaTextMessages.ContentAssistHistory_remember_job) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				IType[] selection;
+				while ((selection= pollPendingSelection()) != null) {
+					if (monitor.isCanceled())
+						return Status.CANCEL_STATUS;
+					remember(selection[0], selection[1]);
+				}
+				return Status.OK_STATUS;
+			}
+		};
+		fRememberJob.setSystem(true);
+		fRememberJob.setPriority(Job.DECORATE);
+
+		fSaveJob= new Job(JavaTextMessages.ContentAssistHistory_save_job) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				try {
+					save();
+				} catch (CoreException x) {
+					JavaPlugin.log(x);
+				}
+				return Status.OK_STATUS;
+			}
+		};
+		fSaveJob.setSystem(true);
+		fSaveJob.setPriority(Job.DECORATE);
 	}
 
 	/**
@@ -372,22 +585,36 @@ public final class ContentAssistHistory {
 		Assert.isLegal(rhs != null);
 
 		try {
-			if (!isCacheableRHS(rhs))
+			Supertypes supertypes= getSupertypes(rhs);
+			if (!supertypes.fIsCacheable)
 				return;
-			ITypeHierarchy hierarchy= rhs.newSupertypeHierarchy(getProgressMonitor());
-			if (hierarchy.contains(lhs)) {
-				// TODO remember for every member of the LHS hierarchy or not? Yes for now.
-				IType[] allLHSides= hierarchy.getAllSupertypes(lhs);
-				String rhsQualifiedName= rhs.getFullyQualifiedName();
-				for (int i= 0; i < allLHSides.length; i++)
-					rememberInternal(allLHSides[i], rhsQualifiedName);
-				rememberInternal(lhs, rhsQualifiedName);
-			}
+			// TODO remember for every member of the LHS hierarchy or not? Yes for now.
+			String[] allLHSides= supertypes.fLeftHandSides.get(lhs.getHandleIdentifier());
+			if (allLHSides != null)
+				rememberInternal(allLHSides, rhs.getFullyQualifiedName());
 		} catch (JavaModelException x) {
 			JavaPlugin.log(x);
 		}
 	}
 
+	/**
+	 * Remembers the selection like {@link #remember(IType, IType)}, but resolves the supertypes of
+	 * <code>rhs</code> in a background job. Use this method from the UI thread.
+	 *
+	 * @param lhs the left hand side / expected type
+	 * @param rhs the selected right hand side
+	 * @since 3.13
+	 */
+	public void rememberInBackground(IType lhs, IType rhs) {
+		Assert.isLegal(lhs != null);
+		Assert.isLegal(rhs != null);
+
+		synchronized (fPendingSelections) {
+			fPendingSelections.add(new IType[] { lhs, rhs });
+		}
+		fRememberJob.schedule();
+	}
+
 	/**
 	 * Returns the {@link RHSHistory history} of the types that have been selected most recently as
 	 * right hand sides for the given type.
@@ -396,17 +623,23 @@ public final class ContentAssistHistory {
 	 *        requested, or <code>null</code>
 	 * @return the right hand side history for the given type
 	 */
-	public RHSHistory getHistory(String lhs) {
+	public synchronized RHSHistory getHistory(String lhs) {
+		RHSHistory history= fHistories.get(lhs);
+		if (history != null)
+			return history;
+
 		MRUSet<String> rhsCache= fLHSCache.get(lhs);
 		if (rhsCache != null) {
 			int count= rhsCache.size();
-			LinkedHashMap<String, Integer> history= new LinkedHashMap<>((int) (count / 0.75));
+			LinkedHashMap<String, Integer> ranks= new LinkedHashMap<>((int) (count / 0.75));
 			int rank= 1;
 			for (Iterator<String> it= rhsCache.iterator(); it.hasNext(); rank++) {
 				String type= it.next();
-				history.put(type, new Integer(rank));
+				ranks.put(type, new Integer(rank));
 			}
-			return new RHSHistory(history);
+			history= new RHSHistory(ranks);
+			fHistories.put(lhs, history);
+			return history;
 		}
 		return EMPTY_HISTORY;
 	}
@@ -417,7 +650,7 @@ public final class ContentAssistHistory {
 	 *
 	 * @return the set of remembered right hand sides ordered by least recent selection
 	 */
-	public Map<String, RHSHistory> getEntireHistory() {
+	public synchronized Map<String, RHSHistory> getEntireHistory() {
 		HashMap<String, RHSHistory> map= new HashMap<>((int) (fLHSCache.size() / 0.75));
 		for ( Iterator<Entry<String, MRUSet<String>>> it= fLHSCache.entrySet().iterator(); it.hasNext();) {
 			Entry<String, MRUSet<String>> entry= it.next();
@@ -427,10 +660,205 @@ public final class ContentAssistHistory {
 		return Collections.unmodifiableMap(map);
 	}
 
-	private void rememberInternal(IType lhs, String rhsQualifiedName) throws JavaModelException {
-		String lhsQualifiedName= lhs.getFullyQualifiedName();
-		if (isCacheableLHS(lhs, lhsQualifiedName))
-			getCache(lhsQualifiedName).add(rhsQualifiedName);
+	/**
+	 * Sets the file into which this history is saved. Once set, changes to the history are saved
+	 * in the background shortly after they happened.
+	 *
+	 * @param file the file to save this history into, or <code>null</code> to stop saving
+	 * @see #load(File)
+	 * @since 3.13
+	 */
+	public synchronized void setStoreFile(File file) {
+		fStoreFile= file;
+	}
+
+	/**
+	 * Saves this history into its store file if it has changed since it has last been saved.
+	 *
+	 * @throws CoreException if serialization fails
+	 * @see #setStoreFile(File)
+	 * @since 3.13
+	 */
+	public void save() throws CoreException {
+		synchronized (fSaveLock) {
+			File file;
+			int modificationCount;
+			synchronized (this) {
+				file= fStoreFile;
+				modificationCount= fModificationCount;
+			}
+			if (file == null || modificationCount == fSavedModificationCount)
+				return;
+
+			store(this, file);
+			fSavedModificationCount= modificationCount;
+		}
+	}
+
+	/**
+	 * Remembers the selections still pending from {@link #rememberInBackground(IType, IType)},
+	 * cancels a pending background save and saves the history now.
+	 *
+	 * @throws CoreException if serialization fails
+	 * @since 3.13
+	 */
+	public void flush() throws CoreException {
+		fRememberJob.cancel();
+		try {
+			fRememberJob.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		IType[] selection;
+		while ((selection= pollPendingSelection()) != null)
+			remember(selection[0], selection[1]);
+
+		fSaveJob.cancel();
+		save();
+	}
+
+	/**
+	 * Stops listening to Java element changes and discards the memoized supertype resolutions.
+	 * The history can still be used afterwards.
+	 *
+	 * @since 3.13
+	 */
+	public void dispose() {
+		synchronized (fSupertypes) {
+			clearSupertypes();
+		}
+	}
+
+	private IType[] pollPendingSelection() {
+		synchronized (fPendingSelections) {
+			return fPendingSelections.isEmpty() ? null : fPendingSelections.removeFirst();
+		}
+	}
+
+	private void rememberInternal(String[] lhsQualifiedNames, String rhsQualifiedName) {
+		synchronized (this) {
+			String rhs= intern(rhsQualifiedName);
+			for (int i= 0; i < lhsQualifiedNames.length; i++)
+				getCache(lhsQualifiedNames[i]).add(rhs);
+			fHistories.clear();
+			fModificationCount++;
+			if (fStoreFile == null)
+				return;
+		}
+		fSaveJob.schedule(SAVE_DELAY);
+	}
+
+	private Supertypes getSupertypes(IType rhs) throws JavaModelException {
+		String key= rhs.getHandleIdentifier();
+		int generation;
+		synchronized (fSupertypes) {
+			Supertypes supertypes= fSupertypes.get(key);
+			if (supertypes != null)
+				return supertypes;
+			if (fSupertypesInvalidator == null) {
+				fSupertypesInvalidator= new IElementChangedListener() {
+					@Override
+					public void elementChanged(ElementChangedEvent event) {
+						if (affectsSupertypes(event.getDelta())) {
+							synchronized (fSupertypes) {
+								clearSupertypes();
+							}
+						}
+					}
+				};
+				JavaCore.addElementChangedListener(fSupertypesInvalidator, ElementChangedEvent.POST_CHANGE);
+			}
+			generation= fSupertypesGeneration;
+		}
+
+		Supertypes supertypes= computeSupertypes(rhs);
+		synchronized (fSupertypes) {
+			if (generation == fSupertypesGeneration)
+				fSupertypes.put(key, supertypes);
+		}
+		return supertypes;
+	}
+
+	/**
+	 * Discards the memoized supertype resolutions and unregisters the invalidating listener. Must
+	 * be called while holding the lock on <code>fSupertypes</code>.
+	 */
+	private void clearSupertypes() {
+		fSupertypes.clear();
+		fSupertypesGeneration++;
+		if (fSupertypesInvalidator != null) {
+			JavaCore.removeElementChangedListener(fSupertypesInvalidator);
+			fSupertypesInvalidator= null;
+		}
+	}
+
+	/**
+	 * Tells whether a Java element delta may change the supertype hierarchy of any type. Changes
+	 * confined to the bodies of compilation units don't, everything else is assumed to.
+	 *
+	 * @param delta the Java element delta
+	 * @return <code>true</code> if memoized supertype resolutions may be outdated
+	 */
+	private static boolean affectsSupertypes(IJavaElementDelta delta) {
+		int flags= delta.getFlags();
+		switch (delta.getElement().getElementType()) {
+			case IJavaElement.JAVA_MODEL:
+			case IJavaElement.JAVA_PROJECT:
+			case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+			case IJavaElement.PACKAGE_FRAGMENT:
+				if (delta.getKind() != IJavaElementDelta.CHANGED || (flags & CONTAINER_HIERARCHY_FLAGS) != 0)
+					return true;
+				break;
+			case IJavaElement.COMPILATION_UNIT:
+			case IJavaElement.CLASS_FILE:
+				// without a fine-grained delta, the changed types are unknown
+				if (delta.getKind() != IJavaElementDelta.CHANGED || (flags & IJavaElementDelta.F_CONTENT) != 0 && (flags & IJavaElementDelta.F_FINE_GRAINED) == 0)
+					return true;
+				break;
+			case IJavaElement.TYPE:
+				if (delta.getKind() != IJavaElementDelta.CHANGED || (flags & (IJavaElementDelta.F_SUPER_TYPES | IJavaElementDelta.F_MODIFIERS)) != 0)
+					return true;
+				break;
+			default:
+				// members other than types don't contribute to type hierarchies
+				return false;
+		}
+		IJavaElementDelta[] children= delta.getAffectedChildren();
+		for (int i= 0; i < children.length; i++) {
+			if (affectsSupertypes(children[i]))
+				return true;
+		}
+		return false;
+	}
+
+	private Supertypes computeSupertypes(IType rhs) throws JavaModelException {
+		if (!isCacheableRHS(rhs))
+			return new Supertypes(false, Collections.<String, String[]>emptyMap());
+
+		ITypeHierarchy hierarchy= rhs.newSupertypeHierarchy(getProgressMonitor());
+		IType[] types= hierarchy.getAllTypes();
+		Map<IType, String> cacheableNames= new HashMap<>();
+		for (int i= 0; i < types.length; i++) {
+			String qualifiedName= types[i].getFullyQualifiedName();
+			if (isCacheableLHS(types[i], qualifiedName))
+				cacheableNames.put(types[i], qualifiedName);
+		}
+
+		Map<String, String[]> leftHandSides= new HashMap<>();
+		for (int i= 0; i < types.length; i++) {
+			IType[] allSupertypes= hierarchy.getAllSupertypes(types[i]);
+			List<String> names= new ArrayList<>(allSupertypes.length + 1);
+			for (int j= 0; j < allSupertypes.length; j++) {
+				String name= cacheableNames.get(allSupertypes[j]);
+				if (name != null)
+					names.add(name);
+			}
+			String name= cacheableNames.get(types[i]);
+			if (name != null)
+				names.add(name);
+			leftHandSides.put(types[i].getHandleIdentifier(), names.toArray(new String[names.size()]));
+		}
+		return new Supertypes(true, leftHandSides);
 	}
 
 	private boolean isCacheableLHS(IType type, String qualifiedName) throws JavaModelException {
@@ -442,6 +870,7 @@ public final class ContentAssistHistory {
 	}
 
 	private Set<String> getCache(String lhs) {
+		lhs= intern(lhs);
 		MRUSet<String> rhsCache= fLHSCache.get(lhs);
 		if (rhsCache == null) {
 			rhsCache= new MRUSet<>(fMaxRHS);
@@ -451,6 +880,15 @@ public final class ContentAssistHistory {
 		return rhsCache;
 	}
 
+	private String intern(String name) {
+		String interned= fNames.get(name);
+		if (interned == null) {
+			fNames.put(name, name);
+			interned= name;
+		}
+		return interned;
+	}
+
 	private IProgressMonitor getProgressMonitor() {
 		return new NullProgressMonitor();
 	}
@@ -466,7 +904,9 @@ public final class ContentAssistHistory {
 	 */
 	public static void store(ContentAssistHistory history, Preferences preferences, String key) throws CoreException {
 		StringWriter writer= new StringWriter();
-		new ReaderWriter().store(history, new StreamResult(writer));
+		synchronized (history) {
+			new ReaderWriter().store(history, new StreamResult(writer));
+		}
 		preferences.setValue(key, writer.toString());
 	}
 
@@ -488,4 +928,53 @@ public final class ContentAssistHistory {
 		}
 		return null;
 	}
+
+	/**
+	 * Stores the history in a compact binary format into the given file. The file is replaced
+	 * only after the history has been written completely.
+	 *
+	 * @param history the history to store
+	 * @param file the file to store the history into
+	 * @throws CoreException if serialization fails
+	 * @see #load(File) on how to restore a history stored by this method
+	 * @since 3.13
+	 */
+	public static void store(ContentAssistHistory history, File file) throws CoreException {
+		File tempFile= new File(file.getPath() + ".tmp"); //$NON-NLS-1$
+		try {
+			DataOutputStream out= new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+			try {
+				new BinaryReaderWriter().store(history, out);
+			} finally {
+				out.close();
+			}
+			Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			throw new JavaUIException(JavaUIStatus.createError(IStatus.ERROR, JavaTextMessages.ContentAssistHistory_store_error, e));
+		}
+	}
+
+	/**
+	 * Loads a history from a file written by {@link #store(ContentAssistHistory, File)}.
+	 *
+	 * @param file the file to load the history from
+	 * @return the deserialized history, or <code>null</code> if the file does not exist or has an
+	 *         unknown format
+	 * @throws CoreException if deserialization fails
+	 * @since 3.13
+	 */
+	public static ContentAssistHistory load(File file) throws CoreException {
+		if (!file.isFile())
+			return null;
+		try {
+			DataInputStream in= new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+			try {
+				return new BinaryReaderWriter().load(in);
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			throw new JavaUIException(JavaUIStatus.createError(IStatus.ERROR, JavaTextMessages.ContentAssistHistory_load_error, e));
+		}
+	}
 }
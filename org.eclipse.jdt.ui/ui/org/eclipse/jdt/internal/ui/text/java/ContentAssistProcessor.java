@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2016 IBM Corporation and others.
+ * Copyright (c) 2005, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -20,6 +20,16 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.events.SelectionAdapter;
@@ -47,6 +57,7 @@ import org.eclipse.jface.dialogs.MessageDialog;
 import org.eclipse.jface.preference.IPreferenceStore;
 import org.eclipse.jface.resource.JFaceResources;
 
+import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.ITextViewer;
 import org.eclipse.jface.text.contentassist.ContentAssistEvent;
 import org.eclipse.jface.text.contentassist.ContentAssistant;
@@ -176,6 +187,7 @@ public class ContentAssistProcessor implements IContentAssistProcessor {
 			for (CompletionProposalCategory cat : getCategoriesToNotify()) {
 				cat.sessionEnded();
 			}
+			ProposalMatchIndex.sessionEnded();
 
 			fSelectedProposal= null;
 			fCategoryIteration= null;
@@ -219,6 +231,36 @@ public class ContentAssistProcessor implements IContentAssistProcessor {
 	 */
 	private static final String PREF_WARN_ABOUT_EMPTY_ASSIST_CATEGORY= "EmptyDefaultAssistCategory"; //$NON-NLS-1$
 
+	/**
+	 * The system property that tells whether computers that do not require the UI thread are run
+	 * concurrently, see {@link #isConcurrentComputation()}.
+	 *
+	 * @since 3.13
+	 */
+	private static final String CONCURRENT_COMPUTATION_PROPERTY= "org.eclipse.jdt.ui.codeAssistConcurrent"; //$NON-NLS-1$
+
+	/**
+	 * Time after which a concurrently running computer is abandoned.
+	 *
+	 * @since 3.13
+	 */
+	private static final long COMPUTER_TIMEOUT= Long.getLong("org.eclipse.jdt.ui.codeAssistComputerTimeout", 5000).longValue(); // ms //$NON-NLS-1$
+
+	/**
+	 * The number of computations that can wait for a thread of the executor. Further computations
+	 * are run in the calling thread.
+	 *
+	 * @since 3.13
+	 */
+	private static final int MAX_QUEUED_COMPUTATIONS= 16;
+
+	/**
+	 * The executor for concurrent proposal computation, created on demand.
+	 *
+	 * @since 3.13
+	 */
+	private static ExecutorService fgExecutor;
+
 	private static final Comparator<CompletionProposalCategory> ORDER_COMPARATOR= new Comparator<CompletionProposalCategory>() {
 
 		@Override
@@ -304,6 +346,8 @@ public class ContentAssistProcessor implements IContentAssistProcessor {
 			System.err.println("Code Assist (setup):\t" + (setup - start) ); //$NON-NLS-1$
 			System.err.println("Code Assist (collect):\t" + (collect - setup) ); //$NON-NLS-1$
 			System.err.println("Code Assist (sort):\t" + (filter - collect) ); //$NON-NLS-1$
+			for (CompletionProposalComputerDescriptor desc : fComputerRegistry.getProposalComputerDescriptors(fPartition))
+				System.err.println("Code Assist (" + desc.getName() + "):\t" + desc.getLatencyHistogram()); //$NON-NLS-1$ //$NON-NLS-2$
 		}
 
 		return result;
@@ -324,6 +368,9 @@ public class ContentAssistProcessor implements IContentAssistProcessor {
 	 * @return the list of proposals
 	 */
 	private List<ICompletionProposal> collectProposals(ITextViewer viewer, int offset, IProgressMonitor monitor, ContentAssistInvocationContext context) {
+		if (isConcurrentComputation())
+			return collectProposalsConcurrently(context, monitor);
+
 		boolean needsSortingAfterFiltering= false;
 		List<ICompletionProposal> proposals= new ArrayList<>();
 		List<CompletionProposalCategory> providers= getCategories();
@@ -340,6 +387,197 @@ public class ContentAssistProcessor implements IContentAssistProcessor {
 		return proposals;
 	}
 
+	/**
+	 * Collects the proposals, running the computers that do not require the UI thread
+	 * concurrently on a bounded executor. A computer that does not finish within
+	 * {@link #COMPUTER_TIMEOUT} milliseconds after it started is abandoned and its proposals are
+	 * not shown.
+	 *
+	 * @param monitor the progress monitor
+	 * @param context the code assist invocation context
+	 * @return the list of proposals
+	 * @since 3.13
+	 */
+	private List<ICompletionProposal> collectProposalsConcurrently(final ContentAssistInvocationContext context, IProgressMonitor monitor) {
+		List<CompletionProposalCategory> providers= getCategories();
+		List<CompletionProposalComputerDescriptor> descriptors= new ArrayList<>(fComputerRegistry.getProposalComputerDescriptors(fPartition));
+
+		List<Computation> computations= new ArrayList<>();
+		for (CompletionProposalCategory cat : providers) {
+			for (CompletionProposalComputerDescriptor desc : descriptors) {
+				if (desc.getCategory() == cat)
+					computations.add(new Computation(cat, desc));
+			}
+		}
+
+		// the prefix is cached lazily by the context, compute it before it is shared
+		try {
+			context.computeIdentifierPrefix();
+		} catch (BadLocationException x) {
+			// computers will handle this themselves
+		}
+
+		// start the background computations first, so that they run while the UI thread is busy
+		for (Computation computation : computations) {
+			if (!computation.fDescriptor.requiresUIThread())
+				computation.submit(context);
+		}
+
+		for (CompletionProposalCategory cat : providers) {
+			IProgressMonitor categoryMonitor= new SubProgressMonitor(monitor, 1);
+			for (Computation computation : computations) {
+				if (computation.fCategory == cat && computation.fFuture == null)
+					computation.fProposals= computation.fDescriptor.computeCompletionProposals(context, categoryMonitor);
+			}
+		}
+
+		boolean needsSortingAfterFiltering= false;
+		List<ICompletionProposal> proposals= new ArrayList<>();
+		for (Computation computation : computations) {
+			List<ICompletionProposal> computed= computation.getProposals();
+			proposals.addAll(computed);
+			needsSortingAfterFiltering= needsSortingAfterFiltering || (computation.fCategory.isSortingAfterFilteringNeeded() && !computed.isEmpty());
+			if (fErrorMessage == null)
+				fErrorMessage= computation.fDescriptor.getErrorMessage();
+		}
+
+		// problems of the background computations can only be shown in the UI thread
+		for (CompletionProposalComputerDescriptor desc : descriptors)
+			desc.reportDeferredProblems();
+
+		if (fNeedsSortingAfterFiltering && !needsSortingAfterFiltering)
+			fAssistant.setSorter(null);
+		fNeedsSortingAfterFiltering= needsSortingAfterFiltering;
+		return proposals;
+	}
+
+	/**
+	 * The computation of proposals by one computer, either in the UI thread or on the executor.
+	 *
+	 * @since 3.13
+	 */
+	private static final class Computation {
+		final CompletionProposalCategory fCategory;
+		final CompletionProposalComputerDescriptor fDescriptor;
+		final IProgressMonitor fMonitor= new NullProgressMonitor();
+		Future<List<ICompletionProposal>> fFuture;
+		List<ICompletionProposal> fProposals;
+		/** The time the computation was submitted to the executor */
+		long fSubmitTime;
+		/** The time the computation started on the executor, <code>0</code> if not started yet */
+		volatile long fStartTime;
+
+		Computation(CompletionProposalCategory category, CompletionProposalComputerDescriptor descriptor) {
+			fCategory= category;
+			fDescriptor= descriptor;
+		}
+
+		void submit(final ContentAssistInvocationContext context) {
+			fSubmitTime= System.currentTimeMillis();
+			try {
+				fFuture= getExecutor().submit(new Callable<List<ICompletionProposal>>() {
+					@Override
+					public List<ICompletionProposal> call() {
+						fStartTime= System.currentTimeMillis();
+						return fDescriptor.computeCompletionProposals(context, fMonitor);
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				// computed in the calling thread instead
+				fFuture= null;
+			}
+		}
+
+		/**
+		 * Waits for the proposals of this computation. A background computation gets
+		 * {@link ContentAssistProcessor#COMPUTER_TIMEOUT} milliseconds from the time it started, or
+		 * from the time it was submitted while it is still queued.
+		 *
+		 * @return the computed proposals, empty if the computation was abandoned
+		 */
+		List<ICompletionProposal> getProposals() {
+			if (fFuture == null)
+				return fProposals != null ? fProposals : Collections.<ICompletionProposal>emptyList();
+
+			try {
+				while (true) {
+					long startTime= fStartTime;
+					long remaining= (startTime != 0 ? startTime : fSubmitTime) + COMPUTER_TIMEOUT - System.currentTimeMillis();
+					if (remaining > 0) {
+						try {
+							return fFuture.get(remaining, TimeUnit.MILLISECONDS);
+						} catch (TimeoutException e) {
+							continue;
+						}
+					}
+					// a computation that started meanwhile gets its own budget
+					if (startTime == 0 && fStartTime != 0)
+						continue;
+					if (fFuture.isDone())
+						return fFuture.get();
+
+					fMonitor.setCanceled(true);
+					fFuture.cancel(false);
+					fDescriptor.getLatencyHistogram().recordTimeout();
+					break;
+				}
+			} catch (InterruptedException e) {
+				fMonitor.setCanceled(true);
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				JavaPlugin.log(e);
+			}
+			return Collections.emptyList();
+		}
+	}
+
+	/**
+	 * Returns the executor for concurrent proposal computation.
+	 *
+	 * @return the shared executor
+	 * @since 3.13
+	 */
+	private static synchronized ExecutorService getExecutor() {
+		if (fgExecutor == null) {
+			int threads= Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+			ThreadPoolExecutor executor= new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(MAX_QUEUED_COMPUTATIONS), new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread= new Thread(r, "Java Content Assist Computer"); //$NON-NLS-1$
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			executor.allowCoreThreadTimeOut(true);
+			fgExecutor= executor;
+		}
+		return fgExecutor;
+	}
+
+	/**
+	 * Tells whether computers that do not require the UI thread are run concurrently. Enabled by
+	 * the system property <code>org.eclipse.jdt.ui.codeAssistConcurrent</code>.
+	 *
+	 * @return <code>true</code> if proposals are computed concurrently
+	 * @since 3.13
+	 */
+	private static boolean isConcurrentComputation() {
+		return Boolean.getBoolean(CONCURRENT_COMPUTATION_PROPERTY);
+	}
+
+	/**
+	 * Shuts down the executor for concurrent proposal computation. Computations that are still
+	 * running are abandoned, they are not interrupted.
+	 *
+	 * @since 3.13
+	 */
+	public static synchronized void shutdownExecutor() {
+		if (fgExecutor != null) {
+			fgExecutor.shutdown();
+			fgExecutor= null;
+		}
+	}
+
 	/**
 	 * Filters and sorts the proposals. The passed list may be modified
 	 * and returned, or a new list may be created and returned.
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2009 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -66,5 +66,9 @@ final class JavaTextMessages extends NLS {
 	public static String ContentAssistProcessor_empty_message;
 	public static String ContentAssistHistory_serialize_error;
 	public static String ContentAssistHistory_deserialize_error;
+	public static String ContentAssistHistory_store_error;
+	public static String ContentAssistHistory_load_error;
+	public static String ContentAssistHistory_remember_job;
+	public static String ContentAssistHistory_save_job;
 	public static String ProposalSorterHandle_blame;
 }
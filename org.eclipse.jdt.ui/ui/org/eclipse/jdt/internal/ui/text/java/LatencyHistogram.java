@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.text.java;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * A histogram of operation latencies with exponentially growing buckets. Bucket <code>i</code>
+ * counts the operations that took less than <code>2^i</code> milliseconds, the last bucket
+ * counts all slower operations. Operations that were abandoned because they exceeded their
+ * deadline are counted separately.
+ * <p>
+ * This class is thread safe.
+ * </p>
+ *
+ * @since 3.13
+ */
+final class LatencyHistogram {
+
+	/** Number of buckets, the last bucket holds operations taking 8192 ms or longer. */
+	static final int BUCKET_COUNT= 15;
+
+	private final AtomicLongArray fCounts= new AtomicLongArray(BUCKET_COUNT);
+	private final AtomicLong fTotalMillis= new AtomicLong();
+	private final AtomicLong fTimeouts= new AtomicLong();
+
+	/**
+	 * Records an operation that completed.
+	 *
+	 * @param millis the duration of the operation in milliseconds
+	 */
+	void record(long millis) {
+		int bucket= 0;
+		while (bucket < BUCKET_COUNT - 1 && millis >= (1L << bucket))
+			bucket++;
+		fCounts.incrementAndGet(bucket);
+		fTotalMillis.addAndGet(millis);
+	}
+
+	/**
+	 * Records an operation that was abandoned after exceeding its deadline.
+	 */
+	void recordTimeout() {
+		fTimeouts.incrementAndGet();
+	}
+
+	/**
+	 * Returns the number of operations in the given bucket.
+	 *
+	 * @param bucket the bucket index, <code>0 &lt;= bucket &lt; {@link #BUCKET_COUNT}</code>
+	 * @return the number of completed operations in the bucket
+	 */
+	long getCount(int bucket) {
+		return fCounts.get(bucket);
+	}
+
+	/**
+	 * @return the number of operations that were abandoned after exceeding their deadline
+	 */
+	long getTimeoutCount() {
+		return fTimeouts.get();
+	}
+
+	/**
+	 * @return the number of completed operations
+	 */
+	long getCount() {
+		long count= 0;
+		for (int i= 0; i < BUCKET_COUNT; i++)
+			count+= fCounts.get(i);
+		return count;
+	}
+
+	/**
+	 * @return the summed up duration of all completed operations in milliseconds
+	 */
+	long getTotalMillis() {
+		return fTotalMillis.get();
+	}
+
+	@Override
+	public String toString() {
+		StringBuffer buf= new StringBuffer();
+		buf.append("count=").append(getCount()); //$NON-NLS-1$
+		buf.append(" total=").append(getTotalMillis()).append("ms"); //$NON-NLS-1$ //$NON-NLS-2$
+		buf.append(" timeouts=").append(getTimeoutCount()); //$NON-NLS-1$
+		for (int i= 0; i < BUCKET_COUNT; i++) {
+			long count= fCounts.get(i);
+			if (count == 0)
+				continue;
+			buf.append(i < BUCKET_COUNT - 1 ? " <" : " >=").append(1L << (i < BUCKET_COUNT - 1 ? i : i - 1)).append("ms:").append(count); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		}
+		return buf.toString();
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -248,7 +248,7 @@ public class LazyJavaTypeCompletionProposal extends LazyJavaCompletionProposal {
 		IType lhs= fInvocationContext.getExpectedType();
 		IType rhs= (IType) getJavaElement();
 		if (lhs != null && rhs != null)
-			JavaPlugin.getDefault().getContentAssistHistory().remember(lhs, rhs);
+			JavaPlugin.getDefault().getContentAssistHistory().rememberInBackground(lhs, rhs);
 
 		QualifiedTypeNameHistory.remember(getQualifiedTypeName());
 	}
@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.text.java;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
+
+import org.eclipse.jdt.core.JavaCore;
+
+import org.eclipse.jdt.ui.text.java.JavaContentAssistInvocationContext;
+
+
+/**
+ * Data shared by all proposals of one content assist session, so that re-validating the proposals
+ * while the user keeps typing in an open proposal popup does not allocate per proposal.
+ * <p>
+ * The index reads the matching options once per session and caches the current prefix in the
+ * document together with its characters. Since all proposals of a session are validated against
+ * the same document state, only the first proposal pays for extracting the prefix.
+ * </p>
+ * <p>
+ * The index does not narrow the set of matching proposals itself: while the prefix grows, the
+ * completion proposal popup only re-validates the proposals that matched the previous prefix, and
+ * it validates all proposals again when the prefix shrinks.
+ * </p>
+ * <p>
+ * An index belongs to the invocation context instance it was created for. Contexts of different
+ * sessions may be equal, e.g. when content assist is invoked twice at the same offset, but never
+ * share an index. All indexes are dropped when a session ends, see {@link #sessionEnded()}.
+ * </p>
+ * <p>
+ * This class is thread safe.
+ * </p>
+ *
+ * @since 3.13
+ */
+final class ProposalMatchIndex {
+
+	private static final Map<JavaContentAssistInvocationContext, ProposalMatchIndex> fgIndexes= new WeakHashMap<>();
+
+	/**
+	 * Returns the index of the session in which the given context was created.
+	 *
+	 * @param context the invocation context of the proposals, can be <code>null</code>
+	 * @return the session's index, or <code>null</code> if <code>context</code> is
+	 *         <code>null</code>
+	 */
+	static ProposalMatchIndex getIndex(JavaContentAssistInvocationContext context) {
+		if (context == null)
+			return null;
+		synchronized (fgIndexes) {
+			ProposalMatchIndex index= fgIndexes.get(context);
+			if (index == null || index.fContext.get() != context) {
+				index= new ProposalMatchIndex(context);
+				fgIndexes.put(context, index);
+			}
+			return index;
+		}
+	}
+
+	/**
+	 * Drops the indexes of all sessions. Proposals that already hold an index keep using it.
+	 */
+	static void sessionEnded() {
+		synchronized (fgIndexes) {
+			fgIndexes.clear();
+		}
+	}
+
+	/** The context the index was created for, not strongly referenced to keep the map weak. */
+	private final WeakReference<JavaContentAssistInvocationContext> fContext;
+
+	private final boolean fIsCamelCaseMatching;
+	private final boolean fIsSubstringMatching;
+
+	private IDocument fDocument;
+	private long fModificationStamp= IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+	private int fStart;
+	private int fEnd;
+	private String fText;
+
+	private String fPattern;
+	private char[] fPatternChars;
+
+	private ProposalMatchIndex(JavaContentAssistInvocationContext context) {
+		fContext= new WeakReference<>(context);
+		fIsCamelCaseMatching= JavaCore.ENABLED.equals(JavaCore.getOption(JavaCore.CODEASSIST_CAMEL_CASE_MATCH));
+		fIsSubstringMatching= JavaCore.ENABLED.equals(JavaCore.getOption(JavaCore.CODEASSIST_SUBSTRING_MATCH));
+	}
+
+	/**
+	 * @return <code>true</code> if camel case matching was enabled when the session started
+	 */
+	boolean isCamelCaseMatching() {
+		return fIsCamelCaseMatching;
+	}
+
+	/**
+	 * @return <code>true</code> if substring matching was enabled when the session started
+	 */
+	boolean isSubstringMatching() {
+		return fIsSubstringMatching;
+	}
+
+	/**
+	 * Returns the text of the document between <code>start</code> and <code>end</code>.
+	 *
+	 * @param document the document
+	 * @param start the start offset
+	 * @param end the end offset
+	 * @return the text, the empty string if <code>end</code> equals <code>start</code>, or
+	 *         <code>null</code> if <code>end</code> is before <code>start</code> or if the
+	 *         document cannot be accessed
+	 */
+	synchronized String getText(IDocument document, int start, int end) {
+		if (end < start)
+			return null;
+		if (end == start)
+			return ""; //$NON-NLS-1$
+
+		long stamp= document instanceof IDocumentExtension4 ? ((IDocumentExtension4) document).getModificationStamp() : IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+		if (stamp != IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP && document == fDocument && stamp == fModificationStamp && start == fStart && end == fEnd)
+			return fText;
+
+		String text;
+		try {
+			text= document.get(start, end - start);
+		} catch (BadLocationException x) {
+			return null;
+		}
+		fDocument= document;
+		fModificationStamp= stamp;
+		fStart= start;
+		fEnd= end;
+		fText= text;
+		return text;
+	}
+
+	/**
+	 * Returns the characters of the given pattern. Consecutive requests for the same pattern share
+	 * the array, which must therefore not be modified.
+	 *
+	 * @param pattern the pattern
+	 * @return the characters of the pattern
+	 */
+	synchronized char[] getPatternChars(String pattern) {
+		if (!pattern.equals(fPattern)) {
+			fPattern= pattern;
+			fPatternChars= pattern.toCharArray();
+		}
+		return fPatternChars;
+	}
+}
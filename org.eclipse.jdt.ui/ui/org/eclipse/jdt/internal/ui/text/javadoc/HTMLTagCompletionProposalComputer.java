@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -42,7 +42,7 @@ import org.eclipse.jdt.internal.ui.text.java.JavaCompletionProposal;
 public class HTMLTagCompletionProposalComputer implements IJavaCompletionProposalComputer {
 
 	private static final String[] fgHTMLProposals= new String[IHtmlTagConstants.HTML_GENERAL_TAGS.length * 2];
-	{
+	static {
 		String tag= null;
 
 		int index= 0;
@@ -64,6 +64,12 @@ public class HTMLTagCompletionProposalComputer implements IJavaCompletionProposa
 	private List<ICompletionProposal> fResult;
 
 	private boolean fRestrictToMatchingCase;
+	/**
+	 * The image of the proposals, fetched in the UI thread when the session starts since proposals
+	 * may be computed in a background thread.
+	 * @since 3.13
+	 */
+	private Image fTagImage;
 
 	public HTMLTagCompletionProposalComputer() {
 	}
@@ -137,6 +143,9 @@ public class HTMLTagCompletionProposalComputer implements IJavaCompletionProposa
 		if (fDocument == null) {
 			return Collections.emptyList();
 		}
+		// an abandoned computation must not read the document anymore
+		if (monitor != null && monitor.isCanceled())
+			return Collections.emptyList();
 
 		try {
 			fResult= new ArrayList<>(100);
@@ -160,7 +169,7 @@ public class HTMLTagCompletionProposalComputer implements IJavaCompletionProposa
 			char firstChar= fDocument.getChar(word1Begin);
 			if (firstChar == '<') {
 				String prefix= fDocument.get(word1Begin, fCurrentPos - word1Begin);
-				addProposals(prefix, fgHTMLProposals, JavaPluginImages.IMG_OBJS_HTMLTAG);
+				addProposals(prefix, fgHTMLProposals, getTagImage());
 				return;
 			} else if (!Character.isWhitespace(firstChar)) {
 				return;
@@ -189,20 +198,26 @@ public class HTMLTagCompletionProposalComputer implements IJavaCompletionProposa
 		for (int i= 0; i < fgHTMLProposals.length; i++) {
 			String curr= fgHTMLProposals[i];
 			if (prefixMatches(htmlPrefix, curr)) {
-				fResult.add(createCompletion(curr, prefix, new StyledString(curr), JavaPluginImages.get(JavaPluginImages.IMG_OBJS_HTMLTAG), 0));
+				fResult.add(createCompletion(curr, prefix, new StyledString(curr), getTagImage(), 0));
 			}
 		}
 	}
 
-	private void addProposals(String prefix, String[] choices, String imageName) {
+	private void addProposals(String prefix, String[] choices, Image image) {
 		for (int i= 0; i < choices.length; i++) {
 			String curr= choices[i];
 			if (prefixMatches(prefix, curr)) {
-				fResult.add(createCompletion(curr, prefix, new StyledString(curr), JavaPluginImages.get(imageName), 0));
+				fResult.add(createCompletion(curr, prefix, new StyledString(curr), image, 0));
 			}
 		}
 	}
 
+	private Image getTagImage() {
+		if (fTagImage == null)
+			fTagImage= JavaPluginImages.get(JavaPluginImages.IMG_OBJS_HTMLTAG);
+		return fTagImage;
+	}
+
 	private JavaCompletionProposal createCompletion(String newText, String oldText, StyledString labelText, Image image, int severity) {
 		int offset= fCurrentPos - oldText.length();
 		int length= fCurrentLength + oldText.length();
@@ -251,5 +266,6 @@ public class HTMLTagCompletionProposalComputer implements IJavaCompletionProposa
     @Override
 	public void sessionStarted() {
     	fErrorMessage= null;
+    	getTagImage();
     }
 }
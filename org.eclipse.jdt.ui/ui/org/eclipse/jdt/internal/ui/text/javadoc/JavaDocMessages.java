@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -37,6 +37,8 @@ final class JavaDocMessages extends NLS {
 	public static String JavaDoc2HTMLTextReader_version_section;
 	public static String JavadocContentAccess2_getproperty_message;
 	public static String JavadocContentAccess2_setproperty_message;
+	public static String JavadocContentCache_cleanup_job;
+	public static String JavadocContentCache_store_job;
 
 	static {
 		NLS.initializeMessages(BUNDLE_NAME, JavaDocMessages.class);
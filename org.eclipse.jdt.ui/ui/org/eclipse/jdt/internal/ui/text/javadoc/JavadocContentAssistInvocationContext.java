@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2011 IBM Corporation and others.
+ * Copyright (c) 2005, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -24,6 +24,11 @@ import org.eclipse.jdt.ui.text.java.JavaContentAssistInvocationContext;
 public final class JavadocContentAssistInvocationContext extends JavaContentAssistInvocationContext {
 
 	private final int fFlags;
+	/**
+	 * The selection length of the viewer, read in the UI thread that creates this context.
+	 * @since 3.13
+	 */
+	private final int fSelectionLength;
 
 	/**
 	 * @param viewer
@@ -34,6 +39,7 @@ public final class JavadocContentAssistInvocationContext extends JavaContentAssi
 	public JavadocContentAssistInvocationContext(ITextViewer viewer, int offset, IEditorPart editor, int flags) {
 		super(viewer, offset, editor);
 		fFlags= flags;
+		fSelectionLength= viewer.getSelectedRange().y;
 	}
 
 	/**
@@ -47,12 +53,13 @@ public final class JavadocContentAssistInvocationContext extends JavaContentAssi
 	}
 
 	/**
-	 * Returns the selection length of the viewer.
+	 * Returns the selection length of the viewer when content assist was invoked. Can be called
+	 * from any thread.
 	 *
 	 * @return the selection length of the viewer
 	 */
 	public int getSelectionLength() {
-		return getViewer().getSelectedRange().y;
+		return fSelectionLength;
 	}
 
 	/*
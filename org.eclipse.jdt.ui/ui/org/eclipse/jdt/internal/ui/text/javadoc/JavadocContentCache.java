@@ -0,0 +1,543 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.text.javadoc;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+
+import org.eclipse.jdt.internal.corext.javadoc.JavaDocLocations;
+import org.eclipse.jdt.internal.corext.util.JavaModelUtil;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+
+/**
+ * Cache of the Javadoc rendered by {@link JavadocContentAccess2#getHTMLContent(IJavaElement, boolean)},
+ * shared by the Javadoc hover, the Javadoc view and the additional info of content assist.
+ * <p>
+ * The rendered Javadoc is kept in memory in least recently used order up to
+ * {@link #MAX_FOOTPRINT} characters. The Javadoc of members of binary package fragment roots is
+ * also written to a store in the state location of the plug-in, so that it survives restarts. The
+ * entries of the store are keyed by the handle identifier of the element and a stamp of its
+ * container: the path, time stamp and size of the archive and of its source attachment, and the
+ * Javadoc location. A changed library therefore never hits an old entry. Entries are written in a
+ * background job, and the files of the store are replaced atomically, so that readers never wait
+ * for a write. A missing Javadoc is not written for a root with attached Javadoc, since the
+ * attached Javadoc may only be unreachable for the moment. The least recently used files are
+ * deleted at startup and after every {@link #CLEANUP_WRITES} written entries.
+ * </p>
+ * <p>
+ * The Javadoc of a source element can inherit from any other compilation unit, so the entries of
+ * source elements are evicted by every Java element delta that changes code. Changes of projects
+ * and package fragment roots, like classpath changes or changed archives, clear the whole memory
+ * cache.
+ * </p>
+ * <p>
+ * This class is thread safe.
+ * </p>
+ *
+ * @since 3.13
+ */
+public final class JavadocContentCache {
+
+	/**
+	 * The maximal total length of the Javadoc kept in memory, in characters.
+	 */
+	private static final int MAX_FOOTPRINT= 2 * 1024 * 1024;
+
+	/**
+	 * The number of files in the store above which the least recently used ones are deleted.
+	 */
+	private static final int MAX_STORE_ENTRIES= 10000;
+
+	/**
+	 * The number of entries written to the store after which it is cleaned up again.
+	 */
+	private static final int CLEANUP_WRITES= MAX_STORE_ENTRIES / 10;
+
+	/**
+	 * The minimal time in milliseconds between two updates of the last modification time of a
+	 * file of the store, which is used to find the least recently used files.
+	 */
+	private static final long TOUCH_INTERVAL= 24 * 60 * 60 * 1000;
+
+	/**
+	 * The delay in milliseconds before the store job writes the entries.
+	 */
+	private static final long STORE_DELAY= 1000;
+
+	private static final String STORE_DIR= "javadocCache"; //$NON-NLS-1$
+	private static final String TEMP_FILE_EXTENSION= ".tmp"; //$NON-NLS-1$
+	private static final String STORE_FILE_EXTENSION= ".dat"; //$NON-NLS-1$
+	private static final int STORE_VERSION= 2;
+
+	/**
+	 * The delta flags that do not change any code.
+	 */
+	private static final int IGNORED_FLAGS= IJavaElementDelta.F_CHILDREN | IJavaElementDelta.F_AST_AFFECTED | IJavaElementDelta.F_PRIMARY_WORKING_COPY | IJavaElementDelta.F_PRIMARY_RESOURCE;
+
+	private static final int INVALIDATE_NONE= 0;
+	private static final int INVALIDATE_SOURCE= 1;
+	private static final int INVALIDATE_ALL= 2;
+
+	/**
+	 * The rendered Javadoc of an element.
+	 */
+	private static final class Entry {
+		final String fContent;
+		final boolean fBinary;
+
+		Entry(String content, boolean binary) {
+			fContent= content;
+			fBinary= binary;
+		}
+
+		int getFootprint() {
+			return fContent != null ? fContent.length() : 0;
+		}
+	}
+
+	private class JavadocDeltaListener implements IElementChangedListener {
+		@Override
+		public void elementChanged(ElementChangedEvent event) {
+			switch (getInvalidation(event.getDelta())) {
+				case INVALIDATE_ALL:
+					clear();
+					break;
+				case INVALIDATE_SOURCE:
+					removeSourceEntries();
+					break;
+				default:
+					break;
+			}
+		}
+
+		private int getInvalidation(IJavaElementDelta delta) {
+			int flags= delta.getFlags() & ~IGNORED_FLAGS;
+			switch (delta.getElement().getElementType()) {
+				case IJavaElement.JAVA_MODEL:
+					break;
+				case IJavaElement.JAVA_PROJECT:
+				case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+					// content changes are changes of non-Java resources
+					if (delta.getKind() != IJavaElementDelta.CHANGED || (flags & ~IJavaElementDelta.F_CONTENT) != 0)
+						return INVALIDATE_ALL;
+					break;
+				default:
+					if (delta.getKind() != IJavaElementDelta.CHANGED || flags != 0)
+						return INVALIDATE_SOURCE;
+					break;
+			}
+			int invalidation= INVALIDATE_NONE;
+			IJavaElementDelta[] children= delta.getAffectedChildren();
+			for (int i= 0; i < children.length && invalidation != INVALIDATE_ALL; i++) {
+				invalidation= Math.max(invalidation, getInvalidation(children[i]));
+			}
+			return invalidation;
+		}
+	}
+
+	private class StoreJob extends Job {
+		StoreJob() {
+			super(JavaDocMessages.JavadocContentCache_store_job);
+			setSystem(true);
+			setPriority(Job.DECORATE);
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			writePendingStore();
+			return Status.OK_STATUS;
+		}
+
+		@Override
+		public boolean belongsTo(Object family) {
+			return family == JavadocContentCache.class;
+		}
+	}
+
+	private static JavadocContentCache fgInstance;
+
+	/**
+	 * Returns the shared Javadoc cache.
+	 *
+	 * @return the Javadoc cache
+	 */
+	public static synchronized JavadocContentCache getDefault() {
+		if (fgInstance == null)
+			fgInstance= new JavadocContentCache();
+		return fgInstance;
+	}
+
+	/**
+	 * Releases the shared Javadoc cache.
+	 */
+	public static synchronized void shutdown() {
+		if (fgInstance == null)
+			return;
+		JavaCore.removeElementChangedListener(fgInstance.fListener);
+		fgInstance.fStoreJob.cancel();
+		fgInstance.fCleanupJob.cancel();
+		fgInstance.writePendingStore();
+		fgInstance= null;
+	}
+
+	private final LinkedHashMap<String, Entry> fEntries= new LinkedHashMap<>(16, 0.75f, true);
+	private final IElementChangedListener fListener;
+	private final File fStoreDir;
+	private final StoreJob fStoreJob= new StoreJob();
+	private final Job fCleanupJob;
+	/** Guards the pending store operations, the files are read and written without holding it. */
+	private final Object fStoreLock= new Object();
+	private final LinkedHashMap<String, Entry> fPendingWrites= new LinkedHashMap<>();
+	private final Set<File> fPendingTouches= new LinkedHashSet<>();
+	/** The number of entries written since the last cleanup, only accessed by the store job. */
+	private int fWritesSinceCleanup;
+	private int fFootprint;
+	// Incremented whenever entries are removed, so that Javadoc rendered across a change isn't stored
+	private int fStamp;
+
+	private JavadocContentCache() {
+		fStoreDir= getStoreDir();
+		fListener= new JavadocDeltaListener();
+		JavaCore.addElementChangedListener(fListener, ElementChangedEvent.POST_CHANGE | ElementChangedEvent.POST_RECONCILE);
+		fCleanupJob= createStoreCleanupJob();
+		if (fStoreDir != null)
+			fCleanupJob.schedule();
+	}
+
+	/**
+	 * Returns the rendered Javadoc of an element, see
+	 * {@link JavadocContentAccess2#getHTMLContent(IJavaElement, boolean)}. Javadoc is extracted
+	 * from attached Javadoc if there's no source.
+	 *
+	 * @param element the element to get the Javadoc of
+	 * @return the Javadoc comment content in HTML or <code>null</code> if the element does not have
+	 *         a Javadoc comment or if no source is available
+	 * @throws CoreException is thrown when the element's Javadoc cannot be accessed
+	 */
+	public String getHTMLContent(IJavaElement element) throws CoreException {
+		return getHTMLContent(element, true);
+	}
+
+	/*
+	 * Rendered Javadoc that does not use attached Javadoc is only cached if it was found, since
+	 * the attached Javadoc could have been found otherwise
+	 */
+	private String getHTMLContent(IJavaElement element, boolean useAttachedJavadoc) throws CoreException {
+		if (!isCacheable(element))
+			return JavadocContentAccess2.getHTMLContent(element, useAttachedJavadoc);
+
+		String handle= element.getHandleIdentifier();
+		int stamp;
+		synchronized (this) {
+			Entry entry= fEntries.get(handle);
+			if (entry != null)
+				return entry.fContent;
+			stamp= fStamp;
+		}
+
+		IPackageFragmentRoot root= (IPackageFragmentRoot) element.getAncestor(IJavaElement.PACKAGE_FRAGMENT_ROOT);
+		boolean binary= root != null && root.getKind() == IPackageFragmentRoot.K_BINARY;
+		String storeKey= binary && fStoreDir != null ? getStoreKey(handle, root) : null;
+		Entry entry= storeKey != null ? readStore(storeKey) : null;
+		if (entry == null) {
+			entry= new Entry(JavadocContentAccess2.getHTMLContent(element, useAttachedJavadoc), binary);
+			if (entry.fContent == null && !useAttachedJavadoc)
+				return null;
+			if (storeKey != null && (entry.fContent != null || JavaDocLocations.getJavadocBaseLocation(root) == null))
+				scheduleWrite(storeKey, entry);
+		}
+		put(handle, entry, stamp);
+		return entry.fContent;
+	}
+
+	/**
+	 * Renders the Javadoc of the given elements that is not cached yet. Attached Javadoc is not
+	 * fetched, since it may need the network.
+	 *
+	 * @param elements the elements
+	 * @param monitor the progress monitor, used for cancellation only
+	 */
+	public void prefetch(Collection<IJavaElement> elements, IProgressMonitor monitor) {
+		for (Iterator<IJavaElement> iter= elements.iterator(); iter.hasNext();) {
+			if (monitor.isCanceled())
+				return;
+			try {
+				getHTMLContent(iter.next(), false);
+			} catch (CoreException e) {
+				// not available
+			}
+		}
+	}
+
+	/**
+	 * Removes all Javadoc cached in memory.
+	 */
+	public synchronized void clear() {
+		fEntries.clear();
+		fFootprint= 0;
+		fStamp++;
+	}
+
+	private synchronized void removeSourceEntries() {
+		for (Iterator<Entry> iter= fEntries.values().iterator(); iter.hasNext();) {
+			Entry entry= iter.next();
+			if (!entry.fBinary) {
+				fFootprint-= entry.getFootprint();
+				iter.remove();
+			}
+		}
+		fStamp++;
+	}
+
+	private synchronized void put(String handle, Entry entry, int stamp) {
+		if (stamp != fStamp)
+			return;
+		Entry old= fEntries.put(handle, entry);
+		if (old != null)
+			fFootprint-= old.getFootprint();
+		fFootprint+= entry.getFootprint();
+		for (Iterator<Entry> iter= fEntries.values().iterator(); fFootprint > MAX_FOOTPRINT && fEntries.size() > 1 && iter.hasNext();) {
+			Entry eldest= iter.next();
+			if (eldest == entry)
+				continue;
+			fFootprint-= eldest.getFootprint();
+			iter.remove();
+		}
+	}
+
+	private static boolean isCacheable(IJavaElement element) {
+		// the handles of other working copies are the same as those of the primary elements
+		ICompilationUnit cu= (ICompilationUnit) element.getAncestor(IJavaElement.COMPILATION_UNIT);
+		return (cu == null || JavaModelUtil.isPrimary(cu)) && element.getAncestor(IJavaElement.PACKAGE_FRAGMENT_ROOT) != null;
+	}
+
+	//---- store ----
+
+	private static File getStoreDir() {
+		try {
+			File storeDir= JavaPlugin.getDefault().getStateLocation().append(STORE_DIR).toFile();
+			if (!storeDir.exists())
+				storeDir.mkdir();
+			if (!storeDir.isDirectory()) {
+				JavaPlugin.logErrorMessage("Failed to create Javadoc cache directory " + storeDir.toString()); //$NON-NLS-1$
+				return null;
+			}
+			return storeDir;
+		} catch (IllegalStateException e) {
+			// no state location
+			return null;
+		}
+	}
+
+	/*
+	 * The key of the Javadoc of an element in the store. Also contains the version of this
+	 * plug-in and the locale, since they influence the rendering.
+	 */
+	private static String getStoreKey(String handle, IPackageFragmentRoot root) throws JavaModelException {
+		StringBuffer buf= new StringBuffer();
+		buf.append(STORE_VERSION).append('|');
+		buf.append(JavaPlugin.getDefault().getBundle().getVersion()).append('|');
+		buf.append(Locale.getDefault()).append('|');
+		buf.append(handle);
+		appendFileStamp(buf, root.getPath());
+		IPath sourceAttachment= root.getSourceAttachmentPath();
+		if (sourceAttachment != null)
+			appendFileStamp(buf, sourceAttachment);
+		URL javadocLocation= JavaDocLocations.getJavadocBaseLocation(root);
+		if (javadocLocation != null)
+			buf.append('|').append(javadocLocation.toExternalForm());
+		return buf.toString();
+	}
+
+	private static void appendFileStamp(StringBuffer buf, IPath path) {
+		buf.append('|').append(path.toString());
+		IResource resource= ResourcesPlugin.getWorkspace().getRoot().findMember(path);
+		IPath location= resource != null ? resource.getLocation() : path;
+		if (location != null) {
+			File file= location.toFile();
+			buf.append('@').append(file.lastModified()).append(':').append(file.length());
+		}
+	}
+
+	private File getStoreFile(String storeKey) {
+		// collisions are detected by the key stored in the file
+		return new File(fStoreDir, Integer.toHexString(storeKey.hashCode()) + STORE_FILE_EXTENSION);
+	}
+
+	private Entry readStore(String storeKey) {
+		File file= getStoreFile(storeKey);
+		synchronized (fStoreLock) {
+			Entry pending= fPendingWrites.get(storeKey);
+			if (pending != null)
+				return pending;
+		}
+		try (DataInputStream in= new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (!storeKey.equals(in.readUTF()))
+				return null;
+			String content= null;
+			if (in.readBoolean()) {
+				byte[] bytes= new byte[in.readInt()];
+				in.readFully(bytes);
+				content= new String(bytes, StandardCharsets.UTF_8);
+			}
+			if (System.currentTimeMillis() - file.lastModified() > TOUCH_INTERVAL) {
+				synchronized (fStoreLock) {
+					fPendingTouches.add(file);
+				}
+				fStoreJob.schedule(STORE_DELAY);
+			}
+			return new Entry(content, true);
+		} catch (FileNotFoundException e) {
+			return null;
+		} catch (IOException e) {
+			// corrupt entry, will be overwritten
+			return null;
+		}
+	}
+
+	private void scheduleWrite(String storeKey, Entry entry) {
+		synchronized (fStoreLock) {
+			fPendingWrites.put(storeKey, entry);
+		}
+		fStoreJob.schedule(STORE_DELAY);
+	}
+
+	/*
+	 * Writes the pending entries of the store. Only called by the store job and at shutdown.
+	 */
+	private void writePendingStore() {
+		List<Map.Entry<String, Entry>> writes;
+		List<File> touches;
+		synchronized (fStoreLock) {
+			writes= new ArrayList<>(fPendingWrites.entrySet());
+			touches= new ArrayList<>(fPendingTouches);
+			fPendingTouches.clear();
+		}
+		long now= System.currentTimeMillis();
+		for (Iterator<File> iter= touches.iterator(); iter.hasNext();) {
+			iter.next().setLastModified(now);
+		}
+		for (Iterator<Map.Entry<String, Entry>> iter= writes.iterator(); iter.hasNext();) {
+			Map.Entry<String, Entry> write= iter.next();
+			writeStore(write.getKey(), write.getValue());
+			synchronized (fStoreLock) {
+				if (fPendingWrites.get(write.getKey()) == write.getValue())
+					fPendingWrites.remove(write.getKey());
+			}
+		}
+		fWritesSinceCleanup+= writes.size();
+		if (fWritesSinceCleanup >= CLEANUP_WRITES) {
+			// keep the store bounded in long sessions, not only at startup
+			fWritesSinceCleanup= 0;
+			fCleanupJob.schedule();
+		}
+	}
+
+	private void writeStore(String storeKey, Entry entry) {
+		File file= getStoreFile(storeKey);
+		// readers see either the old or the new file
+		File tempFile= new File(fStoreDir, file.getName() + TEMP_FILE_EXTENSION);
+		try {
+			try (DataOutputStream out= new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+				out.writeUTF(storeKey);
+				out.writeBoolean(entry.fContent != null);
+				if (entry.fContent != null) {
+					byte[] bytes= entry.fContent.getBytes(StandardCharsets.UTF_8);
+					out.writeInt(bytes.length);
+					out.write(bytes);
+				}
+			}
+			Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			JavaPlugin.log(e);
+			tempFile.delete();
+		}
+	}
+
+	private Job createStoreCleanupJob() {
+		Job job= new Job(JavaDocMessages.JavadocContentCache_cleanup_job) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				// a file deleted while it is read is rendered again
+				File[] files= fStoreDir.listFiles();
+				if (files == null || files.length <= MAX_STORE_ENTRIES)
+					return Status.OK_STATUS;
+				final long[] lastModified= new long[files.length];
+				Integer[] order= new Integer[files.length];
+				for (int i= 0; i < files.length; i++) {
+					lastModified[i]= files[i].lastModified();
+					order[i]= Integer.valueOf(i);
+				}
+				Arrays.sort(order, new Comparator<Integer>() {
+					@Override
+					public int compare(Integer o1, Integer o2) {
+						return Long.compare(lastModified[o1.intValue()], lastModified[o2.intValue()]);
+					}
+				});
+				// delete the least recently used entries, down to three quarters of the maximum
+				for (int i= 0; i < files.length - MAX_STORE_ENTRIES * 3 / 4; i++) {
+					files[order[i].intValue()].delete();
+				}
+				return Status.OK_STATUS;
+			}
+
+			@Override
+			public boolean belongsTo(Object family) {
+				return family == JavadocContentCache.class;
+			}
+		};
+		job.setSystem(true);
+		job.setPriority(Job.DECORATE);
+		return job;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,7 +13,9 @@ package org.eclipse.jdt.internal.ui.typehierarchy;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.swt.widgets.Display;
 
@@ -42,6 +44,7 @@ import org.eclipse.jdt.core.ITypeHierarchy;
 import org.eclipse.jdt.core.ITypeHierarchyChangedListener;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.Signature;
 
 import org.eclipse.jdt.internal.corext.util.JavaModelUtil;
 import org.eclipse.jdt.internal.corext.util.Messages;
@@ -53,7 +56,23 @@ import org.eclipse.jdt.internal.ui.JavaPlugin;
  */
 public class TypeHierarchyLifeCycle implements ITypeHierarchyChangedListener, IElementChangedListener {
 
+	/**
+	 * The delay in milliseconds before a changed hierarchy is refreshed in the background, so that
+	 * a burst of changes is refreshed at once.
+	 *
+	 * @since 3.13
+	 */
+	private static final long REFRESH_DELAY= 200;
+
 	private boolean fHierarchyRefreshNeeded;
+	/**
+	 * Whether the hierarchy has reported a change since it was last refreshed. The hierarchy
+	 * doesn't report further changes until it is refreshed, so the deltas are analyzed here
+	 * meanwhile.
+	 *
+	 * @since 3.13
+	 */
+	private volatile boolean fHierarchyChangeReported;
 	private ITypeHierarchy fHierarchy;
 	private IJavaElement[] fInputElements;
 	private boolean fIsSuperTypesOnly;
@@ -81,6 +100,19 @@ public class TypeHierarchyLifeCycle implements ITypeHierarchyChangedListener, IE
 	 */
 	private boolean fRefreshJobCanceledExplicitly= true;
 
+	/**
+	 * Listens to the changes reported by the hierarchy. The changes are verified against the delta
+	 * in {@link #elementChanged(ElementChangedEvent)}, which is notified after this listener.
+	 *
+	 * @since 3.13
+	 */
+	private final ITypeHierarchyChangedListener fHierarchyChangedListener= new ITypeHierarchyChangedListener() {
+		@Override
+		public void typeHierarchyChanged(ITypeHierarchy typeHierarchy) {
+			fHierarchyChangeReported= true;
+		}
+	};
+
 	/**
 	 * Creates the type hierarchy life cycle.
 	 *
@@ -116,10 +148,11 @@ public class TypeHierarchyLifeCycle implements ITypeHierarchyChangedListener, IE
 
 	public void freeHierarchy() {
 		if (fHierarchy != null) {
-			fHierarchy.removeTypeHierarchyChangedListener(this);
+			fHierarchy.removeTypeHierarchyChangedListener(fHierarchyChangedListener);
 			JavaCore.removeElementChangedListener(this);
 			fHierarchy= null;
 			fInputElements= null;
+			fHierarchyChangeReported= false;
 		}
 		synchronized (this) {
 			if (fRefreshHierarchyJob != null) {
@@ -240,7 +273,8 @@ public class TypeHierarchyLifeCycle implements ITypeHierarchyChangedListener, IE
 					fRefreshHierarchyJob.setUser(true);
 					IWorkbenchSiteProgressService progressService= fTypeHierarchyViewPart.getSite()
 														.getAdapter(IWorkbenchSiteProgressService.class);
-					progressService.schedule(fRefreshHierarchyJob, 0);
+					// refreshes of a changed hierarchy are delayed to include the changes that follow
+					progressService.schedule(fRefreshHierarchyJob, hierachyCreationNeeded ? 0 : REFRESH_DELAY);
 				}
 			}
 		}
@@ -269,6 +303,7 @@ public class TypeHierarchyLifeCycle implements ITypeHierarchyChangedListener, IE
 	 * @since 3.6
 	 */
 	protected void doHierarchyRefreshBackground(final IJavaElement[] elements, final IProgressMonitor pm) throws JavaModelException {
+		final boolean hierachyCreationNeeded= (fHierarchy == null || !Arrays.equals(elements, fInputElements));
 		doHierarchyRefresh(elements, pm);
 		if (!pm.isCanceled()) {
 			Display.getDefault().asyncExec(new Runnable() {
@@ -285,8 +320,13 @@ public class TypeHierarchyLifeCycle implements ITypeHierarchyChangedListener, IE
 					}
 					if (pm.isCanceled())
 						return;
-					fTypeHierarchyViewPart.setViewersInput();
-					fTypeHierarchyViewPart.updateViewers();
+					if (hierachyCreationNeeded) {
+						fTypeHierarchyViewPart.setViewersInput();
+						fTypeHierarchyViewPart.updateViewers();
+					} else {
+						// the hierarchy was refreshed in place
+						fTypeHierarchyViewPart.refreshViewers();
+					}
 				}
 			});
 		}
@@ -325,7 +365,7 @@ public class TypeHierarchyLifeCycle implements ITypeHierarchyChangedListener, IE
 		// to ensure the order of the two listeners always remove / add listeners on operations
 		// on type hierarchies
 		if (fHierarchy != null) {
-			fHierarchy.removeTypeHierarchyChangedListener(this);
+			fHierarchy.removeTypeHierarchyChangedListener(fHierarchyChangedListener);
 			JavaCore.removeElementChangedListener(this);
 		}
 		if (hierachyCreationNeeded) {
@@ -339,8 +379,9 @@ public class TypeHierarchyLifeCycle implements ITypeHierarchyChangedListener, IE
 			if (pm != null && pm.isCanceled())
 				throw new OperationCanceledException();
 		}
-		fHierarchy.addTypeHierarchyChangedListener(this);
+		fHierarchy.addTypeHierarchyChangedListener(fHierarchyChangedListener);
 		JavaCore.addElementChangedListener(this);
+		fHierarchyChangeReported= false;
 		fHierarchyRefreshNeeded= false;
 	}
 
@@ -359,18 +400,203 @@ public class TypeHierarchyLifeCycle implements ITypeHierarchyChangedListener, IE
 	@Override
 	public void elementChanged(ElementChangedEvent event) {
 		if (fChangeListeners.isEmpty()) {
+			if (fHierarchyChangeReported) {
+				fHierarchyChangeReported= false;
+				fHierarchyRefreshNeeded= true;
+			}
 			return;
 		}
 
-		if (fHierarchyRefreshNeeded) {
+		if (fHierarchyChangeReported) {
+			// the hierarchy reports any change to the types it contains, only refresh it if
+			// the supertypes of a type may have changed
+			if (isPossibleHierarchyChange(event.getDelta())) {
+				fHierarchyChangeReported= false;
+				typeHierarchyChanged(fHierarchy);
+				return;
+			}
+		} else if (fHierarchyRefreshNeeded) {
 			return;
-		} else {
-			ArrayList<IType> changedTypes= new ArrayList<>();
-			processDelta(event.getDelta(), changedTypes);
-			if (changedTypes.size() > 0) {
-				fireChange(changedTypes.toArray(new IType[changedTypes.size()]));
+		}
+		ArrayList<IType> changedTypes= new ArrayList<>();
+		processDelta(event.getDelta(), changedTypes);
+		if (changedTypes.size() > 0) {
+			fireChange(changedTypes.toArray(new IType[changedTypes.size()]));
+		}
+	}
+
+	/*
+	 * Returns true unless the delta certainly doesn't change a supertype or subtype relation
+	 */
+	private boolean isPossibleHierarchyChange(IJavaElementDelta delta) {
+		IJavaElement element= delta.getElement();
+		int flags= delta.getFlags();
+		switch (element.getElementType()) {
+			case IJavaElement.JAVA_MODEL:
+				return isPossibleHierarchyChangeInChildren(delta);
+			case IJavaElement.JAVA_PROJECT:
+			case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+			case IJavaElement.PACKAGE_FRAGMENT:
+				// content changes are changes of non-Java resources
+				if (delta.getKind() != IJavaElementDelta.CHANGED || (flags & ~(IJavaElementDelta.F_CHILDREN | IJavaElementDelta.F_CONTENT)) != 0) {
+					return true;
+				}
+				return isPossibleHierarchyChangeInChildren(delta);
+			case IJavaElement.COMPILATION_UNIT:
+				ICompilationUnit cu= (ICompilationUnit) element;
+				if (!JavaModelUtil.isPrimary(cu)) {
+					return false;
+				}
+				if (delta.getKind() != IJavaElementDelta.CHANGED) {
+					return true;
+				}
+				if (isPossibleStructuralChange(flags)) {
+					return haveSupertypesChanged(cu);
+				}
+				return isPossibleHierarchyChangeInChildren(delta);
+			case IJavaElement.TYPE:
+				if (delta.getKind() != IJavaElementDelta.CHANGED || (flags & ~(IJavaElementDelta.F_CHILDREN | IJavaElementDelta.F_ANNOTATIONS)) != 0) {
+					return true;
+				}
+				return isPossibleHierarchyChangeInChildren(delta);
+			case IJavaElement.PACKAGE_DECLARATION:
+			case IJavaElement.IMPORT_CONTAINER:
+			case IJavaElement.IMPORT_DECLARATION:
+				// the supertypes may resolve differently
+				return true;
+			case IJavaElement.CLASS_FILE:
+				return true;
+			default:
+				// members don't affect the hierarchy
+				return false;
+		}
+	}
+
+	private boolean isPossibleHierarchyChangeInChildren(IJavaElementDelta delta) {
+		IJavaElementDelta[] children= delta.getAffectedChildren();
+		for (int i= 0; i < children.length; i++) {
+			if (isPossibleHierarchyChange(children[i])) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/*
+	 * Compares the supertypes declared in a changed compilation unit with the hierarchy
+	 */
+	private boolean haveSupertypesChanged(ICompilationUnit cu) {
+		ITypeHierarchy hierarchy= fHierarchy;
+		if (hierarchy == null) {
+			return false;
+		}
+		try {
+			IType[] types= cu.getAllTypes();
+			Set<String> typeNames= null;
+			for (int i= 0; i < types.length; i++) {
+				IType type= types[i];
+				if (hierarchy.contains(type)) {
+					if (!haveSameSupertypes(type, hierarchy.getSuperclass(type), hierarchy.getSuperInterfaces(type))) {
+						return true;
+					}
+				} else {
+					// a new type or a type that may have become a subtype
+					if (typeNames == null) {
+						typeNames= getSimpleNames(hierarchy.getAllTypes());
+					}
+					String[] supertypeNames= getSupertypeNames(type);
+					for (int k= 0; k < supertypeNames.length; k++) {
+						if (typeNames.contains(supertypeNames[k])) {
+							return true;
+						}
+					}
+					if (supertypeNames.length == 0 && !type.isInterface() && typeNames.contains("Object")) { //$NON-NLS-1$
+						return true;
+					}
+				}
+			}
+			// types of the hierarchy that were removed from the unit
+			IType[] allTypes= hierarchy.getAllTypes();
+			for (int i= 0; i < allTypes.length; i++) {
+				if (cu.equals(allTypes[i].getCompilationUnit()) && !allTypes[i].exists()) {
+					return true;
+				}
+			}
+			return false;
+		} catch (JavaModelException e) {
+			return true;
+		}
+	}
+
+	private static String[] getSupertypeNames(IType type) throws JavaModelException {
+		String superclassName= type.getSuperclassName();
+		String[] interfaceNames= type.getSuperInterfaceNames();
+		int offset= superclassName != null ? 1 : 0;
+		String[] names= new String[offset + interfaceNames.length];
+		if (superclassName != null) {
+			names[0]= getSimpleName(superclassName);
+		}
+		for (int i= 0; i < interfaceNames.length; i++) {
+			names[offset + i]= getSimpleName(interfaceNames[i]);
+		}
+		return names;
+	}
+
+	/*
+	 * Compares the resolved supertypes declared by the type with its supertypes in the hierarchy.
+	 * Simple names are not enough, since a declaration can refer to another type with the same name.
+	 */
+	private static boolean haveSameSupertypes(IType type, IType superclass, IType[] superInterfaces) throws JavaModelException {
+		Set<String> names= new HashSet<>();
+		for (int i= 0; i < superInterfaces.length; i++) {
+			names.add(superInterfaces[i].getFullyQualifiedName('.'));
+		}
+		if (superclass != null) {
+			names.add(superclass.getFullyQualifiedName('.'));
+		}
+		String superclassName= type.getSuperclassName();
+		if (superclassName != null && !names.remove(resolveTypeName(type, superclassName))) {
+			return false;
+		}
+		String[] interfaceNames= type.getSuperInterfaceNames();
+		for (int i= 0; i < interfaceNames.length; i++) {
+			if (!names.remove(resolveTypeName(type, interfaceNames[i]))) {
+				return false;
 			}
 		}
+		// the implicit superclass is the only type that isn't declared
+		names.remove("java.lang.Object"); //$NON-NLS-1$
+		names.remove("java.lang.Enum"); //$NON-NLS-1$
+		return names.isEmpty();
+	}
+
+	/*
+	 * Returns the fully qualified name of the type referenced in the source of the given type, or
+	 * null if it cannot be resolved unambiguously
+	 */
+	private static String resolveTypeName(IType type, String typeName) throws JavaModelException {
+		String[][] resolved= type.resolveType(Signature.getTypeErasure(typeName));
+		if (resolved == null || resolved.length != 1) {
+			return null;
+		}
+		return JavaModelUtil.concatenateName(resolved[0][0], resolved[0][1]);
+	}
+
+	private static Set<String> getSimpleNames(IType[] types) {
+		Set<String> names= new HashSet<>();
+		for (int i= 0; i < types.length; i++) {
+			names.add(types[i].getElementName());
+		}
+		return names;
+	}
+
+	private static String getSimpleName(String typeName) {
+		int end= typeName.indexOf('<');
+		if (end == -1) {
+			end= typeName.length();
+		}
+		int start= typeName.lastIndexOf('.', end - 1) + 1;
+		return typeName.substring(start, end).trim();
 	}
 
 	/*
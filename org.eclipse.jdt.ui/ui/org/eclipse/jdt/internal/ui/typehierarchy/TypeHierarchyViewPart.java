@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -670,6 +670,21 @@ public class TypeHierarchyViewPart extends ViewPart implements ITypeHierarchyVie
 		fSelectInEditor= true;		
 	}
 
+	/**
+	 * Refreshes the viewers after the hierarchy of the current input has been refreshed. Unlike
+	 * {@link #updateViewers()}, keeps the expanded elements and the selection.
+	 *
+	 * @since 3.13
+	 */
+	public void refreshViewers() {
+		if (fInputElements == null)
+			return;
+		setKeepShowingEmptyViewers(false);
+		fMethodsViewer.refresh();
+		updateHierarchyViewer(false);
+		updateToolTipAndDescription();
+	}
+
 	private void processOutstandingEvents() {
 		Display display= getDisplay();
 		if (display != null && !display.isDisposed())
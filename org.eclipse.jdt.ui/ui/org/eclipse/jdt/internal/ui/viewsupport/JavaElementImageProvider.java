@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -160,12 +160,20 @@ public class JavaElementImageProvider {
 	public ImageDescriptor getJavaImageDescriptor(IJavaElement element, int flags) {
 		Point size= useSmallSize(flags) ? SMALL_SIZE : BIG_SIZE;
 
-		ImageDescriptor baseDesc= getBaseImageDescriptor(element, flags);
-		if (baseDesc != null) {
-			int adornmentFlags= computeJavaAdornmentFlags(element, flags);
-			return new JavaElementImageDescriptor(baseDesc, adornmentFlags, size);
+		JavaElementLabelCache cache= JavaElementLabelCache.getDefault();
+		JavaElementLabelCache.ImageEntry entry= cache.getImage(element, flags);
+		if (entry == null) {
+			int stamp= cache.getStamp();
+			ImageDescriptor baseDesc= getBaseImageDescriptor(element, flags);
+			if (baseDesc != null) {
+				entry= new JavaElementLabelCache.ImageEntry(baseDesc, computeJavaAdornmentFlags(element, flags));
+			} else {
+				entry= new JavaElementLabelCache.ImageEntry(JavaPluginImages.DESC_OBJS_GHOST, 0);
+			}
+			cache.putImage(element, flags, entry, stamp);
 		}
-		return new JavaElementImageDescriptor(JavaPluginImages.DESC_OBJS_GHOST, 0, size);
+		// the descriptor is mutable, so it is not shared
+		return new JavaElementImageDescriptor(entry.fBaseDescriptor, entry.fAdornmentFlags, size);
 	}
 
 	/**
@@ -0,0 +1,433 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.viewsupport;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+import org.eclipse.jface.preference.IPreferenceStore;
+import org.eclipse.jface.resource.ImageDescriptor;
+import org.eclipse.jface.util.IPropertyChangeListener;
+import org.eclipse.jface.util.PropertyChangeEvent;
+import org.eclipse.jface.viewers.StyledString;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IField;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+
+import org.eclipse.jdt.internal.corext.util.JavaModelUtil;
+
+import org.eclipse.jdt.ui.PreferenceConstants;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+import org.eclipse.jdt.internal.ui.JavaUIMessages;
+
+/**
+ * Cache of the labels and the image descriptors of Java elements, shared by all viewers.
+ * <p>
+ * Entries are keyed by the handle identifier of the element and the render flags. The label of an
+ * element only depends on the element and its ancestors, so a change in a compilation unit or class
+ * file evicts the entries of the elements it contains, and a change of a package, root or project
+ * evicts the entries of that element. Any structural change of a container, like a classpath change
+ * or a rename, as well as a change of the package name appearance preferences, clears the cache.
+ * The least recently used entries are evicted once the cache is full.
+ * </p>
+ * <p>
+ * The number of hits and misses is available from {@link #getHitCount()} and
+ * {@link #getMissCount()}. If tracing of <code>org.eclipse.jdt.ui/debug/LabelCache</code> is
+ * enabled, they are also printed whenever the cache is cleared.
+ * </p>
+ * <p>
+ * Resolved elements are not cached, since their labels depend on their binding keys, which are not
+ * part of the handle identifier.
+ * </p>
+ * <p>
+ * This class is thread safe.
+ * </p>
+ *
+ * @since 3.13
+ */
+public final class JavaElementLabelCache {
+
+	/**
+	 * The image of an element before it is sized and decorated.
+	 */
+	static final class ImageEntry {
+		final ImageDescriptor fBaseDescriptor;
+		final int fAdornmentFlags;
+
+		ImageEntry(ImageDescriptor baseDescriptor, int adornmentFlags) {
+			fBaseDescriptor= baseDescriptor;
+			fAdornmentFlags= adornmentFlags;
+		}
+	}
+
+	/** The maximal number of labels and of images, the least recently used are evicted first. */
+	private static final int MAX_ENTRIES= 20000;
+
+	/**
+	 * Separates the handle identifier from the flags in the keys. Sorts before any character of a
+	 * handle identifier, so that the entries of an element precede those of its children.
+	 */
+	private static final char SEPARATOR= '\u0000';
+
+	/**
+	 * The entries of the least recently used order, with a sorted index of the keys to find the
+	 * entries of an element and its children.
+	 */
+	private static final class EntryMap<V> {
+		private final TreeSet<String> fKeys= new TreeSet<>();
+		private final LinkedHashMap<String, V> fEntries= new LinkedHashMap<String, V>(16, 0.75f, true) {
+			private static final long serialVersionUID= 1L;
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+				if (size() <= MAX_ENTRIES)
+					return false;
+				fKeys.remove(eldest.getKey());
+				return true;
+			}
+		};
+
+		V get(String key) {
+			return fEntries.get(key);
+		}
+
+		void put(String key, V value) {
+			fKeys.add(key);
+			fEntries.put(key, value);
+		}
+
+		void removeRange(String fromKey, String toKey) {
+			for (Iterator<String> iter= fKeys.subSet(fromKey, toKey).iterator(); iter.hasNext();) {
+				fEntries.remove(iter.next());
+				iter.remove();
+			}
+		}
+
+		void removePrefix(String prefix) {
+			for (Iterator<String> iter= fKeys.tailSet(prefix).iterator(); iter.hasNext();) {
+				String key= iter.next();
+				if (!key.startsWith(prefix))
+					break;
+				fEntries.remove(key);
+				iter.remove();
+			}
+		}
+
+		int size() {
+			return fEntries.size();
+		}
+
+		void clear() {
+			fKeys.clear();
+			fEntries.clear();
+		}
+	}
+
+	private class LabelCacheListener implements IElementChangedListener, IPropertyChangeListener {
+		@Override
+		public void elementChanged(ElementChangedEvent event) {
+			processDelta(event.getDelta());
+		}
+
+		@Override
+		public void propertyChange(PropertyChangeEvent event) {
+			String property= event.getProperty();
+			if (PreferenceConstants.APPEARANCE_COMPRESS_PACKAGE_NAMES.equals(property)
+					|| PreferenceConstants.APPEARANCE_PKG_NAME_PATTERN_FOR_PKG_VIEW.equals(property)
+					|| PreferenceConstants.APPEARANCE_ABBREVIATE_PACKAGE_NAMES.equals(property)
+					|| PreferenceConstants.APPEARANCE_PKG_NAME_ABBREVIATION_PATTERN_FOR_PKG_VIEW.equals(property))
+				clear();
+		}
+
+		private void processDelta(IJavaElementDelta delta) {
+			IJavaElement element= delta.getElement();
+			switch (element.getElementType()) {
+				case IJavaElement.JAVA_MODEL:
+					processChildren(delta);
+					break;
+				case IJavaElement.JAVA_PROJECT:
+				case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+				case IJavaElement.PACKAGE_FRAGMENT:
+					// content changes are changes of non-Java resources
+					if (delta.getKind() != IJavaElementDelta.CHANGED || (delta.getFlags() & ~(IJavaElementDelta.F_CHILDREN | IJavaElementDelta.F_CONTENT)) != 0) {
+						clear();
+					} else {
+						// e.g. the image of a package depends on whether it is empty
+						removeElement(element);
+						processChildren(delta);
+					}
+					break;
+				default:
+					removeElementAndChildren(element);
+					break;
+			}
+		}
+
+		private void processChildren(IJavaElementDelta delta) {
+			IJavaElementDelta[] children= delta.getAffectedChildren();
+			for (int i= 0; i < children.length; i++) {
+				processDelta(children[i]);
+			}
+		}
+	}
+
+	private static JavaElementLabelCache fgInstance;
+
+	/**
+	 * Returns the shared label cache.
+	 *
+	 * @return the label cache
+	 */
+	public static synchronized JavaElementLabelCache getDefault() {
+		if (fgInstance == null)
+			fgInstance= new JavaElementLabelCache();
+		return fgInstance;
+	}
+
+	/**
+	 * Releases the shared label cache.
+	 */
+	public static synchronized void shutdown() {
+		if (fgInstance == null)
+			return;
+		JavaCore.removeElementChangedListener(fgInstance.fListener);
+		PreferenceConstants.getPreferenceStore().removePropertyChangeListener(fgInstance.fListener);
+		fgInstance= null;
+	}
+
+	private final EntryMap<StyledString> fLabels= new EntryMap<>();
+	private final EntryMap<ImageEntry> fImages= new EntryMap<>();
+	private final LabelCacheListener fListener;
+	// Incremented whenever the cache is cleared, so that labels computed across a change aren't stored
+	private int fStamp;
+	private long fHits;
+	private long fMisses;
+
+	private JavaElementLabelCache() {
+		fListener= new LabelCacheListener();
+		JavaCore.addElementChangedListener(fListener, ElementChangedEvent.POST_CHANGE | ElementChangedEvent.POST_RECONCILE);
+		IPreferenceStore store= PreferenceConstants.getPreferenceStore();
+		store.addPropertyChangeListener(fListener);
+	}
+
+	/**
+	 * Appends the label of an element to a styled string, composing it with
+	 * {@link JavaElementLabelComposer} if it is not cached.
+	 *
+	 * @param element the element to render
+	 * @param flags the rendering flags
+	 * @param result the styled string to append the label to
+	 */
+	public void appendElementLabel(IJavaElement element, long flags, StyledString result) {
+		result.append(getLabel(element, flags));
+	}
+
+	/**
+	 * Appends the label of an element to a buffer, composing it with
+	 * {@link JavaElementLabelComposer} if it is not cached.
+	 *
+	 * @param element the element to render
+	 * @param flags the rendering flags
+	 * @param buf the buffer to append the label to
+	 */
+	public void appendElementLabel(IJavaElement element, long flags, StringBuffer buf) {
+		if (!isCacheable(element)) {
+			new JavaElementLabelComposer(buf).appendElementLabel(element, flags);
+			return;
+		}
+		buf.append(getLabel(element, flags).getString());
+	}
+
+	/*
+	 * Returns the cached label, which must not be modified
+	 */
+	private StyledString getLabel(IJavaElement element, long flags) {
+		if (!isCacheable(element)) {
+			StyledString label= new StyledString();
+			new JavaElementLabelComposer(label).appendElementLabel(element, flags);
+			return label;
+		}
+		String key= getKey(element, flags);
+		int stamp;
+		synchronized (this) {
+			StyledString label= fLabels.get(key);
+			if (label != null) {
+				fHits++;
+				return label;
+			}
+			fMisses++;
+			stamp= fStamp;
+		}
+		StyledString label= new StyledString();
+		new JavaElementLabelComposer(label).appendElementLabel(element, flags);
+		synchronized (this) {
+			if (stamp == fStamp)
+				fLabels.put(key, label);
+		}
+		return label;
+	}
+
+	/**
+	 * Returns the cached image of an element.
+	 *
+	 * @param element the element
+	 * @param flags the image flags
+	 * @return the image, or <code>null</code> if not cached
+	 */
+	synchronized ImageEntry getImage(IJavaElement element, int flags) {
+		if (!isCacheable(element))
+			return null;
+		ImageEntry entry= fImages.get(getKey(element, flags));
+		if (entry != null)
+			fHits++;
+		else
+			fMisses++;
+		return entry;
+	}
+
+	/**
+	 * Caches the image of an element.
+	 *
+	 * @param element the element
+	 * @param flags the image flags
+	 * @param entry the image
+	 * @param stamp the stamp taken before the image was computed
+	 */
+	synchronized void putImage(IJavaElement element, int flags, ImageEntry entry, int stamp) {
+		if (stamp != fStamp || !isCacheable(element))
+			return;
+		fImages.put(getKey(element, flags), entry);
+	}
+
+	/**
+	 * @return the current stamp of the cache, to be passed to
+	 *         {@link #putImage(IJavaElement, int, ImageEntry, int)}
+	 */
+	synchronized int getStamp() {
+		return fStamp;
+	}
+
+	/**
+	 * Computes the labels and images of the given elements in the background, so that they are
+	 * cached when a viewer asks for them. The jobs belong to the family
+	 * <code>JavaElementLabelCache.class</code>.
+	 *
+	 * @param elements the elements, elements that are no Java elements are ignored
+	 * @param textFlags the text flags for each element
+	 * @param imageFlags the image flags for each element
+	 */
+	public void prefetch(final Object[] elements, final long[] textFlags, final int[] imageFlags) {
+		Job job= new Job(JavaUIMessages.JavaElementLabelCache_prefetch_job) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				JavaElementImageProvider imageProvider= new JavaElementImageProvider();
+				for (int i= 0; i < elements.length; i++) {
+					if (monitor.isCanceled())
+						return Status.CANCEL_STATUS;
+					if (elements[i] instanceof IJavaElement) {
+						IJavaElement element= (IJavaElement) elements[i];
+						getLabel(element, textFlags[i]);
+						imageProvider.getJavaImageDescriptor(element, imageFlags[i]);
+					}
+				}
+				return Status.OK_STATUS;
+			}
+
+			@Override
+			public boolean belongsTo(Object family) {
+				return family == JavaElementLabelCache.class;
+			}
+		};
+		job.setSystem(true);
+		job.setPriority(Job.DECORATE);
+		job.schedule();
+	}
+
+	/**
+	 * @return the number of label and image lookups that were answered from the cache
+	 */
+	public synchronized long getHitCount() {
+		return fHits;
+	}
+
+	/**
+	 * @return the number of label and image lookups that were not cached
+	 */
+	public synchronized long getMissCount() {
+		return fMisses;
+	}
+
+	/**
+	 * Removes all cached labels and images.
+	 */
+	public synchronized void clear() {
+		if (JavaPlugin.DEBUG_LABEL_CACHE)
+			System.out.println("JavaElementLabelCache > cleared " + this); //$NON-NLS-1$
+		fLabels.clear();
+		fImages.clear();
+		fStamp++;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "(" + fLabels.size() + " labels, " + fImages.size() + " images, " + fHits + " hits, " + fMisses + " misses)"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+	}
+
+	private synchronized void removeElement(IJavaElement element) {
+		String handle= element.getHandleIdentifier();
+		fLabels.removeRange(handle + SEPARATOR, handle + (char) (SEPARATOR + 1));
+		fImages.removeRange(handle + SEPARATOR, handle + (char) (SEPARATOR + 1));
+		fStamp++;
+	}
+
+	private synchronized void removeElementAndChildren(IJavaElement element) {
+		String handle= element.getHandleIdentifier();
+		// also removes the entries of siblings whose names start with the name of the element
+		fLabels.removePrefix(handle);
+		fImages.removePrefix(handle);
+		fStamp++;
+	}
+
+	private static String getKey(IJavaElement element, long flags) {
+		return element.getHandleIdentifier() + SEPARATOR + flags;
+	}
+
+	private static boolean isCacheable(IJavaElement element) {
+		// the handles of other working copies are the same as those of the primary elements
+		ICompilationUnit cu= (ICompilationUnit) element.getAncestor(IJavaElement.COMPILATION_UNIT);
+		if (cu != null && !JavaModelUtil.isPrimary(cu))
+			return false;
+		switch (element.getElementType()) {
+			case IJavaElement.TYPE:
+				return !((IType) element).isResolved();
+			case IJavaElement.METHOD:
+				return !((IMethod) element).isResolved();
+			case IJavaElement.FIELD:
+				return !((IField) element).isResolved();
+			default:
+				return true;
+		}
+	}
+}
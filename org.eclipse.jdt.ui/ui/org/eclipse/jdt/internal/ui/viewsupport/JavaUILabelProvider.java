@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -127,6 +127,23 @@ public class JavaUILabelProvider implements ILabelProvider, IColorProvider, ISty
 		return getTextFlags();
 	}
 
+	/**
+	 * Computes the styled labels and the images of the given elements in the background, so that
+	 * a viewer about to show them finds them in the {@link JavaElementLabelCache}.
+	 *
+	 * @param elements the elements, typically the rows that are about to become visible
+	 * @since 3.13
+	 */
+	public void prefetchLabels(Object[] elements) {
+		long[] textFlags= new long[elements.length];
+		int[] imageFlags= new int[elements.length];
+		for (int i= 0; i < elements.length; i++) {
+			textFlags[i]= evaluateTextFlags(elements[i]) | JavaElementLabels.COLORIZE;
+			imageFlags[i]= evaluateImageFlags(elements[i]);
+		}
+		JavaElementLabelCache.getDefault().prefetch(elements, textFlags, imageFlags);
+	}
+
 	protected Image decorateImage(Image image, Object element) {
 		if (fLabelDecorators != null && image != null) {
 			for (int i= 0; i < fLabelDecorators.size(); i++) {
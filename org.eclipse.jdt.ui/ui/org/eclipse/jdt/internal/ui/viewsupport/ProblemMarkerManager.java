@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,17 +11,26 @@
 package org.eclipse.jdt.internal.ui.viewsupport;
 
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.swt.widgets.Display;
 
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.ListenerList;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.IJobManager;
+import org.eclipse.core.runtime.jobs.Job;
 
+import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IMarkerDelta;
 import org.eclipse.core.resources.IProject;
@@ -30,6 +39,7 @@ import org.eclipse.core.resources.IResourceChangeEvent;
 import org.eclipse.core.resources.IResourceChangeListener;
 import org.eclipse.core.resources.IResourceDelta;
 import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.ResourcesPlugin;
 
 import org.eclipse.jface.text.source.AnnotationModelEvent;
 import org.eclipse.jface.text.source.IAnnotationModel;
@@ -47,42 +57,56 @@ import org.eclipse.jdt.internal.ui.javaeditor.CompilationUnitAnnotationModelEven
  * Listens to resource deltas and filters for marker changes of type IMarker.PROBLEM
  * Viewers showing error ticks should register as listener to
  * this type.
+ * <p>
+ * While listeners are registered, the manager keeps the maximal problem severity of every resource
+ * and its descendants, updated incrementally from the marker deltas. Listeners are only notified
+ * about resources whose problem markers changed, whose maximal severity changed, or whose child's
+ * maximal severity changed. Notifications are batched, longer while a build is running.
+ * </p>
  */
 public class ProblemMarkerManager implements IResourceChangeListener, IAnnotationModelListener , IAnnotationModelListenerExtension {
 
+	/**
+	 * Delay in milliseconds of the notification of marker changes.
+	 */
+	private static final long UPDATE_DELAY= 100;
+
+	/**
+	 * Delay in milliseconds of the notification of marker changes while a build is running, so
+	 * that the changes of consecutive resource deltas are notified together.
+	 */
+	private static final long BUILD_UPDATE_DELAY= 500;
+
 	/**
 	 * Visitors used to look if the element change delta contains a marker change.
 	 */
 	private static class ProjectErrorVisitor implements IResourceDeltaVisitor {
 
-		private HashSet<IResource> fChangedElements;
-
-		public ProjectErrorVisitor(HashSet<IResource> changedElements) {
-			fChangedElements= changedElements;
-		}
+		private final List<IResource> fMarkerChanges= new ArrayList<>();
+		private final List<IResource> fRemovedResources= new ArrayList<>();
+		private final List<IProject> fChangedProjects= new ArrayList<>();
 
 		@Override
 		public boolean visit(IResourceDelta delta) throws CoreException {
 			IResource res= delta.getResource();
-			if (res instanceof IProject && delta.getKind() == IResourceDelta.CHANGED) {
+			if (res instanceof IProject) {
 				IProject project= (IProject) res;
+				if (delta.getKind() != IResourceDelta.CHANGED || (delta.getFlags() & IResourceDelta.OPEN) != 0) {
+					// the markers of the project are read again
+					fChangedProjects.add(project);
+					return false;
+				}
 				if (!project.isAccessible()) {
 					// only track open Java projects
 					return false;
 				}
 			}
-			checkInvalidate(delta, res);
-			return true;
-		}
-
-		private void checkInvalidate(IResourceDelta delta, IResource resource) {
-			int kind= delta.getKind();
-			if (kind == IResourceDelta.REMOVED || kind == IResourceDelta.ADDED || (kind == IResourceDelta.CHANGED && isErrorDelta(delta))) {
-				// invalidate the resource and all parents
-				while (resource.getType() != IResource.ROOT && fChangedElements.add(resource)) {
-					resource= resource.getParent();
-				}
+			if (delta.getKind() == IResourceDelta.REMOVED) {
+				fRemovedResources.add(res);
+			} else if (isErrorDelta(delta)) {
+				fMarkerChanges.add(res);
 			}
+			return true;
 		}
 
 		private boolean isErrorDelta(IResourceDelta delta) {
@@ -104,11 +128,112 @@ public class ProblemMarkerManager implements IResourceChangeListener, IAnnotatio
 		}
 	}
 
+	/**
+	 * The maximal problem severities of the resources of the workspace. Not thread safe.
+	 */
+	private static class SeverityTable {
+
+		/**
+		 * The maximal severity of the problem markers on each resource, without its descendants.
+		 * Resources without problems are not contained.
+		 */
+		private final Map<IResource, Integer> fSeverities= new HashMap<>();
+
+		/**
+		 * For each resource, the number of resources in its subtree, including itself, that have
+		 * problems of severity info, warning and error. Resources without problems in their subtree
+		 * are not contained.
+		 */
+		private final Map<IResource, int[]> fSeverityCounts= new HashMap<>();
+
+		/*
+		 * Replaces the severities of a container and its descendants with the given severities
+		 */
+		void replaceSeverities(IContainer container, Map<IResource, Integer> severities, Map<IResource, Integer> oldSeverities) {
+			IPath path= container.getFullPath();
+			List<IResource> resources= new ArrayList<>();
+			for (Iterator<IResource> iter= fSeverities.keySet().iterator(); iter.hasNext();) {
+				IResource resource= iter.next();
+				if (path.isPrefixOf(resource.getFullPath())) {
+					resources.add(resource);
+				}
+			}
+			for (Iterator<IResource> iter= resources.iterator(); iter.hasNext();) {
+				setSeverity(iter.next(), -1, oldSeverities);
+			}
+			for (Iterator<Map.Entry<IResource, Integer>> iter= severities.entrySet().iterator(); iter.hasNext();) {
+				Map.Entry<IResource, Integer> entry= iter.next();
+				setSeverity(entry.getKey(), entry.getValue().intValue(), oldSeverities);
+			}
+		}
+
+		/*
+		 * Sets the severity of the markers on a resource and updates the counts of its ancestors.
+		 * Remembers the maximal severities of the resource and its ancestors before the first change.
+		 */
+		void setSeverity(IResource resource, int severity, Map<IResource, Integer> oldSeverities) {
+			if (severity < IMarker.SEVERITY_INFO || severity > IMarker.SEVERITY_ERROR) {
+				severity= -1;
+			}
+			Integer old= fSeverities.get(resource);
+			int oldSeverity= old != null ? old.intValue() : -1;
+			if (oldSeverity == severity) {
+				return;
+			}
+			if (severity == -1) {
+				fSeverities.remove(resource);
+			} else {
+				fSeverities.put(resource, Integer.valueOf(severity));
+			}
+			for (IResource curr= resource; curr != null && curr.getType() != IResource.ROOT; curr= curr.getParent()) {
+				if (!oldSeverities.containsKey(curr)) {
+					oldSeverities.put(curr, Integer.valueOf(getMaxSeverity(curr)));
+				}
+				int[] counts= fSeverityCounts.get(curr);
+				if (counts == null) {
+					counts= new int[IMarker.SEVERITY_ERROR + 1];
+					fSeverityCounts.put(curr, counts);
+				}
+				if (oldSeverity != -1) {
+					counts[oldSeverity]--;
+				}
+				if (severity != -1) {
+					counts[severity]++;
+				}
+				if (counts[IMarker.SEVERITY_INFO] == 0 && counts[IMarker.SEVERITY_WARNING] == 0 && counts[IMarker.SEVERITY_ERROR] == 0) {
+					fSeverityCounts.remove(curr);
+				}
+			}
+		}
+
+		int getMaxSeverity(IResource resource) {
+			int[] counts= fSeverityCounts.get(resource);
+			if (counts != null) {
+				for (int severity= IMarker.SEVERITY_ERROR; severity >= IMarker.SEVERITY_INFO; severity--) {
+					if (counts[severity] > 0) {
+						return severity;
+					}
+				}
+			}
+			return -1;
+		}
+	}
+
 	private ListenerList<IProblemChangedListener> fListeners;
 
 	private Set<IResource> fResourcesWithMarkerChanges;
 	private Set<IResource> fResourcesWithAnnotationChanges;
 
+	/**
+	 * The severities of the workspace, <code>null</code> until the markers of the workspace have
+	 * been read. Only updated in {@link #resourceChanged(IResourceChangeEvent)} while holding the
+	 * lock of this manager, the markers are read before the lock is taken.
+	 */
+	private SeverityTable fSeverityTable;
+
+	// Incremented whenever the listeners are added or removed, so that a table read across isn't published
+	private int fGeneration;
+
 	private UIJob fNotifierJob;
 
 	public ProblemMarkerManager() {
@@ -122,16 +247,63 @@ public class ProblemMarkerManager implements IResourceChangeListener, IAnnotatio
 	 */
 	@Override
 	public void resourceChanged(IResourceChangeEvent event) {
-		HashSet<IResource> changedElements= new HashSet<>();
-
+		ProjectErrorVisitor visitor= new ProjectErrorVisitor();
 		try {
 			IResourceDelta delta= event.getDelta();
 			if (delta != null)
-				delta.accept(new ProjectErrorVisitor(changedElements));
+				delta.accept(visitor);
 		} catch (CoreException e) {
 			JavaPlugin.log(e.getStatus());
 		}
 
+		HashSet<IResource> changedElements= new HashSet<>();
+		SeverityTable table;
+		int generation;
+		synchronized (this) {
+			table= fSeverityTable;
+			generation= fGeneration;
+		}
+		try {
+			if (table == null) {
+				// the workspace is scanned without holding the lock, the table is published when complete
+				table= new SeverityTable();
+				IContainer root= JavaPlugin.getWorkspace().getRoot();
+				table.replaceSeverities(root, readSeverities(root), new HashMap<IResource, Integer>());
+				synchronized (this) {
+					if (generation == fGeneration) {
+						fSeverityTable= table;
+					}
+				}
+				// nothing to compare to yet, invalidate the changed resources and all parents
+				addAllWithParents(visitor, changedElements);
+			} else {
+				// read the markers before the lock is taken, resource change events are not concurrent
+				Map<IProject, Map<IResource, Integer>> projectSeverities= new HashMap<>();
+				for (Iterator<IProject> iter= visitor.fChangedProjects.iterator(); iter.hasNext();) {
+					IProject project= iter.next();
+					projectSeverities.put(project, readSeverities(project));
+				}
+				Map<IResource, Integer> markerSeverities= new HashMap<>();
+				for (Iterator<IResource> iter= visitor.fMarkerChanges.iterator(); iter.hasNext();) {
+					IResource resource= iter.next();
+					markerSeverities.put(resource, Integer.valueOf(resource.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_ZERO)));
+				}
+				synchronized (this) {
+					if (table == fSeverityTable) {
+						collectChangedElements(table, visitor, projectSeverities, markerSeverities, changedElements);
+					} else {
+						addAllWithParents(visitor, changedElements);
+					}
+				}
+			}
+		} catch (CoreException e) {
+			JavaPlugin.log(e.getStatus());
+			synchronized (this) {
+				fSeverityTable= null;
+			}
+			addAllWithParents(visitor, changedElements);
+		}
+
 		if (!changedElements.isEmpty()) {
 			boolean hasChanges= false;
 			synchronized (this) {
@@ -143,11 +315,101 @@ public class ProblemMarkerManager implements IResourceChangeListener, IAnnotatio
 				}
 			}
 			if (hasChanges) {
-				fireChanges();
+				fireChanges(isBuilding() ? BUILD_UPDATE_DELAY : UPDATE_DELAY);
 			}
 		}
 	}
 
+	private static void addAllWithParents(ProjectErrorVisitor visitor, Set<IResource> result) {
+		addWithParents(visitor.fMarkerChanges, result);
+		addWithParents(visitor.fRemovedResources, result);
+		addWithParents(visitor.fChangedProjects, result);
+	}
+
+	private static void addWithParents(List<? extends IResource> resources, Set<IResource> result) {
+		for (Iterator<? extends IResource> iter= resources.iterator(); iter.hasNext();) {
+			IResource resource= iter.next();
+			while (resource.getType() != IResource.ROOT && result.add(resource)) {
+				resource= resource.getParent();
+			}
+		}
+	}
+
+	private static void collectChangedElements(SeverityTable table, ProjectErrorVisitor visitor, Map<IProject, Map<IResource, Integer>> projectSeverities,
+			Map<IResource, Integer> markerSeverities, Set<IResource> changedElements) {
+		// the maximal severities before the change, of the resources whose severity may have changed
+		Map<IResource, Integer> oldSeverities= new HashMap<>();
+		for (Iterator<Map.Entry<IProject, Map<IResource, Integer>>> iter= projectSeverities.entrySet().iterator(); iter.hasNext();) {
+			Map.Entry<IProject, Map<IResource, Integer>> entry= iter.next();
+			table.replaceSeverities(entry.getKey(), entry.getValue(), oldSeverities);
+		}
+		for (Iterator<IResource> iter= visitor.fRemovedResources.iterator(); iter.hasNext();) {
+			table.setSeverity(iter.next(), -1, oldSeverities);
+		}
+		for (Iterator<Map.Entry<IResource, Integer>> iter= markerSeverities.entrySet().iterator(); iter.hasNext();) {
+			Map.Entry<IResource, Integer> entry= iter.next();
+			// the ticks of the members of a file depend on all of its markers
+			changedElements.add(entry.getKey());
+			table.setSeverity(entry.getKey(), entry.getValue().intValue(), oldSeverities);
+		}
+		for (Iterator<Map.Entry<IResource, Integer>> iter= oldSeverities.entrySet().iterator(); iter.hasNext();) {
+			Map.Entry<IResource, Integer> entry= iter.next();
+			IResource resource= entry.getKey();
+			if (table.getMaxSeverity(resource) != entry.getValue().intValue()) {
+				changedElements.add(resource);
+				// e.g. packages only show the problems of their files, but not of their subpackages
+				IResource parent= resource.getParent();
+				if (parent != null && parent.getType() != IResource.ROOT) {
+					changedElements.add(parent);
+				}
+			}
+		}
+	}
+
+	/*
+	 * Reads the maximal severity of the problem markers on each resource of a container
+	 */
+	private static Map<IResource, Integer> readSeverities(IContainer container) throws CoreException {
+		Map<IResource, Integer> severities= new HashMap<>();
+		if (!container.isAccessible()) {
+			return severities;
+		}
+		IMarker[] markers= container.findMarkers(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE);
+		for (int i= 0; i < markers.length; i++) {
+			int severity= markers[i].getAttribute(IMarker.SEVERITY, -1);
+			Integer current= severities.get(markers[i].getResource());
+			if (current == null || current.intValue() < severity) {
+				severities.put(markers[i].getResource(), Integer.valueOf(severity));
+			}
+		}
+		return severities;
+	}
+
+	/**
+	 * Returns the maximal severity of the problem markers on a resource and its descendants, like
+	 * {@link IResource#findMaxProblemSeverity(String, boolean, int)} with {@link IMarker#PROBLEM}
+	 * and {@link IResource#DEPTH_INFINITE}. Answered from the severities kept by this manager while
+	 * it has listeners.
+	 *
+	 * @param resource the resource
+	 * @return the maximal severity, or -1 if there are no problems
+	 * @throws CoreException if the markers cannot be read
+	 * @since 3.13
+	 */
+	public int findMaxProblemSeverity(IResource resource) throws CoreException {
+		synchronized (this) {
+			if (fSeverityTable != null) {
+				return fSeverityTable.getMaxSeverity(resource);
+			}
+		}
+		return resource.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE);
+	}
+
+	private static boolean isBuilding() {
+		IJobManager jobManager= Job.getJobManager();
+		return jobManager.find(ResourcesPlugin.FAMILY_AUTO_BUILD).length > 0 || jobManager.find(ResourcesPlugin.FAMILY_MANUAL_BUILD).length > 0;
+	}
+
 	@Override
 	public void modelChanged(IAnnotationModel model) {
 		// no action
@@ -164,7 +426,7 @@ public class ProblemMarkerManager implements IResourceChangeListener, IAnnotatio
 					hasChanges= fResourcesWithAnnotationChanges.add(changedResource);
 				}
 				if (hasChanges) {
-					fireChanges();
+					fireChanges(0);
 				}
 			}
 		}
@@ -177,6 +439,11 @@ public class ProblemMarkerManager implements IResourceChangeListener, IAnnotatio
 	 */
 	public void addListener(IProblemChangedListener listener) {
 		if (fListeners.isEmpty()) {
+			synchronized (this) {
+				// read again from the markers on the first change
+				fSeverityTable= null;
+				fGeneration++;
+			}
 			JavaPlugin.getWorkspace().addResourceChangeListener(this);
 			JavaPlugin.getDefault().getCompilationUnitDocumentProvider().addGlobalAnnotationModelListener(this);
 		}
@@ -192,17 +459,22 @@ public class ProblemMarkerManager implements IResourceChangeListener, IAnnotatio
 		if (fListeners.isEmpty()) {
 			JavaPlugin.getWorkspace().removeResourceChangeListener(this);
 			JavaPlugin.getDefault().getCompilationUnitDocumentProvider().removeGlobalAnnotationModelListener(this);
+			synchronized (this) {
+				// not updated anymore
+				fSeverityTable= null;
+				fGeneration++;
+			}
 		}
 	}
 
-	private void fireChanges() {
+	private void fireChanges(long delay) {
 		Display display= PlatformUI.getWorkbench().getDisplay();
 		if (display != null && !display.isDisposed()) {
-			postAsyncUpdate(display);
+			postAsyncUpdate(display, delay);
 		}
 	}
 
-	private void postAsyncUpdate(final Display display) {
+	private synchronized void postAsyncUpdate(final Display display, long delay) {
 		if (fNotifierJob == null) {
 			fNotifierJob= new UIJob(display, JavaUIMessages.ProblemMarkerManager_problem_marker_update_job_description) {
 				@Override
@@ -213,7 +485,11 @@ public class ProblemMarkerManager implements IResourceChangeListener, IAnnotatio
 			};
 			fNotifierJob.setSystem(true);
 		}
-		fNotifierJob.schedule();
+		fNotifierJob.schedule(delay);
+		if (delay == 0) {
+			// don't wait for the delay of pending marker changes
+			fNotifierJob.wakeUp();
+		}
 	}
 
 	/**
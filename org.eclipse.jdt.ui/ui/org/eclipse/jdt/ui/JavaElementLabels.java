@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -48,6 +48,7 @@ import org.eclipse.jdt.internal.ui.JavaUIMessages;
 import org.eclipse.jdt.internal.ui.packageview.ClassPathContainer;
 import org.eclipse.jdt.internal.core.manipulation.util.BasicElementLabels;
 
+import org.eclipse.jdt.internal.ui.viewsupport.JavaElementLabelCache;
 import org.eclipse.jdt.internal.ui.viewsupport.JavaElementLabelComposer;
 
 
@@ -516,7 +517,7 @@ public class JavaElementLabels {
 	 * @param buf the buffer to append the resulting label to
 	 */
 	public static void getElementLabel(IJavaElement element, long flags, StringBuffer buf) {
-		new JavaElementLabelComposer(buf).appendElementLabel(element, flags);
+		JavaElementLabelCache.getDefault().appendElementLabel(element, flags, buf);
 	}
 
 	/**
@@ -529,7 +530,7 @@ public class JavaElementLabels {
 	 * @since 3.4
 	 */
 	public static void getElementLabel(IJavaElement element, long flags, StyledString result) {
-		new JavaElementLabelComposer(result).appendElementLabel(element, flags);
+		JavaElementLabelCache.getDefault().appendElementLabel(element, flags, result);
 	}
 
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -3686,7 +3686,8 @@ public class PreferenceConstants {
 	/**
 	 * A named preference that stores the content assist LRU history
 	 * <p>
-	 * Value is an XML encoded version of the history.
+	 * Value is an XML encoded version of the history. Since 3.13 the history is stored in the
+	 * plug-in's state location, the preference is only read to migrate an existing history.
 	 * </p>
 	 *
 	 * @see org.eclipse.jdt.internal.ui.text.java.ContentAssistHistory#load(org.eclipse.core.runtime.Preferences, String)
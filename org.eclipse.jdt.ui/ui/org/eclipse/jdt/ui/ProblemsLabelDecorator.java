@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -293,7 +293,11 @@ public class ProblemsLabelDecorator implements ILabelDecorator, ILightweightLabe
 					return ERRORTICK_BUILDPATH_ERROR;
 				}
 			}
-			severity= res.findMaxProblemSeverity(IMarker.PROBLEM, true, depth);
+			if (depth == IResource.DEPTH_INFINITE) {
+				severity= JavaPlugin.getDefault().getProblemMarkerManager().findMaxProblemSeverity(res);
+			} else {
+				severity= res.findMaxProblemSeverity(IMarker.PROBLEM, true, depth);
+			}
 		} else {
 			IMarker[] markers= res.findMarkers(IMarker.PROBLEM, true, depth);
 			if (markers != null && markers.length > 0) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2012 IBM Corporation and others.
+ * Copyright (c) 2005, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -34,6 +34,11 @@ import org.eclipse.jdt.internal.ui.text.java.ContentAssistHistory.RHSHistory;
 /**
  * Describes the context of a content assist invocation in a Java editor.
  * <p>
+ * The values computed lazily by this context are cached in a thread safe way, so that the context
+ * can be shared by proposal computers that run concurrently. Code completion and type lookups run
+ * without holding the lock of this context.
+ * </p>
+ * <p>
  * Clients may use but not subclass this class.
  * </p>
  *
@@ -100,7 +105,7 @@ public class JavaContentAssistInvocationContext extends ContentAssistInvocationC
 	 * 
 	 * @return the compilation unit that content assist is invoked in, possibly <code>null</code>
 	 */
-	public ICompilationUnit getCompilationUnit() {
+	public synchronized ICompilationUnit getCompilationUnit() {
 		if (!fCUComputed) {
 			fCUComputed= true;
 			if (fCollector != null)
@@ -136,17 +141,22 @@ public class JavaContentAssistInvocationContext extends ContentAssistInvocationC
 	 * @return the available keyword proposals
 	 */
 	public IJavaCompletionProposal[] getKeywordProposals() {
-		if (fKeywordProposals == null) {
-			if (fCollector != null && !fCollector.isIgnored(CompletionProposal.KEYWORD) && fCollector.getContext() != null) {
-				// use the existing collector if it exists, collects keywords, and has already been invoked
-				fKeywordProposals= fCollector.getKeywordCompletionProposals();
-			} else {
-				// otherwise, retrieve keywords ourselves
-				computeKeywordsAndContext();
+		synchronized (this) {
+			if (fKeywordProposals == null) {
+				if (fCollector != null && !fCollector.isIgnored(CompletionProposal.KEYWORD) && fCollector.getContext() != null) {
+					// use the existing collector if it exists, collects keywords, and has already been invoked
+					fKeywordProposals= fCollector.getKeywordCompletionProposals();
+				}
 			}
+			if (fKeywordProposals != null)
+				return fKeywordProposals;
 		}
 
-		return fKeywordProposals;
+		// otherwise, retrieve keywords ourselves
+		computeKeywordsAndContext();
+		synchronized (this) {
+			return fKeywordProposals;
+		}
 	}
 
 	/**
@@ -161,19 +171,23 @@ public class JavaContentAssistInvocationContext extends ContentAssistInvocationC
 	 * @return the core completion context if available, <code>null</code> otherwise
 	 */
 	public CompletionContext getCoreContext() {
-		if (fCollector != null) {
-			CompletionContext context= fCollector.getContext();
-			if (context != null) {
-				if (fCoreContext == null)
-					fCoreContext= context;
-				return context;
+		synchronized (this) {
+			if (fCollector != null) {
+				CompletionContext context= fCollector.getContext();
+				if (context != null) {
+					if (fCoreContext == null)
+						fCoreContext= context;
+					return context;
+				}
 			}
+			if (fCoreContext != null)
+				return fCoreContext;
 		}
 
-		if (fCoreContext == null)
-			computeKeywordsAndContext(); // Retrieve the context ourselves
-
-		return fCoreContext;
+		computeKeywordsAndContext(); // Retrieve the context ourselves
+		synchronized (this) {
+			return fCoreContext;
+		}
 	}
 
 	/**
@@ -200,19 +214,27 @@ public class JavaContentAssistInvocationContext extends ContentAssistInvocationC
 	 * @return the content assist type history for the expected type
 	 */
 	private RHSHistory getRHSHistory() {
-		if (fRHSHistory == null) {
-			CompletionContext context= getCoreContext();
-			if (context != null) {
-				char[][] expectedTypes= context.getExpectedTypesSignatures();
-				if (expectedTypes != null && expectedTypes.length > 0) {
-					String expected= SignatureUtil.stripSignatureToFQN(String.valueOf(expectedTypes[0]));
-					fRHSHistory= JavaPlugin.getDefault().getContentAssistHistory().getHistory(expected);
-				}
+		synchronized (this) {
+			if (fRHSHistory != null)
+				return fRHSHistory;
+		}
+
+		RHSHistory history= null;
+		CompletionContext context= getCoreContext();
+		if (context != null) {
+			char[][] expectedTypes= context.getExpectedTypesSignatures();
+			if (expectedTypes != null && expectedTypes.length > 0) {
+				String expected= SignatureUtil.stripSignatureToFQN(String.valueOf(expectedTypes[0]));
+				history= JavaPlugin.getDefault().getContentAssistHistory().getHistory(expected);
 			}
+		}
+		if (history == null)
+			history= JavaPlugin.getDefault().getContentAssistHistory().getHistory(null);
+		synchronized (this) {
 			if (fRHSHistory == null)
-				fRHSHistory= JavaPlugin.getDefault().getContentAssistHistory().getHistory(null);
+				fRHSHistory= history;
+			return fRHSHistory;
 		}
-		return fRHSHistory;
 	}
 
 	/**
@@ -226,15 +248,22 @@ public class JavaContentAssistInvocationContext extends ContentAssistInvocationC
 	 * @return the expected type if any, <code>null</code> otherwise
 	 */
 	public IType getExpectedType() {
-		if (fType == null && getCompilationUnit() != null) {
+		synchronized (this) {
+			if (fType != null)
+				return fType;
+		}
+
+		IType type= null;
+		ICompilationUnit cu= getCompilationUnit();
+		if (cu != null) {
 			CompletionContext context= getCoreContext();
 			if (context != null) {
 				char[][] expectedTypes= context.getExpectedTypesSignatures();
 				if (expectedTypes != null && expectedTypes.length > 0) {
-					IJavaProject project= getCompilationUnit().getJavaProject();
+					IJavaProject project= cu.getJavaProject();
 					if (project != null) {
 						try {
-							fType= project.findType(SignatureUtil.stripSignatureToFQN(String.valueOf(expectedTypes[0])));
+							type= project.findType(SignatureUtil.stripSignatureToFQN(String.valueOf(expectedTypes[0])));
 						} catch (JavaModelException x) {
 							JavaPlugin.log(x);
 						}
@@ -242,7 +271,11 @@ public class JavaContentAssistInvocationContext extends ContentAssistInvocationC
 				}
 			}
 		}
-		return fType;
+		synchronized (this) {
+			if (fType == null)
+				fType= type;
+			return fType;
+		}
 	}
 
 	/**
@@ -250,7 +283,7 @@ public class JavaContentAssistInvocationContext extends ContentAssistInvocationC
 	 *
 	 * @return a label provider that can be used to compute proposal labels
 	 */
-	public CompletionProposalLabelProvider getLabelProvider() {
+	public synchronized CompletionProposalLabelProvider getLabelProvider() {
 		if (fLabelProvider == null) {
 			if (fCollector != null)
 				fLabelProvider= fCollector.getLabelProvider();
@@ -272,22 +305,25 @@ public class JavaContentAssistInvocationContext extends ContentAssistInvocationC
 	 *
 	 * @param collector the collector
 	 */
-	void setCollector(CompletionProposalCollector collector) {
+	synchronized void setCollector(CompletionProposalCollector collector) {
 		fCollector= collector;
 	}
 
 	/**
 	 * Fallback to retrieve a core context and keyword proposals when no collector is available.
 	 * Runs code completion on the cu and collects keyword proposals. {@link #fKeywordProposals} is
-	 * non-<code>null</code> after this call.
+	 * non-<code>null</code> after this call. Code completion runs without holding the lock of this
+	 * context; concurrent callers may both run it, the first result is kept.
 	 *
 	 * @since 3.3
 	 */
 	private void computeKeywordsAndContext() {
 		ICompilationUnit cu= getCompilationUnit();
 		if (cu == null) {
-			if (fKeywordProposals == null)
-				fKeywordProposals= new IJavaCompletionProposal[0];
+			synchronized (this) {
+				if (fKeywordProposals == null)
+					fKeywordProposals= new IJavaCompletionProposal[0];
+			}
 			return;
 		}
 
@@ -296,17 +332,21 @@ public class JavaContentAssistInvocationContext extends ContentAssistInvocationC
 
 		try {
 			cu.codeComplete(getInvocationOffset(), collector);
-			if (fCoreContext == null)
-				fCoreContext= collector.getContext();
-			if (fKeywordProposals == null)
-				fKeywordProposals= collector.getKeywordCompletionProposals();
-			if (fLabelProvider == null)
-				fLabelProvider= collector.getLabelProvider();
+			synchronized (this) {
+				if (fCoreContext == null)
+					fCoreContext= collector.getContext();
+				if (fKeywordProposals == null)
+					fKeywordProposals= collector.getKeywordCompletionProposals();
+				if (fLabelProvider == null)
+					fLabelProvider= collector.getLabelProvider();
+			}
 		} catch (JavaModelException x) {
 			if (!x.isDoesNotExist() || cu.getJavaProject() == null || cu.getJavaProject().isOnClasspath(cu))
 				JavaPlugin.log(x);
-			if (fKeywordProposals == null)
-				fKeywordProposals= new IJavaCompletionProposal[0];
+			synchronized (this) {
+				if (fKeywordProposals == null)
+					fKeywordProposals= new IJavaCompletionProposal[0];
+			}
 		}
 	}
 